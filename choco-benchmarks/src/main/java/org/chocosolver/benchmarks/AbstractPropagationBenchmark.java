@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.benchmarks;
+
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.solver.Cause;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.IntVar;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * A base class to benchmark propagation, without the search loop.
+ * <p>
+ * A model is built and propagated once, then each benchmark operation runs a random dive:
+ * variables are instantiated to random values, one after the other, and a fix point is computed after each
+ * instantiation, until either all variables are instantiated or a failure occurs.
+ * Finally, the state of the model is restored to the root node.
+ * <br/>
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+@State(Scope.Thread)
+public abstract class AbstractPropagationBenchmark {
+
+    /**
+     * Seed of the random dives.
+     */
+    @Param({"0"})
+    public long seed;
+
+    /**
+     * The solver to benchmark.
+     */
+    protected Solver solver;
+
+    /**
+     * The variables to instantiate during a dive.
+     */
+    protected IntVar[] vars;
+
+    private Random random;
+
+    /**
+     * Build the model, that is, set {@link #solver} and {@link #vars}.
+     */
+    protected abstract void buildModel();
+
+    @Setup(Level.Trial)
+    public void setUp() throws ContradictionException {
+        buildModel();
+        solver.propagate();
+        random = new Random(seed);
+    }
+
+    /**
+     * Run a random dive from the root node, then restore the root node.
+     *
+     * @return the number of instantiations done before reaching a solution or a failure
+     */
+    protected int dive() {
+        IEnvironment environment = solver.getEnvironment();
+        int root = environment.getWorldIndex();
+        int depth = 0;
+        try {
+            IntVar var;
+            while ((var = select()) != null) {
+                environment.worldPush();
+                depth++;
+                var.instantiateTo(value(var), Cause.Null);
+                solver.propagate();
+            }
+        } catch (ContradictionException e) {
+            solver.getEngine().flush();
+        }
+        environment.worldPopUntil(root);
+        return depth;
+    }
+
+    /**
+     * @return a random uninstantiated variable, or <tt>null</tt> if all variables are instantiated
+     */
+    private IntVar select() {
+        int start = random.nextInt(vars.length);
+        for (int i = 0; i < vars.length; i++) {
+            IntVar var = vars[(start + i) % vars.length];
+            if (!var.isInstantiated()) {
+                return var;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param var an uninstantiated variable
+     * @return a random value of the domain of <code>var</code>
+     */
+    private int value(IntVar var) {
+        int k = random.nextInt(var.getDomainSize());
+        int value = var.getLB();
+        while (k-- > 0) {
+            value = var.nextValue(value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.benchmarks.constraints;
+
+import org.chocosolver.benchmarks.AbstractPropagationBenchmark;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.ICF;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.VF;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Benchmarks {@link org.chocosolver.solver.constraints.nary.alldifferent.algo.AlgoAllDiffAC}
+ * (and the other all-different filtering algorithms) on a latin square model.
+ * <br/>
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public class AllDifferentBenchmark extends AbstractPropagationBenchmark {
+
+    /**
+     * Consistency level of the all-different constraints.
+     */
+    @Param({"AC", "BC", "FC"})
+    public String consistency;
+
+    /**
+     * Order of the latin square.
+     */
+    @Param({"15"})
+    public int m;
+
+    @Override
+    protected void buildModel() {
+        solver = new Solver();
+        vars = VF.enumeratedArray("c", m * m, 0, m - 1, solver);
+        for (int i = 0; i < m; i++) {
+            IntVar[] row = new IntVar[m];
+            IntVar[] col = new IntVar[m];
+            for (int x = 0; x < m; x++) {
+                row[x] = vars[i * m + x];
+                col[x] = vars[x * m + i];
+            }
+            solver.post(ICF.alldifferent(row, consistency));
+            solver.post(ICF.alldifferent(col, consistency));
+        }
+    }
+
+    @Benchmark
+    public int propagate() {
+        return dive();
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.benchmarks.constraints;
+
+import org.chocosolver.benchmarks.AbstractPropagationBenchmark;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.ICF;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.VF;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import java.util.Random;
+
+/**
+ * Benchmarks {@link org.chocosolver.solver.constraints.nary.sum.PropSum} (<tt>SUM</tt>, unit coefficients)
+ * and {@link org.chocosolver.solver.constraints.nary.sum.PropScalar} (<tt>SCALAR</tt>, any coefficients)
+ * on random linear inequalities.
+ * <br/>
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public class SumBenchmark extends AbstractPropagationBenchmark {
+
+    @Param({"SUM", "SCALAR"})
+    public String type;
+
+    /**
+     * Number of variables.
+     */
+    @Param({"50"})
+    public int n;
+
+    /**
+     * Number of linear inequalities.
+     */
+    @Param({"30"})
+    public int m;
+
+    /**
+     * Arity of each linear inequality.
+     */
+    @Param({"12"})
+    public int arity;
+
+    @Override
+    protected void buildModel() {
+        Random rnd = new Random(0);
+        solver = new Solver();
+        vars = VF.enumeratedArray("X", n, 0, 20, solver);
+        for (int c = 0; c < m; c++) {
+            IntVar[] scope = new IntVar[arity];
+            int[] coeffs = new int[arity];
+            int max = 0;
+            for (int i = 0; i < arity; i++) {
+                scope[i] = vars[rnd.nextInt(n)];
+                coeffs[i] = type.equals("SUM") ? 1 : 1 + rnd.nextInt(5);
+                max += coeffs[i] * 20;
+            }
+            String op = c % 2 == 0 ? "<=" : ">=";
+            IntVar rhs = VF.fixed(c % 2 == 0 ? max * 2 / 3 : max / 3, solver);
+            if (type.equals("SUM")) {
+                solver.post(ICF.sum(scope, op, rhs));
+            } else {
+                solver.post(ICF.scalar(scope, coeffs, op, rhs));
+            }
+        }
+    }
+
+    @Benchmark
+    public int propagate() {
+        return dive();
+    }
+}
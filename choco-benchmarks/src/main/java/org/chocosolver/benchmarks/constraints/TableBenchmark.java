@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.benchmarks.constraints;
+
+import org.chocosolver.benchmarks.AbstractPropagationBenchmark;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.ICF;
+import org.chocosolver.solver.constraints.extension.Tuples;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.VF;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import java.util.Random;
+
+/**
+ * Benchmarks the propagators of table constraints, for instance
+ * {@link org.chocosolver.solver.constraints.extension.nary.PropTableStr2} (<tt>STR2+</tt>),
+ * on random positive tables.
+ * <br/>
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public class TableBenchmark extends AbstractPropagationBenchmark {
+
+    /**
+     * The filtering algorithm of the table constraints.
+     */
+    @Param({"STR2+", "GAC3rm", "GAC2001+"})
+    public String algorithm;
+
+    /**
+     * Number of variables.
+     */
+    @Param({"30"})
+    public int n;
+
+    /**
+     * Number of table constraints.
+     */
+    @Param({"40"})
+    public int m;
+
+    /**
+     * Arity of the table constraints.
+     */
+    @Param({"4"})
+    public int arity;
+
+    /**
+     * Number of allowed tuples per table.
+     */
+    @Param({"1000"})
+    public int ntuples;
+
+    @Override
+    protected void buildModel() {
+        Random rnd = new Random(0);
+        solver = new Solver();
+        int d = 10;
+        vars = VF.enumeratedArray("X", n, 0, d - 1, solver);
+        for (int c = 0; c < m; c++) {
+            IntVar[] scope = new IntVar[arity];
+            for (int i = 0; i < arity; i++) {
+                // distinct variables in a scope
+                do {
+                    scope[i] = vars[rnd.nextInt(n)];
+                } while (contains(scope, i, scope[i]));
+            }
+            Tuples tuples = new Tuples(true);
+            for (int t = 0; t < ntuples; t++) {
+                int[] tuple = new int[arity];
+                for (int i = 0; i < arity; i++) {
+                    tuple[i] = rnd.nextInt(d);
+                }
+                tuples.add(tuple);
+            }
+            solver.post(ICF.table(scope, tuples, algorithm));
+        }
+    }
+
+    private static boolean contains(IntVar[] scope, int size, IntVar var) {
+        for (int i = 0; i < size; i++) {
+            if (scope[i] == var) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public int propagate() {
+        return dive();
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.benchmarks.memory;
+
+import org.chocosolver.memory.IStateInt;
+import org.chocosolver.memory.trailing.EnvironmentTrailing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks {@link EnvironmentTrailing#worldPush()} and {@link EnvironmentTrailing#worldPop()}.
+ * <p>
+ * Each operation pushes <code>depth</code> worlds, modifies a part of the stored integers in each of them,
+ * then pops them all, which mimics a dive in the search tree followed by a backtrack to the root node.
+ * <br/>
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+@State(Scope.Thread)
+public class TrailingBenchmark {
+
+    /**
+     * Number of stored integers.
+     */
+    @Param({"100", "10000"})
+    public int size;
+
+    /**
+     * Number of worlds pushed then popped per operation.
+     */
+    @Param({"50"})
+    public int depth;
+
+    /**
+     * Number of stored integers modified per world.
+     */
+    @Param({"1", "20"})
+    public int modifications;
+
+    private EnvironmentTrailing environment;
+
+    private IStateInt[] ints;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = new EnvironmentTrailing();
+        ints = new IStateInt[size];
+        for (int i = 0; i < size; i++) {
+            ints[i] = environment.makeInt(i);
+        }
+    }
+
+    @Benchmark
+    public int pushAndPop() {
+        int k = 0;
+        for (int d = 0; d < depth; d++) {
+            environment.worldPush();
+            for (int m = 0; m < modifications; m++) {
+                k = (k + 7919) % size;
+                ints[k].add(1);
+            }
+        }
+        for (int d = 0; d < depth; d++) {
+            environment.worldPop();
+        }
+        return ints[k].get();
+    }
+
+    @Benchmark
+    public int pushOnly() {
+        for (int d = 0; d < depth; d++) {
+            environment.worldPush();
+        }
+        int w = environment.getWorldIndex();
+        for (int d = 0; d < depth; d++) {
+            environment.worldPop();
+        }
+        return w;
+    }
+}
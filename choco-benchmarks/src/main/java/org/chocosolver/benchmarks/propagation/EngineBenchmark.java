@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.benchmarks.propagation;
+
+import org.chocosolver.benchmarks.AbstractPropagationBenchmark;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.ICF;
+import org.chocosolver.solver.propagation.PropagationEngineFactory;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.VF;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Benchmarks the propagation engines, for instance
+ * {@link org.chocosolver.solver.propagation.hardcoded.TwoBucketPropagationEngine#propagate()},
+ * on a n-queens model which mixes binary constraints and global constraints.
+ * <br/>
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public class EngineBenchmark extends AbstractPropagationBenchmark {
+
+    /**
+     * The propagation engine to benchmark.
+     */
+    @Param({"TWOBUCKETPROPAGATIONENGINE", "PROPAGATORDRIVEN_7QD"})
+    public PropagationEngineFactory engine;
+
+    /**
+     * Number of queens.
+     */
+    @Param({"32"})
+    public int n;
+
+    @Override
+    protected void buildModel() {
+        solver = new Solver();
+        vars = VF.enumeratedArray("Q", n, 1, n, solver);
+        IntVar[] diag1 = new IntVar[n];
+        IntVar[] diag2 = new IntVar[n];
+        for (int i = 0; i < n; i++) {
+            diag1[i] = VF.offset(vars[i], i);
+            diag2[i] = VF.offset(vars[i], -i);
+            for (int j = i + 1; j < n; j++) {
+                solver.post(ICF.arithm(vars[i], "!=", vars[j], "+", j - i));
+                solver.post(ICF.arithm(vars[i], "!=", vars[j], "-", j - i));
+            }
+        }
+        solver.post(ICF.alldifferent(vars, "BC"));
+        solver.post(ICF.alldifferent(diag1, "BC"));
+        solver.post(ICF.alldifferent(diag2, "BC"));
+        solver.set(engine.make(solver));
+    }
+
+    @Benchmark
+    public int propagate() {
+        return dive();
+    }
+}
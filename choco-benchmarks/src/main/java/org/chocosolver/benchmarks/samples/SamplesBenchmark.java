@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.benchmarks.samples;
+
+import org.chocosolver.samples.AbstractProblem;
+import org.chocosolver.samples.integer.CarSequencing;
+import org.chocosolver.samples.integer.GolombRuler;
+import org.chocosolver.samples.nqueen.NQueenBinary;
+import org.chocosolver.samples.nqueen.NQueenGlobal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end benchmarks: the resolution of some samples, from the initial propagation to the end of the search.
+ * The model is built (and not measured) before each resolution.
+ * <br/>
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SamplesBenchmark {
+
+    /**
+     * The sample to solve, and its arguments.
+     */
+    @Param({"NQueenBinary -q 12", "NQueenGlobal -q 60", "GolombRuler -m 8", "CarSequencing -d P4_72"})
+    public String sample;
+
+    private AbstractProblem problem;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        String[] args = sample.split(" ");
+        switch (args[0]) {
+            case "NQueenBinary":
+                problem = new NQueenBinary();
+                break;
+            case "NQueenGlobal":
+                problem = new NQueenGlobal();
+                break;
+            case "GolombRuler":
+                problem = new GolombRuler();
+                break;
+            case "CarSequencing":
+                problem = new CarSequencing();
+                break;
+            default:
+                throw new UnsupportedOperationException("Unknown sample " + args[0]);
+        }
+        String[] options = new String[args.length + 1];
+        System.arraycopy(args, 1, options, 0, args.length - 1);
+        options[args.length - 1] = "-log";
+        options[args.length] = "SILENT";
+        problem.readArgs(options);
+        problem.createSolver();
+        problem.buildModel();
+        problem.configureSearch();
+    }
+
+    @Benchmark
+    public long solve() {
+        problem.solve();
+        return problem.getSolver().getMeasures().getNodeCount();
+    }
+}
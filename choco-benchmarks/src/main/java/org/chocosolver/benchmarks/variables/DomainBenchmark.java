@@ -0,0 +1,181 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.benchmarks.variables;
+
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.solver.Cause;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.VF;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the domain operations of the integer variable implementations:
+ * {@link org.chocosolver.solver.variables.impl.BitsetIntVarImpl} (<tt>BITSET</tt>),
+ * {@link org.chocosolver.solver.variables.impl.IntervalIntVarImpl} (<tt>INTERVAL</tt>) and
+ * {@link org.chocosolver.solver.variables.impl.BitsetArrayIntVarImpl} (<tt>BITSETARRAY</tt>).
+ * <p>
+ * Each modifying operation is done in a new world, which is popped afterwards.
+ * <br/>
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+@State(Scope.Thread)
+public class DomainBenchmark {
+
+    /**
+     * The implementation to benchmark.
+     */
+    @Param({"BITSET", "INTERVAL", "BITSETARRAY"})
+    public String implementation;
+
+    /**
+     * Initial domain size.
+     */
+    @Param({"64", "1024"})
+    public int size;
+
+    private IEnvironment environment;
+
+    private IntVar var;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Solver solver = new Solver();
+        environment = solver.getEnvironment();
+        switch (implementation) {
+            case "BITSET":
+                var = VF.enumerated("x", 0, size - 1, solver);
+                break;
+            case "INTERVAL":
+                var = VF.bounded("x", 0, size - 1, solver);
+                break;
+            case "BITSETARRAY": {
+                // values are sparse enough to select a BitsetArrayIntVarImpl
+                int[] values = new int[size];
+                for (int i = 0; i < size; i++) {
+                    values[i] = i * 10;
+                }
+                var = VF.enumerated("x", values, solver);
+            }
+            break;
+            default:
+                throw new UnsupportedOperationException("Unknown implementation " + implementation);
+        }
+    }
+
+    /**
+     * Shrink the bounds of the domain from both sides, one value at a time.
+     */
+    @Benchmark
+    public int updateBounds() throws ContradictionException {
+        environment.worldPush();
+        while (var.getLB() < var.getUB()) {
+            var.updateLowerBound(var.nextValue(var.getLB()), Cause.Null);
+            if (var.getLB() < var.getUB()) {
+                var.updateUpperBound(var.previousValue(var.getUB()), Cause.Null);
+            }
+        }
+        int value = var.getValue();
+        environment.worldPop();
+        return value;
+    }
+
+    /**
+     * Remove every other value of the domain (only the bounds for an interval domain).
+     */
+    @Benchmark
+    public int removeValues() throws ContradictionException {
+        environment.worldPush();
+        if (var.hasEnumeratedDomain()) {
+            int ub = var.getUB();
+            for (int v = var.getLB(); v < ub; v = var.nextValue(var.nextValue(v))) {
+                var.removeValue(v, Cause.Null);
+            }
+        } else {
+            while (var.getDomainSize() > size / 2) {
+                var.removeValue(var.getLB(), Cause.Null);
+            }
+        }
+        int dsize = var.getDomainSize();
+        environment.worldPop();
+        return dsize;
+    }
+
+    /**
+     * Iterate over the values of the domain.
+     */
+    @Benchmark
+    public int iterate() {
+        int sum = 0;
+        int ub = var.getUB();
+        for (int v = var.getLB(); v <= ub; v = var.nextValue(v)) {
+            sum += v;
+        }
+        return sum;
+    }
+
+    /**
+     * Check the membership of each value of the initial interval.
+     */
+    @Benchmark
+    public int contains() {
+        int count = 0;
+        int ub = var.getUB();
+        for (int v = var.getLB(); v <= ub; v++) {
+            if (var.contains(v)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Instantiate the variable to a value in the middle of its domain.
+     */
+    @Benchmark
+    public int instantiate() throws ContradictionException {
+        environment.worldPush();
+        int value = var.getLB();
+        for (int i = 0; i < size / 2; i++) {
+            value = var.nextValue(value);
+        }
+        var.instantiateTo(value, Cause.Null);
+        environment.worldPop();
+        return value;
+    }
+}
@@ -3,8 +3,6 @@ package org.chocosolver.samples.integer;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.apache.spark.SparkConf;
-import org.apache.spark.api.java.JavaSparkContext;
 import org.chocosolver.solver.Solver;
 import org.chocosolver.solver.constraints.Constraint;
 import org.chocosolver.solver.constraints.ICF;
@@ -16,6 +14,7 @@ import org.chocosolver.solver.search.strategy.IntStrategyFactory;
 import org.chocosolver.solver.trace.Chatterbox;
 import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.solver.variables.VariableFactory;
+import org.chocosolver.util.tools.DecisionForest;
 
 public class CarreMagique {
 	public static final int HEURISTIQUE_DEFAUT = 0;
@@ -32,14 +31,12 @@ public class CarreMagique {
 	int n;
 	int magicSum;
 
-	private SparkConf sparkConf;
-	private JavaSparkContext sparkContext;
+	// the model selecting the table propagators, training data is collected when null
+	private DecisionForest model;
 
 	public CarreMagique(int size) {
 		n = size;
 		magicSum = size * (size * size + 1) / 2;
-		sparkConf = new SparkConf().setAppName("CarreMagique").setMaster("local[2]");
-		sparkContext = new JavaSparkContext(sparkConf);
 	}
 
 	public void solve() {
@@ -169,11 +166,11 @@ public class CarreMagique {
         IntVar[][] magicSquareVars) {
 		List<Constraint> constraints = new ArrayList<Constraint>();
 		for (int i = 0; i < n; i++) {
-			constraints.add(ICF.predictiveTable(magicSquareVars[i], tuples, sparkContext));
-			constraints.add(ICF.predictiveTable(getColumn(i, magicSquareVars), tuples, sparkContext));
+			constraints.add(ICF.predictiveTable(magicSquareVars[i], tuples, model));
+			constraints.add(ICF.predictiveTable(getColumn(i, magicSquareVars), tuples, model));
 		}
-		constraints.add(ICF.predictiveTable(getDiag1(magicSquareVars), tuples, sparkContext));
-		constraints.add(ICF.predictiveTable(getDiag2(magicSquareVars), tuples, sparkContext));
+		constraints.add(ICF.predictiveTable(getDiag1(magicSquareVars), tuples, model));
+		constraints.add(ICF.predictiveTable(getDiag2(magicSquareVars), tuples, model));
 		return constraints;
 	}
 
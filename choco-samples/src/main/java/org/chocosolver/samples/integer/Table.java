@@ -29,8 +29,6 @@
  */
 package org.chocosolver.samples.integer;
 
-import org.apache.spark.SparkConf;
-import org.apache.spark.api.java.JavaSparkContext;
 import org.chocosolver.samples.AbstractProblem;
 import org.chocosolver.solver.Solver;
 import org.chocosolver.solver.constraints.ICF;
@@ -38,6 +36,7 @@ import org.chocosolver.solver.constraints.extension.Tuples;
 import org.chocosolver.solver.search.strategy.ISF;
 import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.solver.variables.VariableFactory;
+import org.chocosolver.util.tools.DecisionForest;
 
 import java.util.Random;
 
@@ -56,8 +55,7 @@ public class Table extends AbstractProblem {
 	int n = 15;
 	int upB = 1000;
 	int lowB = -1000;
-	SparkConf sparkConf = new SparkConf().setAppName("Test").setMaster("local[2]");
-	JavaSparkContext sparkContext = new JavaSparkContext(sparkConf);
+	DecisionForest model = null; // training data is collected
 
 	//***********************************************************************************
 	// METHODS
@@ -81,7 +79,7 @@ public class Table extends AbstractProblem {
 			tuples.add(tuple);
 			System.out.println();
 		}
-		solver.post(ICF.predictiveTable(vars,tuples, sparkContext));
+		solver.post(ICF.predictiveTable(vars,tuples, model));
 	}
 
 	@Override
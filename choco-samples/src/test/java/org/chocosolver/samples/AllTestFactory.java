@@ -66,7 +66,9 @@ public class AllTestFactory {
 
     Environments[] envFact = new Environments[]{
             Environments.TRAIL,
-            Environments.COPY
+            Environments.COPY,
+            Environments.TRAIL_OFF_HEAP,
+            Environments.HYBRID
     };
 
     ExplanationFactory[] expFact = new ExplanationFactory[]{
@@ -39,7 +39,7 @@ import org.chocosolver.memory.structure.S64BitSet;
  */
 public abstract class AbstractEnvironment implements IEnvironment {
 
-    protected enum Type {
+    public enum Type {
         FLAT, CHUNK, UNSAFE
     }
 
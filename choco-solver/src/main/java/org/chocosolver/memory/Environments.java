@@ -30,6 +30,7 @@
 package org.chocosolver.memory;
 
 import org.chocosolver.memory.copy.EnvironmentCopying;
+import org.chocosolver.memory.hybrid.EnvironmentHybrid;
 import org.chocosolver.memory.trailing.EnvironmentTrailing;
 
 /**
@@ -54,6 +55,23 @@ public enum Environments {
                     new EnvironmentCopying();
         }
     },
+    /**
+     * Trailing with former values stored off-heap, see {@link IEnvironment#release()}.
+     */
+    TRAIL_OFF_HEAP() {
+        @Override
+        public IEnvironment make() {
+            return
+                    new EnvironmentTrailing(AbstractEnvironment.Type.UNSAFE);
+        }
+    },
+    HYBRID() {
+        @Override
+        public IEnvironment make() {
+            return
+                    new EnvironmentHybrid();
+        }
+    },
     DEFAULT() {
         @Override
         public IEnvironment make() {
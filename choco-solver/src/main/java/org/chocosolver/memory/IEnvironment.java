@@ -191,4 +191,11 @@ public interface IEnvironment extends Serializable {
      * @return the timestamp
      */
     int getTimeStamp();
+
+    /**
+     * Give back the memory not managed by the garbage collector, if any (for instance, off-heap trails).
+     * The environment cannot be used anymore afterwards.
+     */
+    default void release() {
+    }
 }
@@ -0,0 +1,377 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.memory.hybrid;
+
+import org.chocosolver.memory.*;
+import org.chocosolver.memory.copy.store.StoredOperationCopy;
+import org.chocosolver.memory.hybrid.store.*;
+import org.chocosolver.memory.structure.Operation;
+
+/**
+ * An environment which mixes trailing and copying.
+ * <p/>
+ * Backtrackable primitives are trailed, like in {@link org.chocosolver.memory.trailing.EnvironmentTrailing},
+ * except every <i>k</i> worlds where a compact snapshot of all of them is taken,
+ * like in {@link org.chocosolver.memory.copy.EnvironmentCopying}.
+ * Within such a checkpoint world, modifications are not trailed at all,
+ * and backtracking over several worlds at once only has to restore the lowest snapshot crossed.
+ * <p/>
+ * The checkpoint interval <i>k</i> is either fixed on construction or, by default, adapted on the fly:
+ * it is set such that the amortized cost of a snapshot (proportional to the number of registered primitives)
+ * matches the cost of trailing (estimated by the number of trail entries per world, smoothed over time).
+ * <p/>
+ * Operations and vectors are always trailed.
+ * <br/>
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public class EnvironmentHybrid extends AbstractEnvironment {
+
+    /**
+     * Bounds of the checkpoint interval when it is adapted.
+     * The lower bound ensures that some worlds are still trailed, and thus measured.
+     */
+    private static final int MIN_INTERVAL = 2, MAX_INTERVAL = 1024;
+
+    /**
+     * Smoothing factor of the trail growth estimation.
+     */
+    private static final double ALPHA = 1. / 8;
+
+    private HybridBoolStore boolStore;
+    private HybridIntStore intStore;
+    private HybridLongStore longStore;
+    private HybridDoubleStore doubleStore;
+    private final StoredOperationCopy operationTrail;
+
+    private IHybridStorage[] stores;
+    private int storeSize;
+
+    /**
+     * Set to <tt>true</tt> when the interval is adapted.
+     */
+    private final boolean adaptive;
+
+    /**
+     * Number of worlds between two checkpoints.
+     */
+    private int interval;
+
+    /**
+     * Estimated number of trail entries per world.
+     */
+    private double growth;
+
+    /**
+     * For each world, set to <tt>true</tt> if it is a checkpoint.
+     */
+    private boolean[] checkpoints;
+
+    /**
+     * For each world, the index of the closest checkpoint world below or equal to it (0 if none).
+     */
+    private int[] lastCheckpoints;
+
+    /**
+     * Set to <tt>true</tt> when the current world is a checkpoint.
+     */
+    private boolean checkpoint;
+
+    /**
+     * Create an hybrid environment where the checkpoint interval is adapted on the fly.
+     */
+    public EnvironmentHybrid() {
+        this(0);
+    }
+
+    /**
+     * Create an hybrid environment with a fixed checkpoint interval.
+     *
+     * @param interval number of worlds between two checkpoints, 0 to adapt it on the fly.
+     *                 An interval of 1 makes it behave like a copying environment.
+     */
+    public EnvironmentHybrid(int interval) {
+        super(Type.FLAT);
+        if (interval < 0) {
+            throw new IllegalArgumentException("The checkpoint interval should be positive");
+        }
+        this.adaptive = interval == 0;
+        this.interval = adaptive ? MAX_INTERVAL : interval;
+        stores = new IHybridStorage[0];
+        operationTrail = new StoredOperationCopy();
+        checkpoints = new boolean[64];
+        lastCheckpoints = new int[64];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void worldPush() {
+        timestamp++;
+        final int wi = currentWorld + 1;
+        if (wi == checkpoints.length) {
+            resizeWorldCapacity(wi * 3 / 2 + 1);
+        }
+        if (adaptive) {
+            adaptInterval();
+        }
+        checkpoint = wi - lastCheckpoints[currentWorld] >= interval;
+        checkpoints[wi] = checkpoint;
+        lastCheckpoints[wi] = checkpoint ? wi : lastCheckpoints[currentWorld];
+        for (int i = 0; i < storeSize; i++) {
+            stores[i].worldPush(wi, checkpoint);
+        }
+        operationTrail.worldPush(wi);
+        currentWorld++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void worldPop() {
+        timestamp++;
+        final int wi = currentWorld;
+        operationTrail.worldPop(wi);
+        if (checkpoints[wi]) {
+            for (int i = storeSize - 1; i >= 0; i--) {
+                stores[i].restore(wi);
+            }
+        } else {
+            int entries = 0;
+            for (int i = storeSize - 1; i >= 0; i--) {
+                entries += stores[i].worldPop(wi);
+            }
+            growth += (entries - growth) * ALPHA;
+        }
+        currentWorld--;
+        checkpoint = checkpoints[currentWorld];
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Worlds are not popped one by one: the lowest snapshot above <i>w</i>, if any, is restored directly.
+     */
+    @Override
+    public void worldPopUntil(int w) {
+        timestamp++;
+        while (currentWorld > w) {
+            int c = lastCheckpoints[currentWorld];
+            if (c > w) {
+                while (lastCheckpoints[c - 1] > w) {
+                    c = lastCheckpoints[c - 1];
+                }
+                operationTrail.worldPop(c);
+                for (int i = storeSize - 1; i >= 0; i--) {
+                    stores[i].restore(c);
+                }
+                currentWorld = c - 1;
+            } else {
+                operationTrail.worldPop(w + 1);
+                for (int i = storeSize - 1; i >= 0; i--) {
+                    stores[i].worldPop(w + 1);
+                }
+                currentWorld = w;
+            }
+        }
+        checkpoint = checkpoints[currentWorld];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void worldCommit() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @return <tt>true</tt> if the current world is a checkpoint,
+     * that is, modifications of primitives need not be trailed.
+     */
+    public final boolean isCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * @return the current number of worlds between two checkpoints
+     */
+    public final int getCheckpointInterval() {
+        return interval;
+    }
+
+    /**
+     * Balance the amortized cost of a snapshot with the estimated cost of trailing a world.
+     */
+    private void adaptInterval() {
+        int n = 0;
+        for (int i = 0; i < storeSize; i++) {
+            n += stores[i].getNbObjects();
+        }
+        if (growth < 1.) {
+            interval = MAX_INTERVAL;
+        } else {
+            interval = (int) Math.max(MIN_INTERVAL, Math.min(MAX_INTERVAL, Math.ceil(n / growth)));
+        }
+    }
+
+    @Override
+    public void save(Operation operation) {
+        operationTrail.savePreviousState(operation);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IStateInt makeInt() {
+        return makeInt(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IStateInt makeInt(final int initialValue) {
+        return new HybridInt(this, initialValue);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IStateBool makeBool(final boolean initialValue) {
+        return new HybridBool(this, initialValue);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IStateIntVector makeIntVector(final int size, final int initialValue) {
+        return new HybridIntVector(this, size, initialValue);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IStateDoubleVector makeDoubleVector(final int size, final double initialValue) {
+        return new HybridDoubleVector(this, size, initialValue);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IStateDouble makeFloat() {
+        return makeFloat(Double.NaN);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IStateDouble makeFloat(final double initialValue) {
+        return new HybridDouble(this, initialValue);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IStateLong makeLong() {
+        return makeLong(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IStateLong makeLong(final long init) {
+        return new HybridLong(this, init);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    private void increaseStore() {
+        IHybridStorage[] tmp = stores;
+        stores = new IHybridStorage[tmp.length + 1];
+        System.arraycopy(tmp, 0, stores, 0, tmp.length);
+    }
+
+    public HybridIntStore getIntStore() {
+        if (intStore == null) {
+            intStore = new HybridIntStore();
+            increaseStore();
+            stores[storeSize++] = intStore;
+        }
+        return intStore;
+    }
+
+    public HybridBoolStore getBoolStore() {
+        if (boolStore == null) {
+            boolStore = new HybridBoolStore();
+            increaseStore();
+            stores[storeSize++] = boolStore;
+        }
+        return boolStore;
+    }
+
+    public HybridLongStore getLongStore() {
+        if (longStore == null) {
+            longStore = new HybridLongStore();
+            increaseStore();
+            stores[storeSize++] = longStore;
+        }
+        return longStore;
+    }
+
+    public HybridDoubleStore getDoubleStore() {
+        if (doubleStore == null) {
+            doubleStore = new HybridDoubleStore();
+            increaseStore();
+            stores[storeSize++] = doubleStore;
+        }
+        return doubleStore;
+    }
+
+    private void resizeWorldCapacity(final int newWorldCapacity) {
+        final boolean[] tmp1 = new boolean[newWorldCapacity];
+        System.arraycopy(checkpoints, 0, tmp1, 0, checkpoints.length);
+        checkpoints = tmp1;
+        final int[] tmp2 = new int[newWorldCapacity];
+        System.arraycopy(lastCheckpoints, 0, tmp2, 0, lastCheckpoints.length);
+        lastCheckpoints = tmp2;
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.memory.hybrid;
+
+import org.chocosolver.memory.IStateBool;
+import org.chocosolver.memory.hybrid.store.HybridBoolStore;
+
+/**
+ * A backtrackable boolean of {@link EnvironmentHybrid}.
+ * Its former value is trailed only when it is modified out of a checkpoint world.
+ * <br/>
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public class HybridBool extends IStateBool {
+
+    private final EnvironmentHybrid env;
+
+    private final HybridBoolStore myStore;
+
+    private final int index;
+
+    public HybridBool(final EnvironmentHybrid env, final boolean i) {
+        super(env, i);
+        this.env = env;
+        myStore = env.getBoolStore();
+        index = myStore.add(this);
+        if (env.fakeHistoryNeeded()) {
+            myStore.buildFakeHistory(this, i, timeStamp);
+        }
+    }
+
+    @Override
+    public final void set(final boolean y) {
+        if (y != currentValue) {
+            final int wi = environment.getWorldIndex();
+            if (this.timeStamp < wi) {
+                if (!env.isCheckpoint()) {
+                    myStore.savePreviousState(this, currentValue, timeStamp);
+                }
+                timeStamp = wi;
+            }
+            currentValue = y;
+        }
+    }
+
+    /**
+     * @return the index of this object in its storage
+     */
+    public final int getIndex() {
+        return index;
+    }
+}
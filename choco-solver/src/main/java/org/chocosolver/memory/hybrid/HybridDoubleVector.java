@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.memory.hybrid;
+
+import org.chocosolver.memory.IStateDoubleVector;
+import org.chocosolver.memory.structure.Operation;
+
+/**
+ * A backtrackable vector of doubles of {@link EnvironmentHybrid}.
+ * Element modifications are always trailed as operations, its size is a {@link HybridInt}.
+ * <br/>
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public final class HybridDoubleVector extends IStateDoubleVector {
+
+    /**
+     * World in which each element has been modified for the last time.
+     */
+    private int[] worldStamps;
+
+    public HybridDoubleVector(EnvironmentHybrid env, int initialSize, double initialValue) {
+        super(env, initialSize, initialValue);
+        worldStamps = new int[elementData.length];
+        int w = env.getWorldIndex();
+        for (int i = 0; i < initialSize; i++) {
+            worldStamps[i] = w;
+        }
+    }
+
+    public void ensureCapacity(int minCapacity) {
+        int oldCapacity = elementData.length;
+        if (minCapacity > oldCapacity) {
+            double[] oldData = elementData;
+            int[] oldStamps = worldStamps;
+            int newCapacity = (oldCapacity * 3) / 2 + 1;
+            if (newCapacity < minCapacity)
+                newCapacity = minCapacity;
+            elementData = new double[newCapacity];
+            worldStamps = new int[newCapacity];
+            System.arraycopy(oldData, 0, elementData, 0, size.get());
+            System.arraycopy(oldStamps, 0, worldStamps, 0, size.get());
+        }
+    }
+
+    @Override
+    public void add(double i) {
+        int newsize = size.get() + 1;
+        ensureCapacity(newsize);
+        size.set(newsize);
+        elementData[newsize - 1] = i;
+        worldStamps[newsize - 1] = environment.getWorldIndex();
+    }
+
+    @Override
+    public void remove(int i) {
+        int newsize = size.get() - 1;
+        for (int j = i; j < newsize; j++) {
+            quickSet(j, elementData[j + 1]);
+        }
+        if (newsize >= 0)
+            size.set(newsize);
+    }
+
+    @Override
+    public void removeLast() {
+        int newsize = size.get() - 1;
+        if (newsize >= 0)
+            size.set(newsize);
+    }
+
+    @Override
+    public double set(int index, double val) {
+        if (rangeCheck(index)) {
+            return quickSet(index, val);
+        }
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size.get());
+    }
+
+    @Override
+    public double quickSet(int index, double val) {
+        assert (rangeCheck(index));
+        final double oldValue = elementData[index];
+        if (val != oldValue) {
+            final int wi = environment.getWorldIndex();
+            if (worldStamps[index] < wi) {
+                new Restore(index, oldValue, worldStamps[index]);
+                worldStamps[index] = wi;
+            }
+            elementData[index] = val;
+        }
+        return oldValue;
+    }
+
+    /**
+     * Restores the former value and stamp of an element upon backtrack.
+     */
+    private final class Restore extends Operation {
+
+        private final int index;
+        private final double value;
+        private final int stamp;
+
+        Restore(int index, double value, int stamp) {
+            super(environment);
+            this.index = index;
+            this.value = value;
+            this.stamp = stamp;
+        }
+
+        @Override
+        public void undo() {
+            elementData[index] = value;
+            worldStamps[index] = stamp;
+        }
+    }
+}
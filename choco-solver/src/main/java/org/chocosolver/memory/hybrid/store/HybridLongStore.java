@@ -0,0 +1,244 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.memory.hybrid.store;
+
+import org.chocosolver.memory.hybrid.HybridLong;
+
+/**
+ * Hybrid storage of {@link HybridLong}: a trail of former values and stamps,
+ * plus a snapshot of all the registered objects for each checkpoint world.
+ * <br/>
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public class HybridLongStore implements IHybridStorage {
+
+    /**
+     * Registered objects, the position of an object is its index.
+     */
+    private HybridLong[] objects;
+
+    /**
+     * Number of registered objects.
+     */
+    private int nbObjects;
+
+    /**
+     * Stack of backtrackable search variables.
+     */
+    private HybridLong[] variableStack;
+
+    /**
+     * Stack of values (former values that need be restored upon backtracking).
+     */
+    private long[] valueStack;
+
+    /**
+     * Stack of timestamps indicating the world where the former value
+     * had been written.
+     */
+    private int[] stampStack;
+
+    /**
+     * Points the level of the last entry.
+     */
+    private int currentLevel;
+
+    /**
+     * A stack of pointers (for each start of a world).
+     */
+    private int[] worldStartLevels;
+
+    /**
+     * Snapshots of values and stamps, only relevant for checkpoint worlds.
+     */
+    private long[][] snapValues;
+    private int[][] snapStamps;
+
+    /**
+     * Number of objects in each snapshot.
+     */
+    private int[] snapSizes;
+
+    public HybridLongStore() {
+        objects = new HybridLong[64];
+        variableStack = new HybridLong[1024];
+        valueStack = new long[1024];
+        stampStack = new int[1024];
+        worldStartLevels = new int[64];
+        snapValues = new long[64][];
+        snapStamps = new int[64][];
+        snapSizes = new int[64];
+    }
+
+    /**
+     * Register a new object.
+     *
+     * @param v an object
+     * @return the index of <i>v</i> in this storage
+     */
+    public int add(HybridLong v) {
+        if (nbObjects == objects.length) {
+            HybridLong[] tmp = objects;
+            objects = new HybridLong[tmp.length * 3 / 2 + 1];
+            System.arraycopy(tmp, 0, objects, 0, tmp.length);
+        }
+        objects[nbObjects] = v;
+        return nbObjects++;
+    }
+
+    @Override
+    public int getNbObjects() {
+        return nbObjects;
+    }
+
+    @Override
+    public void worldPush(int worldIndex, boolean checkpoint) {
+        if (worldIndex >= worldStartLevels.length) {
+            resizeWorldCapacity(worldIndex * 3 / 2 + 1);
+        }
+        worldStartLevels[worldIndex] = currentLevel;
+        if (checkpoint) {
+            long[] values = snapValues[worldIndex];
+            int[] stamps = snapStamps[worldIndex];
+            if (values == null || values.length < nbObjects) {
+                values = snapValues[worldIndex] = new long[objects.length];
+                stamps = snapStamps[worldIndex] = new int[objects.length];
+            }
+            for (int i = nbObjects - 1; i >= 0; i--) {
+                values[i] = objects[i].deepCopy();
+                stamps[i] = objects[i].getTimeStamp();
+            }
+            snapSizes[worldIndex] = nbObjects;
+        }
+    }
+
+    @Override
+    public int worldPop(int worldIndex) {
+        final int wsl = worldStartLevels[worldIndex];
+        final int n = currentLevel - wsl;
+        while (currentLevel > wsl) {
+            currentLevel--;
+            variableStack[currentLevel]._set(valueStack[currentLevel], stampStack[currentLevel]);
+        }
+        return n;
+    }
+
+    @Override
+    public void restore(int worldIndex) {
+        final int wsl = worldStartLevels[worldIndex];
+        final int n = snapSizes[worldIndex];
+        while (currentLevel > wsl) {
+            currentLevel--;
+            final HybridLong v = variableStack[currentLevel];
+            if (v.getIndex() >= n) {
+                v._set(valueStack[currentLevel], stampStack[currentLevel]);
+            }
+        }
+        final long[] values = snapValues[worldIndex];
+        final int[] stamps = snapStamps[worldIndex];
+        for (int i = n - 1; i >= 0; i--) {
+            objects[i]._set(values[i], stamps[i]);
+        }
+    }
+
+    /**
+     * Reacts when a HybridLong is modified out of a checkpoint world:
+     * push the former value & timestamp on the stacks.
+     */
+    public void savePreviousState(HybridLong v, long oldValue, int oldStamp) {
+        valueStack[currentLevel] = oldValue;
+        variableStack[currentLevel] = v;
+        stampStack[currentLevel] = oldStamp;
+        currentLevel++;
+        if (currentLevel == variableStack.length) {
+            resizeUpdateCapacity();
+        }
+    }
+
+    /**
+     * Build a fake history for <i>v</i>, created in world <i>olderStamp</i>,
+     * as if it had been created in world 0 with value <i>initValue</i>.
+     * Fake entries are always trailed, since <i>v</i> does not appear in earlier snapshots.
+     */
+    public void buildFakeHistory(HybridLong v, long initValue, int olderStamp) {
+        if (olderStamp >= worldStartLevels.length) {
+            resizeWorldCapacity(olderStamp * 3 / 2 + 1);
+        }
+        savePreviousState(v, initValue, olderStamp - 1);
+        while (currentLevel + olderStamp > variableStack.length) {
+            resizeUpdateCapacity();
+        }
+        int i1, f, s = currentLevel;
+        for (int w = olderStamp; w > 1; w--) {
+            f = worldStartLevels[w];
+            i1 = f + w - 1;
+            s -= f;
+            System.arraycopy(variableStack, f, variableStack, i1, s);
+            System.arraycopy(valueStack, f, valueStack, i1, s);
+            System.arraycopy(stampStack, f, stampStack, i1, s);
+            variableStack[i1 - 1] = v;
+            valueStack[i1 - 1] = initValue;
+            stampStack[i1 - 1] = w - 2;
+            worldStartLevels[w] += w - 1;
+            currentLevel++;
+            s = f;
+        }
+    }
+
+    private void resizeUpdateCapacity() {
+        final int newCapacity = ((variableStack.length * 3) / 2);
+        final HybridLong[] tmp1 = new HybridLong[newCapacity];
+        System.arraycopy(variableStack, 0, tmp1, 0, variableStack.length);
+        variableStack = tmp1;
+        final long[] tmp2 = new long[newCapacity];
+        System.arraycopy(valueStack, 0, tmp2, 0, valueStack.length);
+        valueStack = tmp2;
+        final int[] tmp3 = new int[newCapacity];
+        System.arraycopy(stampStack, 0, tmp3, 0, stampStack.length);
+        stampStack = tmp3;
+    }
+
+    private void resizeWorldCapacity(int newWorldCapacity) {
+        final int[] tmp = new int[newWorldCapacity];
+        System.arraycopy(worldStartLevels, 0, tmp, 0, worldStartLevels.length);
+        worldStartLevels = tmp;
+        final long[][] tmpv = new long[newWorldCapacity][];
+        System.arraycopy(snapValues, 0, tmpv, 0, snapValues.length);
+        snapValues = tmpv;
+        final int[][] tmps = new int[newWorldCapacity][];
+        System.arraycopy(snapStamps, 0, tmps, 0, snapStamps.length);
+        snapStamps = tmps;
+        final int[] tmpn = new int[newWorldCapacity];
+        System.arraycopy(snapSizes, 0, tmpn, 0, snapSizes.length);
+        snapSizes = tmpn;
+    }
+}
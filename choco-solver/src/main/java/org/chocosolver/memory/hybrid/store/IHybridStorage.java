@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.memory.hybrid.store;
+
+import java.io.Serializable;
+
+/**
+ * A storage of the hybrid environment.
+ * Modifications are trailed as long as the current world is not a checkpoint;
+ * entering a checkpoint world takes a snapshot of all the registered objects instead.
+ * <br/>
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public interface IHybridStorage extends Serializable {
+
+    /**
+     * Moving up to the next world.
+     *
+     * @param worldIndex current world index
+     * @param checkpoint set to <tt>true</tt> if a snapshot of the objects has to be taken
+     */
+    void worldPush(int worldIndex, boolean checkpoint);
+
+    /**
+     * Moving down to the previous world, by undoing the trailed modifications.
+     *
+     * @param worldIndex current world index
+     * @return the number of trailed modifications undone
+     */
+    int worldPop(int worldIndex);
+
+    /**
+     * Moving down to the world preceding the checkpoint <i>worldIndex</i>, by restoring its snapshot.
+     * Trailed modifications above that checkpoint are dropped, except those related to objects
+     * created after the snapshot had been taken.
+     *
+     * @param worldIndex index of a checkpoint world
+     */
+    void restore(int worldIndex);
+
+    /**
+     * @return the number of objects registered in this storage
+     */
+    int getNbObjects();
+}
@@ -0,0 +1,204 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.memory.structure;
+
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.memory.IStateInt;
+import org.chocosolver.memory.IStateLong;
+
+/**
+ * A reversible sparse bitset, as used by Compact-Table (Demeulenaere et al., CP'16).
+ * <p>
+ * Bits can only be removed (they are restored on backtrack), by intersection with a mask.
+ * The non-zero words are kept in the first part of a permutation of the word indices, whose limit is backtrackable:
+ * operations only visit non-zero words.
+ * <br/>
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public class RSparseBitSet {
+
+    /**
+     * The words, backtrackable
+     */
+    private final IStateLong[] words;
+
+    /**
+     * index[0..limit] are the indices of the non-zero words
+     */
+    private final int[] index;
+
+    /**
+     * Index of the last non-zero word in <code>index</code>, -1 when empty
+     */
+    private final IStateInt limit;
+
+    /**
+     * Temporary mask, not backtrackable
+     */
+    private final long[] mask;
+
+    /**
+     * Create a bitset whose <i>nbBits</i> first bits are set.
+     *
+     * @param environment backtrackable environment
+     * @param nbBits      number of bits
+     */
+    public RSparseBitSet(IEnvironment environment, int nbBits) {
+        int nbWords = (nbBits + 63) >>> 6;
+        this.words = new IStateLong[nbWords];
+        this.index = new int[nbWords];
+        this.mask = new long[nbWords];
+        for (int i = 0; i < nbWords; i++) {
+            long w = -1L;
+            if (i == nbWords - 1 && (nbBits & 63) != 0) {
+                w = (1L << (nbBits & 63)) - 1;
+            }
+            words[i] = environment.makeLong(w);
+            index[i] = i;
+        }
+        this.limit = environment.makeInt(nbWords - 1);
+    }
+
+    /**
+     * @return the number of words of a mask
+     */
+    public int nbWords() {
+        return words.length;
+    }
+
+    /**
+     * @return true if no bit is set
+     */
+    public boolean isEmpty() {
+        return limit.get() == -1;
+    }
+
+    /**
+     * @param offset index of a word
+     * @return the current value of the word
+     */
+    public long word(int offset) {
+        return words[offset].get();
+    }
+
+    /**
+     * @return the number of bits set
+     */
+    public int cardinality() {
+        int card = 0;
+        for (int i = limit.get(); i >= 0; i--) {
+            card += Long.bitCount(words[index[i]].get());
+        }
+        return card;
+    }
+
+    /**
+     * Reset the mask, on non-zero words
+     */
+    public void clearMask() {
+        for (int i = limit.get(); i >= 0; i--) {
+            mask[index[i]] = 0L;
+        }
+    }
+
+    /**
+     * Add <i>m</i> to the mask, on non-zero words
+     *
+     * @param m words to add, one per word of this
+     */
+    public void addToMask(long[] m) {
+        for (int i = limit.get(); i >= 0; i--) {
+            int offset = index[i];
+            mask[offset] |= m[offset];
+        }
+    }
+
+    /**
+     * Complement the mask, on non-zero words
+     */
+    public void reverseMask() {
+        for (int i = limit.get(); i >= 0; i--) {
+            int offset = index[i];
+            mask[offset] = ~mask[offset];
+        }
+    }
+
+    /**
+     * Remove the bits not in the mask
+     */
+    public void intersectWithMask() {
+        int l = limit.get();
+        for (int i = l; i >= 0; i--) {
+            int offset = index[i];
+            long w = words[offset].get();
+            long nw = w & mask[offset];
+            if (nw != w) {
+                words[offset].set(nw);
+                if (nw == 0L) {
+                    index[i] = index[l];
+                    index[l] = offset;
+                    l--;
+                }
+            }
+        }
+        if (l != limit.get()) {
+            limit.set(l);
+        }
+    }
+
+    /**
+     * @param m words, one per word of this
+     * @return the index of a word whose intersection with <i>m</i> is not empty, -1 if there is none
+     */
+    public int intersectIndex(long[] m) {
+        for (int i = limit.get(); i >= 0; i--) {
+            int offset = index[i];
+            if ((words[offset].get() & m[offset]) != 0L) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param m words, one per word of this
+     * @return the number of bits set in both this and <i>m</i>
+     */
+    public int cardinalityOfIntersection(long[] m) {
+        int card = 0;
+        for (int i = limit.get(); i >= 0; i--) {
+            int offset = index[i];
+            card += Long.bitCount(words[offset].get() & m[offset]);
+        }
+        return card;
+    }
+}
@@ -86,7 +86,18 @@ public final class EnvironmentTrailing extends AbstractEnvironment {
      */
 
     public EnvironmentTrailing() {
-        super(Type.FLAT);
+        this(Type.FLAT);
+    }
+
+    /**
+     * Constructs a new <code>IEnvironment</code> whose trails are of the given type.
+     * {@link Type#UNSAFE} trails store former values off-heap, by chunks,
+     * and should be given back with {@link #release()} once the environment is not needed anymore.
+     *
+     * @param type type of trails
+     */
+    public EnvironmentTrailing(Type type) {
+        super(type);
         trails = new ITrailStorage[0];
         trailSize = 0;
     }
@@ -349,5 +360,15 @@ public final class EnvironmentTrailing extends AbstractEnvironment {
     public void save(Operation oldValue) {
         getOperationTrail().savePreviousState(oldValue);
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void release() {
+        for (int i = 0; i < trailSize; i++) {
+            trails[i].release();
+        }
+    }
 }
 
@@ -46,4 +46,11 @@ public interface ITrailStorage extends IStorage {
      */
     void resizeWorldCapacity(int newWorldCapacity);
 
+    /**
+     * Give back the memory not managed by the garbage collector, if any.
+     * The trail cannot be used anymore afterwards.
+     */
+    default void release() {
+    }
+
 }
@@ -33,9 +33,14 @@ import org.chocosolver.memory.trailing.StoredBool;
 import org.chocosolver.memory.trailing.trail.IStoredBoolTrail;
 import sun.misc.Unsafe;
 
-import java.lang.reflect.Field;
+import static org.chocosolver.memory.trailing.trail.unsafe.UnsafeChunks.SHIFT;
+import static org.chocosolver.memory.trailing.trail.unsafe.UnsafeChunks.SIZE;
+import static org.chocosolver.memory.trailing.trail.unsafe.UnsafeChunks.UNSAFE;
 
 /**
+ * A trail of {@link StoredBool} where former values and stamps are stored off-heap, by chunks.
+ * Only references to the modified objects remain on the heap, in chunks as well.
+ * Off-heap memory is given back on {@link #release()}.
  * <br/>
  *
  * @author Charles Prud'homme
@@ -43,29 +48,29 @@ import java.lang.reflect.Field;
  */
 public class UnsafeBoolTrail implements IStoredBoolTrail {
 
-    private final Unsafe unsafe;
-
     public static final int SIZEOF_DATA = Unsafe.ARRAY_BYTE_INDEX_SCALE;
 
     public static final int SIZEOF_INT = Unsafe.ARRAY_INT_INDEX_SCALE;
 
+    private static final int MASK = SIZE - 1;
+
     /**
-     * Stack of backtrackable search variables.
+     * Stack of backtrackable search variables, by chunks.
      */
-    private StoredBool[] variableStack;
+    private StoredBool[][] variableStack;
 
 
     /**
      * Stack of values (former values that need be restored upon backtracking).
      */
-    private long valueStack;
+    private final UnsafeChunks valueStack;
 
 
     /**
      * Stack of timestamps indicating the world where the former value
      * had been written.
      */
-    private long stampStack;
+    private final UnsafeChunks stampStack;
 
 
     /**
@@ -83,26 +88,18 @@ public class UnsafeBoolTrail implements IStoredBoolTrail {
     /**
      * Constructs a trail with predefined size.
      *
-     * @param nUpdates maximal number of updates that will be stored
+     * @param nUpdates number of updates that can be stored before allocating a new chunk
      * @param nWorlds  maximal number of worlds that will be stored
      */
 
     public UnsafeBoolTrail(int nUpdates, int nWorlds) {
-        unsafe = getTheUnsafe();
         currentLevel = 0;
-        variableStack = new StoredBool[nUpdates];
-        valueStack = unsafe.allocateMemory(nUpdates * SIZEOF_DATA);
-        stampStack = unsafe.allocateMemory(nUpdates * SIZEOF_INT);
+        variableStack = new StoredBool[8][];
+        valueStack = new UnsafeChunks(SIZEOF_DATA);
+        stampStack = new UnsafeChunks(SIZEOF_INT);
         worldStartLevels = new int[nWorlds];
-    }
-
-    public static Unsafe getTheUnsafe() {
-        try {
-            Field theUnsafe = Unsafe.class.getDeclaredField("theUnsafe");
-            theUnsafe.setAccessible(true);
-            return (Unsafe) theUnsafe.get(null);
-        } catch (Exception e) {
-            return null;
+        while (valueStack.capacity() < nUpdates) {
+            resizeUpdateCapacity();
         }
     }
 
@@ -124,16 +121,12 @@ public class UnsafeBoolTrail implements IStoredBoolTrail {
      */
 
     public void worldPop(int worldIndex) {
-        StoredBool v;
-        byte value;
-        int stamp;
         final int wsl = worldStartLevels[worldIndex];
         while (currentLevel > wsl) {
             currentLevel--;
-            v = variableStack[currentLevel];
-            value = unsafe.getByte(valueStack + (currentLevel * SIZEOF_DATA));
-            stamp = unsafe.getInt(stampStack + (currentLevel * SIZEOF_INT));
-            v._set(value == 1, stamp);
+            variableStack[currentLevel >>> SHIFT][currentLevel & MASK]._set(
+                    UNSAFE.getByte(valueStack.address(currentLevel)) == 1,
+                    UNSAFE.getInt(stampStack.address(currentLevel)));
         }
     }
 
@@ -157,17 +150,17 @@ public class UnsafeBoolTrail implements IStoredBoolTrail {
 
 
     /**
-     * Reacts when a StoredInt is modified: push the former value & timestamp
+     * Reacts when a StoredBool is modified: push the former value & timestamp
      * on the stacks.
      */
     public void savePreviousState(StoredBool v, boolean oldValue, int oldStamp) {
-        unsafe.putByte(valueStack + currentLevel * SIZEOF_DATA, (byte) (oldValue ? 1 : 0));
-        variableStack[currentLevel] = v;
-        unsafe.putInt(stampStack + currentLevel * SIZEOF_INT, oldStamp);
-        currentLevel++;
-        if (variableStack.length == currentLevel) {
+        if (currentLevel == valueStack.capacity()) {
             resizeUpdateCapacity();
         }
+        variableStack[currentLevel >>> SHIFT][currentLevel & MASK] = v;
+        UNSAFE.putByte(valueStack.address(currentLevel), (byte) (oldValue ? 1 : 0));
+        UNSAFE.putInt(stampStack.address(currentLevel), oldStamp);
+        currentLevel++;
     }
 
     @Override
@@ -177,7 +170,7 @@ public class UnsafeBoolTrail implements IStoredBoolTrail {
         // first save the current state on the top of the stack
         savePreviousState(v, initValue, olderStamp - 1);
         // second: ensures capacities
-        while (currentLevel + olderStamp > variableStack.length) {
+        while (currentLevel + olderStamp > valueStack.capacity()) {
             resizeUpdateCapacity();
         }
         int i1, f, s = currentLevel;
@@ -185,36 +178,39 @@ public class UnsafeBoolTrail implements IStoredBoolTrail {
             f = worldStartLevels[w];
             i1 = f + w - 1;
             s -= f;
-            System.arraycopy(variableStack, f, variableStack, i1, s);
-            unsafe.copyMemory(valueStack + f * SIZEOF_DATA, valueStack + i1 * SIZEOF_DATA, SIZEOF_DATA * s);
-            unsafe.copyMemory(stampStack + f * SIZEOF_INT, stampStack + i1 * SIZEOF_INT, SIZEOF_INT * s);
-            variableStack[--i1] = v;
-            unsafe.putByte(valueStack + i1 * SIZEOF_DATA, (byte) (initValue ? 1 : 0));
-            unsafe.putInt(stampStack + i1 * SIZEOF_INT, w - 2);
+            shift(f, i1, s);
+            i1--;
+            variableStack[i1 >>> SHIFT][i1 & MASK] = v;
+            UNSAFE.putByte(valueStack.address(i1), (byte) (initValue ? 1 : 0));
+            UNSAFE.putInt(stampStack.address(i1), w - 2);
             worldStartLevels[w] += w - 1;
             currentLevel++;
             s = f;
         }
     }
 
+    /**
+     * Move <i>length</i> entries from level <i>from</i> to level <i>to</i> (with <i>from</i> &lt; <i>to</i>).
+     */
+    private void shift(int from, int to, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            final int src = from + i, dst = to + i;
+            variableStack[dst >>> SHIFT][dst & MASK] = variableStack[src >>> SHIFT][src & MASK];
+            UNSAFE.putByte(valueStack.address(dst), UNSAFE.getByte(valueStack.address(src)));
+            UNSAFE.putInt(stampStack.address(dst), UNSAFE.getInt(stampStack.address(src)));
+        }
+    }
 
     private void resizeUpdateCapacity() {
-        int oldCapacity = variableStack.length;
-        int newCapacity = ((oldCapacity * 3) / 2);
-        // first, copy the stack of variables
-        StoredBool[] tmp1 = new StoredBool[newCapacity];
-        System.arraycopy(variableStack, 0, tmp1, 0, oldCapacity);
-        variableStack = tmp1;
-        // then, copy the stack of former values
-        long ad1 = unsafe.allocateMemory(newCapacity * SIZEOF_DATA);
-        unsafe.copyMemory(valueStack, ad1, oldCapacity * SIZEOF_DATA);
-        unsafe.freeMemory(valueStack);
-        valueStack = ad1;
-        // then, copy the stack of world stamps
-        long ad2 = unsafe.allocateMemory(newCapacity * SIZEOF_INT);
-        unsafe.copyMemory(stampStack, ad2, oldCapacity * SIZEOF_INT);
-        unsafe.freeMemory(stampStack);
-        stampStack = ad2;
+        final int c = valueStack.capacity() >>> SHIFT;
+        if (c == variableStack.length) {
+            StoredBool[][] tmp = variableStack;
+            variableStack = new StoredBool[c * 2][];
+            System.arraycopy(tmp, 0, variableStack, 0, c);
+        }
+        variableStack[c] = new StoredBool[SIZE];
+        valueStack.grow();
+        stampStack.grow();
     }
 
     public void resizeWorldCapacity(int newWorldCapacity) {
@@ -223,10 +219,17 @@ public class UnsafeBoolTrail implements IStoredBoolTrail {
         worldStartLevels = tmp;
     }
 
+    @Override
+    public void release() {
+        valueStack.release();
+        stampStack.release();
+        variableStack = new StoredBool[8][];
+        currentLevel = 0;
+    }
+
     @Override
     protected void finalize() throws Throwable {
         super.finalize();
-        unsafe.freeMemory(valueStack);
-        unsafe.freeMemory(stampStack);
+        release();
     }
 }
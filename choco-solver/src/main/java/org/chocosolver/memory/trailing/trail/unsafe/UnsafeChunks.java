@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.memory.trailing.trail.unsafe;
+
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+
+/**
+ * An off-heap stack of fixed-size elements, allocated by chunks.
+ * Growing the stack allocates a new chunk and never copies the previous ones.
+ * Memory is given back to the system on {@link #release()}.
+ * <br/>
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public final class UnsafeChunks {
+
+    /**
+     * log2 of the number of elements per chunk.
+     */
+    public static final int SHIFT = 14;
+
+    /**
+     * Number of elements per chunk.
+     */
+    public static final int SIZE = 1 << SHIFT;
+
+    private static final int MASK = SIZE - 1;
+
+    static final Unsafe UNSAFE = getTheUnsafe();
+
+    /**
+     * Size of an element, in bytes.
+     */
+    private final int scale;
+
+    /**
+     * Addresses of the allocated chunks.
+     */
+    private long[] chunks;
+
+    /**
+     * Number of allocated chunks.
+     */
+    private int nbChunks;
+
+    public UnsafeChunks(int scale) {
+        this.scale = scale;
+        this.chunks = new long[8];
+    }
+
+    public static Unsafe getTheUnsafe() {
+        try {
+            Field theUnsafe = Unsafe.class.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return (Unsafe) theUnsafe.get(null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param index index of an element, in [0, {@link #capacity()}[
+     * @return the address of the element
+     */
+    public long address(int index) {
+        return chunks[index >>> SHIFT] + (long) (index & MASK) * scale;
+    }
+
+    /**
+     * @return the number of elements that can be stored without allocating a new chunk
+     */
+    public int capacity() {
+        return nbChunks << SHIFT;
+    }
+
+    /**
+     * Allocate a new chunk.
+     */
+    public void grow() {
+        if (nbChunks == chunks.length) {
+            long[] tmp = chunks;
+            chunks = new long[tmp.length * 2];
+            System.arraycopy(tmp, 0, chunks, 0, tmp.length);
+        }
+        chunks[nbChunks++] = UNSAFE.allocateMemory((long) SIZE * scale);
+    }
+
+    /**
+     * Free all the chunks, the stack is empty afterwards.
+     */
+    public void release() {
+        for (int i = 0; i < nbChunks; i++) {
+            UNSAFE.freeMemory(chunks[i]);
+        }
+        nbChunks = 0;
+    }
+}
@@ -0,0 +1,763 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntIntHashMap;
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.exception.SolverException;
+import org.chocosolver.solver.objective.ObjectiveManager;
+import org.chocosolver.solver.search.loop.monitors.IMonitorSolution;
+import org.chocosolver.solver.search.measure.IMeasures;
+import org.chocosolver.solver.search.measure.MeasuresRecorder;
+import org.chocosolver.solver.search.solution.Solution;
+import org.chocosolver.solver.search.strategy.ISF;
+import org.chocosolver.solver.search.strategy.assignments.DecisionOperator;
+import org.chocosolver.solver.search.strategy.decision.Decision;
+import org.chocosolver.solver.search.strategy.decision.IntDecision;
+import org.chocosolver.solver.search.strategy.strategy.AbstractStrategy;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.RealVar;
+import org.chocosolver.solver.variables.Variable;
+import org.chocosolver.util.ESat;
+import org.chocosolver.util.PoolManager;
+import org.chocosolver.util.criteria.Criterion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * An Embarrassingly Parallel Search (EPS) over a model.
+ * <p>
+ * "Embarrassingly Parallel Search", J.-C. Régin, M. Rezgui and A. Malapert, CP13.
+ * <p>
+ * The search tree of the model is first split into many subproblems, by enumerating, with propagation,
+ * the first <i>k</i> decisions given by the search strategy (the declared one, or the default one).
+ * Subproblems which are proven inconsistent during the decomposition are discarded.
+ * The remaining ones are then solved by a fork-join pool of solvers, copies of the model obtained through serialization.
+ * Subproblems are dispatched by recursive halving, so that an idle worker steals the pending subproblems of a busy one.
+ * <p>
+ * The search supports satisfaction (first solution), enumeration (all solutions, counts are aggregated in
+ * {@link #getMeasures()}) and optimization, where the best bound found is shared between all workers through their
+ * {@link ObjectiveManager}.
+ * <p>
+ * Created by agent on 18/10/26.
+ * Project: choco.
+ * @author agent
+ */
+public class EmbarrassinglyParallelSearch {
+
+    /**
+     * Number of subproblems per worker targeted by the default decomposition
+     */
+    private static final int SUBPROBLEMS_PER_WORKER = 30;
+
+    /**
+     * Codes of the decision operators supported in subproblems
+     */
+    private static final int EQ = 0, NEQ = 1, LEQ = 2, GEQ = 3;
+
+    /**
+     * The declaring model, never solved
+     */
+    private final Solver model;
+
+    /**
+     * Serialized form of the model, to build replicas on demand
+     */
+    private final byte[] flat;
+
+    /**
+     * Number of threads in the pool
+     */
+    private final int nbWorkers;
+
+    /**
+     * Maximum number of decisions defining a subproblem
+     */
+    private final int splitDepth;
+
+    /**
+     * Available replicas
+     */
+    private final ConcurrentLinkedQueue<Replica> idle;
+
+    /**
+     * All replicas created so far
+     */
+    private final List<Replica> replicas;
+
+    /**
+     * Aggregated measures
+     */
+    private final MeasuresRecorder measures;
+
+    /**
+     * Optimization policy of the current resolution
+     */
+    private ResolutionPolicy policy;
+
+    /**
+     * Index of the objective variable in the model, -1 for satisfaction
+     */
+    private int objective;
+
+    /**
+     * Set to <tt>true</tt> when the resolution stops on the first solution found
+     */
+    private boolean stopAtFirst;
+
+    /**
+     * Set to <tt>true</tt> when all workers should stop
+     */
+    private volatile boolean stop;
+
+    /**
+     * Set to <tt>false</tt> if a subproblem has not been entirely explored
+     */
+    private volatile boolean complete;
+
+    /**
+     * Number of subproblems generated by the last decomposition
+     */
+    private int nbSubproblems;
+
+    /**
+     * Replica which holds the best solution found so far, <tt>null</tt> if none
+     */
+    private Replica best;
+
+    /**
+     * Value of the best solution found so far, when dealing with optimization
+     */
+    private Number bestValue;
+
+    /**
+     * The best (or the first) solution found so far, recorded from {@link #best}
+     */
+    private Solution bestSolution;
+
+    /**
+     * Create an embarrassingly parallel search over <i>model</i> with <i>nbWorkers</i> threads.
+     * The decomposition depth is set to generate about 30 subproblems per worker.
+     *
+     * @param model     the model to solve, should not be solved, is left unchanged
+     * @param nbWorkers number of threads
+     */
+    public EmbarrassinglyParallelSearch(Solver model, int nbWorkers) {
+        this(model, nbWorkers, 32 - Integer.numberOfLeadingZeros(SUBPROBLEMS_PER_WORKER * nbWorkers - 1));
+    }
+
+    /**
+     * Create an embarrassingly parallel search over <i>model</i> with <i>nbWorkers</i> threads,
+     * where each subproblem is defined by at most <i>splitDepth</i> decisions.
+     *
+     * @param model      the model to solve, should not be solved, is left unchanged
+     * @param nbWorkers  number of threads
+     * @param splitDepth maximum number of decisions defining a subproblem
+     */
+    public EmbarrassinglyParallelSearch(Solver model, int nbWorkers, int splitDepth) {
+        if (nbWorkers < 1) {
+            throw new SolverException("An embarrassingly parallel search requires at least one worker");
+        }
+        this.model = model;
+        this.flat = ParallelPortfolio.flatten(model);
+        this.nbWorkers = nbWorkers;
+        this.splitDepth = Math.max(0, splitDepth);
+        this.idle = new ConcurrentLinkedQueue<>();
+        this.replicas = new ArrayList<>();
+        this.measures = new MeasuresRecorder(model);
+        this.objective = -1;
+    }
+
+    //***********************************************************************************
+    // RESOLUTION
+    //***********************************************************************************
+
+    /**
+     * Attempts to find a solution of the declared problem.
+     * The resolution stops as soon as one worker finds a solution.
+     *
+     * @return <code>true</code> if and only if a solution has been found.
+     */
+    public boolean findSolution() {
+        prepare(ResolutionPolicy.SATISFACTION, -1);
+        stopAtFirst = true;
+        run(r -> r.solver.findSolution());
+        return best != null;
+    }
+
+    /**
+     * Attempts to find all solutions of the declared problem.
+     * Solutions are not stored, but counted in {@link #getMeasures()}.
+     *
+     * @return the number of found solutions.
+     */
+    public long findAllSolutions() {
+        prepare(ResolutionPolicy.SATISFACTION, -1);
+        run(r -> r.solver.findAllSolutions());
+        return measures.getSolutionCount();
+    }
+
+    /**
+     * Attempts to optimize the value of the <i>objective</i> variable w.r.t. to the optimization <i>policy</i>.
+     * The best solution found is restored in the solver returned by {@link #getBestSolver()}.
+     *
+     * @param policy    optimization policy, among ResolutionPolicy.MINIMIZE and ResolutionPolicy.MAXIMIZE
+     * @param objective the variable to optimize, declared in the model
+     */
+    public void findOptimalSolution(ResolutionPolicy policy, Variable objective) {
+        if (policy == ResolutionPolicy.SATISFACTION) {
+            throw new SolverException("EmbarrassinglyParallelSearch.findOptimalSolution(...) cannot be called with ResolutionPolicy.SATISFACTION.");
+        }
+        prepare(policy, ParallelPortfolio.indexOf(model, objective));
+        run(r -> r.solver.findOptimalSolution(policy, false));
+        if (best != null) {
+            try {
+                // the solution recorder of a replica is not reliable, since the replica solves many subproblems
+                best.solver.restoreSolution(bestSolution);
+            } catch (ContradictionException e) {
+                throw new SolverException("restoring the best solution ended in a failure");
+            }
+        }
+    }
+
+    /**
+     * Reset the state of the search before a new resolution.
+     */
+    private void prepare(ResolutionPolicy policy, int objective) {
+        this.policy = policy;
+        this.objective = objective;
+        this.stopAtFirst = false;
+        this.stop = false;
+        this.complete = true;
+        this.best = null;
+        this.bestValue = null;
+        this.bestSolution = null;
+        this.measures.reset();
+        // replicas are configured wrt the objective, they cannot be reused from one resolution to another
+        this.replicas.clear();
+        this.idle.clear();
+    }
+
+    /**
+     * Decompose the model into subproblems, then solve them in a fork-join pool.
+     */
+    private void run(Resolution resolution) {
+        measures.startStopwatch();
+        List<int[]> subproblems = decompose();
+        nbSubproblems = subproblems.size();
+        if (nbSubproblems > 0) {
+            ForkJoinPool pool = new ForkJoinPool(nbWorkers);
+            try {
+                pool.invoke(new Dispatch(subproblems, 0, nbSubproblems, resolution));
+            } finally {
+                pool.shutdown();
+            }
+        }
+        measures.updateTime();
+        if (objective > -1) {
+            measures.declareObjective();
+            measures.setObjectiveOptimal(complete && best != null);
+        }
+    }
+
+    /**
+     * Split the search tree of a new replica into subproblems, by applying with propagation the first decisions
+     * of the search strategy.
+     *
+     * @return the list of consistent subproblems, each of them being a sequence of (variable index, operator, value)
+     */
+    private List<int[]> decompose() {
+        List<int[]> subproblems = new ArrayList<>();
+        Replica master = new Replica(ParallelPortfolio.inflate(flat, model.getName() + "-eps"));
+        try {
+            master.solver.propagate();
+        } catch (ContradictionException e) {
+            master.solver.getEngine().flush();
+            return subproblems;
+        }
+        if (master.strategy.init()) {
+            IEnvironment env = master.solver.getEnvironment();
+            env.worldPush();
+            split(master, new TIntArrayList(3 * splitDepth), subproblems);
+            env.worldPop();
+        }
+        return subproblems;
+    }
+
+    /**
+     * Recursively branch on the decisions of the strategy of <i>master</i>, up to <i>splitDepth</i> decisions.
+     *
+     * @param master      the replica to branch on
+     * @param path        the decisions applied so far
+     * @param subproblems the list of subproblems to fill
+     */
+    private void split(Replica master, TIntArrayList path, List<int[]> subproblems) {
+        if (path.size() == 3 * splitDepth) {
+            subproblems.add(path.toArray());
+            return;
+        }
+        Decision decision = master.strategy.getDecision();
+        int op = decision instanceof IntDecision ? code(((IntDecision) decision).getDecOp()) : -1;
+        if (op == -1) {
+            // no more decision, or a decision which cannot be replayed: the remaining search is done by a worker
+            subproblems.add(path.toArray());
+            if (decision != null) {
+                decision.free();
+            }
+            return;
+        }
+        int var = master.index(((IntDecision) decision).getDecisionVariables());
+        int value = ((IntDecision) decision).getDecisionValue();
+        int arity = decision.getArity();
+        decision.free();
+        IEnvironment env = master.solver.getEnvironment();
+        for (int b = 0; b < arity; b++) {
+            int bop = b == 0 ? op : opposite(op);
+            int bvalue = b == 0 ? value : refutation(op, value);
+            path.add(new int[]{var, bop, bvalue});
+            env.worldPush();
+            try {
+                apply(master.solver.getVar(var), bop, bvalue);
+                master.solver.propagate();
+                split(master, path, subproblems);
+            } catch (ContradictionException e) {
+                master.solver.getEngine().flush();
+            }
+            env.worldPop();
+            path.remove(path.size() - 3, 3);
+        }
+    }
+
+    /**
+     * Solve a subproblem on an idle replica.
+     *
+     * @param subproblem the subproblem to solve
+     * @param resolution the resolution to run
+     */
+    private void solve(int[] subproblem, Resolution resolution) {
+        if (stop) {
+            return;
+        }
+        Replica replica = idle.poll();
+        if (replica == null) {
+            replica = newReplica();
+        }
+        try {
+            Solver solver = replica.solver;
+            solver.getSearchLoop().reset();
+            // the feasibility of the previous subproblem is not reset by the search loop
+            solver.setFeasible(ESat.UNDEFINED);
+            // declared on the solver, they are transferred to the search loop at each launch: declare them once
+            replica.plug();
+            if (objective > -1) {
+                synchronized (this) {
+                    solver.set(replica.objectiveManager());
+                    share(solver.getObjectiveManager(), bestValue);
+                }
+            }
+            solver.set(ISF.sequencer(new Subproblem(solver, subproblem), replica.strategy));
+            resolution.solve(replica);
+            if (solver.hasReachedLimit() && !stop) {
+                complete = false;
+            }
+            aggregate(solver.getMeasures());
+        } finally {
+            idle.add(replica);
+        }
+    }
+
+    /**
+     * Create a new replica.
+     */
+    private Replica newReplica() {
+        Replica replica;
+        synchronized (this) {
+            replica = new Replica(ParallelPortfolio.inflate(flat, model.getName() + "-eps" + replicas.size()));
+            replicas.add(replica);
+        }
+        return replica;
+    }
+
+    /**
+     * Called on each solution found by a replica.
+     * When looking for one solution, all workers are stopped.
+     * When dealing with optimization, the solution value is shared with all other replicas.
+     */
+    private synchronized void onSolution(Replica replica) {
+        ObjectiveManager om = replica.solver.getObjectiveManager();
+        if (!om.isOptimization()) {
+            if (best == null) {
+                best = replica;
+                bestSolution = new Solution();
+                bestSolution.record(replica.solver);
+            }
+            stop |= stopAtFirst;
+            return;
+        }
+        Number value = om.getBestSolutionValue();
+        boolean min = policy == ResolutionPolicy.MINIMIZE;
+        if (bestValue == null
+                || (min && value.doubleValue() < bestValue.doubleValue())
+                || (!min && value.doubleValue() > bestValue.doubleValue())) {
+            best = replica;
+            bestValue = value;
+            bestSolution = new Solution();
+            bestSolution.record(replica.solver);
+            for (Replica r : replicas) {
+                if (r != replica) {
+                    share(r.solver.getObjectiveManager(), value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Inform <i>om</i> of the best solution value found so far
+     */
+    @SuppressWarnings("unchecked")
+    private void share(ObjectiveManager om, Number value) {
+        if (value != null && om.isOptimization()) {
+            if (policy == ResolutionPolicy.MINIMIZE) {
+                om.updateBestUB(value);
+            } else {
+                om.updateBestLB(value);
+            }
+        }
+    }
+
+    /**
+     * Add the measures of a subproblem resolution to the overall ones
+     */
+    private void aggregate(IMeasures sub) {
+        synchronized (measures) {
+            measures.solutionCount += sub.getSolutionCount();
+            measures.nodeCount += sub.getNodeCount();
+            measures.backtrackCount += sub.getBackTrackCount();
+            measures.failCount += sub.getFailCount();
+            measures.restartCount += sub.getRestartCount();
+            measures.maxDepth = Math.max(measures.maxDepth, sub.getMaxDepth());
+        }
+    }
+
+    //***********************************************************************************
+    // ACCESSORS
+    //***********************************************************************************
+
+    /**
+     * @return the solver which has found the best (or the first) solution, <tt>null</tt> if none has been found
+     */
+    public Solver getBestSolver() {
+        return best != null ? best.solver : null;
+    }
+
+    /**
+     * @return the measures of the last resolution, aggregated over all subproblems
+     */
+    public IMeasures getMeasures() {
+        return measures;
+    }
+
+    /**
+     * @return the number of subproblems generated by the last decomposition
+     */
+    public int getNbSubproblems() {
+        return nbSubproblems;
+    }
+
+    /**
+     * @return <tt>true</tt> if the last resolution stopped before having explored the entire search space,
+     * without having been asked to (that is, not on the first solution found)
+     */
+    public boolean hasReachedLimit() {
+        return !complete;
+    }
+
+    //***********************************************************************************
+    // DECISION OPERATORS
+    //***********************************************************************************
+
+    /**
+     * @return the code of <i>dop</i>, -1 if it is not supported.
+     * Operators are compared by name since they may be copies (through serialization) of the built-in ones.
+     */
+    private static int code(DecisionOperator<IntVar> dop) {
+        switch (dop.toString().trim()) {
+            case "==":
+                return EQ;
+            case "!=":
+                return NEQ;
+            case "<=":
+                return LEQ;
+            case ">=":
+                return GEQ;
+            default:
+                return -1;
+        }
+    }
+
+    private static int opposite(int op) {
+        switch (op) {
+            case EQ:
+                return NEQ;
+            case NEQ:
+                return EQ;
+            case LEQ:
+                return GEQ;
+            default:
+                return LEQ;
+        }
+    }
+
+    /**
+     * @return the value of the refutation of the decision (<i>op</i>, <i>value</i>),
+     * for instance, the refutation of <i>x &le; v</i> is <i>x &ge; v+1</i>
+     */
+    private static int refutation(int op, int value) {
+        switch (op) {
+            case LEQ:
+                return value + 1;
+            case GEQ:
+                return value - 1;
+            default:
+                return value;
+        }
+    }
+
+    private static DecisionOperator<IntVar> operator(int op) {
+        switch (op) {
+            case EQ:
+                return DecisionOperator.int_eq;
+            case NEQ:
+                return DecisionOperator.int_neq;
+            case LEQ:
+                return DecisionOperator.int_split;
+            default:
+                return DecisionOperator.int_reverse_split;
+        }
+    }
+
+    /**
+     * Apply a decision, with its operator code, as done by the built-in decision operators.
+     */
+    private static void apply(Variable var, int op, int value) throws ContradictionException {
+        IntVar ivar = (IntVar) var;
+        switch (op) {
+            case EQ:
+                ivar.instantiateTo(value, Cause.Null);
+                break;
+            case NEQ:
+                ivar.removeValue(value, Cause.Null);
+                break;
+            case LEQ:
+                ivar.updateUpperBound(value, Cause.Null);
+                break;
+            default:
+                ivar.updateLowerBound(value, Cause.Null);
+                break;
+        }
+    }
+
+    //***********************************************************************************
+    // INNER CLASSES
+    //***********************************************************************************
+
+    /**
+     * A copy of the model, and its own search strategy
+     */
+    private class Replica {
+
+        final Solver solver;
+
+        AbstractStrategy strategy;
+
+        /**
+         * variable id to variable index in solver
+         */
+        final TIntIntHashMap indices;
+
+        /**
+         * Stops the replica when all workers should stop
+         */
+        final Criterion stopCriterion;
+
+        /**
+         * Reports the solutions of the replica
+         */
+        final IMonitorSolution solutionMonitor;
+
+        Replica(Solver solver) {
+            this.solver = solver;
+            this.stopCriterion = () -> stop;
+            this.solutionMonitor = () -> onSolution(this);
+            this.indices = new TIntIntHashMap(solver.getNbVars(), .5f, -1, -1);
+            for (int i = 0; i < solver.getNbVars(); i++) {
+                indices.put(solver.getVar(i).getId(), i);
+            }
+            if (objective > -1) {
+                // the default search strategy depends on the objective
+                solver.set(objectiveManager());
+            }
+            this.strategy = solver.getStrategy();
+            if (strategy == null) {
+                solver.getSettings().getSearchBinder().configureSearch(solver);
+                this.strategy = solver.getStrategy();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        ObjectiveManager objectiveManager() {
+            Variable obj = solver.getVar(objective);
+            solver.setObjectives(obj);
+            if ((obj.getTypeAndKind() & Variable.KIND) == Variable.REAL) {
+                return new ObjectiveManager<RealVar, Double>((RealVar) obj, policy, solver.getPrecision(), true);
+            } else {
+                return new ObjectiveManager<IntVar, Integer>((IntVar) obj, policy, true);
+            }
+        }
+
+        int index(IntVar var) {
+            return indices.get(var.getId());
+        }
+
+        /**
+         * Declare the sharing mechanism to the solver.
+         * Idempotent: the stop criterion and the solution monitor are declared exactly once on a reused replica.
+         */
+        void plug() {
+            solver.removeStopCriterion(stopCriterion);
+            solver.addStopCriterion(stopCriterion);
+            solver.unplugMonitor(solutionMonitor);
+            solver.plugMonitor(solutionMonitor);
+        }
+    }
+
+    /**
+     * A strategy which applies the decisions of a subproblem, without refuting them.
+     * It is stateless: the first decision which is not entailed yet is returned,
+     * so the subproblem remains imposed after a restart.
+     */
+    private static class Subproblem extends AbstractStrategy<IntVar> {
+
+        final int[] path;
+
+        final PoolManager<IntDecision> pool;
+
+        Subproblem(Solver solver, int[] path) {
+            super(scope(solver, path));
+            this.path = path;
+            this.pool = new PoolManager<>();
+        }
+
+        private static IntVar[] scope(Solver solver, int[] path) {
+            IntVar[] scope = new IntVar[path.length / 3];
+            for (int i = 0; i < scope.length; i++) {
+                scope[i] = (IntVar) solver.getVar(path[3 * i]);
+            }
+            return scope;
+        }
+
+        @Override
+        public Decision<IntVar> getDecision() {
+            for (int i = 0; i < vars.length; i++) {
+                IntVar var = vars[i];
+                int op = path[3 * i + 1];
+                int value = path[3 * i + 2];
+                boolean entailed;
+                switch (op) {
+                    case EQ:
+                        entailed = var.isInstantiatedTo(value);
+                        break;
+                    case NEQ:
+                        entailed = !var.contains(value);
+                        break;
+                    case LEQ:
+                        entailed = var.getUB() <= value;
+                        break;
+                    default:
+                        entailed = var.getLB() >= value;
+                        break;
+                }
+                if (!entailed) {
+                    IntDecision d = pool.getE();
+                    if (d == null) {
+                        d = new IntDecision(pool);
+                    }
+                    d.set(var, value, operator(op));
+                    d.once(true);
+                    return d;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Dispatch subproblems by recursive halving, pending halves can be stolen by idle workers
+     */
+    private class Dispatch extends RecursiveAction {
+
+        final List<int[]> subproblems;
+
+        final int from, to;
+
+        final Resolution resolution;
+
+        Dispatch(List<int[]> subproblems, int from, int to, Resolution resolution) {
+            this.subproblems = subproblems;
+            this.from = from;
+            this.to = to;
+            this.resolution = resolution;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                solve(subproblems.get(from), resolution);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Dispatch(subproblems, from, mid, resolution),
+                        new Dispatch(subproblems, mid, to, resolution));
+            }
+        }
+    }
+
+    /**
+     * Resolution of a subproblem
+     */
+    private interface Resolution {
+        void solve(Replica replica);
+    }
+}
@@ -0,0 +1,468 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver;
+
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.exception.SolverException;
+import org.chocosolver.solver.objective.ObjectiveManager;
+import org.chocosolver.solver.search.bind.ISearchBinder;
+import org.chocosolver.solver.search.limits.FailCounter;
+import org.chocosolver.solver.search.loop.lns.LNSFactory;
+import org.chocosolver.solver.search.loop.monitors.IMonitorSolution;
+import org.chocosolver.solver.search.strategy.ISF;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.RealVar;
+import org.chocosolver.solver.variables.Variable;
+import org.chocosolver.util.criteria.Criterion;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A portfolio of solvers which run concurrently on the same model.
+ * <p>
+ * The model is declared once, in a {@link Solver} which is not solved.
+ * It is then duplicated (through serialization) into as many workers as required, each worker owning its own
+ * {@link org.chocosolver.memory.IEnvironment}, propagation engine and search strategy.
+ * When the model cannot be serialized, equivalent workers can be built by the user and given to
+ * {@link #ParallelPortfolio(Solver[], ISearchBinder...)}.
+ * All workers are run in a thread pool and stop as soon as one of them has found a solution (satisfaction) or
+ * has proven optimality (optimization).
+ * For optimization problems, every improving solution found by a worker is shared with the other ones through
+ * their {@link ObjectiveManager}, so that each worker prunes with the global incumbent.
+ * <p>
+ * Limits (time, nodes, ...) and search monitors must be plugged into each worker, after the portfolio creation,
+ * since they are not duplicated:
+ * <pre>
+ *     ParallelPortfolio pf = new ParallelPortfolio(model, 4);
+ *     for (Solver w : pf.getWorkers()) {
+ *         SMF.limitTime(w, "10s");
+ *     }
+ *     pf.findOptimalSolution(ResolutionPolicy.MINIMIZE, objective);
+ * </pre>
+ * <p>
+ * Created by agent on 18/10/26.
+ * Project: choco.
+ * @author agent
+ */
+public class ParallelPortfolio {
+
+    /**
+     * The reference model, variables are mapped to workers by their index in it
+     */
+    private final Solver model;
+
+    /**
+     * The concurrent solvers
+     */
+    private final Solver[] workers;
+
+    /**
+     * The search configuration of each worker
+     */
+    private final ISearchBinder[] configurations;
+
+    /**
+     * Set to <tt>true</tt> when all workers should stop
+     */
+    private volatile boolean stop;
+
+    /**
+     * Index of the worker which has found the best solution so far, -1 if none
+     */
+    private int best;
+
+    /**
+     * Value of the best solution found so far, when dealing with optimization
+     */
+    private Number bestValue;
+
+    /**
+     * Create a portfolio of <i>nbWorkers</i> solvers based on <i>model</i>.
+     * Each worker is configured with a default search strategy, among the model's declared one (if any), then
+     * dom/wdeg, activity-based, impact-based and, for optimization problems, dom/wdeg within a random LNS.
+     *
+     * @param model     the model to duplicate, should not be solved
+     * @param nbWorkers number of workers, should be strictly positive
+     */
+    public ParallelPortfolio(Solver model, int nbWorkers) {
+        this(model, defaultConfigurations(nbWorkers));
+    }
+
+    /**
+     * Create a portfolio of solvers based on <i>model</i>, one per <i>configurations</i>.
+     * Each configuration is applied to its worker just before the resolution starts, once the objective (if any)
+     * has been declared.
+     *
+     * @param model          the model to duplicate, should not be solved
+     * @param configurations the search configurations, one per worker
+     */
+    public ParallelPortfolio(Solver model, ISearchBinder... configurations) {
+        this(model, duplicate(model, configurations.length), configurations);
+    }
+
+    /**
+     * Create a portfolio of already built solvers, one per <i>configurations</i>.
+     * All workers should declare the same variables in the same order, so that they can be mapped together.
+     * The first worker serves as the reference model.
+     *
+     * @param workers        the solvers to run concurrently, should not be solved
+     * @param configurations the search configurations, one per worker
+     */
+    public ParallelPortfolio(Solver[] workers, ISearchBinder... configurations) {
+        this(workers[0], workers.clone(), configurations);
+    }
+
+    private ParallelPortfolio(Solver model, Solver[] workers, ISearchBinder[] configurations) {
+        if (workers.length == 0 || workers.length != configurations.length) {
+            throw new SolverException("A portfolio requires at least one worker, and exactly one configuration per worker");
+        }
+        this.model = model;
+        this.workers = workers;
+        this.configurations = configurations.clone();
+        this.best = -1;
+    }
+
+    /**
+     * @return the workers of this portfolio, for instance to declare limits on them
+     */
+    public Solver[] getWorkers() {
+        return workers;
+    }
+
+    /**
+     * @return the worker which has found the best solution, or <tt>null</tt> if no solution has been found
+     */
+    public Solver getBestSolver() {
+        return best > -1 ? workers[best] : null;
+    }
+
+    /**
+     * Attempts to find a solution of the declared problem, running all workers concurrently.
+     * The resolution stops as soon as one worker finds a solution or proves the problem unsatisfiable.
+     *
+     * @return <code>true</code> if and only if a solution has been found.
+     */
+    public boolean findSolution() {
+        run(w -> {
+            configurations[w].configureSearch(workers[w]);
+            workers[w].findSolution();
+        });
+        return best > -1;
+    }
+
+    /**
+     * Attempts to optimize the value of the <i>objective</i> variable w.r.t. to the optimization <i>policy</i>,
+     * running all workers concurrently.
+     * The resolution stops as soon as one worker proves the optimality of the best solution found by any worker.
+     * The best solution is restored in the worker returned by {@link #getBestSolver()}.
+     *
+     * @param policy    optimization policy, among ResolutionPolicy.MINIMIZE and ResolutionPolicy.MAXIMIZE
+     * @param objective the variable to optimize, declared in the model
+     */
+    @SuppressWarnings("unchecked")
+    public void findOptimalSolution(ResolutionPolicy policy, Variable objective) {
+        if (policy == ResolutionPolicy.SATISFACTION) {
+            throw new SolverException("ParallelPortfolio.findOptimalSolution(...) cannot be called with ResolutionPolicy.SATISFACTION.");
+        }
+        int idx = indexOf(model, objective);
+        // objective managers are declared before any worker starts, so that no shared bound is missed
+        for (Solver worker : workers) {
+            Variable obj = worker.getVar(idx);
+            worker.setObjectives(obj);
+            if ((obj.getTypeAndKind() & Variable.KIND) == Variable.REAL) {
+                worker.set(new ObjectiveManager<RealVar, Double>((RealVar) obj, policy, worker.getPrecision(), true));
+            } else {
+                worker.set(new ObjectiveManager<IntVar, Integer>((IntVar) obj, policy, true));
+            }
+        }
+        run(w -> {
+            configurations[w].configureSearch(workers[w]);
+            workers[w].findOptimalSolution(policy, false);
+        });
+        if (best > -1) {
+            try {
+                workers[best].restoreLastSolution();
+            } catch (ContradictionException e) {
+                throw new SolverException("restoring the best solution ended in a failure");
+            }
+        }
+    }
+
+    /**
+     * Run all workers in a thread pool and wait for their completion.
+     *
+     * @param resolution how to solve the worker of the given index
+     */
+    private void run(WorkerTask resolution) {
+        stop = false;
+        best = -1;
+        bestValue = null;
+        // the sharing mechanism is only declared for this resolution, so that repeated calls do not pile it up
+        Criterion criterion = () -> stop;
+        IMonitorSolution[] monitors = new IMonitorSolution[workers.length];
+        for (int w = 0; w < workers.length; w++) {
+            final int i = w;
+            monitors[w] = () -> onSolution(i);
+            workers[w].addStopCriterion(criterion);
+            workers[w].plugMonitor(monitors[w]);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(workers.length);
+        List<Future<?>> futures = new ArrayList<>(workers.length);
+        for (int w = 0; w < workers.length; w++) {
+            final int i = w;
+            futures.add(pool.submit(() -> {
+                resolution.solve(i);
+                // the worker has not been stopped: either it found a solution (satisfaction)
+                // or it explored the entire search space (proof of optimality or unsatisfiability)
+                if (!workers[i].hasReachedLimit()) {
+                    stop = true;
+                }
+            }));
+        }
+        try {
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stop = true;
+        } catch (ExecutionException e) {
+            stop = true;
+            throw new SolverException("A worker of the portfolio ended unexpectedly: " + e.getCause());
+        } finally {
+            pool.shutdownNow();
+            for (int w = 0; w < workers.length; w++) {
+                workers[w].removeStopCriterion(criterion);
+                workers[w].unplugMonitor(monitors[w]);
+            }
+        }
+    }
+
+    /**
+     * Called on each solution found by the worker <i>w</i>.
+     * When dealing with optimization, the solution value is shared with all other workers.
+     * When dealing with satisfaction, all workers are stopped.
+     *
+     * @param w index of the worker
+     */
+    @SuppressWarnings("unchecked")
+    private synchronized void onSolution(int w) {
+        ObjectiveManager om = workers[w].getObjectiveManager();
+        if (!om.isOptimization()) {
+            if (best == -1) {
+                best = w;
+            }
+            stop = true;
+            return;
+        }
+        Number value = om.getBestSolutionValue();
+        boolean min = om.getPolicy() == ResolutionPolicy.MINIMIZE;
+        if (bestValue == null
+                || (min && value.doubleValue() < bestValue.doubleValue())
+                || (!min && value.doubleValue() > bestValue.doubleValue())) {
+            best = w;
+            bestValue = value;
+            for (int i = 0; i < workers.length; i++) {
+                if (i != w) {
+                    ObjectiveManager other = workers[i].getObjectiveManager();
+                    if (min) {
+                        other.updateBestUB(value);
+                    } else {
+                        other.updateBestLB(value);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Duplicate <i>model</i> <i>n</i> times, through serialization.
+     *
+     * @param model the model to duplicate
+     * @param n     number of copies
+     * @return an array of <i>n</i> copies of <i>model</i>
+     */
+    private static Solver[] duplicate(Solver model, int n) {
+        if (n < 1) {
+            throw new SolverException("A portfolio requires at least one worker");
+        }
+        byte[] flat = flatten(model);
+        Solver[] copies = new Solver[n];
+        for (int i = 0; i < n; i++) {
+            copies[i] = inflate(flat, model.getName() + "-w" + i);
+        }
+        return copies;
+    }
+
+    /**
+     * Flatten <i>object</i>, a model or any object referring to a model, into an array of bytes, through serialization.
+     *
+     * @param object the object to flatten
+     * @return the serialized form of <i>object</i>
+     * @throws SolverException if <i>object</i> refers to a non-serializable object
+     */
+    public static byte[] flatten(Serializable object) {
+        try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
+             ObjectOutputStream out = new ObjectOutputStream(bos)) {
+            out.writeObject(object);
+            out.flush();
+            return bos.toByteArray();
+        } catch (IOException e) {
+            throw new SolverException("The model cannot be duplicated, it may refer to a non-serializable object: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Restore a copy of an object from its serialized form.
+     *
+     * @param flat the serialized form of an object, as returned by {@link #flatten(Serializable)}
+     * @param <T>  the type of the object
+     * @return a new copy of the object
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T restore(byte[] flat) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(flat))) {
+            return (T) in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new SolverException("The model cannot be duplicated: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Restore a copy of a model from its serialized form.
+     *
+     * @param flat the serialized form of a model, as returned by {@link #flatten(Serializable)}
+     * @param name name of the copy
+     * @return a new copy of the model
+     */
+    static Solver inflate(byte[] flat, String name) {
+        Solver copy = restore(flat);
+        copy.setName(name);
+        return copy;
+    }
+
+    /**
+     * @return the index of <i>var</i> in <i>model</i>
+     */
+    static int indexOf(Solver model, Variable var) {
+        for (int i = 0; i < model.getNbVars(); i++) {
+            if (model.getVar(i) == var) {
+                return i;
+            }
+        }
+        throw new SolverException(var.getName() + " is not declared in " + model.getName());
+    }
+
+    /**
+     * Build the default search configurations of <i>n</i> workers.
+     * The first worker keeps the declared search strategy (or the default one),
+     * the next ones cycle over dom/wdeg, activity-based, impact-based and dom/wdeg with random LNS,
+     * each of them with its own seed.
+     *
+     * @param n number of workers
+     * @return an array of <i>n</i> search configurations
+     */
+    public static ISearchBinder[] defaultConfigurations(int n) {
+        if (n < 1) {
+            throw new SolverException("A portfolio requires at least one worker");
+        }
+        ISearchBinder[] confs = new ISearchBinder[n];
+        confs[0] = s -> {
+        };
+        for (int i = 1; i < n; i++) {
+            final long seed = i;
+            switch (i % 4) {
+                case 1:
+                    confs[i] = s -> s.set(ISF.lastConflict(s, ISF.domOverWDeg(decisionVariables(s), seed)));
+                    break;
+                case 2:
+                    confs[i] = s -> s.set(ISF.activity(decisionVariables(s), seed));
+                    break;
+                case 3:
+                    confs[i] = s -> s.set(ISF.impact(decisionVariables(s), seed));
+                    break;
+                default:
+                    confs[i] = s -> {
+                        IntVar[] vars = decisionVariables(s);
+                        if (s.getObjectiveManager().isOptimization()) {
+                            // last conflict does not support LNS's fragment decisions
+                            s.set(ISF.domOverWDeg(vars, seed));
+                            LNSFactory.rlns(s, vars, 30, seed, new FailCounter(s, 100));
+                        } else {
+                            s.set(ISF.lastConflict(s, ISF.domOverWDeg(vars, seed)));
+                        }
+                    };
+                    break;
+            }
+        }
+        return confs;
+    }
+
+    /**
+     * @return the non-constant integer variables of <i>solver</i>,
+     * or those of the declared search strategy, if any
+     */
+    private static IntVar[] decisionVariables(Solver solver) {
+        if (solver.getStrategy() != null) {
+            List<IntVar> ivars = new ArrayList<>();
+            for (Variable v : solver.getStrategy().getVariables()) {
+                int kind = v.getTypeAndKind() & Variable.KIND;
+                if (kind == Variable.INT || kind == Variable.BOOL) {
+                    ivars.add((IntVar) v);
+                }
+            }
+            if (ivars.size() > 0) {
+                return ivars.toArray(new IntVar[ivars.size()]);
+            }
+        }
+        List<IntVar> ivars = new ArrayList<>();
+        for (Variable v : solver.getVars()) {
+            int type = v.getTypeAndKind();
+            if ((type & Variable.CSTE) == 0
+                    && ((type & Variable.KIND) == Variable.INT || (type & Variable.KIND) == Variable.BOOL)) {
+                ivars.add((IntVar) v);
+            }
+        }
+        return ivars.toArray(new IntVar[ivars.size()]);
+    }
+
+    /**
+     * Resolution task of a worker.
+     */
+    private interface WorkerTask {
+        void solve(int worker);
+    }
+}
@@ -203,6 +203,19 @@ public interface Settings extends Serializable {
         return false;
     }
 
+    /**
+     * When this setting returns true, the propagation engine measures, for each propagator, the time spent in it,
+     * its number of fine and coarse calls, the number of domain reductions it made, its number of calls which did not
+     * filter anything and its number of failures.
+     * The measures are available through {@link org.chocosolver.solver.propagation.IPropagationEngine#getProfiler()}.
+     *
+     * Note that this parameter is read once at propagation engine creation and set in a final variable.
+     * @return true if propagators are profiled
+     */
+    default boolean profilePropagation(){
+        return false;
+    }
+
     /**
      * Return true if the incrementality is enabled on boolean sum, based on the number of variables involved.
      * Default condition is : nbvars > 10
@@ -230,4 +243,16 @@ public interface Settings extends Serializable {
     default boolean cloneVariableArrayInPropagator(){
         return true;
     }
+
+    /**
+     * If this setting is set to true, the SAT solver behind {@link org.chocosolver.solver.constraints.nary.cnf.SatConstraint}
+     * analyses the conflicts it meets, learns clauses (1-UIP), maintains variable activities (VSIDS) and last values,
+     * and regularly deletes the learnt clauses with the highest literal block distance.
+     * Default value is false.
+     * Note that this parameter is read once, when the SAT constraint is created.
+     * @return true if clause learning is enabled in the SAT solver
+     */
+    default boolean enableClauseLearningInSat(){
+        return false;
+    }
 }
@@ -523,6 +523,15 @@ public class Solver implements Serializable {
         return environment;
     }
 
+    /**
+     * Give back the memory of the backtracking environment which is not managed by the garbage collector,
+     * for instance when trails are stored off-heap (see {@link Environments#TRAIL_OFF_HEAP}).
+     * <code>this</code> cannot be solved anymore afterwards.
+     */
+    public void release() {
+        environment.release();
+    }
+
     /**
      * Return a reference to the measures recorder.
      * This enables to get, for instance, the number of solutions found, time count, etc.
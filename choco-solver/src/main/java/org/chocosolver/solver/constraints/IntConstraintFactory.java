@@ -32,7 +32,6 @@ package org.chocosolver.solver.constraints;
 import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
-import org.apache.spark.api.java.JavaSparkContext;
 import org.chocosolver.solver.Settings;
 import org.chocosolver.solver.Solver;
 import org.chocosolver.solver.constraints.binary.*;
@@ -87,7 +86,9 @@ import org.chocosolver.solver.constraints.unary.NotMember;
 import org.chocosolver.solver.exception.SolverException;
 import org.chocosolver.solver.variables.*;
 import org.chocosolver.util.objects.graphs.MultivaluedDecisionDiagram;
+import org.chocosolver.util.objects.player.CPUPlayer;
 import org.chocosolver.util.tools.ArrayUtils;
+import org.chocosolver.util.tools.DecisionForest;
 import org.chocosolver.util.tools.StringUtils;
 
 import java.util.Arrays;
@@ -311,11 +312,13 @@ public class IntConstraintFactory {
      * - <b>AC3</b>: table constraint which applies the AC3 algorithm,<br/>
      * - <b>AC3rm</b>: table constraint which applies the AC3 rm algorithm,<br/>
      * - <b>AC3bit+rm</b> (default): table constraint which applies the AC3 bit+rm algorithm,<br/>
+     * - <b>AC3bit+wr</b>: table constraint which applies the AC3 bit+rm algorithm on 64-bit words, with word residues
+     * and delta-based domain updates,<br/>
      * - <b>FC</b>: table constraint which applies forward checking algorithm.<br/>
      *
      * @param VAR1   first variable
      * @param VAR2   second variable
-     * @param TUPLES the relation between the two variables, among {"AC3", "AC3rm", "AC3bit+rm", "AC2001", "FC"}
+     * @param TUPLES the relation between the two variables, among {"AC3", "AC3rm", "AC3bit+rm", "AC3bit+wr", "AC2001", "FC"}
      */
     public static Constraint table(IntVar VAR1, IntVar VAR2, Tuples TUPLES, String ALGORITHM) {
         Propagator p;
@@ -332,6 +335,9 @@ public class IntConstraintFactory {
             case "AC3rm":
                 p = new PropBinAC3rm(VAR1, VAR2, TUPLES);
                 break;
+            case "AC3bit+wr":
+                p = new PropBinAC3bitwr(VAR1, VAR2, TUPLES);
+                break;
             default:
             case "AC3bit+rm":
                 p = new PropBinAC3bitrm(VAR1, VAR2, TUPLES);
@@ -1161,12 +1167,13 @@ public class IntConstraintFactory {
     /**
      * Create a constraint where solutions (tuples) are encoded by a multi-valued decision diagram.
      * The order of the variables in VARS is important and must refer to the MDD.
+     * The valid edges of the MDD are maintained incrementally, see {@link PropLargeMDD4R}.
      *
      * @param VARS the array of variables
      * @param MDD  the multi-valued decision diagram encoding solutions
      */
     public static Constraint mddc(IntVar[] VARS, MultivaluedDecisionDiagram MDD) {
-        return new Constraint("mddc", new PropLargeMDDC(MDD, VARS));
+        return new Constraint("mddc", new PropLargeMDD4R(MDD, VARS));
     }
 
     /**
@@ -1467,11 +1474,17 @@ public class IntConstraintFactory {
      * <br/>
      * - <b>STR2+</b>: Arc Consistency version STR2 for allowed tuples,
      * <br/>
+     * - <b>CT</b>: Arc Consistency with Compact-Table, for allowed tuples, possibly short
+     * (see {@link Tuples#setUniversalValue(int)}), or forbidden tuples,
+     * <br/>
+     * - <b>MDD</b>: Arc Consistency on the reduced MDD of allowed tuples, shared among identical relations
+     * (see {@link MultivaluedDecisionDiagram#reduced(IntVar[], Tuples)}),
+     * <br/>
      * - <b>FC</b>: Forward Checking.
      *
      * @param VARS      first variable
      * @param TUPLES    the relation between the variables (list of allowed/forbidden tuples)
-     * @param ALGORITHM to choose among {"GAC3rm", "GAC2001", "GACSTR", "GAC2001+", "GAC3rm+", "FC", "STR2+"}
+     * @param ALGORITHM to choose among {"GAC3rm", "GAC2001", "GACSTR", "GAC2001+", "GAC3rm+", "FC", "STR2+", "CT", "MDD"}
      */
     public static Constraint table(IntVar[] VARS, Tuples TUPLES, String ALGORITHM) {
         if (VARS.length == 2) {
@@ -1511,20 +1524,56 @@ public class IntConstraintFactory {
                 if (!TUPLES.isFeasible()) {
                     throw new SolverException("STR2+ cannot be used with forbidden tuples.");
                 }
-                p = new PropTableStr2(VARS, TUPLES.toMatrix());
+                p = new PropTableStr2(VARS, TUPLES.compact());
+                break;
+            case "CT":
+                p = new PropCompactTable(VARS, TUPLES);
+                break;
+            case "MDD":
+                if (!TUPLES.isFeasible()) {
+                    throw new SolverException("MDD cannot be used with forbidden tuples.");
+                }
+                p = new PropLargeMDD4R(MultivaluedDecisionDiagram.reduced(VARS, TUPLES), VARS);
         }
         return new Constraint("Table(" + ALGORITHM + ")", p);
     }
 
-    public static Constraint predictiveTable(IntVar[] VARS, Tuples TUPLES, JavaSparkContext sparkContext) {
+    /**
+     * Create a table constraint whose filtering algorithm is selected, on each propagation,
+     * by a classifier which scores the features of the current state (see {@link org.chocosolver.util.tools.IncrementalFeaturizer}).
+     *
+     * @param VARS   variables forming the tuples
+     * @param TUPLES the relation between the variables (list of allowed tuples)
+     * @param MODEL  a classifier loaded with {@link org.chocosolver.util.tools.DecisionForest#load(java.nio.file.Path)},
+     *               or null to collect training data instead
+     */
+    public static Constraint predictiveTable(IntVar[] VARS, Tuples TUPLES, DecisionForest MODEL) {
         if (VARS.length == 2) {
             table(VARS[0], VARS[1], TUPLES, "");
         }
-        PropLargePredictive propagator = new PropLargePredictive(VARS, TUPLES, new PropLargeFactory(), sparkContext);
-        propagator.setGenerateData(true);
+        PropLargePredictive propagator = new PropLargePredictive(VARS, TUPLES, new PropLargeFactory(), MODEL);
+        propagator.setGenerateData(MODEL == null);
         return new Constraint("Table(Predictive)", propagator);
     }
 
+    /**
+     * Create a table constraint which learns online, for this very constraint, which filtering algorithm
+     * among STR2+, GAC2001+, GAC3rm+, FC and CT is the most efficient: the choice is a multi-armed bandit (UCB1)
+     * whose arms are charged with the CPU time spent per value removed.
+     *
+     * @param VARS   variables forming the tuples
+     * @param TUPLES the relation between the variables (list of allowed tuples)
+     * @param SEED   seed of the bandit, which breaks ties between arms
+     */
+    public static Constraint banditTable(IntVar[] VARS, Tuples TUPLES, long SEED) {
+        if (!TUPLES.isFeasible()) {
+            throw new SolverException("banditTable cannot be used with forbidden tuples.");
+        }
+        PropLargePredictive propagator = new PropLargePredictive(VARS, TUPLES, new PropLargeFactory(), null);
+        propagator.setPlayer(new CPUPlayer(5, SEED));
+        return new Constraint("Table(Bandit)", propagator);
+    }
+
     /**
      * Partition SUCCS variables into NBTREES (anti) arborescences
      * <p/> SUCCS[i] = OFFSET+j means that j is the successor of i.
@@ -0,0 +1,265 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.constraints.extension;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * An immutable, column-oriented storage of tuples, meant to be shared by all the propagators of a relation.
+ * <p>
+ * Each column is compressed on its own: the distinct values of the column are stored, sorted, in a dictionary,
+ * and the tuples only store the index of their value in it (its <i>code</i>), bit-packed on as few bits as possible.
+ * Codes keep the order of values, and range from 0 to the size of the dictionary (excluded): they can be used
+ * as indices by propagators.
+ * <br/>
+ *
+ * @author agent
+ * @since 18/10/26
+ * @see Tuples#compact()
+ */
+public final class CompactTuples {
+
+    /**
+     * Canonical instances, see {@link #intern(CompactTuples)}
+     */
+    private static final Map<CompactTuples, WeakReference<CompactTuples>> POOL = new WeakHashMap<>();
+
+    private final boolean feasible;
+    private final int nbTuples;
+    private final int arity;
+    /**
+     * dictionaries[i] are the sorted distinct values of the i^th column
+     */
+    private final int[][] dictionaries;
+    /**
+     * number of bits of a code, per column
+     */
+    private final int[] widths;
+    /**
+     * bit-packed codes, per column
+     */
+    private final long[][] columns;
+    private int hash;
+
+    /**
+     * Compress <i>tuples</i>.
+     *
+     * @param tuples tuples to compress
+     */
+    public CompactTuples(Tuples tuples) {
+        this(tuples.nbTuples(), tuples.arity(), tuples.isFeasible(), tuples::get);
+    }
+
+    /**
+     * Compress <i>tuples</i>, all of the same arity.
+     *
+     * @param tuples   tuples to compress
+     * @param feasible true if these are allowed tuples
+     */
+    public CompactTuples(int[][] tuples, boolean feasible) {
+        this(tuples.length, tuples.length > 0 ? tuples[0].length : 0, feasible, (t, i) -> tuples[t][i]);
+    }
+
+    /**
+     * Compress tuples given column by column: <i>values</i> maps a tuple index and a column to a value,
+     * and is called for each tuple of the first column, then of the second one, etc.
+     *
+     * @param nbTuples number of tuples
+     * @param arity    number of columns
+     * @param feasible true if these are allowed tuples
+     * @param values   the values, per tuple and column
+     */
+    CompactTuples(int nbTuples, int arity, boolean feasible, IntBinaryOperator values) {
+        this.feasible = feasible;
+        this.nbTuples = nbTuples;
+        this.arity = arity;
+        this.dictionaries = new int[arity][];
+        this.widths = new int[arity];
+        this.columns = new long[arity][];
+        int[] column = new int[nbTuples];
+        for (int i = 0; i < arity; i++) {
+            for (int t = 0; t < nbTuples; t++) {
+                column[t] = values.applyAsInt(t, i);
+            }
+            int[] sorted = column.clone();
+            Arrays.sort(sorted);
+            int n = 0;
+            for (int t = 0; t < nbTuples; t++) {
+                if (n == 0 || sorted[n - 1] != sorted[t]) {
+                    sorted[n++] = sorted[t];
+                }
+            }
+            dictionaries[i] = Arrays.copyOf(sorted, n);
+            widths[i] = n > 1 ? 32 - Integer.numberOfLeadingZeros(n - 1) : 0;
+            columns[i] = new long[(int) (((long) nbTuples * widths[i] + 63) >>> 6)];
+            for (int t = 0; t < nbTuples; t++) {
+                setCode(i, t, Arrays.binarySearch(dictionaries[i], column[t]));
+            }
+        }
+    }
+
+    private void setCode(int col, int tuple, int code) {
+        int w = widths[col];
+        if (w > 0) {
+            long bit = (long) tuple * w;
+            int word = (int) (bit >>> 6);
+            int offset = (int) (bit & 63);
+            columns[col][word] |= (long) code << offset;
+            if (offset + w > 64) {
+                columns[col][word + 1] |= (long) code >>> (64 - offset);
+            }
+        }
+    }
+
+    /**
+     * Return the code of the value of the <i>col</i>^th column of the <i>tuple</i>^th tuple, that is,
+     * its index in {@link #getDictionary(int)}.
+     */
+    public int getCode(int tuple, int col) {
+        int w = widths[col];
+        if (w == 0) {
+            return 0;
+        }
+        long bit = (long) tuple * w;
+        int word = (int) (bit >>> 6);
+        int offset = (int) (bit & 63);
+        long code = columns[col][word] >>> offset;
+        if (offset + w > 64) {
+            code |= columns[col][word + 1] << (64 - offset);
+        }
+        return (int) (code & ((1L << w) - 1));
+    }
+
+    /**
+     * Return the value of the <i>col</i>^th column of the <i>tuple</i>^th tuple
+     */
+    public int get(int tuple, int col) {
+        return dictionaries[col][getCode(tuple, col)];
+    }
+
+    /**
+     * Return the <i>tuple</i>^th tuple, in a new array
+     */
+    public int[] get(int tuple) {
+        int[] values = new int[arity];
+        for (int i = 0; i < arity; i++) {
+            values[i] = get(tuple, i);
+        }
+        return values;
+    }
+
+    /**
+     * Return the sorted distinct values of the <i>col</i>^th column; must not be modified
+     */
+    public int[] getDictionary(int col) {
+        return dictionaries[col];
+    }
+
+    /**
+     * Return the number of tuples stored
+     */
+    public int nbTuples() {
+        return nbTuples;
+    }
+
+    /**
+     * Return the number of columns
+     */
+    public int arity() {
+        return arity;
+    }
+
+    /**
+     * Return true if these are allowed tuples, false otherwise
+     */
+    public boolean isFeasible() {
+        return feasible;
+    }
+
+    /**
+     * Return the minimum value of the <i>col</i>^th column
+     */
+    public int min(int col) {
+        return dictionaries[col][0];
+    }
+
+    /**
+     * Return the maximum value of the <i>col</i>^th column
+     */
+    public int max(int col) {
+        return dictionaries[col][dictionaries[col].length - 1];
+    }
+
+    /**
+     * Return the canonical instance equal to <i>tuples</i>, so that identical relations share the same storage.
+     * Canonical instances are weakly referenced.
+     *
+     * @param tuples compressed tuples
+     * @return an instance equal to <i>tuples</i>, possibly <i>tuples</i> itself
+     */
+    public static CompactTuples intern(CompactTuples tuples) {
+        synchronized (POOL) {
+            WeakReference<CompactTuples> ref = POOL.get(tuples);
+            CompactTuples canonical = ref == null ? null : ref.get();
+            if (canonical == null) {
+                POOL.put(tuples, new WeakReference<>(tuples));
+                canonical = tuples;
+            }
+            return canonical;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CompactTuples)) return false;
+        CompactTuples that = (CompactTuples) o;
+        return feasible == that.feasible && nbTuples == that.nbTuples && arity == that.arity
+                && hashCode() == that.hashCode()
+                && Arrays.deepEquals(dictionaries, that.dictionaries)
+                && Arrays.deepEquals(columns, that.columns);
+    }
+
+    @Override
+    public int hashCode() {
+        if (hash == 0) {
+            int h = Boolean.hashCode(feasible);
+            h = 31 * h + nbTuples;
+            h = 31 * h + Arrays.deepHashCode(dictionaries);
+            h = 31 * h + Arrays.deepHashCode(columns);
+            hash = h == 0 ? 1 : h;
+        }
+        return hash;
+    }
+}
@@ -50,9 +50,21 @@ public class Tuples {
     //***********************************************************************************
 
     protected final boolean feasible;
-    protected final List<int[]> tuples;
+    /**
+     * The tuples, null once compacted
+     */
+    protected List<int[]> tuples;
+    /**
+     * The compressed tuples, if any
+     */
+    protected CompactTuples compact;
     protected int arity;
     protected int[] ranges;
+    /**
+     * Whether a value stands for any value (see {@link #setUniversalValue(int)})
+     */
+    protected boolean allowUniversalValue;
+    protected int starValue;
 
     //***********************************************************************************
     // CONSTRUCTOR
@@ -68,6 +80,19 @@ public class Tuples {
         this(true);
     }
 
+    /**
+     * Create tuples already compressed, whose ranges are known.
+     *
+     * @param compact the compressed tuples
+     * @param ranges  the minimum values of the columns, followed by their maximum values
+     */
+    Tuples(CompactTuples compact, int[] ranges) {
+        this.feasible = compact.isFeasible();
+        this.compact = compact;
+        this.arity = compact.arity();
+        this.ranges = ranges;
+    }
+
     //***********************************************************************************
     // METHODS
     //***********************************************************************************
@@ -79,6 +104,7 @@ public class Tuples {
      * @throws org.chocosolver.solver.exception.SolverException if the size of the tuple added does not correspond to a the previous ones (if any).
      */
     public void add(int... tuple) {
+        expand();
         if (tuples.size() == 0) {
             arity = tuple.length;
             ranges = new int[2 * arity];
@@ -94,6 +120,35 @@ public class Tuples {
         }
     }
 
+    /**
+     * Make sure the tuples are stored in a list, and forget the compressed tuples.
+     */
+    private void expand() {
+        if (tuples == null) {
+            int n = compact.nbTuples();
+            tuples = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                tuples.add(compact.get(i));
+            }
+        }
+        compact = null;
+    }
+
+    /**
+     * Compress the tuples, in a column-oriented way, and release the list they were stored in.
+     * The compressed tuples are shared: identical relations return the same instance.
+     * Tuples can still be added afterwards, at the cost of decompressing them.
+     *
+     * @return the compressed tuples, immutable
+     */
+    public CompactTuples compact() {
+        if (compact == null) {
+            compact = CompactTuples.intern(new CompactTuples(this));
+            tuples = null;
+        }
+        return compact;
+    }
+
     /**
      * Add a tuple set
      *
@@ -105,6 +160,32 @@ public class Tuples {
         }
     }
 
+    /**
+     * Declare <i>value</i> as the universal value (or star): in a tuple, it stands for any value of the variable,
+     * so that a short tuple represents many ones.
+     * The universal value is only handled by the "CT" algorithm, other ones consider it as a regular value.
+     *
+     * @param value a value which is not used otherwise in tuples
+     */
+    public void setUniversalValue(int value) {
+        this.allowUniversalValue = true;
+        this.starValue = value;
+    }
+
+    /**
+     * @return true if a universal value has been declared
+     */
+    public boolean allowUniversalValue() {
+        return allowUniversalValue;
+    }
+
+    /**
+     * @return the universal value, relevant only if {@link #allowUniversalValue()} returns true
+     */
+    public int getStarValue() {
+        return starValue;
+    }
+
     /**
      * Return true if these are allowed tuples, false otherwise
      *
@@ -140,21 +221,37 @@ public class Tuples {
      * @return number of tuples stored
      */
     public int nbTuples() {
-        return tuples.size();
+        return tuples == null ? compact.nbTuples() : tuples.size();
     }
 
     /**
-     * Return the idx^th tuple
+     * Return the number of values of each tuple
+     *
+     * @return the arity of the tuples, 0 if there is none
+     */
+    public int arity() {
+        return arity;
+    }
+
+    /**
+     * Return the idx^th tuple; once compacted, a new array is returned on each call
      */
     public int[] get(int idx) {
-        return tuples.get(idx);
+        return tuples == null ? compact.get(idx) : tuples.get(idx);
+    }
+
+    /**
+     * Return the value of the col^th column of the idx^th tuple
+     */
+    public int get(int idx, int col) {
+        return tuples == null ? compact.get(idx, col) : tuples.get(idx)[col];
     }
 
     @Override
     public String toString() {
         StringBuilder st = new StringBuilder(isFeasible() ? "Allowed" : "Fordidden").append(" tuples: {");
-        for (int i = 0; i < tuples.size(); i++) {
-            st.append(Arrays.toString(tuples.get(i)));
+        for (int i = 0; i < nbTuples(); i++) {
+            st.append(Arrays.toString(get(i)));
         }
 
         st.append("}");
@@ -166,15 +263,15 @@ public class Tuples {
      * @return an array of tuples, each tuple is an int array
      */
     public int[][] toMatrix() {
-        int i = 0;
-        int[][] matrix = new int[tuples.size()][];
-        for (int[] tuple : tuples) {
-            matrix[i++] = tuple.clone();
+        int[][] matrix = new int[nbTuples()][];
+        for (int i = 0; i < matrix.length; i++) {
+            matrix[i] = tuples == null ? compact.get(i) : tuples.get(i).clone();
         }
         return matrix;
     }
 
     public void sort() {
+        expand();
         tuples.sort(new TupleComparator());
     }
 
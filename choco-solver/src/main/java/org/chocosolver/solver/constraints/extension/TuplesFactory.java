@@ -30,9 +30,22 @@
 package org.chocosolver.solver.constraints.extension;
 
 import org.chocosolver.solver.constraints.Operator;
+import org.chocosolver.solver.exception.SolverException;
 import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.util.tools.ArrayUtils;
 
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
 /**
  * A Factory to ease generation of tuples.
  * One may keep in mind that tuples generation directly depends on the product of domain cardinality, but also on the algorithm defines in the filter.
@@ -44,6 +57,30 @@ import org.chocosolver.util.tools.ArrayUtils;
  */
 public class TuplesFactory {
 
+    /**
+     * Number of candidate tuples under which an enumeration is not split anymore
+     */
+    private static final int SPLIT = 1 << 14;
+
+    /**
+     * Maximum number of relations kept in cache
+     */
+    private static final int CACHE_SIZE = 32;
+
+    /**
+     * Relations generated by the methods of this factory, keyed by the method, its parameters and the domains,
+     * the least recently used one is evicted first.
+     * They are softly referenced, so that the garbage collector can reclaim them when memory runs low;
+     * meanwhile, relations in use are shared anyway, see {@link CompactTuples#intern(CompactTuples)}.
+     */
+    private static final Map<Signature, SoftReference<CompactTuples>> CACHE =
+            new LinkedHashMap<Signature, SoftReference<CompactTuples>>(16, .75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Signature, SoftReference<CompactTuples>> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
     TuplesFactory() {
     }
 
@@ -71,7 +108,7 @@ public class TuplesFactory {
             int j;
             for (j = 0; j < n; j++) {
                 i[j]++;
-                if (i[j] < n) {
+                if (i[j] < doms[j].length) {
                     t[j] = doms[j][i[j]];
                     break;
                 }
@@ -117,6 +154,250 @@ public class TuplesFactory {
 
     }
 
+    /**
+     * A method that generates all tuples from a set of domains and returns the valid tuples wrt to the <code>filter</code>,
+     * in the same order as {@link #generateTuples(TupleValidator, boolean, int[]...)}.
+     * The Cartesian product is split in ranges of tuples, enumerated in parallel by the common fork-join pool
+     * into primitive buffers, which are then merged into compressed tuples (see {@link CompactTuples}).
+     * As a consequence, <code>filter</code> is called concurrently and must not depend on a mutable state.
+     *
+     * @param filter   tuple validator, stateless
+     * @param feasible are tuples feasible (or infeasible)
+     * @param doms     domains
+     * @return the valid tuples wrt to <code>filter</code>, already compressed (see {@link Tuples#compact()})
+     */
+    public static Tuples parallelTuples(TupleValidator filter, boolean feasible, int[]... doms) {
+        return toTuples(enumerate(filter, feasible, doms));
+    }
+
+    /**
+     * Generate tuples in parallel, see {@link #parallelTuples(TupleValidator, boolean, int[]...)}, or get them from
+     * the cache when the same method has already been called with the same parameters and domains.
+     *
+     * @param filter    tuple validator, stateless
+     * @param vars      concerned variables
+     * @param signature the name of the calling method and its parameters, other than the variables
+     * @return the valid tuples wrt to <code>filter</code>
+     */
+    private static Tuples generate(TupleValidator filter, IntVar[] vars, Object... signature) {
+        int[][] doms = domains(vars);
+        return toTuples(cached(new Signature(signature, doms), () -> enumerate(filter, true, doms)));
+    }
+
+    private static CompactTuples cached(Signature key, Supplier<CompactTuples> generator) {
+        CompactTuples tuples;
+        synchronized (CACHE) {
+            SoftReference<CompactTuples> ref = CACHE.get(key);
+            tuples = ref == null ? null : ref.get();
+        }
+        if (tuples == null) {
+            tuples = generator.get();
+            synchronized (CACHE) {
+                CACHE.put(key, new SoftReference<>(tuples));
+            }
+        }
+        return tuples;
+    }
+
+    /**
+     * Empty the cache of the relations generated by the methods of this factory.
+     * The relations still in use remain shared, see {@link CompactTuples#intern(CompactTuples)}.
+     */
+    public static void clearCache() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+    private static int[][] domains(IntVar[] vars) {
+        int[][] doms = new int[vars.length][];
+        for (int i = 0; i < vars.length; i++) {
+            doms[i] = new int[vars[i].getDomainSize()];
+            int k = 0;
+            int ub = vars[i].getUB();
+            for (int v = vars[i].getLB(); v <= ub; v = vars[i].nextValue(v)) {
+                doms[i][k++] = v;
+            }
+        }
+        return doms;
+    }
+
+    /**
+     * Wrap compressed tuples into a new <code>Tuples</code>, which can be modified without altering them.
+     */
+    private static Tuples toTuples(CompactTuples compact) {
+        int n = compact.arity();
+        int[] ranges = null;
+        if (compact.nbTuples() > 0) {
+            ranges = new int[2 * n];
+            for (int i = 0; i < n; i++) {
+                ranges[i] = compact.min(i);
+                ranges[i + n] = compact.max(i);
+            }
+        }
+        return new Tuples(compact, ranges);
+    }
+
+    private static CompactTuples enumerate(TupleValidator filter, boolean feasible, int[][] doms) {
+        int n = doms.length;
+        if (n == 0) {
+            return generateTuples(filter, feasible, doms).compact();
+        }
+        long size = 1;
+        for (int[] dom : doms) {
+            if (dom.length > 0 && size > Long.MAX_VALUE / dom.length) {
+                throw new SolverException("Too many tuples to enumerate");
+            }
+            size *= dom.length;
+        }
+        List<int[]> buffers = ForkJoinPool.commonPool().invoke(new Enumeration(filter, doms, 0, size));
+        long length = 0;
+        for (int[] buffer : buffers) {
+            length += buffer.length;
+        }
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new SolverException("Too many valid tuples to store");
+        }
+        int[] store = new int[(int) length];
+        int k = 0;
+        for (int[] buffer : buffers) {
+            System.arraycopy(buffer, 0, store, k, buffer.length);
+            k += buffer.length;
+        }
+        return CompactTuples.intern(new CompactTuples(store.length / n, n, feasible, (t, i) -> store[t * n + i]));
+    }
+
+    /**
+     * Enumerate the tuples of a range of the Cartesian product of some domains, the first domain varying first.
+     * The range is split in halves until it is small enough, and the valid tuples of each part are stored,
+     * one after the other, in an int array.
+     */
+    private static final class Enumeration extends RecursiveTask<List<int[]>> {
+
+        private final TupleValidator filter;
+        private final int[][] doms;
+        private final long from, to;
+
+        Enumeration(TupleValidator filter, int[][] doms, long from, long to) {
+            this.filter = filter;
+            this.doms = doms;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<int[]> compute() {
+            if (to - from <= SPLIT) {
+                List<int[]> buffers = new ArrayList<>();
+                buffers.add(enumerate());
+                return buffers;
+            }
+            long mid = (from + to) >>> 1;
+            Enumeration left = new Enumeration(filter, doms, from, mid);
+            left.fork();
+            List<int[]> right = new Enumeration(filter, doms, mid, to).compute();
+            List<int[]> buffers = left.join();
+            buffers.addAll(right);
+            return buffers;
+        }
+
+        private int[] enumerate() {
+            int n = doms.length;
+            int[] idx = new int[n];
+            int[] t = new int[n];
+            long r = from;
+            for (int j = 0; j < n; j++) {
+                idx[j] = (int) (r % doms[j].length);
+                r /= doms[j].length;
+                t[j] = doms[j][idx[j]];
+            }
+            int[] buffer = new int[16 * n];
+            int size = 0;
+            for (long k = from; k < to; k++) {
+                if (filter.valid(t)) {
+                    if (size + n > buffer.length) {
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    }
+                    System.arraycopy(t, 0, buffer, size, n);
+                    size += n;
+                }
+                for (int j = 0; j < n; j++) {
+                    if (++idx[j] < doms[j].length) {
+                        t[j] = doms[j][idx[j]];
+                        break;
+                    }
+                    idx[j] = 0;
+                    t[j] = doms[j][0];
+                }
+            }
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    /**
+     * Identify a relation generated by this factory: the method, its parameters and the domains
+     */
+    private static final class Signature {
+        private final Object[] parameters;
+        private final int[][] doms;
+        private final int hash;
+
+        Signature(Object[] parameters, int[][] doms) {
+            this.parameters = parameters;
+            this.doms = doms;
+            this.hash = 31 * Arrays.deepHashCode(parameters) + Arrays.deepHashCode(doms);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Signature)) return false;
+            Signature that = (Signature) o;
+            return hash == that.hash && Arrays.deepEquals(parameters, that.parameters) && Arrays.deepEquals(doms, that.doms);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * A method that generates all tuples from a set of variables and writes the valid tuples wrt to the <code>filter</code>
+     * in <code>file</code>, as they come, to be read back with {@link TuplesFile#read(Path)}.
+     * Contrary to {@link #generateTuples(TupleValidator, boolean, IntVar...)}, tuples are not kept in memory.
+     *
+     * @param filter   tuple validator
+     * @param feasible are tuples feasible (or infeasible)
+     * @param file     the file to write, replaced if it exists
+     * @param vars     concerned variables
+     * @return the number of valid tuples wrt to <code>filter</code>
+     * @throws IOException if the file cannot be written
+     */
+    public static long generateTuples(TupleValidator filter, boolean feasible, Path file, IntVar... vars) throws IOException {
+        int n = vars.length;
+        int[] cvalue = new int[n];
+        int[] t = new int[n];
+        for (int j = 0; j < n; j++) {
+            t[j] = cvalue[j] = vars[j].getLB();
+        }
+        try (TuplesFile.Writer writer = new TuplesFile.Writer(file, feasible, n, TuplesFile.BLOCK)) {
+            while (true) {
+                if (filter.valid(t)) writer.add(t);
+                int j;
+                for (j = 0; j < n; j++) {
+                    int v = t[j] = cvalue[j] = vars[j].nextValue(cvalue[j]);
+                    if (v < Integer.MAX_VALUE) {
+                        break;
+                    }
+                    t[j] = cvalue[j] = vars[j].getLB();
+                }
+                if (j == n) break;
+            }
+            return writer.getNbTuples();
+        }
+    }
+
     // BEWARE: PLEASE, keep signatures sorted by increasing arity and alphabetical order!!
 
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -129,7 +410,7 @@ public class TuplesFactory {
      * @return a Tuples object, reserved for a table constraint
      */
     public static Tuples absolute(IntVar VAR1, IntVar VAR2) {
-        return generateTuples(values -> values[0] == Math.abs(values[1]), true, VAR1, VAR2);
+        return generate(values -> values[0] == Math.abs(values[1]), new IntVar[]{VAR1, VAR2}, "absolute");
     }
 
     /**
@@ -139,7 +420,7 @@ public class TuplesFactory {
      */
     public static Tuples arithm(IntVar VAR1, String OP, IntVar VAR2) {
         final Operator op = Operator.get(OP);
-        return generateTuples(values -> {
+        return generate(values -> {
             switch (op) {
                 case LT:
                     return values[0] < values[1];
@@ -155,7 +436,7 @@ public class TuplesFactory {
                     return values[0] == values[1];
             }
             return false;
-        }, true, VAR1, VAR2);
+        }, new IntVar[]{VAR1, VAR2}, "arithm", op);
     }
 
     /**
@@ -183,7 +464,7 @@ public class TuplesFactory {
      * @return a Tuples object, reserved for a table constraint
      */
     public static Tuples power(IntVar VAR1, IntVar VAR2, final int POWER) {
-        return generateTuples(values -> values[0] == Math.pow(values[1], POWER), true, VAR1, VAR2);
+        return generate(values -> values[0] == Math.pow(values[1], POWER), new IntVar[]{VAR1, VAR2}, "power", POWER);
     }
 
     /**
@@ -192,7 +473,7 @@ public class TuplesFactory {
      * @return a Tuples object, reserved for a table constraint
      */
     public static Tuples square(IntVar VAR1, IntVar VAR2) {
-        return generateTuples(values -> values[0] == Math.pow(values[1], 2), true, VAR1, VAR2);
+        return generate(values -> values[0] == Math.pow(values[1], 2), new IntVar[]{VAR1, VAR2}, "power", 2);
     }
 
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -205,7 +486,7 @@ public class TuplesFactory {
      * @return a Tuples object, reserved for a table constraint
      */
     public static Tuples eucl_div(IntVar DIVIDEND, IntVar DIVISOR, IntVar RESULT) {
-        return generateTuples(values -> values[0] / values[1] == values[2], true, DIVIDEND, DIVISOR, RESULT);
+        return generate(values -> values[0] / values[1] == values[2], new IntVar[]{DIVIDEND, DIVISOR, RESULT}, "eucl_div");
     }
 
     /**
@@ -214,7 +495,7 @@ public class TuplesFactory {
      * @return a Tuples object, reserved for a table constraint
      */
     public static Tuples maximum(IntVar VAR1, IntVar VAR2, IntVar MAX) {
-        return generateTuples(values -> values[0] == Math.max(values[1], values[2]), true, MAX, VAR1, VAR2);
+        return generate(values -> values[0] == Math.max(values[1], values[2]), new IntVar[]{MAX, VAR1, VAR2}, "maximum");
     }
 
     /**
@@ -223,7 +504,7 @@ public class TuplesFactory {
      * @return a Tuples object, reserved for a table constraint
      */
     public static Tuples minimum(IntVar VAR1, IntVar VAR2, IntVar MIN) {
-        return generateTuples(values -> values[0] == Math.min(values[1], values[2]), true, MIN, VAR1, VAR2);
+        return generate(values -> values[0] == Math.min(values[1], values[2]), new IntVar[]{MIN, VAR1, VAR2}, "minimum");
     }
 
     /**
@@ -232,7 +513,7 @@ public class TuplesFactory {
      * @return a Tuples object, reserved for a table constraint
      */
     public static Tuples modulo(IntVar VAR1, IntVar VAR2, IntVar MOD) {
-        return generateTuples(values -> values[0] == values[1] % values[2], true, MOD, VAR1, VAR2);
+        return generate(values -> values[0] == values[1] % values[2], new IntVar[]{MOD, VAR1, VAR2}, "modulo");
     }
 
 
@@ -242,7 +523,7 @@ public class TuplesFactory {
      * @return a Tuples object, reserved for a table constraint
      */
     public static Tuples minus(IntVar VAR1, IntVar VAR2, IntVar RESULT) {
-        return generateTuples(values -> values[0] - values[1] == values[2], true, VAR1, VAR2, RESULT);
+        return generate(values -> values[0] - values[1] == values[2], new IntVar[]{VAR1, VAR2, RESULT}, "minus");
     }
 
     /**
@@ -251,7 +532,7 @@ public class TuplesFactory {
      * @return a Tuples object, reserved for a table constraint
      */
     public static Tuples plus(IntVar VAR1, IntVar VAR2, IntVar RESULT) {
-        return generateTuples(values -> values[0] + values[1] == values[2], true, VAR1, VAR2, RESULT);
+        return generate(values -> values[0] + values[1] == values[2], new IntVar[]{VAR1, VAR2, RESULT}, "plus");
     }
 
     /**
@@ -260,7 +541,7 @@ public class TuplesFactory {
      * @return a Tuples object, reserved for a table constraint
      */
     public static Tuples times(IntVar VAR1, IntVar VAR2, IntVar RESULT) {
-        return generateTuples(values -> values[0] * values[1] == values[2], true, VAR1, VAR2, RESULT);
+        return generate(values -> values[0] * values[1] == values[2], new IntVar[]{VAR1, VAR2, RESULT}, "times");
     }
 
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -274,14 +555,14 @@ public class TuplesFactory {
      * @return a Tuples object, reserved for a table constraint
      */
     public static Tuples allDifferent(IntVar... VARS) {
-        return generateTuples(values -> {
+        return generate(values -> {
             for (int i = 0; i < values.length - 1; i++) {
                 for (int j = i + 1; j < values.length; j++) {
                     if (values[j] == values[i]) return false;
                 }
             }
             return true;
-        }, true, VARS);
+        }, VARS, "allDifferent");
     }
 
     /**
@@ -324,12 +605,12 @@ public class TuplesFactory {
      * @return a Tuples object, reserved for a table constraint
      */
     public static Tuples lex_chain_less(IntVar... VARS) {
-        return generateTuples(values -> {
+        return generate(values -> {
             for (int i = 0; i < values.length - 1; i++) {
                 if (values[i] < values[i + 1]) return false;
             }
             return true;
-        }, true, VARS);
+        }, VARS, "lex_chain_less");
     }
 
     /**
@@ -339,12 +620,12 @@ public class TuplesFactory {
      * @return a Tuples object, reserved for a table constraint
      */
     public static Tuples lex_chain_less_eq(IntVar... VARS) {
-        return generateTuples(values -> {
+        return generate(values -> {
             for (int i = 0; i < values.length - 1; i++) {
                 if (values[i] <= values[i + 1]) return false;
             }
             return true;
-        }, true, VARS);
+        }, VARS, "lex_chain_less_eq");
     }
 
     /**
@@ -354,22 +635,29 @@ public class TuplesFactory {
      * @return a Tuples object, reserved for a table constraint
      */
     public static Tuples scalar(IntVar[] VARS, final int[] COEFFS, IntVar SCALAR, final int SCALAR_COEFF) {
-        Tuples left = generateTuples(TupleValidator.TRUE, true, VARS);
-        Tuples tuples = new Tuples(true);
         int n = VARS.length;
-        for (int[] tleft : left.tuples) {
-            int right = 0;
-            for (int i = 0; i < n; i++) {
-                right += tleft[i] * COEFFS[i];
-            }
-            if (right % SCALAR_COEFF == 0 && SCALAR.contains(right / SCALAR_COEFF)) {
-                int[] t = new int[n + 1];
-                System.arraycopy(tleft, 0, t, 0, n);
-                t[n] = right / SCALAR_COEFF;
-                tuples.add(t);
-            }
-        }
-        return tuples;
+        int[][] doms = domains(ArrayUtils.append(VARS, new IntVar[]{SCALAR}));
+        int[] coeffs = COEFFS.clone();
+        return toTuples(cached(new Signature(new Object[]{"scalar", coeffs, SCALAR_COEFF}, doms), () -> {
+            // only enumerate VARS, the value of SCALAR follows
+            CompactTuples left = enumerate(values -> {
+                int right = 0;
+                for (int i = 0; i < n; i++) {
+                    right += values[i] * coeffs[i];
+                }
+                return right % SCALAR_COEFF == 0 && Arrays.binarySearch(doms[n], right / SCALAR_COEFF) >= 0;
+            }, true, Arrays.copyOf(doms, n));
+            return CompactTuples.intern(new CompactTuples(left.nbTuples(), n + 1, true, (t, i) -> {
+                if (i < n) {
+                    return left.get(t, i);
+                }
+                int right = 0;
+                for (int j = 0; j < n; j++) {
+                    right += left.get(t, j) * coeffs[j];
+                }
+                return right / SCALAR_COEFF;
+            }));
+        }));
     }
 
     /**
@@ -383,7 +671,7 @@ public class TuplesFactory {
             return scalar(VARS, COEFFS, SCALAR, SCALAR_COEFF);
         }
         final Operator op = Operator.get(OPERATOR);
-        return generateTuples(values -> {
+        return generate(values -> {
             int scalar = 0;
             for (int i = 0; i < values.length - 1; i++) {
                 scalar += values[i] * COEFFS[i];
@@ -403,7 +691,7 @@ public class TuplesFactory {
                     return scalar == values[values.length - 1] * SCALAR_COEFF + CSTE;
             }
             return false;
-        }, true, ArrayUtils.append(VARS, new IntVar[]{SCALAR}));
+        }, ArrayUtils.append(VARS, new IntVar[]{SCALAR}), "scalar", COEFFS.clone(), op, SCALAR_COEFF, CSTE);
     }
 
     /**
@@ -414,7 +702,7 @@ public class TuplesFactory {
      */
     public static Tuples sum(IntVar[] VARS, final String OPERATOR, IntVar SUM, int CSTE) {
         final Operator op = Operator.get(OPERATOR);
-        return generateTuples(values -> {
+        return generate(values -> {
             int sum = 0;
             for (int i = 0; i < values.length - 1; i++) {
                 sum += values[i];
@@ -434,7 +722,7 @@ public class TuplesFactory {
                     return sum == values[values.length - 1] + CSTE;
             }
             return false;
-        }, true, ArrayUtils.append(VARS, new IntVar[]{SUM}));
+        }, ArrayUtils.append(VARS, new IntVar[]{SUM}), "sum", op, CSTE);
     }
 
 }
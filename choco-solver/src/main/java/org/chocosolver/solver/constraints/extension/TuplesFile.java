@@ -0,0 +1,261 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.constraints.extension;
+
+import org.chocosolver.solver.exception.SolverException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Read and write tuples in binary files, column-oriented, so that huge relations can be loaded
+ * without allocating an array per tuple.
+ * <p>
+ * Numbers are written in little-endian order. A file starts with a header made of {@link #MAGIC}, {@link #VERSION},
+ * 1 for allowed tuples (0 otherwise), the arity <i>a</i>, the number of tuples (a long), the number of tuples per block,
+ * then the minimum values of the <i>a</i> columns, followed by their maximum values (ints).
+ * The tuples follow, by blocks: each block stores its tuples column by column, and only the last one may be partial.
+ * <p>
+ * Files are memory-mapped when read: the values are checked against the ranges of the header and compressed
+ * (see {@link CompactTuples}) in a single pass over each column.
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public final class TuplesFile {
+
+    public static final int MAGIC = 0x43505455; // CPTU
+    public static final int VERSION = 1;
+    /**
+     * Default number of tuples per block
+     */
+    public static final int BLOCK = 1 << 16;
+
+    private TuplesFile() {
+    }
+
+    private static int headerSize(int arity) {
+        return 28 + 8 * arity;
+    }
+
+    /**
+     * Read tuples from a file.
+     *
+     * @param file the file to read
+     * @return the tuples, already compressed (see {@link Tuples#compact()})
+     * @throws IOException     if the file cannot be read
+     * @throws SolverException if the file is not a valid tuples file
+     */
+    public static Tuples read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < headerSize(0)) {
+                throw new SolverException(file + " is not a tuples file");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, headerSize(0)).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new SolverException(file + " is not a tuples file, or its version is not supported");
+            }
+            boolean feasible = header.getInt() == 1;
+            int arity = header.getInt();
+            long n = header.getLong();
+            int block = header.getInt();
+            if (arity < 0 || n < 0 || n > Integer.MAX_VALUE || block <= 0 || (long) block * arity * 4 > Integer.MAX_VALUE
+                    || size != headerSize(arity) + 4 * n * arity) {
+                throw new SolverException(file + " is corrupted");
+            }
+            int[] ranges = new int[2 * arity];
+            channel.map(FileChannel.MapMode.READ_ONLY, headerSize(0), 8 * arity).order(ByteOrder.LITTLE_ENDIAN)
+                    .asIntBuffer().get(ranges);
+            int nbTuples = (int) n;
+            MappedByteBuffer[] blocks = new MappedByteBuffer[(nbTuples + block - 1) / block];
+            for (int b = 0; b < blocks.length; b++) {
+                long position = headerSize(arity) + 4L * b * block * arity;
+                int length = Math.min(block, nbTuples - b * block);
+                blocks[b] = channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * length * arity);
+                blocks[b].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            CompactTuples compact = new CompactTuples(nbTuples, arity, feasible, (t, i) -> {
+                int b = t / block;
+                int length = Math.min(block, nbTuples - b * block);
+                int value = blocks[b].getInt(4 * (i * length + t - b * block));
+                if (value < ranges[i] || value > ranges[i + arity]) {
+                    throw new SolverException(file + " is corrupted: " + value + " is out of the range of column " + i);
+                }
+                return value;
+            });
+            return new Tuples(CompactTuples.intern(compact), ranges);
+        }
+    }
+
+    /**
+     * Write tuples in a file, with blocks of {@link #BLOCK} tuples.
+     *
+     * @param file   the file to write, replaced if it exists
+     * @param tuples the tuples to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path file, Tuples tuples) throws IOException {
+        try (Writer writer = new Writer(file, tuples.isFeasible(), tuples.arity(), BLOCK)) {
+            for (int t = 0; t < tuples.nbTuples(); t++) {
+                writer.add(tuples.get(t));
+            }
+        }
+    }
+
+    /**
+     * Write tuples in a file as they come, block by block, without keeping them in memory.
+     * The header is completed when the writer is closed.
+     */
+    public static final class Writer implements Closeable {
+
+        private final FileChannel channel;
+        private final boolean feasible;
+        private final int arity;
+        private final int block;
+        private final int[] ranges;
+        /**
+         * The current block, column by column, and the number of tuples in it
+         */
+        private final int[][] columns;
+        private int size;
+        private long nbTuples;
+        private final ByteBuffer buffer;
+
+        /**
+         * @param file     the file to write, replaced if it exists
+         * @param feasible true if these are allowed tuples
+         * @param arity    the arity of the tuples
+         * @param block    the number of tuples per block
+         * @throws IOException if the file cannot be created
+         */
+        public Writer(Path file, boolean feasible, int arity, int block) throws IOException {
+            if (block <= 0 || (long) block * arity * 4 > Integer.MAX_VALUE) {
+                throw new SolverException("A block must hold between 1 and 2GB of tuples");
+            }
+            this.feasible = feasible;
+            this.arity = arity;
+            this.block = block;
+            this.ranges = new int[2 * arity];
+            Arrays.fill(ranges, 0, arity, Integer.MAX_VALUE);
+            Arrays.fill(ranges, arity, 2 * arity, Integer.MIN_VALUE);
+            this.columns = new int[arity][block];
+            this.buffer = ByteBuffer.allocateDirect(Math.max(headerSize(arity), 4 * Math.min(block, 1 << 14)))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.channel.position(headerSize(arity));
+        }
+
+        /**
+         * Add a tuple; it is copied, so the array can be reused.
+         *
+         * @param tuple a tuple
+         * @throws IOException     if the block cannot be written
+         * @throws SolverException if the size of the tuple does not match the arity
+         */
+        public void add(int... tuple) throws IOException {
+            if (tuple.length != arity) {
+                throw new SolverException("The given tuple does not match the arity: " + arity);
+            }
+            for (int i = 0; i < arity; i++) {
+                columns[i][size] = tuple[i];
+                ranges[i] = Math.min(ranges[i], tuple[i]);
+                ranges[i + arity] = Math.max(ranges[i + arity], tuple[i]);
+            }
+            nbTuples++;
+            if (++size == block) {
+                flush();
+            }
+        }
+
+        /**
+         * @return the number of tuples added so far
+         */
+        public long getNbTuples() {
+            return nbTuples;
+        }
+
+        private void flush() throws IOException {
+            for (int i = 0; i < arity; i++) {
+                for (int t = 0; t < size; t++) {
+                    if (!buffer.hasRemaining()) {
+                        drain();
+                    }
+                    buffer.putInt(columns[i][t]);
+                }
+            }
+            drain();
+            size = 0;
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        /**
+         * Write the last block and complete the header.
+         *
+         * @throws IOException if the file cannot be written
+         */
+        @Override
+        public void close() throws IOException {
+            if (!channel.isOpen()) {
+                return;
+            }
+            try {
+                flush();
+                buffer.putInt(MAGIC).putInt(VERSION).putInt(feasible ? 1 : 0).putInt(arity).putLong(nbTuples).putInt(block);
+                for (int r : ranges) {
+                    buffer.putInt(r);
+                }
+                buffer.flip();
+                long position = 0;
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+                buffer.clear();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.constraints.extension.binary;
+
+import org.chocosolver.solver.constraints.extension.Tuples;
+import org.chocosolver.solver.variables.IntVar;
+
+/**
+ * A binary relation where the supports of each value are stored in 64-bit words,
+ * aligned with the initial domain of the other variable.
+ * <br/>
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+class CouplesWordTable extends BinRelation {
+
+    /**
+     * supports[0][i] gives the supports of value i of variable 0, bit j standing for value j of variable 1;
+     * supports[1][j] gives the supports of value j of variable 1
+     */
+    protected final long[][][] supports;
+
+    /**
+     * first value of x, and y
+     */
+    protected final int[] offsets;
+
+    /**
+     * initial domain range of x, and y
+     */
+    protected final int[] sizes;
+
+    /**
+     * number of supports of each value, and index of the first and last non-empty words of its supports
+     */
+    protected final int[][] nbSupports, firstWords, lastWords;
+
+    /**
+     * Create a binary relation for AC3bit+wr
+     *
+     * @param tuples list of tuples
+     */
+    public CouplesWordTable(Tuples tuples, IntVar var1, IntVar var2) {
+        this.offsets = new int[]{var1.getLB(), var2.getLB()};
+        this.sizes = new int[]{var1.getUB() - offsets[0] + 1, var2.getUB() - offsets[1] + 1};
+        this.supports = new long[2][][];
+        boolean feasible = tuples.isFeasible();
+        for (int k = 0; k < 2; k++) {
+            int nbWords = ((sizes[1 - k] - 1) >>> 6) + 1;
+            supports[k] = new long[sizes[k]][nbWords];
+            if (!feasible) {
+                for (int i = 0; i < sizes[k]; i++) {
+                    setAll(supports[k][i], sizes[1 - k]);
+                }
+            }
+        }
+        int nt = tuples.nbTuples();
+        for (int t = 0; t < nt; t++) {
+            int i = tuples.get(t, 0) - offsets[0];
+            int j = tuples.get(t, 1) - offsets[1];
+            if (i >= 0 && i < sizes[0] && j >= 0 && j < sizes[1]) {
+                if (feasible) {
+                    supports[0][i][j >>> 6] |= 1L << j;
+                    supports[1][j][i >>> 6] |= 1L << i;
+                } else {
+                    supports[0][i][j >>> 6] &= ~(1L << j);
+                    supports[1][j][i >>> 6] &= ~(1L << i);
+                }
+            }
+        }
+        this.nbSupports = new int[2][];
+        this.firstWords = new int[2][];
+        this.lastWords = new int[2][];
+        init();
+    }
+
+    // required for duplicate method, should not be called by default
+    private CouplesWordTable(long[][][] supports, int[] offsets, int[] sizes) {
+        this.supports = supports;
+        this.offsets = offsets;
+        this.sizes = sizes;
+        this.nbSupports = new int[2][];
+        this.firstWords = new int[2][];
+        this.lastWords = new int[2][];
+        init();
+    }
+
+    private static void setAll(long[] words, int size) {
+        for (int w = 0; w < words.length; w++) {
+            words[w] = -1L;
+        }
+        if ((size & 63) != 0) {
+            words[words.length - 1] = (1L << size) - 1;
+        }
+    }
+
+    private void init() {
+        for (int k = 0; k < 2; k++) {
+            nbSupports[k] = new int[sizes[k]];
+            firstWords[k] = new int[sizes[k]];
+            lastWords[k] = new int[sizes[k]];
+            for (int i = 0; i < sizes[k]; i++) {
+                long[] words = supports[k][i];
+                firstWords[k][i] = 0;
+                lastWords[k][i] = -1;
+                for (int w = 0; w < words.length; w++) {
+                    if (words[w] != 0) {
+                        if (lastWords[k][i] < 0) {
+                            firstWords[k][i] = w;
+                        }
+                        lastWords[k][i] = w;
+                        nbSupports[k][i] += Long.bitCount(words[w]);
+                    }
+                }
+            }
+        }
+    }
+
+    public boolean isConsistent(int x, int y) {
+        int i = x - offsets[0];
+        int j = y - offsets[1];
+        return i >= 0 && i < sizes[0] && j >= 0 && j < sizes[1] && (supports[0][i][j >>> 6] & (1L << j)) != 0;
+    }
+
+    public boolean checkCouple(int x, int y) {
+        return isConsistent(x, y);
+    }
+
+    @Override
+    public BinRelation duplicate() {
+        long[][][] nSupports = new long[2][][];
+        for (int k = 0; k < 2; k++) {
+            nSupports[k] = new long[supports[k].length][];
+            for (int i = 0; i < supports[k].length; i++) {
+                nSupports[k][i] = supports[k][i].clone();
+            }
+        }
+        return new CouplesWordTable(nSupports, offsets.clone(), sizes.clone());
+    }
+}
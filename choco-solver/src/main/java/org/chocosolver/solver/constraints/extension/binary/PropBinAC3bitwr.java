@@ -0,0 +1,191 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.constraints.extension.binary;
+
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.memory.IStateLong;
+import org.chocosolver.solver.constraints.extension.Tuples;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.delta.IIntDeltaMonitor;
+import org.chocosolver.util.procedure.IntProcedure;
+
+/**
+ * AC3 bit rm algorithm for binary table constraint, with word residues.
+ * <br/>
+ * The supports of a value are 64-bit words aligned with the domain of the other variable, which is mirrored
+ * in reversible words and maintained from the removed values (delta-based).
+ * A value is checked by intersecting a single word, the one which held a support last time (its residue),
+ * and, when it fails, the other words holding supports until a new residue is found.
+ * <br/>
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public class PropBinAC3bitwr extends PropBinCSP {
+
+    private final CouplesWordTable table;
+
+    /**
+     * doms[k] mirrors the domain of variable k, bit i standing for the i^th value of its initial range
+     */
+    private final IStateLong[][] doms;
+
+    /**
+     * residues[k][i] is the index of the last word where the i^th value of variable k found a support
+     */
+    private final int[][] residues;
+
+    /**
+     * minSupports[k]: minimum number of supports of a value of variable k
+     */
+    private final int[] minSupports;
+
+    private final IIntDeltaMonitor[] idms;
+    private final IntProcedure[] rem_procs;
+
+    public PropBinAC3bitwr(IntVar x, IntVar y, Tuples tuples) {
+        this(x, y, new CouplesWordTable(tuples, x, y));
+    }
+
+    private PropBinAC3bitwr(IntVar x, IntVar y, CouplesWordTable table) {
+        super(x, y, table);
+        this.table = table;
+        IEnvironment environment = solver.getEnvironment();
+        this.doms = new IStateLong[2][];
+        this.residues = new int[2][];
+        this.minSupports = new int[2];
+        this.idms = new IIntDeltaMonitor[2];
+        this.rem_procs = new IntProcedure[2];
+        for (int k = 0; k < 2; k++) {
+            doms[k] = new IStateLong[((table.sizes[k] - 1) >>> 6) + 1];
+            for (int w = 0; w < doms[k].length; w++) {
+                doms[k][w] = environment.makeLong(0);
+            }
+            residues[k] = table.firstWords[k].clone();
+            minSupports[k] = Integer.MAX_VALUE;
+            for (int i = 0; i < table.sizes[k]; i++) {
+                minSupports[k] = Math.min(minSupports[k], table.nbSupports[k][i]);
+            }
+            idms[k] = vars[k].monitorDelta(this);
+            final int var = k;
+            rem_procs[k] = value -> clear(var, value - table.offsets[var]);
+        }
+    }
+
+    @Override
+    public void propagate(int evtmask) throws ContradictionException {
+        synchronize(0);
+        synchronize(1);
+        revise(0, true);
+        revise(1, true);
+        idms[0].unfreeze();
+        idms[1].unfreeze();
+    }
+
+    @Override
+    public void propagate(int idxVarInProp, int mask) throws ContradictionException {
+        idms[idxVarInProp].freeze();
+        idms[idxVarInProp].forEachRemVal(rem_procs[idxVarInProp]);
+        idms[idxVarInProp].unfreeze();
+        revise(1 - idxVarInProp, false);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Set the words of variable <i>var</i> from its current domain
+     */
+    private void synchronize(int var) {
+        long[] words = new long[doms[var].length];
+        IntVar v = vars[var];
+        int o = table.offsets[var];
+        int ub = v.getUB();
+        for (int val = v.getLB(); val <= ub; val = v.nextValue(val)) {
+            int i = val - o;
+            words[i >>> 6] |= 1L << i;
+        }
+        for (int w = 0; w < words.length; w++) {
+            if (doms[var][w].get() != words[w]) {
+                doms[var][w].set(words[w]);
+            }
+        }
+    }
+
+    private void clear(int var, int i) {
+        IStateLong word = doms[var][i >>> 6];
+        word.set(word.get() & ~(1L << i));
+    }
+
+    /**
+     * Remove the values of <i>var</i> which have no support anymore in the domain of the other variable
+     *
+     * @param var   index of the variable to revise
+     * @param force set to false to skip the revision when no value can have lost all its supports
+     */
+    private void revise(int var, boolean force) throws ContradictionException {
+        int other = 1 - var;
+        if (!force && minSupports[var] > table.sizes[other] - vars[other].getDomainSize()) {
+            return;
+        }
+        IntVar v = vars[var];
+        int o = table.offsets[var];
+        int ub = v.getUB();
+        for (int val = v.getLB(); val <= ub; val = v.nextValue(val)) {
+            int i = val - o;
+            if (!hasSupport(var, i)) {
+                v.removeValue(val, this);
+                clear(var, i); // our own removals are not reported by the delta monitor
+            }
+        }
+    }
+
+    /**
+     * @return true if the i^th value of <i>var</i> has a support in the domain of the other variable
+     */
+    private boolean hasSupport(int var, int i) {
+        long[] supports = table.supports[var][i];
+        IStateLong[] dom = doms[1 - var];
+        int r = residues[var][i];
+        if ((supports[r] & dom[r].get()) != 0) {
+            return true;
+        }
+        int last = table.lastWords[var][i];
+        for (int w = table.firstWords[var][i]; w <= last; w++) {
+            if ((supports[w] & dom[w].get()) != 0) {
+                residues[var][i] = w;
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,293 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.constraints.extension.nary;
+
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.memory.IStateInt;
+import org.chocosolver.memory.structure.RSparseBitSet;
+import org.chocosolver.solver.constraints.PropagatorPriority;
+import org.chocosolver.solver.constraints.extension.Tuples;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.exception.SolverException;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.ranges.IntIterableBitSet;
+import org.chocosolver.solver.variables.ranges.IntIterableSet;
+import org.chocosolver.util.ESat;
+
+import java.util.Arrays;
+
+/**
+ * Compact-Table propagator for table constraints (Demeulenaere et al., CP'16), extended to short tuples
+ * (allowed tuples only) and to forbidden tuples (Verhaeghe et al., CP'17).
+ * <p>
+ * The tuples which are still valid are stored in a reversible sparse bitset. Each value is associated with the
+ * bitset of the tuples containing it (or the universal value), and with a residue: the index of the last word
+ * found to contain one of them.
+ * The valid tuples are updated from the current domain of the variables whose size has changed since the last call.
+ * An allowed value is supported if one of its tuples is valid; a value is supported by forbidden tuples as long as
+ * they do not cover all the combinations of values of the other variables.
+ * <br/>
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public class PropCompactTable extends PredictivePropagator {
+
+    protected final boolean feasible;
+
+    /**
+     * The tuples which are still valid
+     */
+    protected final RSparseBitSet currTable;
+
+    /**
+     * supports[i][v - offsets[i]] are the tuples containing value v of the i^th variable, null if there is none
+     */
+    protected final long[][][] supports;
+
+    /**
+     * residues[i][v - offsets[i]] is the index of the last word found to contain a valid tuple for value v
+     */
+    protected final int[][] residues;
+
+    /**
+     * original lower bounds
+     */
+    protected final int[] offsets;
+
+    /**
+     * Size of the domain of each variable when the valid tuples were last updated
+     */
+    protected final IStateInt[] lastSizes;
+
+    protected final int nbTuples;
+
+    protected final IntIterableSet vrms;
+
+    public PropCompactTable(IntVar[] vars, Tuples tuples) {
+        super(vars, PropagatorPriority.QUADRATIC, false);
+        this.feasible = tuples.isFeasible();
+        boolean star = tuples.allowUniversalValue();
+        int starValue = tuples.getStarValue();
+        if (star && !feasible) {
+            throw new SolverException("CT cannot be used with forbidden short tuples.");
+        }
+        int arity = vars.length;
+        // the tuples which are valid wrt the initial domains
+        int[][] valid = new int[tuples.nbTuples()][];
+        int n = 0;
+        for (int t = 0; t < valid.length; t++) {
+            boolean ok = true;
+            for (int i = 0; i < arity && ok; i++) {
+                int v = tuples.get(t, i);
+                ok = (star && v == starValue) || vars[i].contains(v);
+            }
+            if (ok) {
+                valid[n++] = tuples.get(t);
+            }
+        }
+        valid = Arrays.copyOf(valid, n);
+        if (!feasible) {
+            // forbidden tuples are counted, they must be distinct
+            Arrays.sort(valid, TuplesList.TCOMP);
+            n = 0;
+            for (int t = 0; t < valid.length; t++) {
+                if (n == 0 || TuplesList.TCOMP.compare(valid[n - 1], valid[t]) != 0) {
+                    valid[n++] = valid[t];
+                }
+            }
+            valid = Arrays.copyOf(valid, n);
+        }
+        this.nbTuples = n;
+        int nbWords = (n + 63) >>> 6;
+        this.offsets = new int[arity];
+        this.supports = new long[arity][][];
+        this.residues = new int[arity][];
+        for (int i = 0; i < arity; i++) {
+            offsets[i] = vars[i].getLB();
+            supports[i] = new long[vars[i].getUB() - offsets[i] + 1][];
+            residues[i] = new int[supports[i].length];
+        }
+        for (int t = 0; t < n; t++) {
+            for (int i = 0; i < arity; i++) {
+                int v = valid[t][i];
+                if (star && v == starValue) {
+                    int ub = vars[i].getUB();
+                    for (int a = vars[i].getLB(); a <= ub; a = vars[i].nextValue(a)) {
+                        addSupport(i, a, t, nbWords);
+                    }
+                } else {
+                    addSupport(i, v, t, nbWords);
+                }
+            }
+        }
+        IEnvironment environment = solver.getEnvironment();
+        this.currTable = new RSparseBitSet(environment, n);
+        this.lastSizes = new IStateInt[arity];
+        for (int i = 0; i < arity; i++) {
+            lastSizes[i] = environment.makeInt(-1);
+        }
+        this.vrms = new IntIterableBitSet();
+    }
+
+    private void addSupport(int i, int value, int tuple, int nbWords) {
+        int k = value - offsets[i];
+        if (supports[i][k] == null) {
+            supports[i][k] = new long[nbWords];
+        }
+        supports[i][k][tuple >>> 6] |= 1L << tuple;
+    }
+
+    @Override
+    public void propagate(int evtmask) throws ContradictionException {
+        for (int i = 0; i < vars.length; i++) {
+            if (lastSizes[i].get() != vars[i].getDomainSize()) {
+                updateTable(i);
+            }
+        }
+        if (feasible) {
+            if (currTable.isEmpty()) {
+                contradiction(null, "no more valid tuple");
+            }
+            filterAllowed();
+        } else {
+            filterForbidden();
+        }
+    }
+
+    /**
+     * Keep the valid tuples containing a value of the current domain of the i^th variable
+     */
+    private void updateTable(int i) {
+        lastSizes[i].set(vars[i].getDomainSize());
+        currTable.clearMask();
+        int ub = vars[i].getUB();
+        for (int v = vars[i].getLB(); v <= ub; v = vars[i].nextValue(v)) {
+            long[] s = supports[i][v - offsets[i]];
+            if (s != null) {
+                currTable.addToMask(s);
+            }
+        }
+        currTable.intersectWithMask();
+    }
+
+    /**
+     * Remove the values with no valid tuple; valid tuples are not modified
+     */
+    private void filterAllowed() throws ContradictionException {
+        for (int i = 0; i < vars.length; i++) {
+            IntVar var = vars[i];
+            vrms.clear();
+            vrms.setOffset(var.getLB());
+            int ub = var.getUB();
+            for (int v = var.getLB(); v <= ub; v = var.nextValue(v)) {
+                int k = v - offsets[i];
+                long[] s = supports[i][k];
+                if (s == null) {
+                    vrms.add(v);
+                } else {
+                    int r = residues[i][k];
+                    if ((currTable.word(r) & s[r]) == 0L) {
+                        r = currTable.intersectIndex(s);
+                        if (r == -1) {
+                            vrms.add(v);
+                        } else {
+                            residues[i][k] = r;
+                        }
+                    }
+                }
+            }
+            var.removeValues(vrms, this);
+            lastSizes[i].set(var.getDomainSize());
+        }
+    }
+
+    /**
+     * Remove the values for which the valid forbidden tuples cover all the combinations of the other variables,
+     * until a fix point is reached (removing a value invalidates tuples).
+     */
+    private void filterForbidden() throws ContradictionException {
+        boolean modified = true;
+        while (modified && !currTable.isEmpty()) {
+            modified = false;
+            int card = currTable.cardinality();
+            for (int i = 0; i < vars.length; i++) {
+                // number of combinations of the other variables, if not above the number of forbidden tuples
+                long others = 1;
+                for (int j = 0; j < vars.length && others <= card; j++) {
+                    if (j != i) {
+                        others *= vars[j].getDomainSize();
+                    }
+                }
+                if (others > card) {
+                    continue;
+                }
+                IntVar var = vars[i];
+                vrms.clear();
+                vrms.setOffset(var.getLB());
+                int ub = var.getUB();
+                for (int v = var.getLB(); v <= ub; v = var.nextValue(v)) {
+                    long[] s = supports[i][v - offsets[i]];
+                    if (s != null && currTable.cardinalityOfIntersection(s) == others) {
+                        vrms.add(v);
+                    }
+                }
+                if (var.removeValues(vrms, this)) {
+                    updateTable(i);
+                    card = currTable.cardinality();
+                    modified = true;
+                }
+            }
+        }
+    }
+
+    @Override
+    public ESat isEntailed() {
+        if (isCompletelyInstantiated()) {
+            boolean found = false;
+            int nbWords = (nbTuples + 63) >>> 6;
+            for (int w = 0; w < nbWords && !found; w++) {
+                long word = -1L;
+                for (int i = 0; i < vars.length && word != 0L; i++) {
+                    long[] s = supports[i][vars[i].getValue() - offsets[i]];
+                    word = s == null ? 0L : word & s[w];
+                }
+                found = word != 0L;
+            }
+            return ESat.eval(found == feasible);
+        }
+        return ESat.UNDEFINED;
+    }
+
+    @Override
+    public String toString() {
+        return "CT table constraint with " + vars.length + " vars and " + nbTuples + " tuples";
+    }
+}
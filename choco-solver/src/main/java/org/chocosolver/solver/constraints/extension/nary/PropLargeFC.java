@@ -48,7 +48,7 @@ public class PropLargeFC extends PropLargeCSP<LargeRelation> {
     protected final int[] currentTuple;
     protected final IntIterableSet vrms;
 
-    private PropLargeFC(IntVar[] vars, LargeRelation relation) {
+    PropLargeFC(IntVar[] vars, LargeRelation relation) {
         super(vars, relation);
         this.currentTuple = new int[vars.length];
         vrms = new IntIterableBitSet();
@@ -5,26 +5,66 @@ import org.chocosolver.solver.variables.IntVar;
 
 /**
  * Created by Nicolas on 2016-04-04.
+ * <p>
+ * The propagators built for the same tuples and variables share their relations:
+ * the compressed tuples, and the large (resp. iterable) relation.
  */
 public class PropLargeFactory {
 
+    private Tuples tuples;
+    private IntVar[] vars;
+    private LargeRelation largeRelation;
+    private IterTuplesTable iterableRelation;
+
     PredictivePropagator getStr2(IntVar[] VARS, Tuples TUPLES) {
-        return new PropTableStr2(VARS, TUPLES.toMatrix());
+        return new PropTableStr2(VARS, TUPLES.compact());
     }
 
     PredictivePropagator getFC(IntVar[] VARS, Tuples TUPLES) {
-        return new PropLargeFC(VARS, TUPLES);
+        return new PropLargeFC(VARS, getLargeRelation(VARS, TUPLES));
     }
 
     PredictivePropagator getGAC2001(IntVar[] VARS, Tuples TUPLES) {
-        return new PropLargeGAC2001(VARS, TUPLES);
+        return new PropLargeGAC2001(VARS, getLargeRelation(VARS, TUPLES));
     }
 
     PredictivePropagator getGAC2001Positive(IntVar[] VARS, Tuples TUPLES) {
-        return new PropLargeGAC2001Positive(VARS, TUPLES);
+        return new PropLargeGAC2001Positive(VARS, getIterableRelation(VARS, TUPLES));
+    }
+
+    PredictivePropagator getCompactTable(IntVar[] VARS, Tuples TUPLES) {
+        return new PropCompactTable(VARS, TUPLES);
     }
 
     public PredictivePropagator getGAC3rmPositive(IntVar[] vars, Tuples tuples) {
-        return new PropLargeGAC3rmPositive(vars, tuples);
+        return new PropLargeGAC3rmPositive(vars, getIterableRelation(vars, tuples));
+    }
+
+    private LargeRelation getLargeRelation(IntVar[] VARS, Tuples TUPLES) {
+        bind(VARS, TUPLES);
+        if (largeRelation == null) {
+            largeRelation = RelationFactory.makeLargeRelation(TUPLES, VARS);
+        }
+        return largeRelation;
+    }
+
+    private IterTuplesTable getIterableRelation(IntVar[] VARS, Tuples TUPLES) {
+        bind(VARS, TUPLES);
+        if (iterableRelation == null) {
+            iterableRelation = RelationFactory.makeIterableRelation(TUPLES, VARS);
+        }
+        return iterableRelation;
+    }
+
+    /**
+     * Forget the relations built so far if they were not built for <i>TUPLES</i> and <i>VARS</i>
+     */
+    private void bind(IntVar[] VARS, Tuples TUPLES) {
+        if (tuples != TUPLES || vars != VARS) {
+            tuples = TUPLES;
+            vars = VARS;
+            largeRelation = null;
+            iterableRelation = null;
+        }
     }
 }
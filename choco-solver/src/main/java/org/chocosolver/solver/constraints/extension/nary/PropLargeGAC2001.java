@@ -67,7 +67,7 @@ public class PropLargeGAC2001 extends PropLargeCSP<LargeRelation> {
 
     protected final IntIterableSet vrms;
 
-    private PropLargeGAC2001(IntVar[] vs, LargeRelation relation) {
+    PropLargeGAC2001(IntVar[] vs, LargeRelation relation) {
         super(vs, relation);
         this.size = vs.length;
         this.blocks = new int[size];
@@ -69,7 +69,7 @@ public class PropLargeGAC2001Positive extends PropLargeCSP<IterTuplesTable> {
 
     protected final IntIterableSet vrms;
 
-    private PropLargeGAC2001Positive(IntVar[] vs, IterTuplesTable relation) {
+    PropLargeGAC2001Positive(IntVar[] vs, IterTuplesTable relation) {
         super(vs, relation);
         this.arity = vs.length;
         this.blocks = new int[arity];
@@ -71,7 +71,7 @@ public class PropLargeGAC3rmPositive extends PropLargeCSP<IterTuplesTable> {
 
     protected final IntIterableSet vrms;
 
-    private PropLargeGAC3rmPositive(IntVar[] vars, IterTuplesTable relation) {
+    PropLargeGAC3rmPositive(IntVar[] vars, IterTuplesTable relation) {
         super(vars, relation);
         this.arity = vars.length;
         this.offsets = new int[arity];
@@ -0,0 +1,323 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.constraints.extension.nary;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntIntHashMap;
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.memory.IStateBitSet;
+import org.chocosolver.memory.IStateInt;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.constraints.PropagatorPriority;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.delta.IIntDeltaMonitor;
+import org.chocosolver.solver.variables.events.IntEventType;
+import org.chocosolver.util.ESat;
+import org.chocosolver.util.objects.graphs.MultivaluedDecisionDiagram;
+import org.chocosolver.util.procedure.IntProcedure;
+
+import java.util.Arrays;
+
+/**
+ * Implementation based on "An MDD-based generalized arc consistency algorithm for positive and negative table constraints
+ * and some global constraints", Perez and Regin, Constraints 2015 (MDD-4R).
+ * <p/>
+ * The valid edges of the MDD are maintained incrementally, with reversible counters of valid outgoing and incoming
+ * edges per node and of supporting edges per value.
+ * A removed value invalidates its edges, a node without outgoing (resp. incoming) edge invalidates its incoming
+ * (resp. outgoing) ones, and a value without supporting edge is removed.
+ * Thus, a propagation only costs the number of edges invalidated.
+ * <p/>
+ * Created by agent on 18/10/26.
+ * Project: choco.
+ */
+public class PropLargeMDD4R extends Propagator<IntVar> {
+
+    final MultivaluedDecisionDiagram MDD;
+    final int nvars;
+    final int[] offsets;
+
+    // STATIC DATA STRUCTURES, BUILT ONCE
+    /**
+     * For each edge: its layer, the index of its value, its source node and its target node (-1 for the terminal node)
+     */
+    final int[] eLayer, eValue, eSource, eTarget;
+    /**
+     * For each node: its incoming and outgoing edges
+     */
+    final int[][] nIn, nOut;
+    /**
+     * For each layer and each value index: the edges labeled with it
+     */
+    final int[][][] vEdges;
+
+    // REVERSIBLE DATA STRUCTURES
+    /**
+     * Valid edges
+     */
+    final IStateBitSet valid;
+    /**
+     * Number of valid incoming and outgoing edges per node
+     */
+    final IStateInt[] nbIn, nbOut;
+    /**
+     * Number of valid edges per layer and value index
+     */
+    final IStateInt[][] nbSupports;
+
+    final IIntDeltaMonitor[] idms;
+    final IntProcedure rem_proc;
+    int current; // index of the variable whose delta is iterated
+    int[] stack;
+    int stackSize;
+
+    /**
+     * Create a propagator maintaining GAC based on a MDD, incrementally.
+     * The MDD can be shared between multiple propagators, no copy is achieved.
+     *
+     * @param MDD  Multi-valued Decision Diagram, stores the solutions
+     * @param VARS the related variables -- the order is important, and need to match the MDD.
+     */
+    public PropLargeMDD4R(MultivaluedDecisionDiagram MDD, IntVar... VARS) {
+        super(VARS, PropagatorPriority.QUADRATIC, true);
+        this.MDD = MDD;
+        this.nvars = vars.length;
+        this.offsets = new int[nvars];
+        for (int i = 0; i < nvars; i++) {
+            offsets[i] = MDD.getOffset(i);
+        }
+        // 1. enumerate the reachable nodes, layer by layer, and their edges
+        int[] diag = MDD.getDiagram();
+        TIntIntHashMap ids = new TIntIntHashMap(16, .5f, -1, -1); // cell -> node
+        TIntArrayList cells = new TIntArrayList(); // node -> cell
+        TIntArrayList layers = new TIntArrayList(); // node -> layer
+        TIntArrayList el = new TIntArrayList(), ev = new TIntArrayList(), es = new TIntArrayList(), et = new TIntArrayList();
+        ids.put(0, 0);
+        cells.add(0);
+        layers.add(0);
+        for (int n = 0; n < cells.size(); n++) {
+            int cell = cells.get(n);
+            int l = layers.get(n);
+            int size = Math.min(MDD.getNodeSize(l), diag.length - cell);
+            for (int i = 0; i < size; i++) {
+                int child = diag[cell + i];
+                if (child != MultivaluedDecisionDiagram.EMPTY) {
+                    int target = -1;
+                    if (child != MultivaluedDecisionDiagram.TERMINAL) {
+                        target = ids.get(child);
+                        if (target == -1) {
+                            target = cells.size();
+                            ids.put(child, target);
+                            cells.add(child);
+                            layers.add(l + 1);
+                        }
+                    }
+                    el.add(l);
+                    ev.add(i);
+                    es.add(n);
+                    et.add(target);
+                }
+            }
+        }
+        eLayer = el.toArray();
+        eValue = ev.toArray();
+        eSource = es.toArray();
+        eTarget = et.toArray();
+        int nbNodes = cells.size();
+        int nbEdges = eLayer.length;
+        // 2. index the edges per node and per value
+        int[] in = new int[nbNodes];
+        int[] out = new int[nbNodes];
+        int[][] sup = new int[nvars][];
+        for (int i = 0; i < nvars; i++) {
+            sup[i] = new int[MDD.getNodeSize(i)];
+        }
+        for (int e = 0; e < nbEdges; e++) {
+            out[eSource[e]]++;
+            if (eTarget[e] >= 0) {
+                in[eTarget[e]]++;
+            }
+            sup[eLayer[e]][eValue[e]]++;
+        }
+        nIn = new int[nbNodes][];
+        nOut = new int[nbNodes][];
+        for (int n = 0; n < nbNodes; n++) {
+            nIn[n] = new int[in[n]];
+            nOut[n] = new int[out[n]];
+        }
+        vEdges = new int[nvars][][];
+        for (int i = 0; i < nvars; i++) {
+            vEdges[i] = new int[sup[i].length][];
+            for (int j = 0; j < sup[i].length; j++) {
+                vEdges[i][j] = new int[sup[i][j]];
+            }
+        }
+        int[] pin = new int[nbNodes];
+        int[] pout = new int[nbNodes];
+        int[][] psup = new int[nvars][];
+        for (int i = 0; i < nvars; i++) {
+            psup[i] = new int[sup[i].length];
+        }
+        for (int e = 0; e < nbEdges; e++) {
+            nOut[eSource[e]][pout[eSource[e]]++] = e;
+            if (eTarget[e] >= 0) {
+                nIn[eTarget[e]][pin[eTarget[e]]++] = e;
+            }
+            vEdges[eLayer[e]][eValue[e]][psup[eLayer[e]][eValue[e]]++] = e;
+        }
+        // 3. reversible counters
+        IEnvironment environment = solver.getEnvironment();
+        valid = environment.makeBitSet(nbEdges);
+        valid.set(0, nbEdges);
+        nbIn = new IStateInt[nbNodes];
+        nbOut = new IStateInt[nbNodes];
+        for (int n = 0; n < nbNodes; n++) {
+            nbIn[n] = environment.makeInt(in[n]);
+            nbOut[n] = environment.makeInt(out[n]);
+        }
+        nbSupports = new IStateInt[nvars][];
+        for (int i = 0; i < nvars; i++) {
+            nbSupports[i] = new IStateInt[sup[i].length];
+            for (int j = 0; j < sup[i].length; j++) {
+                nbSupports[i][j] = environment.makeInt(sup[i][j]);
+            }
+        }
+        this.stack = new int[16];
+        this.idms = new IIntDeltaMonitor[nvars];
+        for (int i = 0; i < nvars; i++) {
+            idms[i] = vars[i].monitorDelta(this);
+        }
+        this.rem_proc = value -> removeValue(current, value);
+    }
+
+    @Override
+    public int getPropagationConditions(int vIdx) {
+        return IntEventType.all();
+    }
+
+    @Override
+    public void propagate(int evtmask) throws ContradictionException {
+        for (int i = 0; i < nvars; i++) {
+            for (int j = 0; j < nbSupports[i].length; j++) {
+                if (nbSupports[i][j].get() > 0 && !vars[i].contains(j + offsets[i])) {
+                    removeValue(i, j + offsets[i]);
+                }
+            }
+        }
+        // values out of the MDD, or without support from the start
+        for (int i = 0; i < nvars; i++) {
+            int UB = vars[i].getUB();
+            for (int v = vars[i].getLB(); v <= UB; v = vars[i].nextValue(v)) {
+                int j = v - offsets[i];
+                if (j < 0 || j >= nbSupports[i].length || nbSupports[i][j].get() == 0) {
+                    vars[i].removeValue(v, this);
+                }
+            }
+        }
+        for (int i = 0; i < nvars; i++) {
+            idms[i].unfreeze();
+        }
+    }
+
+    @Override
+    public void propagate(int idxVarInProp, int mask) throws ContradictionException {
+        current = idxVarInProp;
+        idms[idxVarInProp].freeze();
+        idms[idxVarInProp].forEachRemVal(rem_proc);
+        idms[idxVarInProp].unfreeze();
+    }
+
+    @Override
+    public ESat isEntailed() {
+        if (isCompletelyInstantiated()) {
+            return ESat.eval(MDD.exists(Arrays.stream(vars).mapToInt(IntVar::getValue).toArray()));
+        }
+        return ESat.UNDEFINED;
+    }
+
+    /**
+     * Invalidate the edges labeled with <i>value</i> in <i>layer</i>, and the ones that are not supported anymore.
+     *
+     * @param layer index of the variable
+     * @param value removed value
+     * @throws ContradictionException if a domain becomes empty
+     */
+    private void removeValue(int layer, int value) throws ContradictionException {
+        int j = value - offsets[layer];
+        if (j >= 0 && j < vEdges[layer].length) {
+            stackSize = 0; // may be dirty after a contradiction
+            for (int e : vEdges[layer][j]) {
+                push(e);
+            }
+            removeEdges();
+        }
+    }
+
+    /**
+     * Invalidate the edges in the stack, and propagate the loss of support to the nodes and to the values.
+     *
+     * @throws ContradictionException if a domain becomes empty
+     */
+    private void removeEdges() throws ContradictionException {
+        while (stackSize > 0) {
+            int e = stack[--stackSize];
+            if (!valid.get(e)) { // an edge may be stacked more than once
+                continue;
+            }
+            valid.clear(e);
+            int l = eLayer[e];
+            if (nbSupports[l][eValue[e]].add(-1) == 0) {
+                vars[l].removeValue(eValue[e] + offsets[l], this);
+            }
+            int s = eSource[e];
+            if (nbOut[s].add(-1) == 0) {
+                for (int f : nIn[s]) {
+                    push(f);
+                }
+            }
+            int t = eTarget[e];
+            if (t >= 0 && nbIn[t].add(-1) == 0) {
+                for (int f : nOut[t]) {
+                    push(f);
+                }
+            }
+        }
+    }
+
+    private void push(int e) {
+        if (valid.get(e)) {
+            if (stackSize == stack.length) {
+                stack = Arrays.copyOf(stack, stackSize * 3 / 2 + 1);
+            }
+            stack[stackSize++] = e;
+        }
+    }
+}
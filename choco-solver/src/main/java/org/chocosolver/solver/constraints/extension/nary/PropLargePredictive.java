@@ -29,18 +29,22 @@
  */
 package org.chocosolver.solver.constraints.extension.nary;
 
-import org.apache.spark.api.java.JavaSparkContext;
-import org.apache.spark.mllib.tree.model.RandomForestModel;
+import org.chocosolver.memory.IStateInt;
 import org.chocosolver.solver.constraints.Propagator;
 import org.chocosolver.solver.constraints.PropagatorPriority;
 import org.chocosolver.solver.constraints.extension.Tuples;
 import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.exception.SolverException;
+import org.chocosolver.solver.variables.events.PropagatorEventType;
 import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.util.ESat;
-import org.chocosolver.util.tools.Featurizer;
+import org.chocosolver.util.objects.player.MultiArmedBanditPlayer;
+import org.chocosolver.util.tools.DecisionForest;
+import org.chocosolver.util.tools.IncrementalFeaturizer;
+import org.chocosolver.util.tools.TrainingDataLogger;
 
-import java.io.*;
 import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.HashMap;
 
 /**
@@ -51,73 +55,134 @@ import java.util.HashMap;
  */
 public class PropLargePredictive extends Propagator<IntVar> {
 
-    private BufferedWriter bw;
-    private boolean streamReady = false;
+    /**
+     * Names of the propagators, the label of a propagator in training data is its index
+     */
+    public static final String[] PROPAGATORS = {"STR2+", "GAC2001", "GAC2001+", "FC", "GAC3rm+", "CT"};
+
     private boolean generateData = false;
+    /**
+     * Where training data is written, when generated, if set by the user.
+     * Otherwise, it is written by the logger shared by the propagators of the solver.
+     */
+    private TrainingDataLogger logger;
     private boolean canReadCPUTime;
+    private ThreadMXBean threadMXBean;
     protected String currentPropagator;
     protected HashMap<String, PredictivePropagator> propagators = new HashMap<>(3);
-    private Featurizer featurizer;
-    private JavaSparkContext sc;
+    private IncrementalFeaturizer featurizer;
     private Tuples tuples;
 
-    private static RandomForestModel model;
-    private HashMap<Double, String> modelPropagators = new HashMap<>(2);
+    /**
+     * The model predicting, from the features of the current state, the label of the propagator to run.
+     * When null, the current propagator is always run.
+     */
+    private DecisionForest model;
+    /**
+     * Name of the propagator associated with each label predicted by the model
+     */
+    private String[] modelPropagators = {"GAC2001+", "STR2+", "FC"};
+
+    /**
+     * When not null, the propagator to run is learnt online instead: each call is a pull of the arm
+     * of the selected propagator, whose cost is the CPU time spent per value removed.
+     */
+    private MultiArmedBanditPlayer player;
+    /**
+     * Name of the propagator associated with each arm of the player
+     */
+    private String[] banditPropagators = {"STR2+", "GAC2001+", "GAC3rm+", "FC", "CT"};
+    private int arm;
+    /**
+     * Label of the propagator run on the previous call in the current branch, -1 before the first call.
+     * It is backtrackable, since the candidates restore their own state on backtrack.
+     */
+    private final IStateInt last;
 
-    private PropLargePredictive(IntVar[] vars, Tuples tuples, JavaSparkContext sparkContext) {
+    private PropLargePredictive(IntVar[] vars, Tuples tuples, DecisionForest model) {
         super(vars, PropagatorPriority.QUADRATIC, true);
-        createLogFile();
         this.tuples = tuples;
-        this.featurizer = new Featurizer(this.solver);
-        this.sc = sparkContext;
-
-        if(this.model == null) {
-            this.model = RandomForestModel.load(this.sc.sc(), "model");
-        }
-        this.modelPropagators.put(0.0, "GAC2001+");
-        this.modelPropagators.put(1.0, "STR2+");
-        this.modelPropagators.put(2.0, "FC");
+        this.featurizer = IncrementalFeaturizer.of(this.solver);
+        this.model = model;
+        this.last = this.solver.getEnvironment().makeInt(-1);
 
-        this.canReadCPUTime = ManagementFactory.getThreadMXBean().isThreadCpuTimeSupported();
+        this.threadMXBean = ManagementFactory.getThreadMXBean();
+        this.canReadCPUTime = threadMXBean.isThreadCpuTimeSupported();
         if(canReadCPUTime){
-        	ManagementFactory.getThreadMXBean().setThreadCpuTimeEnabled(true);
+        	threadMXBean.setThreadCpuTimeEnabled(true);
         }
     }
 
-    private void createLogFile() {
-        File yourFile = new File("score" + System.currentTimeMillis() + ".txt");
-        if(!yourFile.exists()) {
-            try {
-                yourFile.createNewFile();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
-        try {
-            FileWriter fw = new FileWriter(yourFile);
-            bw = new BufferedWriter(fw);
-            streamReady = true;
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
-    public PropLargePredictive(IntVar[] vars, Tuples tuples, PropLargeFactory propagatorFactory, JavaSparkContext sparkContext) {
-        this(vars, tuples, sparkContext);
+    /**
+     * Create a table propagator which, on each call, runs the propagator predicted by <i>model</i>.
+     *
+     * @param vars              variables of the table
+     * @param tuples            allowed tuples
+     * @param propagatorFactory builds the candidate propagators
+     * @param model             a classifier, loaded with {@link DecisionForest#load(java.nio.file.Path)}, may be null
+     */
+    public PropLargePredictive(IntVar[] vars, Tuples tuples, PropLargeFactory propagatorFactory, DecisionForest model) {
+        this(vars, tuples, model);
         this.propagators.put("STR2+", propagatorFactory.getStr2(vars, tuples));
         this.propagators.put("GAC2001", propagatorFactory.getGAC2001(vars, tuples));
         this.propagators.put("GAC2001+", propagatorFactory.getGAC2001Positive(vars, tuples));
         this.propagators.put("FC", propagatorFactory.getFC(vars, tuples));
         this.propagators.put("GAC3rm+", propagatorFactory.getGAC3rmPositive(vars, tuples));
+        this.propagators.put("CT", propagatorFactory.getCompactTable(vars, tuples));
         this.currentPropagator = "STR2+";
     }
 
+    /**
+     * Enable or disable the generation of training data: on each call, the features of the current state,
+     * the propagator run, its CPU time and the number of values it removed are logged.
+     * Unless {@link #setDataLogger(TrainingDataLogger)} has been called, data is written by the logger shared by
+     * the propagators of the solver, see {@link TrainingDataLogger#of(org.chocosolver.solver.Solver, int)}.
+     *
+     * @param flag true to generate training data
+     */
     public void setGenerateData(boolean flag) {
         this.generateData = flag;
     }
 
+    /**
+     * Set where training data is written, possibly shared with other propagators of the same solver,
+     * and enable its generation. The logger is not closed by this propagator.
+     *
+     * @param logger a logger of {@link IncrementalFeaturizer#NB_FEATURES} features
+     */
+    public void setDataLogger(TrainingDataLogger logger) {
+        this.logger = logger;
+        this.generateData = true;
+    }
+
+    /**
+     * Learn online which propagator to run: on each call, <i>player</i> chooses an arm, the associated propagator
+     * is run, and the arm is then charged with the CPU time spent per value removed.
+     *
+     * @param player a player, such as {@link org.chocosolver.util.objects.player.CPUPlayer}, with one arm per name
+     * @param names  names of the candidate propagators (by default, "STR2+", "GAC2001+", "GAC3rm+", "FC" and "CT")
+     */
+    public void setPlayer(MultiArmedBanditPlayer player, String... names) {
+        if (names.length > 0) {
+            this.banditPropagators = names;
+        }
+        if (player.getNbArms() != banditPropagators.length) {
+            throw new SolverException("The player has " + player.getNbArms() + " arms but there are "
+                    + banditPropagators.length + " candidate propagators");
+        }
+        this.player = player;
+    }
+
+    /**
+     * Set the names of the propagators associated with the labels predicted by the model:
+     * the propagator of label <i>i</i> is <i>names[i]</i>.
+     *
+     * @param names names of the candidate propagators, among "STR2+", "GAC2001", "GAC2001+", "FC", "GAC3rm+" and "CT"
+     */
+    public void setModelPropagators(String... names) {
+        this.modelPropagators = names;
+    }
+
     public void setCurrentPropagator(String index) {
         this.currentPropagator = index;
     }
@@ -136,28 +201,95 @@ public class PropLargePredictive extends Propagator<IntVar> {
 
     @Override
     public void propagate(int evtmask) throws ContradictionException {
-        if(this.generateData) {
-            this.generateData(evtmask);
-        }
-        else {
-            // For now with predict always the same thing
-            double pred = 0.0;
-            this.propagators.get(this.modelPropagators.get(pred)).propagate(evtmask);
+        PredictivePropagator selected = select(evtmask);
+        if (last.get() == -1) {
+            // the other candidates initialize their own (backtrackable) state here, at the root node,
+            // so that any of them can be selected later on
+            for (PredictivePropagator propagator : propagators.values()) {
+                if (propagator != null && propagator != selected) {
+                    propagator.propagate(evtmask);
+                }
+            }
         }
+        run(selected, -1, evtmask);
     }
 
     @Override
     public void propagate(int idxVarInProp, int mask) throws ContradictionException {
-        if(this.generateData) {
-            this.generateData(idxVarInProp, mask);
+        PredictivePropagator selected = select(mask);
+        int previous = last.get();
+        if (previous != -1 && previous != label(currentPropagator)) {
+            // the events since the last call of this propagator have been handled by another one:
+            // catch up with a coarse-grained call
+            run(selected, -1, PropagatorEventType.CUSTOM_PROPAGATION.getMask());
+        } else {
+            run(selected, idxVarInProp, mask);
+        }
+    }
+
+    /**
+     * Select the propagator to run, as chosen by the player or predicted by the model, if any.
+     */
+    private PredictivePropagator select(int mask) {
+        if (player != null) {
+            arm = player.chooseArm();
+            currentPropagator = banditPropagators[arm];
+        } else if (model != null) {
+            int label = (int) model.predict(featurizer.getFeaturesArray(mask));
+            if (label >= 0 && label < modelPropagators.length) {
+                currentPropagator = modelPropagators[label];
+            }
+        }
+        return this.propagators.get(this.currentPropagator);
+    }
+
+    /**
+     * Run <i>selected</i>, coarse-grained if <i>idxVarInProp</i> is negative, charge the current arm, if any,
+     * and log training data, if required.
+     */
+    private void run(PredictivePropagator selected, int idxVarInProp, int mask) throws ContradictionException {
+        last.set(label(currentPropagator));
+        if (player == null && !generateData) {
+            if (idxVarInProp < 0) {
+                selected.propagate(mask);
+            } else {
+                selected.propagate(idxVarInProp, mask);
+            }
+            return;
         }
-        else {
-            // For now with predict always the same thing
-            double pred = 0.0;
-            this.propagators.get(this.modelPropagators.get(pred)).propagate(idxVarInProp, mask);
+        double[] features = generateData ? featurizer.getFeaturesArray(mask) : null;
+        long size = domainSize();
+        long start = canReadCPUTime ? threadMXBean.getCurrentThreadCpuTime() : System.nanoTime();
+        boolean failed = true;
+        try {
+            if (idxVarInProp < 0) {
+                selected.propagate(mask);
+            } else {
+                selected.propagate(idxVarInProp, mask);
+            }
+            failed = false;
+        } finally {
+            long time = (canReadCPUTime ? threadMXBean.getCurrentThreadCpuTime() : System.nanoTime()) - start;
+            // a failure removes all the values
+            long removed = failed ? size : size - domainSize();
+            if (player != null) {
+                player.update(arm, (double) time / (1 + removed));
+            }
+            if (generateData) {
+                (logger != null ? logger : TrainingDataLogger.of(solver, IncrementalFeaturizer.NB_FEATURES))
+                        .log(label(currentPropagator), idxVarInProp, time, removed, features);
+            }
         }
     }
 
+    private long domainSize() {
+        long size = 0;
+        for (int i = 0; i < vars.length; i++) {
+            size += vars[i].getDomainSize();
+        }
+        return size;
+    }
+
     @Override
     public ESat isEntailed() {
         return this.propagators.get(this.currentPropagator).isEntailed();
@@ -172,66 +304,12 @@ public class PropLargePredictive extends Propagator<IntVar> {
     	return tuples;
     }
 
-    private void generateData(int evtmask) throws ContradictionException{
-        String logString = this.initLogEntry(evtmask);
-
-        long totalTime = 0L;
-        int n = 1000;
-        for(int i = 0; i < n; i++) {
-            long starttime = System.nanoTime();
-            propagators.get(currentPropagator).propagate(evtmask);
-            long endtime = System.nanoTime();
-            totalTime += endtime - starttime;
-        }
-        long avgTime = totalTime / n;
-
-        logString += "\t" + avgTime;
-        try {
-            bw.write(logString + "\n");
-            bw.flush();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
-    private void generateData(int idxVarInProp, int mask) throws ContradictionException {
-        String logString = this.initLogEntry(mask);
-
-        long totalTime = 0L;
-        int n = 10000;
-        for(int i = 0; i < n; i++) {
-            long starttime = System.nanoTime();
-            propagators.get(currentPropagator).propagate(idxVarInProp, mask);
-            long endtime = System.nanoTime();
-            totalTime += endtime - starttime;
-        }
-        long avgTime = totalTime / n;
-        logString += "\t" + avgTime;
-
-        try {
-            bw.write(logString + "\n");
-            bw.flush();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
-    private String initLogEntry(int mask) {
-        String logString = "";
-        double[] features = this.featurizer.getFeaturesArray(mask);
-        logString += "[";
-        for (int i = 0; i < features.length; i++)
-        {
-            if (i == features.length - 1){
-                logString +=  features[i];
-            }
-            else {
-                logString +=  features[i] + ", ";
+    private static int label(String name) {
+        for (int i = 0; i < PROPAGATORS.length; i++) {
+            if (PROPAGATORS[i].equals(name)) {
+                return i;
             }
         }
-        logString += "]";
-        return logString;
+        return -1;
     }
-
-
 }
@@ -34,6 +34,7 @@ import org.chocosolver.memory.IStateInt;
 import org.chocosolver.solver.ICause;
 import org.chocosolver.solver.constraints.Propagator;
 import org.chocosolver.solver.constraints.PropagatorPriority;
+import org.chocosolver.solver.constraints.extension.CompactTuples;
 import org.chocosolver.solver.exception.ContradictionException;
 import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.util.ESat;
@@ -41,9 +42,8 @@ import org.chocosolver.util.iterators.DisposableValueIterator;
 import org.chocosolver.util.objects.setDataStructures.swapList.Set_Std_Swap_Array;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
-import java.util.Map.Entry;
-import java.util.TreeMap;
 
 /**
  * STR2 Propagator for table constraints (only positive tuples)
@@ -57,7 +57,7 @@ public class PropTableStr2 extends PredictivePropagator {
     // VARIABLES
     //***********************************************************************************
 
-    int[][] table;
+    CompactTuples table;
     str2_var str2vars[];
     Set_Std_Swap_Array tuples;
     ArrayList<str2_var> Ssup;
@@ -69,12 +69,20 @@ public class PropTableStr2 extends PredictivePropagator {
     //***********************************************************************************
 
     public PropTableStr2(IntVar[] vars_, int[][] table) {
+        this(vars_, new CompactTuples(table, true));
+    }
+
+    /**
+     * @param vars_ variables of the table
+     * @param table allowed tuples, possibly shared with other propagators
+     */
+    public PropTableStr2(IntVar[] vars_, CompactTuples table) {
         super(vars_, PropagatorPriority.LINEAR, false);
-        str2vars = new str2_var[table[0].length];
-        for (int i = 0; i < table[0].length; i++) {
+        str2vars = new str2_var[table.arity()];
+        for (int i = 0; i < table.arity(); i++) {
             str2vars[i] = new str2_var(solver.getEnvironment(), vars_[i], i, table);
         }
-        tuples = new Set_Std_Swap_Array(solver.getEnvironment(), table.length);
+        tuples = new Set_Std_Swap_Array(solver.getEnvironment(), table.nbTuples());
         Ssup = new ArrayList<>();
         Sval = new ArrayList<>();
         this.table = table;
@@ -114,7 +122,7 @@ public class PropTableStr2 extends PredictivePropagator {
 
     @Override
     public String toString() {
-        return "STR2 table constraint with " + table[0].length + "vars and " + table.length + "tuples";
+        return "STR2 table constraint with " + table.arity() + "vars and " + table.nbTuples() + "tuples";
     }
 
     //***********************************************************************************
@@ -123,7 +131,7 @@ public class PropTableStr2 extends PredictivePropagator {
 
     boolean is_tuple_supported(int tuple_index) {
         for (str2_var v : Sval) {
-            if (!v.var.contains(table[tuple_index][v.indice])) {
+            if (!v.var.contains(table.get(tuple_index, v.indice))) {
                 return false;
             }
         }
@@ -135,13 +143,13 @@ public class PropTableStr2 extends PredictivePropagator {
             DisposableValueIterator vit = vst.var.getValueIterator(true);
             while (vit.hasNext()) {
                 int value = vit.next();
-                if (!vst.index_map.containsKey(value)) {
+                if (Arrays.binarySearch(vst.values, value) < 0) {
                     vst.var.removeValue(value, this);
                 }
             }
             vit.dispose();
         }
-        for (int t = 0; t < table.length; t++) {
+        for (int t = 0; t < table.nbTuples(); t++) {
             tuples.add(t);
         }
     }
@@ -161,8 +169,9 @@ public class PropTableStr2 extends PredictivePropagator {
             if (is_tuple_supported(tuple)) {
                 for (int var = 0; var < Ssup.size(); var++) {
                     str2_var v = Ssup.get(var);
-                    if (!v.isConsistant(table[tuple][v.indice])) {
-                        v.makeConsistant(table[tuple][v.indice]);
+                    int code = table.getCode(tuple, v.indice);
+                    if (!v.isConsistant(code)) {
+                        v.makeConsistant(code);
                         if (v.nb_consistant == v.var.getDomainSize()) {
                             Ssup.set(var, Ssup.get(Ssup.size() - 1));
                             Ssup.remove(Ssup.size() - 1);
@@ -204,25 +213,19 @@ public class PropTableStr2 extends PredictivePropagator {
         /**
          * count the number of consistant value
          */
-        TreeMap<Integer, Integer> index_map;
+        int[] values;
 
         /**
-         * contains all the value of the variable
+         * contains all the value of the variable in the table, sorted: the index of a value is its code
          */
 
-        str2_var(IEnvironment env, IntVar var_, int indice_, int[][] table) {
+        str2_var(IEnvironment env, IntVar var_, int indice_, CompactTuples table) {
             var = var_;
             last_size = env.makeInt(0);
             indice = indice_;
             nb_consistant = 0;
-            index_map = new TreeMap<>();
-            int key = 0;
-            for (int[] t : table) {
-                if (!index_map.containsKey(t[indice])) {
-                    index_map.put(t[indice], key++);
-                }
-            }
-            GAC_Val = new BitSet(index_map.size());
+            values = table.getDictionary(indice);
+            GAC_Val = new BitSet(values.length);
         }
 
         void GAC_clear() {
@@ -230,19 +233,19 @@ public class PropTableStr2 extends PredictivePropagator {
             nb_consistant = 0;
         }
 
-        boolean isConsistant(int value) {
-            return GAC_Val.get(index_map.get(value));
+        boolean isConsistant(int code) {
+            return GAC_Val.get(code);
         }
 
-        void makeConsistant(int value) {
-            GAC_Val.set(index_map.get(value));
+        void makeConsistant(int code) {
+            GAC_Val.set(code);
             nb_consistant++;
         }
 
         void remove_unsupported_value(ICause cause) throws ContradictionException {
-            for (Entry<Integer, Integer> e : index_map.entrySet()) {
-                if (var.contains(e.getKey()) && !GAC_Val.get(e.getValue())) {
-                    var.removeValue(e.getKey(), cause);
+            for (int code = 0; code < values.length; code++) {
+                if (var.contains(values[code]) && !GAC_Val.get(code)) {
+                    var.removeValue(values[code], cause);
                 }
             }
         }
@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.constraints.nary;
+
+import org.chocosolver.solver.ResolutionPolicy;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.constraints.PropagatorPriority;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.search.solution.Solution;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.events.IntEventType;
+import org.chocosolver.util.ESat;
+import org.chocosolver.util.objects.ParetoFront;
+
+/**
+ * Propagator which forbids solutions dominated by (or equal to) a point of a Pareto front,
+ * for multi-objective optimization.
+ * <p>
+ * The front is stored in a k-d tree (see {@link ParetoFront}), points being expressed for minimization.
+ * For each objective <i>i</i>, the best value of <i>i</i> among the points which are better than the current bounds
+ * on all the other objectives is queried: objective <i>i</i> has to be strictly better than it.
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public class PropParetoFront extends Propagator<IntVar> {
+
+    //***********************************************************************************
+    // VARIABLES
+    //***********************************************************************************
+
+    // number of objectives
+    private final int n;
+    // true to maximize the objectives, false to minimize them
+    private final boolean maximize;
+    private final ParetoFront<Solution> front;
+    // bounds of the objectives, for minimization
+    private final int[] bounds;
+
+    //***********************************************************************************
+    // CONSTRUCTORS
+    //***********************************************************************************
+
+    /**
+     * Propagator which forbids solutions dominated by a point of the front, initially empty
+     *
+     * @param objectives objective variables
+     * @param policy     ResolutionPolicy.MINIMIZE or ResolutionPolicy.MAXIMIZE, for all the objectives
+     */
+    public PropParetoFront(IntVar[] objectives, ResolutionPolicy policy) {
+        super(objectives.clone(), PropagatorPriority.LINEAR, false);
+        this.n = objectives.length;
+        this.maximize = policy == ResolutionPolicy.MAXIMIZE;
+        this.front = new ParetoFront<>(n);
+        this.bounds = new int[n];
+    }
+
+    //***********************************************************************************
+    // METHODS
+    //***********************************************************************************
+
+    /**
+     * Add the current values of the objectives to the front, and remove the points they dominate.
+     * The propagator is scheduled to be called on backtrack.
+     *
+     * @param solution the solution to attach to the point
+     * @return true if the point has been added, that is, it is not dominated
+     */
+    public boolean addCurrentSolution(Solution solution) {
+        int[] point = new int[n];
+        for (int i = 0; i < n; i++) {
+            point[i] = maximize ? -vars[i].getValue() : vars[i].getValue();
+        }
+        boolean added = front.add(point, solution);
+        if (added) {
+            solver.getEngine().propagateOnBacktrack(this);
+        }
+        return added;
+    }
+
+    /**
+     * @return the Pareto front
+     */
+    public ParetoFront<Solution> getFront() {
+        return front;
+    }
+
+    @Override
+    public int getPropagationConditions(int vIdx) {
+        return maximize ? IntEventType.combine(IntEventType.INSTANTIATE, IntEventType.DECUPP)
+                : IntEventType.combine(IntEventType.INSTANTIATE, IntEventType.INCLOW);
+    }
+
+    @Override
+    public void propagate(int evtmask) throws ContradictionException {
+        if (front.size() == 0) {
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            bounds[i] = maximize ? -vars[i].getUB() : vars[i].getLB();
+        }
+        for (int i = 0; i < n; i++) {
+            int best = front.minOver(i, bounds);
+            if (best != Integer.MAX_VALUE) {
+                // the other objectives are dominated, this one has to be strictly better
+                if (maximize) {
+                    vars[i].updateLowerBound(1 - best, this);
+                } else {
+                    vars[i].updateUpperBound(best - 1, this);
+                }
+            }
+        }
+    }
+
+    @Override
+    public ESat isEntailed() {
+        if (isCompletelyInstantiated()) {
+            for (int i = 0; i < n; i++) {
+                bounds[i] = maximize ? -vars[i].getValue() : vars[i].getValue();
+            }
+            return ESat.eval(!front.isDominated(bounds));
+        }
+        return ESat.UNDEFINED;
+    }
+}
@@ -38,12 +38,13 @@ import org.chocosolver.util.objects.graphs.DirectedGraph;
 import org.chocosolver.util.objects.setDataStructures.ISet;
 import org.chocosolver.util.objects.setDataStructures.SetType;
 
+import java.io.Serializable;
 import java.util.BitSet;
 
 /**
  * Algorithm of Alldifferent with AC
  */
-public class AlgoAllDiffAC {
+public class AlgoAllDiffAC implements Serializable {
 
     //***********************************************************************************
     // VARIABLES
@@ -37,7 +37,7 @@ import org.chocosolver.util.sort.ArraySort;
 import java.io.Serializable;
 import java.util.Comparator;
 
-public class AlgoAllDiffBC {
+public class AlgoAllDiffBC implements Serializable {
 
     int[] t; // Tree links
     int[] d; // Diffs between critical capacities
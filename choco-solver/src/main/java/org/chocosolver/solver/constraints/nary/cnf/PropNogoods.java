@@ -368,6 +368,38 @@ public class PropNogoods extends Propagator<IntVar> {
         return SatSolver.makeLiteral(var, true);
     }
 
+    /**
+     * @param lit a literal created by {@link #Literal(IntVar, int, boolean)}, or its negation
+     * @return the integer variable <code>lit</code> refers to
+     */
+    public IntVar getVariable(int lit) {
+        return vars[lit2pos[var(lit)]];
+    }
+
+    /**
+     * @param lit a literal created by {@link #Literal(IntVar, int, boolean)}, or its negation
+     * @return the value <code>lit</code> refers to
+     */
+    public int getValue(int lit) {
+        return ivalue(lit2val[var(lit)]);
+    }
+
+    /**
+     * @param lit a literal created by {@link #Literal(IntVar, int, boolean)}, or its negation
+     * @return <tt>true</tt> if <code>lit</code> encodes '=', <tt>false</tt> if it encodes '&le;'
+     */
+    public boolean isEquality(int lit) {
+        return iseq(lit2val[var(lit)]);
+    }
+
+    /**
+     * @param lit a literal created by {@link #Literal(IntVar, int, boolean)}, or its negation
+     * @return <tt>true</tt> if <code>lit</code> is a literal as created, <tt>false</tt> if it is a negated one
+     */
+    public static boolean isPositive(int lit) {
+        return sign(lit);
+    }
+
     /**
      * var points a clause variable whom value is now to be val.
      *
@@ -518,7 +550,20 @@ public class PropNogoods extends Propagator<IntVar> {
      * @param lits clause
      */
     public void addLearnt(int... lits) {
-        sat_.learnClause(lits);
+        addLearnt(false, lits);
+    }
+
+    /**
+     * Add learnt clause to no-goods store.
+     * A deletable clause is redundant, for instance a nogood extracted from the explanation of a conflict:
+     * the least active deletable clauses are forgotten when there are too many of them.
+     * A non-deletable clause, for instance a nogood extracted from a solution, is kept forever.
+     *
+     * @param deletable set to <tt>true</tt> if the clause can be forgotten
+     * @param lits      clause
+     */
+    public void addLearnt(boolean deletable, int... lits) {
+        sat_.learnClause(deletable, lits);
         // early deductions of learnt clause may lead to incorrect behavior on backtrack
         // since early deduction is not backtrackable.
         this.getSolver().getEngine().propagateOnBacktrack(this); // issue#327
@@ -533,7 +578,8 @@ public class PropNogoods extends Propagator<IntVar> {
             for (int c = sat_.learnts.size() - 2; c >= 0; c--) {
                 int s = test_eq.cardinality();
                 SatSolver.Clause prev = sat_.learnts.get(c);
-                if (last.size() > 1 && last.size() < prev.size()) {
+                // a deletable clause cannot replace a non-deletable one
+                if (last.size() > 1 && last.size() < prev.size() && (last.lbd == 0 || prev.lbd > 0)) {
                     for (int i = prev.size() - 1; i >= 0; i--) {
                         s -= test_eq.get(prev._g(i)) ? 1 : 0;
                     }
@@ -43,6 +43,7 @@ import org.chocosolver.solver.variables.BoolVar;
 import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.solver.variables.events.IEventType;
 import org.chocosolver.solver.variables.events.IntEventType;
+import org.chocosolver.solver.variables.view.BoolNotView;
 import org.chocosolver.util.ESat;
 
 import java.util.ArrayList;
@@ -95,6 +96,7 @@ public class PropSat extends Propagator<BoolVar> {
 
         this.indices_ = new TObjectIntHashMap<>();
         sat_ = new SatSolver();
+        sat_.setLearning(solver.getSettings().enableClauseLearningInSat());
         early_deductions_ = new TIntArrayList();
         sat_trail_ = solver.getEnvironment().makeInt();
     }
@@ -181,6 +183,14 @@ public class PropSat extends Propagator<BoolVar> {
         return sat_;
     }
 
+    /**
+     * @param var a boolean variable
+     * @return the index of <code>var</code> in the SAT solver, or -1 if it is not declared
+     */
+    public int indexOf(BoolVar var) {
+        return indices_.containsKey(var) ? indices_.get(var) : -1;
+    }
+
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -191,11 +201,20 @@ public class PropSat extends Propagator<BoolVar> {
      * <code>expr</code> is <tt>true</tt>
      * <p>
      * The negation of the literal is managed outside.
+     * A negation view of a boolean variable is mapped to the negated literal of this variable,
+     * so that the SAT solver knows they are opposite.
      *
      * @param expr a boolean variable
      * @return its literal
      */
     public int Literal(BoolVar expr) {
+        if (expr instanceof BoolNotView) {
+            return negated(Literal((BoolVar) ((BoolNotView) expr).getVariable()));
+        }
+        if (expr.isNot() && expr.hasNot() && !expr.not().isNot()) {
+            // not(b) built without views: share b's SAT variable instead of a fresh one
+            return negated(Literal(expr.not()));
+        }
         if (indices_.containsKey(expr)) {
             return makeLiteral(indices_.get(expr), true);
         } else {
@@ -223,6 +242,13 @@ public class PropSat extends Propagator<BoolVar> {
             boolean sign = vars[index].getValue() != 0;
             int lit = makeLiteral(var, sign);
             boolean fail = !sat_.propagateOneLiteral(lit);
+            if (fail && sat_.learning_) {
+                // the clause learnt from the conflict is asserting once backtracked
+                // and learnt unit clauses hold at root level
+                early_deductions_.addAll(sat_.learnt_units_);
+                sat_.learnt_units_.resetQuick();
+                this.getSolver().getEngine().propagateOnBacktrack(this);
+            }
             // Remark: explanations require to instantiated variables even if fail is set to true
             sat_trail_.set(sat_.trailMarker());
             for (int i = 0; i < sat_.touched_variables_.size(); ++i) {
@@ -30,17 +30,24 @@
 package org.chocosolver.solver.constraints.nary.cnf;
 
 import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TDoubleArrayList;
 import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.hash.TIntObjectHashMap;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 
 /**
  * A MiniSat solver.
  * <p>
  * (or-tools, booleans.cc, ty L. Perron).
+ * <p>
+ * When learning is enabled, each conflict met during unit propagation is analysed following the
+ * first unique implication point scheme and the resulting clause is learnt.
+ * The variables involved in conflicts see their activity increased (VSIDS), the last value of each variable
+ * is saved (phase saving), and learnt clauses are reduced based on their literal block distance (LBD).
  * <br/>
  *
  * @author Charles Prud'homme
@@ -54,6 +61,17 @@ public class SatSolver {
      */
     static final int kUndefinedLiteral = -2;
 
+    // Decay factor of variable activities.
+    static final double kVarDecay = 0.95;
+    // Decay factor of learnt clause activities.
+    static final double kClauseDecay = 0.999;
+    // Number of learnt clauses before the first reduction of the database.
+    static final int kFirstReduceDB = 2000;
+    // Increment of the learnt clauses limit after each reduction.
+    static final int kIncReduceDB = 300;
+    // Deletable learnt clauses with a LBD less than or equal to this value are never deleted.
+    static final int kGlueLBD = 2;
+
     // If false, the constraints are already unsatisfiable. No part of
     // the solver state may be used!
     boolean ok_;
@@ -81,6 +99,46 @@ public class SatSolver {
     TIntArrayList temporary_add_vector_;
     TIntArrayList touched_variables_;
 
+    // If true, conflicts are analysed and clauses are learnt.
+    boolean learning_;
+    // Decision level of each assigned variable.
+    TIntArrayList level_;
+    // Clause which implied each assigned variable, null if none.
+    ArrayList<Clause> reason_;
+    // Literal which implied each assigned variable through a binary
+    // clause, kUndefinedLiteral if none.
+    TIntArrayList reason_lit_;
+    // Clause found falsified by the last failed propagation, null if
+    // the conflict came from a binary clause.
+    Clause conflict_;
+    // Binary clause found falsified by the last failed propagation:
+    // 'conflict_imp_' implies 'conflict_lit_'.
+    int conflict_imp_;
+    int conflict_lit_;
+    // Activity of each variable (VSIDS).
+    TDoubleArrayList activity_;
+    // Amount to bump variable activities with.
+    double var_inc_;
+    // Last value assigned to each variable (phase saving).
+    BitSet polarity_;
+    // Variables met during conflict analysis.
+    BitSet seen_;
+    // Decision levels met while computing a LBD.
+    BitSet levels_;
+    // Learnt unit clauses, they hold at root level.
+    TIntArrayList learnt_units_;
+    // Number of learnt clauses which can be deleted.
+    int num_deletable_;
+    // Limit on 'num_deletable_' before reducing the learnt clauses.
+    int max_learnts_;
+    // Number of conflicts analysed so far.
+    long num_conflicts_;
+    // Amount to bump learnt clause activities with.
+    double cla_inc_;
+
+    TIntArrayList analyze_vector_;
+    TIntArrayList reason_vector_;
+
 
     public SatSolver() {
         this.ok_ = true;
@@ -95,6 +153,24 @@ public class SatSolver {
         this.trail_markers_ = new TIntArrayList();
         this.temporary_add_vector_ = new TIntArrayList();
         this.touched_variables_ = new TIntArrayList();
+        this.level_ = new TIntArrayList();
+        this.reason_ = new ArrayList<>();
+        this.reason_lit_ = new TIntArrayList();
+        this.activity_ = new TDoubleArrayList();
+        this.var_inc_ = 1d;
+        this.cla_inc_ = 1d;
+        this.polarity_ = new BitSet();
+        this.seen_ = new BitSet();
+        this.levels_ = new BitSet();
+        this.learnt_units_ = new TIntArrayList();
+        this.max_learnts_ = kFirstReduceDB;
+        this.analyze_vector_ = new TIntArrayList();
+        this.reason_vector_ = new TIntArrayList();
+    }
+
+    // Enable, or disable, conflict analysis and clause learning.
+    public void setLearning(boolean learning) {
+        this.learning_ = learning;
     }
 
     // Add a new variable.
@@ -103,6 +179,10 @@ public class SatSolver {
 //            watches_.resize(2 * v + 2);
 //        implies_.resize(2 * v.value() + 2);
         assignment_.put(v, Boolean.kUndefined);
+        level_.add(0);
+        reason_.add(null);
+        reason_lit_.add(kUndefinedLiteral);
+        activity_.add(0d);
         return v;
     }
 
@@ -177,6 +257,13 @@ public class SatSolver {
     }
 
     public boolean learnClause(int... ps) {
+        return learnClause(false, ps);
+    }
+
+    // Add a learnt clause. A deletable clause is redundant: it may be
+    // removed when reducing the learnt clauses, its LBD is set to its
+    // size, as if each literal came from a distinct decision.
+    public boolean learnClause(boolean deletable, int... ps) {
         Arrays.sort(ps);
         switch (ps.length) {
             case 0:
@@ -188,6 +275,10 @@ public class SatSolver {
                 Clause cr = new Clause(ps);
                 learnts.add(cr);
                 attachClause(cr);
+                if (deletable) {
+                    cr.lbd = ps.length;
+                    addDeletable(cr);
+                }
                 break;
         }
         return true;
@@ -234,6 +325,7 @@ public class SatSolver {
         if (trailMarker() > level) {
             for (int c = trail_.size() - 1; c >= trail_markers_.get(level); c--) {
                 int x = var(trail_.get(c));
+                polarity_.set(x, !sign(trail_.get(c)));
                 assignment_.put(x, Boolean.kUndefined);
             }
             qhead_ = trail_markers_.get(level);
@@ -274,6 +366,7 @@ public class SatSolver {
         assert ok_;
         touched_variables_.resetQuick();
         if (!propagate()) {
+            learn();
             return false;
         }
         if (valueLit(lit) == Boolean.kTrue) {
@@ -287,8 +380,13 @@ public class SatSolver {
         // Unchecked enqueue
         assert valueLit(lit) == Boolean.kUndefined;
         assignment_.put(var(lit), makeBoolean(!sign(lit)));
+        setReason(var(lit), null, kUndefinedLiteral);
         trail_.add(lit);
-        return propagate();
+        if (!propagate()) {
+            learn();
+            return false;
+        }
+        return true;
     }
 
 
@@ -303,25 +401,40 @@ public class SatSolver {
 
     // Enqueue a literal. Assumes value of literal is undefined.
     void uncheckedEnqueue(int l) {
+        uncheckedEnqueue(l, null, kUndefinedLiteral);
+    }
+
+    // Enqueue a literal implied by 'from' or by 'from_lit'.
+    // Assumes value of literal is undefined.
+    void uncheckedEnqueue(int l, Clause from, int from_lit) {
         assert valueLit(l) == Boolean.kUndefined;
         if (assignment_.get(var(l)) == Boolean.kUndefined) {
             touched_variables_.add(l);
         }
         assignment_.put(var(l), sign(l) ? Boolean.kFalse : Boolean.kTrue);
+        setReason(var(l), from, from_lit);
         trail_.add(l);
     }
 
+    // Record the decision level and the reason of the assignment of 'x'.
+    private void setReason(int x, Clause from, int from_lit) {
+        level_.setQuick(x, trailMarker());
+        reason_.set(x, from);
+        reason_lit_.setQuick(x, from_lit);
+    }
+
     void dynUncheckedEnqueue(int l) {
         touched_variables_.add(l);
     }
 
 
-    // Test if fact 'p' contradicts current state, Enqueue otherwise.
-    boolean enqueue(int l) {
+    // Test if fact 'p', implied by 'from_lit', contradicts current state,
+    // Enqueue otherwise.
+    boolean enqueue(int l, int from_lit) {
         if (valueLit(l) != Boolean.kUndefined) {
             return valueLit(l) != Boolean.kFalse;
         } else {
-            uncheckedEnqueue(l);
+            uncheckedEnqueue(l, null, from_lit);
             return true;
         }
     }
@@ -346,6 +459,9 @@ public class SatSolver {
     public void detachLearnt(int ci) {
         Clause cr = learnts.get(ci);
         learnts.remove(ci);
+        if (cr.lbd > 0) {
+            num_deletable_--;
+        }
 
         ArrayList<Watcher> ws = watches_.get(negated(cr._g(0)));
         int i = ws.size() - 1;
@@ -365,6 +481,8 @@ public class SatSolver {
 
     // Perform unit propagation. returns true upon success.
     boolean propagate() {
+        conflict_ = null;
+        conflict_imp_ = kUndefinedLiteral;
         boolean result = true;
         while (qhead_ < trail_.size()) {
             int p = trail_.get(qhead_++);
@@ -438,8 +556,12 @@ public class SatSolver {
                         ws.set(j++, ws.get(i++));
                     }
                     touched_variables_.add(first);
+                    conflict_ = cr;
                 } else {
-                    uncheckedEnqueue(first);
+                    uncheckedEnqueue(first, cr, kUndefinedLiteral);
+                }
+                if (cr.lbd > 0) {
+                    bumpActivity(cr);
                 }
             }
         }
@@ -455,8 +577,10 @@ public class SatSolver {
         TIntList to_add = implies_.get(p);
         if (to_add != null) {
             for (int i = 0; i < to_add.size(); ++i) {
-                if (!enqueue(to_add.get(i))) {
+                if (!enqueue(to_add.get(i), p)) {
                     touched_variables_.add(to_add.get(i));
+                    conflict_imp_ = p;
+                    conflict_lit_ = to_add.get(i);
                     return false;
                 }
             }
@@ -465,6 +589,212 @@ public class SatSolver {
     }
 
 
+    // Analyze the last conflict, if learning is enabled, and learn the
+    // resulting clause. Unit clauses are stored in 'learnt_units_'.
+    void learn() {
+        if (!learning_ || (conflict_ == null && conflict_imp_ == kUndefinedLiteral)) {
+            return;
+        }
+        num_conflicts_++;
+        TIntArrayList learnt = analyze_vector_;
+        if (analyze(learnt)) {
+            if (learnt.size() == 1) {
+                learnt_units_.add(learnt.get(0));
+            } else {
+                Clause cr = new Clause(learnt.toArray());
+                cr.lbd = computeLBD(cr);
+                learnts.add(cr);
+                attachClause(cr);
+                addDeletable(cr);
+            }
+        }
+        var_inc_ /= kVarDecay;
+    }
+
+    // Account for a new deletable learnt clause, reducing the learnt
+    // clauses when there are too many of them.
+    private void addDeletable(Clause cr) {
+        bumpActivity(cr);
+        cla_inc_ /= kClauseDecay;
+        if (++num_deletable_ > max_learnts_) {
+            reduceLearnts();
+        }
+    }
+
+    // Compute the first unique implication point clause of the last
+    // conflict in 'learnt': the asserting literal comes first, then the
+    // literal with the highest decision level.
+    // Returns false when the conflict holds at root level.
+    private boolean analyze(TIntArrayList learnt) {
+        learnt.resetQuick();
+        TIntArrayList lits = reason_vector_;
+        reasonOfConflict(lits);
+        int conflict_level = 0;
+        for (int i = 0; i < lits.size(); i++) {
+            conflict_level = Math.max(conflict_level, level_.getQuick(var(lits.getQuick(i))));
+        }
+        if (conflict_level == 0) {
+            return false;
+        }
+        learnt.add(kUndefinedLiteral);
+        int path_count = 0;
+        int p = kUndefinedLiteral;
+        int index = trail_.size() - 1;
+        do {
+            for (int i = 0; i < lits.size(); i++) {
+                int q = lits.getQuick(i);
+                int x = var(q);
+                if (!seen_.get(x) && level_.getQuick(x) > 0) {
+                    seen_.set(x);
+                    bumpActivity(x);
+                    if (level_.getQuick(x) >= conflict_level) {
+                        path_count++;
+                    } else {
+                        learnt.add(q);
+                    }
+                }
+            }
+            // Select next literal to look at:
+            while (!seen_.get(var(trail_.getQuick(index)))) {
+                index--;
+            }
+            p = trail_.getQuick(index--);
+            seen_.clear(var(p));
+            path_count--;
+            reasonOf(var(p), lits);
+        } while (path_count > 0);
+        learnt.setQuick(0, negated(p));
+        // Make sure the second watch has the highest level:
+        int max_i = 1;
+        for (int i = 1; i < learnt.size(); i++) {
+            seen_.clear(var(learnt.getQuick(i)));
+            if (level_.getQuick(var(learnt.getQuick(i))) > level_.getQuick(var(learnt.getQuick(max_i)))) {
+                max_i = i;
+            }
+        }
+        if (learnt.size() > 2) {
+            int l = learnt.getQuick(max_i);
+            learnt.setQuick(max_i, learnt.getQuick(1));
+            learnt.setQuick(1, l);
+        }
+        return true;
+    }
+
+    // Fill 'lits' with the (false) literals of the last conflict.
+    private void reasonOfConflict(TIntArrayList lits) {
+        lits.resetQuick();
+        if (conflict_ != null) {
+            for (int i = 0; i < conflict_.size(); i++) {
+                lits.add(conflict_._g(i));
+            }
+        } else {
+            lits.add(negated(conflict_imp_));
+            lits.add(conflict_lit_);
+        }
+    }
+
+    // Fill 'lits' with the (false) literals which implied 'x'.
+    private void reasonOf(int x, TIntArrayList lits) {
+        lits.resetQuick();
+        Clause cr = reason_.get(x);
+        if (cr != null) {
+            for (int i = 0; i < cr.size(); i++) {
+                if (var(cr._g(i)) != x) {
+                    lits.add(cr._g(i));
+                }
+            }
+        } else if (reason_lit_.getQuick(x) != kUndefinedLiteral) {
+            lits.add(negated(reason_lit_.getQuick(x)));
+        }
+    }
+
+    // Literal block distance: the number of distinct decision levels
+    // in the clause.
+    private int computeLBD(Clause cr) {
+        levels_.clear();
+        int lbd = 0;
+        for (int i = 0; i < cr.size(); i++) {
+            int l = level_.getQuick(var(cr._g(i)));
+            if (!levels_.get(l)) {
+                levels_.set(l);
+                lbd++;
+            }
+        }
+        return lbd;
+    }
+
+    private void bumpActivity(int x) {
+        double a = activity_.getQuick(x) + var_inc_;
+        activity_.setQuick(x, a);
+        if (a > 1e100) {
+            // Rescale:
+            for (int i = 0; i < activity_.size(); i++) {
+                activity_.setQuick(i, activity_.getQuick(i) * 1e-100);
+            }
+            var_inc_ *= 1e-100;
+        }
+    }
+
+    private void bumpActivity(Clause cr) {
+        cr.activity += cla_inc_;
+        if (cr.activity > 1e20) {
+            // Rescale:
+            for (int i = 0; i < learnts.size(); i++) {
+                learnts.get(i).activity *= 1e-20;
+            }
+            cla_inc_ *= 1e-20;
+        }
+    }
+
+    // A learnt clause is locked if it is the reason of a current
+    // assignment.
+    private boolean locked(Clause cr) {
+        int l = cr._g(0);
+        return reason_.get(var(l)) == cr && valueLit(l) == Boolean.kTrue;
+    }
+
+    // Remove half of the deletable learnt clauses, the least active
+    // ones first, the highest LBD first on ties. Glue clauses and
+    // locked ones are kept.
+    void reduceLearnts() {
+        ArrayList<Clause> candidates = new ArrayList<>();
+        for (int i = 0; i < learnts.size(); i++) {
+            Clause cr = learnts.get(i);
+            if (cr.lbd > kGlueLBD && !locked(cr)) {
+                candidates.add(cr);
+            }
+        }
+        candidates.sort((c1, c2) -> c1.activity != c2.activity ?
+                Double.compare(c1.activity, c2.activity) : c2.lbd - c1.lbd);
+        int limit = candidates.size() / 2;
+        for (int i = 0; i < limit; i++) {
+            candidates.get(i).deleted = true;
+        }
+        if (limit > 0) {
+            learnts.removeIf(cr -> cr.deleted);
+            watches_.forEachValue(ws -> {
+                ws.removeIf(w -> w.clause.deleted);
+                return true;
+            });
+        }
+        num_deletable_ -= limit;
+        max_learnts_ += kIncReduceDB;
+    }
+
+    // The activity of a variable.
+    public double activity(int x) {
+        return activity_.getQuick(x);
+    }
+
+    // The last value assigned to a variable, false by default.
+    public boolean polarity(int x) {
+        return polarity_.get(x);
+    }
+
+    public long numconflicts() {
+        return num_conflicts_;
+    }
+
     /**
      * inline Literal MakeLiteral(Variable var, bool sign) {
      * return Literal(2 * var.value() + static_cast<int>(sign));
@@ -524,6 +854,12 @@ public class SatSolver {
      */
     class Clause {
         private int[] literals_;
+        // Literal block distance of a learnt clause, 0 if the clause
+        // cannot be deleted.
+        int lbd;
+        // Activity of a deletable learnt clause.
+        double activity;
+        boolean deleted;
 
         public Clause(int[] ps) {
             literals_ = ps.clone();
@@ -641,9 +977,31 @@ public class SatSolver {
         this.learnts.clear();
         for (Clause cl : o.learnts) {
             Clause _cl = new Clause(cl.literals_);
+            _cl.lbd = cl.lbd;
+            _cl.activity = cl.activity;
             map.put(cl, _cl);
             this.learnts.add(_cl);
         }
+        this.learning_ = o.learning_;
+        this.level_.resetQuick();
+        this.level_.addAll(o.level_);
+        this.reason_.clear();
+        for (Clause cl : o.reason_) {
+            this.reason_.add(cl == null ? null : map.get(cl));
+        }
+        this.reason_lit_.resetQuick();
+        this.reason_lit_.addAll(o.reason_lit_);
+        this.activity_.resetQuick();
+        this.activity_.addAll(o.activity_);
+        this.var_inc_ = o.var_inc_;
+        this.polarity_.clear();
+        this.polarity_.or(o.polarity_);
+        this.learnt_units_.resetQuick();
+        this.learnt_units_.addAll(o.learnt_units_);
+        this.num_deletable_ = o.num_deletable_;
+        this.max_learnts_ = o.max_learnts_;
+        this.num_conflicts_ = o.num_conflicts_;
+        this.cla_inc_ = o.cla_inc_;
         this.watches_.clear();
         for (int k : o.watches_.keys()) {
             ArrayList<Watcher> ws = o.watches_.get(k);
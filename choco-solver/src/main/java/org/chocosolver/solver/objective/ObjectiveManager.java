@@ -58,7 +58,8 @@ public class ObjectiveManager<V extends Variable, N extends Number> implements I
     final private boolean intOrReal;
     final private double precision;
 
-    protected N bestProvedLB, bestProvedUB; // best bounds found so far
+    // best bounds found so far, may be updated by concurrent solvers (see ParallelPortfolio)
+    protected volatile N bestProvedLB, bestProvedUB;
 
     // creates an objective manager for satisfaction problems
     public static ObjectiveManager SAT() {
@@ -172,7 +173,7 @@ public class ObjectiveManager<V extends Variable, N extends Number> implements I
     /**
      * Informs the manager that a new solution has been found
      */
-    public void update() {
+    public synchronized void update() {
         if (isOptimization()) {
             assert objective.isInstantiated();
             if (policy == ResolutionPolicy.MINIMIZE) {
@@ -234,7 +235,7 @@ public class ObjectiveManager<V extends Variable, N extends Number> implements I
      *
      * @param lb lower bound
      */
-    public void updateBestLB(N lb) {
+    public synchronized void updateBestLB(N lb) {
         if (bestProvedLB == null) {
             // this may happen with multi-thread resolution
             // when one thread find a solver before one other is being launched
@@ -250,7 +251,7 @@ public class ObjectiveManager<V extends Variable, N extends Number> implements I
      *
      * @param ub upper bound
      */
-    public void updateBestUB(N ub) {
+    public synchronized void updateBestUB(N ub) {
         if (bestProvedUB == null) {
             // this may happen with multi-thread resolution
             // when one thread find a solver before one other is being launched
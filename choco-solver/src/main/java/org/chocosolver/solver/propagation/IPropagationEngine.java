@@ -146,6 +146,16 @@ public interface IPropagationEngine extends Serializable {
     default void clear() {
     }
 
+    /**
+     * Return the object which collects measures on the propagators executed by this engine,
+     * if profiling is enabled (see {@link org.chocosolver.solver.Settings#profilePropagation()}).
+     *
+     * @return the profiler of this engine, or <i>null</i> if profiling is disabled
+     */
+    default PropagationProfiler getProfiler() {
+        return null;
+    }
+
     //********************************//
     //      SERVICES FOR UPDATING     //
     //********************************//
@@ -30,6 +30,7 @@
 package org.chocosolver.solver.propagation;
 
 import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.propagation.hardcoded.AdaptivePropagationEngine;
 import org.chocosolver.solver.propagation.hardcoded.SevenQueuesPropagatorEngine;
 import org.chocosolver.solver.propagation.hardcoded.TwoBucketPropagationEngine;
 
@@ -66,6 +67,17 @@ public enum PropagationEngineFactory {
         }
     },
 
+    /**
+     * Create a propagator-oriented propagation engine which learns the priority of the propagators
+     * from their measured cost and hit rate.
+     */
+    ADAPTIVE() {
+        @Override
+        public IPropagationEngine make(Solver solver) {
+            return new AdaptivePropagationEngine(solver);
+        }
+    },
+
     DEFAULT() {
         @Override
         public IPropagationEngine make(Solver solver) {
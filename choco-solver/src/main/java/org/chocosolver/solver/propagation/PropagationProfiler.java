@@ -0,0 +1,321 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.propagation;
+
+import org.chocosolver.solver.ICause;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.util.objects.IntMap;
+
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Collects, for each propagator executed by a propagation engine, the time spent in its filtering algorithm,
+ * its number of fine and coarse calls, the number of domain reductions it produced,
+ * the number of calls which did not filter anything and the number of failures.
+ * <br/>
+ * A profiler is created by the propagation engines when {@link org.chocosolver.solver.Settings#profilePropagation()}
+ * returns true, and is available through {@link IPropagationEngine#getProfiler()}.
+ * Measures can be output, per propagator or per constraint, as a report sorted by decreasing time
+ * ({@link #printReport(PrintStream, boolean)}) or as JSON ({@link #toJSON()}).
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public class PropagationProfiler implements Serializable {
+
+    private static final int TIME = 0, FINE = 1, COARSE = 2, REDUCTIONS = 3, NOOPS = 4, FAILS = 5, SIZE = 6;
+
+    /**
+     * Mapping between propagator ID and its index in {@link #stats}
+     */
+    private final IntMap p2i;
+    /**
+     * Profiled propagators, in order of first execution
+     */
+    private final List<Propagator> propagators;
+    /**
+     * Measures, SIZE consecutive counters per propagator
+     */
+    private long[] stats;
+
+    public PropagationProfiler() {
+        this.p2i = new IntMap(16, -1);
+        this.propagators = new ArrayList<>();
+        this.stats = new long[16 * SIZE];
+    }
+
+    private int offset(Propagator propagator) {
+        int idx = p2i.get(propagator.getId());
+        if (idx == -1) {
+            idx = propagators.size();
+            p2i.put(propagator.getId(), idx);
+            propagators.add(propagator);
+            if ((idx + 1) * SIZE > stats.length) {
+                stats = Arrays.copyOf(stats, stats.length * 3 / 2 + SIZE);
+            }
+        }
+        return idx * SIZE;
+    }
+
+    /**
+     * Run the fine propagation of <i>propagator</i> on the event <i>mask</i> of its <i>idx</i>-th variable.
+     *
+     * @param propagator a propagator
+     * @param idx        index of the modified variable
+     * @param mask       event mask
+     * @throws ContradictionException if the propagation fails
+     */
+    public void propagate(Propagator propagator, int idx, int mask) throws ContradictionException {
+        int o = offset(propagator);
+        stats[o + FINE]++;
+        long reductions = stats[o + REDUCTIONS];
+        long start = System.nanoTime();
+        try {
+            propagator.propagate(idx, mask);
+        } catch (ContradictionException cex) {
+            stats[o + FAILS]++;
+            reductions = -1;
+            throw cex;
+        } finally {
+            end(o, start, reductions);
+        }
+    }
+
+    /**
+     * Run the coarse propagation of <i>propagator</i>.
+     *
+     * @param propagator a propagator
+     * @param mask       event mask
+     * @throws ContradictionException if the propagation fails
+     */
+    public void propagate(Propagator propagator, int mask) throws ContradictionException {
+        int o = offset(propagator);
+        stats[o + COARSE]++;
+        long reductions = stats[o + REDUCTIONS];
+        long start = System.nanoTime();
+        try {
+            propagator.propagate(mask);
+        } catch (ContradictionException cex) {
+            stats[o + FAILS]++;
+            reductions = -1;
+            throw cex;
+        } finally {
+            end(o, start, reductions);
+        }
+    }
+
+    private void end(int o, long start, long reductions) {
+        stats[o + TIME] += System.nanoTime() - start;
+        if (reductions == stats[o + REDUCTIONS]) {
+            stats[o + NOOPS]++;
+        }
+    }
+
+    /**
+     * Count a domain reduction made by <i>cause</i>, if it is a propagator.
+     *
+     * @param cause the cause of a variable modification
+     */
+    public void onVariableUpdate(ICause cause) {
+        if (cause instanceof Propagator) {
+            stats[offset((Propagator) cause) + REDUCTIONS]++;
+        }
+    }
+
+    /**
+     * Reset all the measures
+     */
+    public void reset() {
+        Arrays.fill(stats, 0);
+    }
+
+    //***********************************************************************************
+    // ACCESSORS
+    //***********************************************************************************
+
+    private long get(Propagator propagator, int k) {
+        int idx = p2i.get(propagator.getId());
+        return idx == -1 ? 0 : stats[idx * SIZE + k];
+    }
+
+    /**
+     * @param propagator a propagator
+     * @return the time spent in <i>propagator</i>, in nanoseconds
+     */
+    public long getTime(Propagator propagator) {
+        return get(propagator, TIME);
+    }
+
+    /**
+     * @param propagator a propagator
+     * @return the number of fine calls of <i>propagator</i> (propagate(int, int))
+     */
+    public long getFineCalls(Propagator propagator) {
+        return get(propagator, FINE);
+    }
+
+    /**
+     * @param propagator a propagator
+     * @return the number of coarse calls of <i>propagator</i> (propagate(int))
+     */
+    public long getCoarseCalls(Propagator propagator) {
+        return get(propagator, COARSE);
+    }
+
+    /**
+     * @param propagator a propagator
+     * @return the number of domain reductions made by <i>propagator</i>
+     */
+    public long getReductions(Propagator propagator) {
+        return get(propagator, REDUCTIONS);
+    }
+
+    /**
+     * @param propagator a propagator
+     * @return the number of calls of <i>propagator</i> which neither filtered nor failed
+     */
+    public long getNoOpCalls(Propagator propagator) {
+        return get(propagator, NOOPS);
+    }
+
+    /**
+     * @param propagator a propagator
+     * @return the number of calls of <i>propagator</i> which failed
+     */
+    public long getFails(Propagator propagator) {
+        return get(propagator, FAILS);
+    }
+
+    /**
+     * @return the propagators executed at least once, in order of first execution
+     */
+    public List<Propagator> getPropagators() {
+        return Collections.unmodifiableList(propagators);
+    }
+
+    //***********************************************************************************
+    // REPORTS
+    //***********************************************************************************
+
+    /**
+     * Aggregate the measures, per propagator or per constraint, sorted by decreasing time.
+     */
+    private List<Map.Entry<String, long[]>> entries(boolean perConstraint) {
+        // identity, not equality, is used to aggregate measures
+        Map<Object, long[]> values = new IdentityHashMap<>();
+        List<Map.Entry<String, long[]>> entries = new ArrayList<>();
+        for (int i = 0; i < propagators.size(); i++) {
+            Propagator p = propagators.get(i);
+            Object key = perConstraint && p.getConstraint() != null ? p.getConstraint() : p;
+            long[] v = values.get(key);
+            if (v == null) {
+                v = new long[SIZE];
+                values.put(key, v);
+                String name = key instanceof Constraint ? ((Constraint) key).getName() : key.toString();
+                entries.add(new AbstractMap.SimpleEntry<>(name, v));
+            }
+            for (int k = 0; k < SIZE; k++) {
+                v[k] += stats[i * SIZE + k];
+            }
+        }
+        entries.sort((e1, e2) -> Long.compare(e2.getValue()[TIME], e1.getValue()[TIME]));
+        return entries;
+    }
+
+    /**
+     * Print the measures, sorted by decreasing time.
+     *
+     * @param out           the stream to print in
+     * @param perConstraint set to true to sum the measures of the propagators of a same constraint
+     */
+    public void printReport(PrintStream out, boolean perConstraint) {
+        out.printf("%12s %10s %10s %12s %10s %10s %8s  %s\n",
+                "time (ms)", "fine", "coarse", "reductions", "no-op", "fails", "no-op %", perConstraint ? "constraint" : "propagator");
+        for (Map.Entry<String, long[]> e : entries(perConstraint)) {
+            long[] v = e.getValue();
+            long calls = v[FINE] + v[COARSE];
+            out.printf("%12.3f %10d %10d %12d %10d %10d %8.2f  %s\n",
+                    v[TIME] / 1e6, v[FINE], v[COARSE], v[REDUCTIONS], v[NOOPS], v[FAILS],
+                    calls == 0 ? 0. : v[NOOPS] * 100. / calls, e.getKey());
+        }
+    }
+
+    /**
+     * Output the measures as a JSON array of objects, sorted by decreasing time.
+     *
+     * @param perConstraint set to true to sum the measures of the propagators of a same constraint
+     * @return a JSON string
+     */
+    public String toJSON(boolean perConstraint) {
+        StringBuilder st = new StringBuilder("[");
+        for (Map.Entry<String, long[]> e : entries(perConstraint)) {
+            long[] v = e.getValue();
+            if (st.length() > 1) {
+                st.append(',');
+            }
+            st.append("\n  {\"name\":\"").append(escape(e.getKey())).append('"')
+                    .append(",\"timeNs\":").append(v[TIME])
+                    .append(",\"fineCalls\":").append(v[FINE])
+                    .append(",\"coarseCalls\":").append(v[COARSE])
+                    .append(",\"reductions\":").append(v[REDUCTIONS])
+                    .append(",\"noOpCalls\":").append(v[NOOPS])
+                    .append(",\"fails\":").append(v[FAILS])
+                    .append('}');
+        }
+        return st.append("\n]").toString();
+    }
+
+    /**
+     * @return the measures per propagator, as JSON
+     * @see #toJSON(boolean)
+     */
+    public String toJSON() {
+        return toJSON(false);
+    }
+
+    private static String escape(String s) {
+        StringBuilder st = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                st.append('\\').append(c);
+            } else if (c < 0x20) {
+                st.append(String.format("\\u%04x", (int) c));
+            } else {
+                st.append(c);
+            }
+        }
+        return st.toString();
+    }
+}
@@ -0,0 +1,279 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.propagation.hardcoded;
+
+import org.chocosolver.solver.ICause;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.constraints.PropagatorPriority;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.Variable;
+import org.chocosolver.solver.variables.events.IEventType;
+
+import java.util.Arrays;
+
+/**
+ * A priority-driven propagator-oriented engine, like {@link SevenQueuesPropagatorEngine},
+ * in which the queue of a propagator is learnt at runtime instead of being given by its static priority.
+ * <br/>
+ * For each propagator, the engine maintains an exponential moving average of its hit rate
+ * (the ratio of calls which removed values or failed) and of its cost per call (sampled, in nanoseconds).
+ * Every {@link #PERIOD} calls, a propagator is demoted by one queue when its hit rate is low,
+ * and promoted by one queue (never above its static priority minus one) when its hit rate is high
+ * and its cost below the average cost of the propagators.
+ * <p>
+ * Moreover, in the deepest part of the search tree (world index greater than half the deepest world met so far),
+ * {@link PropagatorPriority#CUBIC} and {@link PropagatorPriority#VERY_SLOW} propagators with a low hit rate are deferred
+ * to a last queue: they are only run once every other propagator has reached its fix point,
+ * and thus not run at all when a failure is detected before.
+ * They are never skipped, though, since that would make the propagation incomplete.
+ * <br/>
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public class AdaptivePropagationEngine extends SevenQueuesPropagatorEngine {
+
+    /**
+     * Number of calls of a propagator between two updates of its queue
+     */
+    private static final int PERIOD = 64;
+    /**
+     * The cost of a propagator is measured once every SAMPLING calls
+     */
+    private static final int SAMPLING = 16;
+    /**
+     * Index of the queue of deferred propagators
+     */
+    private static final int DEFERRED = 8;
+
+    /**
+     * Smoothing factor of the moving averages
+     */
+    private final double alpha;
+    /**
+     * Under this hit rate, a propagator is demoted (or deferred)
+     */
+    private final double lowHitRate;
+    /**
+     * Over this hit rate, a cheap propagator is promoted
+     */
+    private final double highHitRate;
+
+    private double[] hits; // moving average of the hit rate, per propagator
+    private double[] costs; // moving average of the cost per call, per propagator
+    private int[] calls; // number of calls, per propagator
+    private byte[] queues; // learnt queue, per propagator
+    private double avgCost; // moving average of the cost of all propagators
+
+    private Propagator current; // the propagator being executed
+    private boolean pruned; // set to true when the current propagator modifies a variable
+    private int deepest; // index of the deepest world met so far
+    private boolean deep; // true when the current world is in the deepest part of the search tree
+
+    /**
+     * Create an adaptive propagation engine with default parameters:
+     * smoothing factor 0.05, low hit rate 0.05, high hit rate 0.5.
+     *
+     * @param solver the declaring solver
+     */
+    public AdaptivePropagationEngine(Solver solver) {
+        this(solver, .05, .05, .5);
+    }
+
+    /**
+     * Create an adaptive propagation engine.
+     *
+     * @param solver      the declaring solver
+     * @param alpha       smoothing factor of the moving averages, in ]0,1]
+     * @param lowHitRate  a propagator whose hit rate is below this value is demoted
+     * @param highHitRate a propagator whose hit rate is above this value, and which is cheap, is promoted
+     */
+    public AdaptivePropagationEngine(Solver solver, double alpha, double lowHitRate, double highHitRate) {
+        super(solver, DEFERRED + 1);
+        this.alpha = alpha;
+        this.lowHitRate = lowHitRate;
+        this.highHitRate = highHitRate;
+    }
+
+    @Override
+    public void initialize() {
+        if (!isInitialized()) {
+            super.initialize();
+            int n = propagators.length;
+            hits = new double[n];
+            Arrays.fill(hits, 1.);
+            costs = new double[n];
+            calls = new int[n];
+            queues = new byte[n];
+            for (int i = 0; i < n; i++) {
+                queues[i] = (byte) propagators[i].getPriority().priority;
+            }
+            avgCost = 0.;
+            deepest = 0;
+        }
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        hits = costs = null;
+        calls = null;
+        queues = null;
+    }
+
+    @Override
+    public void propagate() throws ContradictionException {
+        int w = environment.getWorldIndex();
+        if (w > deepest) {
+            deepest = w;
+        }
+        deep = 2 * w > deepest;
+        super.propagate();
+    }
+
+    @Override
+    protected void propagateFine(Propagator prop, int aid, int v, int mask) throws ContradictionException {
+        long start = before(prop, aid);
+        try {
+            super.propagateFine(prop, aid, v, mask);
+        } catch (ContradictionException cex) {
+            pruned = true;
+            throw cex;
+        } finally {
+            after(aid, start);
+        }
+    }
+
+    @Override
+    protected void propagateCoarse(Propagator prop, int aid, int mask) throws ContradictionException {
+        long start = before(prop, aid);
+        try {
+            super.propagateCoarse(prop, aid, mask);
+        } catch (ContradictionException cex) {
+            pruned = true;
+            throw cex;
+        } finally {
+            after(aid, start);
+        }
+    }
+
+    private long before(Propagator prop, int aid) {
+        current = prop;
+        pruned = false;
+        return calls[aid] % SAMPLING == 0 ? System.nanoTime() : 0L;
+    }
+
+    private void after(int aid, long start) {
+        if (start != 0L) {
+            double cost = System.nanoTime() - start;
+            costs[aid] = calls[aid] == 0 ? cost : costs[aid] + alpha * (cost - costs[aid]);
+            avgCost += alpha * (cost - avgCost);
+        }
+        hits[aid] += alpha * ((pruned ? 1. : 0.) - hits[aid]);
+        current = null;
+        if (++calls[aid] % PERIOD == 0) {
+            int q = queues[aid];
+            if (hits[aid] < lowHitRate) {
+                q = Math.min(q + 1, DEFERRED - 1);
+            } else if (hits[aid] > highHitRate && costs[aid] < avgCost) {
+                q = Math.max(q - 1, Math.max(1, propagators[aid].getPriority().priority - 1));
+            }
+            queues[aid] = (byte) q;
+        }
+    }
+
+    @Override
+    protected int queue(Propagator prop, int aid) {
+        if (deep && hits[aid] < lowHitRate && prop.getPriority().priority >= PropagatorPriority.CUBIC.priority) {
+            return DEFERRED;
+        }
+        return queues[aid];
+    }
+
+    @Override
+    public void onVariableUpdate(Variable variable, IEventType type, ICause cause) {
+        if (cause == current) {
+            pruned = true;
+        }
+        super.onVariableUpdate(variable, type, cause);
+    }
+
+    /**
+     * @param propagator a propagator
+     * @return the hit rate learnt for <i>propagator</i>, or -1 if it is unknown to this engine
+     */
+    public double getHitRate(Propagator propagator) {
+        int aid = p2i == null ? -1 : p2i.get(propagator.getId());
+        return aid == -1 ? -1 : hits[aid];
+    }
+
+    /**
+     * @param propagator a propagator
+     * @return the queue learnt for <i>propagator</i>, or -1 if it is unknown to this engine
+     */
+    public int getQueue(Propagator propagator) {
+        int aid = p2i == null ? -1 : p2i.get(propagator.getId());
+        return aid == -1 ? -1 : queues[aid];
+    }
+
+    @Override
+    public void dynamicAddition(boolean permanent, Propagator... ps) {
+        super.dynamicAddition(permanent, ps);
+        int osize = hits.length;
+        int nsize = propagators.length;
+        hits = Arrays.copyOf(hits, nsize);
+        Arrays.fill(hits, osize, nsize, 1.);
+        costs = Arrays.copyOf(costs, nsize);
+        calls = Arrays.copyOf(calls, nsize);
+        queues = Arrays.copyOf(queues, nsize);
+        for (int i = osize; i < nsize; i++) {
+            queues[i] = (byte) propagators[i].getPriority().priority;
+        }
+    }
+
+    @Override
+    public void dynamicDeletion(Propagator... ps) {
+        for (Propagator toDelete : ps) {
+            int nsize = propagators.length - 1;
+            int idtd = p2i.get(toDelete.getId());
+            super.dynamicDeletion(toDelete);
+            // the last propagator has been moved to the place of the deleted one
+            hits[idtd] = hits[nsize];
+            costs[idtd] = costs[nsize];
+            calls[idtd] = calls[nsize];
+            queues[idtd] = queues[nsize];
+            hits = Arrays.copyOf(hits, nsize);
+            costs = Arrays.copyOf(costs, nsize);
+            calls = Arrays.copyOf(calls, nsize);
+            queues = Arrays.copyOf(queues, nsize);
+        }
+    }
+}
@@ -37,6 +37,7 @@ import org.chocosolver.solver.constraints.Constraint;
 import org.chocosolver.solver.constraints.Propagator;
 import org.chocosolver.solver.exception.ContradictionException;
 import org.chocosolver.solver.propagation.IPropagationEngine;
+import org.chocosolver.solver.propagation.PropagationProfiler;
 import org.chocosolver.solver.propagation.PropagationTrigger;
 import org.chocosolver.solver.variables.Variable;
 import org.chocosolver.solver.variables.events.IEventType;
@@ -68,6 +69,7 @@ public class SevenQueuesPropagatorEngine implements IPropagationEngine {
     private final Solver solver;
     protected Propagator[] propagators;
     private final boolean DEBUG,COLOR;
+    private final PropagationProfiler profiler; // null unless propagators are profiled
 
     protected final CircularQueue<Propagator>[] pro_queue;
     protected Propagator lastProp;
@@ -84,14 +86,26 @@ public class SevenQueuesPropagatorEngine implements IPropagationEngine {
 
 
     public SevenQueuesPropagatorEngine(Solver solver) {
+        this(solver, 8);
+    }
+
+    /**
+     * Create a queue-based engine, for subclasses which assign propagators to queues on their own
+     * (see {@link #queue(Propagator, int)}).
+     *
+     * @param solver   the declaring solver
+     * @param nbQueues number of queues, queue 0 is never used by default
+     */
+    protected SevenQueuesPropagatorEngine(Solver solver, int nbQueues) {
         this.exception = new ContradictionException();
         this.environment = solver.getEnvironment();
         this.trigger = new PropagationTrigger(this, solver);
         this.idemStrat = solver.getSettings().getIdempotencyStrategy();
         this.solver = solver;
-        pro_queue = new CircularQueue[8];
+        pro_queue = new CircularQueue[nbQueues];
         this.DEBUG = solver.getSettings().debugPropagation();
         this.COLOR = solver.getSettings().outputWithANSIColors();
+        this.profiler = solver.getSettings().profilePropagation() ? new PropagationProfiler() : null;
 
     }
 
@@ -124,7 +138,7 @@ public class SevenQueuesPropagatorEngine implements IPropagationEngine {
             for (int j = 0; j < propagators.length; j++) {
                 p2i.put(propagators[j].getId(), j);
             }
-            for (int i = 0; i < 8; i++) {
+            for (int i = 0; i < pro_queue.length; i++) {
                 pro_queue[i] = new CircularQueue<>(16);
             }
 
@@ -148,6 +162,11 @@ public class SevenQueuesPropagatorEngine implements IPropagationEngine {
         return init;
     }
 
+    @Override
+    public PropagationProfiler getProfiler() {
+        return profiler;
+    }
+
     @SuppressWarnings({"NullableProblems"})
     @Override
     public void propagate() throws ContradictionException {
@@ -175,14 +194,14 @@ public class SevenQueuesPropagatorEngine implements IPropagationEngine {
                         eventmasks[aid][v] = 0;
                         lastProp.decNbPendingEvt();
                         // run propagation on the specific event
-                        lastProp.propagate(v, mask);
+                        propagateFine(lastProp, aid, v, mask);
                     }
                 } else if (lastProp.isActive()) { // need to be checked due to views
                     //assert lastProp.isActive() : "propagator is not active:" + lastProp;
                     if (DEBUG) {
                         IPropagationEngine.Trace.printPropagation(null, lastProp, COLOR);
                     }
-                    lastProp.propagate(PropagatorEventType.FULL_PROPAGATION.getMask());
+                    propagateCoarse(lastProp, aid, PropagatorEventType.FULL_PROPAGATION.getMask());
                 }
                 // This part is for debugging only!!
                 if (Settings.Idem.disabled != idemStrat) {
@@ -193,6 +212,37 @@ public class SevenQueuesPropagatorEngine implements IPropagationEngine {
         }
     }
 
+    /**
+     * Run the fine propagation of the propagator <i>prop</i>, of index <i>aid</i>,
+     * on the event <i>mask</i> of its <i>v</i>-th variable.
+     */
+    protected void propagateFine(Propagator prop, int aid, int v, int mask) throws ContradictionException {
+        if (profiler != null) {
+            profiler.propagate(prop, v, mask);
+        } else {
+            prop.propagate(v, mask);
+        }
+    }
+
+    /**
+     * Run the coarse propagation of the propagator <i>prop</i>, of index <i>aid</i>.
+     */
+    protected void propagateCoarse(Propagator prop, int aid, int mask) throws ContradictionException {
+        if (profiler != null) {
+            profiler.propagate(prop, mask);
+        } else {
+            prop.propagate(mask);
+        }
+    }
+
+    /**
+     * Return the queue in which the propagator <i>prop</i>, of index <i>aid</i>, is scheduled,
+     * that is, its priority.
+     */
+    protected int queue(Propagator prop, int aid) {
+        return prop.getPriority().priority;
+    }
+
     private int nextNotEmpty(int fromIndex) {
         int word = notEmpty & (WORD_MASK << fromIndex);
         if (word != 0) {
@@ -236,6 +286,9 @@ public class SevenQueuesPropagatorEngine implements IPropagationEngine {
         if (DEBUG) {
             IPropagationEngine.Trace.printModification(variable, type, cause, COLOR);
         }
+        if (profiler != null) {
+            profiler.onVariableUpdate(cause);
+        }
         Propagator[] vpropagators = variable.getPropagators();
         int[] vindices = variable.getPIndices();
         Propagator prop;
@@ -262,7 +315,7 @@ public class SevenQueuesPropagatorEngine implements IPropagationEngine {
                         }
                     }
                     if (scheduled[aid] == 0) {
-                        int prio = /*dynamic ? prop.dynPriority() :*/ prop.getPriority().priority;
+                        int prio = queue(prop, aid);
                         pro_queue[prio].addLast(prop);
                         scheduled[aid] = (short) (prio + 1);
 //                    notEmpty.set(prio);
@@ -282,7 +335,11 @@ public class SevenQueuesPropagatorEngine implements IPropagationEngine {
             if (DEBUG) {
                 IPropagationEngine.Trace.printPropagation(null, propagator, COLOR);
             }
-            propagator.propagate(type.getMask());
+            if (profiler != null) {
+                profiler.propagate(propagator, type.getMask());
+            } else {
+                propagator.propagate(type.getMask());
+            }
         }
     }
 
@@ -315,7 +372,7 @@ public class SevenQueuesPropagatorEngine implements IPropagationEngine {
         propagators = null;
         trigger.clear();
         p2i = null;
-        for (int i = 0; i < 8; i++) {
+        for (int i = 0; i < pro_queue.length; i++) {
             pro_queue[i] = null;
         }
         scheduled = null;
@@ -38,6 +38,7 @@ import org.chocosolver.solver.constraints.Propagator;
 import org.chocosolver.solver.constraints.PropagatorPriority;
 import org.chocosolver.solver.exception.ContradictionException;
 import org.chocosolver.solver.propagation.IPropagationEngine;
+import org.chocosolver.solver.propagation.PropagationProfiler;
 import org.chocosolver.solver.propagation.PropagationTrigger;
 import org.chocosolver.solver.variables.Variable;
 import org.chocosolver.solver.variables.events.IEventType;
@@ -109,6 +110,11 @@ public class TwoBucketPropagationEngine implements IPropagationEngine {
      */
     private final boolean COLOR;
 
+    /**
+     * When propagators are profiled, collects measures on their executions, <tt>null</tt> otherwise.
+     */
+    private final PropagationProfiler profiler;
+
     /**
      * Fine events priority binding.
      */
@@ -216,6 +222,7 @@ public class TwoBucketPropagationEngine implements IPropagationEngine {
 
         this.DEBUG = solver.getSettings().debugPropagation();
         this.COLOR = solver.getSettings().outputWithANSIColors();
+        this.profiler = solver.getSettings().profilePropagation() ? new PropagationProfiler() : null;
     }
 
     @Override
@@ -296,6 +303,11 @@ public class TwoBucketPropagationEngine implements IPropagationEngine {
         return init;
     }
 
+    @Override
+    public PropagationProfiler getProfiler() {
+        return profiler;
+    }
+
     @SuppressWarnings({"NullableProblems"})
     @Override
     public void propagate() throws ContradictionException {
@@ -350,14 +362,22 @@ public class TwoBucketPropagationEngine implements IPropagationEngine {
                 int mask = eventmasks[aid][v];
                 eventmasks[aid][v] = 0;
                 // run propagation on the specific event
-                lastProp.propagate(v, mask);
+                if (profiler != null) {
+                    profiler.propagate(lastProp, v, mask);
+                } else {
+                    lastProp.propagate(v, mask);
+                }
             }
         } else if (lastProp.isActive()) { // need to be checked due to views
             //assert lastProp.isActive() : "propagator is not active:" + lastProp;
             if (DEBUG) {
                 IPropagationEngine.Trace.printPropagation(null, lastProp, COLOR);
             }
-            lastProp.propagate(PropagatorEventType.FULL_PROPAGATION.getMask());
+            if (profiler != null) {
+                profiler.propagate(lastProp, PropagatorEventType.FULL_PROPAGATION.getMask());
+            } else {
+                lastProp.propagate(PropagatorEventType.FULL_PROPAGATION.getMask());
+            }
         }
         // This part is for debugging only!!
         if (Settings.Idem.disabled != idemStrat) {
@@ -377,7 +397,11 @@ public class TwoBucketPropagationEngine implements IPropagationEngine {
         if (DEBUG) {
             IPropagationEngine.Trace.printPropagation(null, lastProp, COLOR);
         }
-        lastProp.propagate(evt.getMask());
+        if (profiler != null) {
+            profiler.propagate(lastProp, evt.getMask());
+        } else {
+            lastProp.propagate(evt.getMask());
+        }
     }
 
 
@@ -426,6 +450,9 @@ public class TwoBucketPropagationEngine implements IPropagationEngine {
         if (DEBUG) {
             IPropagationEngine.Trace.printModification(variable, type, cause, COLOR);
         }
+        if (profiler != null) {
+            profiler.onVariableUpdate(cause);
+        }
         Propagator[] vpropagators = variable.getPropagators();
         int[] vindices = variable.getPIndices();
         Propagator prop;
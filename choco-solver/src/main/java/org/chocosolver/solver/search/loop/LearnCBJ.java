@@ -34,7 +34,9 @@ import gnu.trove.list.array.TIntArrayList;
 import org.chocosolver.solver.Solver;
 import org.chocosolver.solver.constraints.nary.cnf.PropNogoods;
 import org.chocosolver.solver.constraints.nary.cnf.SatSolver;
+import org.chocosolver.solver.search.strategy.assignments.DecisionOperator;
 import org.chocosolver.solver.search.strategy.decision.Decision;
+import org.chocosolver.solver.search.strategy.decision.IntDecision;
 import org.chocosolver.solver.search.strategy.decision.RootDecision;
 import org.chocosolver.solver.variables.IntVar;
 
@@ -46,6 +48,12 @@ import static org.chocosolver.solver.search.strategy.decision.RootDecision.ROOT;
  * <p>
  * [1]: P. Prosser, Hybrid algorithms for the constraint satisfaction problem, Computational Intelligence (93).
  * <p>
+ * When nogoods are extracted from explanations, each conflict is turned into a clause over the negation of
+ * the decisions it depends on, expressed with order literals ([x = v], [x &le; v]), and stored in the nogood store.
+ * These nogoods are redundant: the least active ones are forgotten when there are too many of them.
+ * A conflict which depends on a decision that cannot be expressed with such literals (for instance, one based on
+ * a user-defined operator) is not turned into a nogood; the search still backjumps.
+ * <p>
  * Created by cprudhom on 02/09/15.
  * Project: choco.
  * @author Charles Prud'homme, Narendra Jussien
@@ -67,6 +75,11 @@ public class LearnCBJ extends LearnExplained {
      */
     private TIntList ps;
 
+    /**
+     * Returned when a decision cannot be expressed as a literal of the nogood store.
+     */
+    private static final int NO_LITERAL = -1;
+
 
     /**
      * Create a Conflict-based Backjumping strategy.
@@ -128,13 +141,59 @@ public class LearnCBJ extends LearnExplained {
             while (decision != RootDecision.ROOT) {
                 if (lastExplanation.getDecisions().get(decision.getWorldIndex())) {
                     assert decision.hasNext();
-                    ps.add(SatSolver.negated(ngstore.Literal(decision.getDecisionVariables(),
-                            (Integer) decision.getDecisionValue(), true)));
+                    int lit = literal(decision);
+                    if (lit == NO_LITERAL) {
+                        // the nogood cannot be expressed, the conflict is only used to backjump
+                        return;
+                    }
+                    ps.add(SatSolver.negated(lit));
                 }
                 decision = decision.getPrevious();
             }
-            ngstore.addLearnt(ps.toArray());
+            ngstore.addLearnt(true, ps.toArray());
+        }
+    }
+
+    /**
+     * Return the literal, in the no-good store, which is true when <code>decision</code> is applied:
+     * <ul>
+     * <li>x = v : [x = v],</li>
+     * <li>x &ne; v : &not;[x = v],</li>
+     * <li>x &le; v : [x &le; v],</li>
+     * <li>x &ge; v : &not;[x &le; v - 1].</li>
+     * </ul>
+     *
+     * A decision which is not an {@link IntDecision}, over an integer variable and with an {@link Integer} value,
+     * is considered as an assignment.
+     * {@link #NO_LITERAL} is returned for an {@link IntDecision} based on any other operator (for instance,
+     * a user-defined one), and for any other decision: no nogood is then extracted from the conflict.
+     *
+     * @param decision a (left) decision
+     * @return a literal, or {@link #NO_LITERAL} if the decision cannot be expressed with a literal
+     */
+    private int literal(Decision<IntVar> decision) {
+        if (decision instanceof IntDecision) {
+            IntDecision id = (IntDecision) decision;
+            IntVar var = id.getDecisionVariables();
+            int value = id.getDecisionValue();
+            DecisionOperator<IntVar> op = id.getDecOp();
+            if (op == DecisionOperator.int_eq) {
+                return ngstore.Literal(var, value, true);
+            } else if (op == DecisionOperator.int_neq) {
+                return SatSolver.negated(ngstore.Literal(var, value, true));
+            } else if (op == DecisionOperator.int_split) {
+                return ngstore.Literal(var, value, false);
+            } else if (op == DecisionOperator.int_reverse_split) {
+                return SatSolver.negated(ngstore.Literal(var, value - 1, false));
+            }
+            return NO_LITERAL;
+        }
+        // previous behavior: the decision is considered as an assignment
+        Object value = decision.getDecisionValue();
+        if (!(value instanceof Integer) || !(decision.getDecisionVariables() instanceof IntVar)) {
+            return NO_LITERAL;
         }
+        return ngstore.Literal(decision.getDecisionVariables(), (Integer) value, true);
     }
 
 
@@ -208,6 +208,18 @@ public class LearnDBT extends LearnCBJ {
             return mainStrategy.init();
         }
 
+        @Override
+        public void remove() {
+            if (mainStrategy != null) {
+                mainStrategy.remove();
+            }
+        }
+
+        @Override
+        public boolean uses(AbstractStrategy strategy) {
+            return super.uses(strategy) || (mainStrategy != null && mainStrategy.uses(strategy));
+        }
+
         @Override
         public void afterInitialize() {
             this.mainStrategy = mSolver.getStrategy();
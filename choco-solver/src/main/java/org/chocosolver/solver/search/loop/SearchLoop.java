@@ -524,6 +524,28 @@ public final class SearchLoop implements Serializable {
         }
     }
 
+    /**
+     * Add a search monitor to the current list, if it is not already in.
+     * Unlike {@link Solver#plugMonitor(ISearchMonitor)}, this applies to the running search.
+     * On a call to {@link #reset()} or {@link #unplugAllSearchMonitors()}, the list will be emptied.
+     *
+     * @param sm a search monitor
+     */
+    public void plugSearchMonitor(ISearchMonitor sm) {
+        if (!searchMonitors.contains(sm)) {
+            searchMonitors.add(sm);
+        }
+    }
+
+    /**
+     * Remove a search monitor from the current list.
+     *
+     * @param sm a search monitor
+     */
+    public void unplugSearchMonitor(ISearchMonitor sm) {
+        searchMonitors.remove(sm);
+    }
+
     /**
      * Empties the list of search monitors.
      */
@@ -585,7 +607,12 @@ public final class SearchLoop implements Serializable {
                     "A strategy must be attached to each of them independently, and it cannot be achieved calling this method." +
                     "An iteration over it child moves is needed: this.getMove().getChildMoves().");
         } else {
+            AbstractStrategy<Variable> former = M.getStrategy();
             M.setStrategy(strategy);
+            if (former != null && !strategy.uses(former)) {
+                // otherwise, the monitors of the former strategy would still be notified
+                former.remove();
+            }
         }
     }
 
@@ -31,6 +31,8 @@ package org.chocosolver.solver.search.loop;
 
 import org.chocosolver.memory.IEnvironment;
 
+import java.io.Serializable;
+
 /**
  * Class for factorizing code of time stamped objects
  * <br/>
@@ -38,7 +40,7 @@ import org.chocosolver.memory.IEnvironment;
  * @author Jean-Guillaume Fages
  * @since 24/04/2014
  */
-public abstract class TimeStampedObject {
+public abstract class TimeStampedObject implements Serializable {
 
 	private int timestamp = -1;
 	private final IEnvironment environment;
@@ -86,4 +86,14 @@ public class FailPerPropagator implements IMonitorContradiction {
         int f = p2w.get(p.getId());
         return f < 0 ? 0 : f;
     }
+
+    /**
+     * Sets, for a given propagator, the number of times it has failed,
+     * for instance to start from the counts of a previous resolution
+     * @param p the propagator to update
+     * @param fails the number of times <code>p</code> has failed
+     */
+    public void setFails(Propagator p, int fails) {
+        p2w.put(p.getId(), fails);
+    }
 }
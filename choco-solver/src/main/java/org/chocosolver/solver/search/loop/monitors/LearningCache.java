@@ -0,0 +1,742 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.search.loop.monitors;
+
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.constraints.nary.cnf.PropNogoods;
+import org.chocosolver.solver.constraints.nary.cnf.SatSolver;
+import org.chocosolver.solver.constraints.nary.nogood.NogoodConstraint;
+import org.chocosolver.solver.exception.SolverException;
+import org.chocosolver.solver.search.strategy.selectors.variables.ActivityBased;
+import org.chocosolver.solver.search.strategy.selectors.variables.DomOverWDeg;
+import org.chocosolver.solver.search.strategy.strategy.LastConflict;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.Variable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A cache of what has been learnt during a resolution, to warm start the resolution of the same model,
+ * or of a model of the same family declared with slightly different data:
+ * the nogoods extracted on restarts by {@link NogoodFromRestarts}, the failure counts of {@link DomOverWDeg},
+ * the activities of {@link ActivityBased} and the conflicting variables of {@link LastConflict}.
+ * <p>
+ * Variables are identified by their names, and propagators by their class and the names of their variables,
+ * so that a cache can be restored into another {@link Solver}, possibly in another process.
+ * A cache also stores a fingerprint of the model it was recorded from, see {@link #fingerprint(Solver)},
+ * and can only be restored into a model with the same fingerprint.
+ * Variables, or propagators, which cannot be found in the target model are ignored.
+ * <p>
+ * Beware: heuristic scores only guide the search, but a nogood removes a part of the search space.
+ * Nogoods are only valid for the very same model, and not for an optimization problem
+ * once the objective is bounded by a solution: they are not recorded then.
+ * So, they are restored only into a model with the same strict fingerprint, see {@link #strictFingerprint(Solver)},
+ * which also depends on the domains of the variables and on the description of the constraints,
+ * <b>and</b> declared with the same data, as stated by the caller with a data version.
+ * Indeed, the strict fingerprint cannot capture all the data of the constraints (for instance, the tuples of a table):
+ * the data version identifies them, for instance a hash of the instance file.
+ * Both fingerprints are computed when the cache is created, which must be done before the search starts.
+ * The nogoods are recorded only if the cache has been attached to the nogood recorder beforehand, see
+ * {@link #attach(NogoodFromRestarts, long)}; otherwise, the recorder does not keep them.
+ * <pre>
+ *     // first run
+ *     NogoodFromRestarts ngr = new NogoodFromRestarts(solver);
+ *     solver.plugMonitor(ngr);
+ *     LearningCache cache = new LearningCache(solver);
+ *     cache.attach(ngr, dataVersion);
+ *     solver.findSolution();
+ *     cache.record(ngr);
+ *     cache.record(dwd);
+ *     cache.save(file);
+ *     // next run, in a new solver
+ *     LearningCache cache = LearningCache.load(file);
+ *     cache.restore(ngr, dataVersion);
+ *     cache.restore(dwd);
+ *     solver.findSolution();
+ * </pre>
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public class LearningCache {
+
+    /**
+     * Leading bytes of the binary format ("CHLC")
+     */
+    private static final int MAGIC = 0x43484C43;
+
+    /**
+     * Version of the binary format
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Operators of the literals of a nogood
+     */
+    private static final byte EQ = 0, NEQ = 1, LEQ = 2, GT = 3;
+
+    /**
+     * Fingerprint of the model this cache was recorded from
+     */
+    private final long fingerprint;
+
+    /**
+     * Strict fingerprint of the model this cache was recorded from, required to restore nogoods
+     */
+    private final long strictFingerprint;
+
+    /**
+     * Version of the data the nogoods were extracted with, as stated by the caller
+     */
+    private long dataVersion;
+
+    /**
+     * Nogoods, each literal being a triplet (variable name, operator, value)
+     */
+    private final List<Literal[]> nogoods;
+
+    /**
+     * Number of failures of propagators, keyed by propagator
+     */
+    private final Map<String, Integer> fails;
+
+    /**
+     * Activities of variables and of their values, keyed by variable name
+     */
+    private final Map<String, Activity> activities;
+
+    /**
+     * Names of the variables related to the last conflicts, from the oldest to the most recent one
+     */
+    private String[] conflicts;
+
+    /**
+     * Create an empty cache for the model declared in <i>solver</i>.
+     *
+     * @param solver the model to record from
+     */
+    public LearningCache(Solver solver) {
+        this(fingerprint(solver), strictFingerprint(solver));
+    }
+
+    private LearningCache(long fingerprint, long strictFingerprint) {
+        this.fingerprint = fingerprint;
+        this.strictFingerprint = strictFingerprint;
+        this.nogoods = new ArrayList<>();
+        this.fails = new LinkedHashMap<>();
+        this.activities = new LinkedHashMap<>();
+        this.conflicts = new String[0];
+    }
+
+    //***********************************************************************************
+    // FINGERPRINT
+    //***********************************************************************************
+
+    /**
+     * Compute the fingerprint of the model declared in <i>solver</i>, which depends on the names and kinds of
+     * its variables (constants and views excepted) and on the names of its constraints (the nogood store excepted),
+     * but neither on domains, nor on the parameters of the constraints.
+     * The fingerprint does not depend on the declaration order either.
+     *
+     * @param solver a model
+     * @return the fingerprint of the model
+     */
+    public static long fingerprint(Solver solver) {
+        List<String> vnames = new ArrayList<>();
+        for (int i = 0; i < solver.getNbVars(); i++) {
+            Variable var = solver.getVar(i);
+            if ((var.getTypeAndKind() & (Variable.CSTE | Variable.VIEW)) == 0) {
+                vnames.add(var.getName() + ':' + (var.getTypeAndKind() & Variable.KIND));
+            }
+        }
+        List<String> cnames = new ArrayList<>();
+        for (Constraint c : solver.getCstrs()) {
+            if (!(c instanceof NogoodConstraint)) {
+                cnames.add(c.getName());
+            }
+        }
+        Collections.sort(vnames);
+        Collections.sort(cnames);
+        long h = 1125899906842597L;
+        h = hash(h, vnames);
+        h = 31 * h + '|';
+        return hash(h, cnames);
+    }
+
+    /**
+     * Compute the strict fingerprint of the model declared in <i>solver</i>, which depends on the names, kinds and
+     * domains of all its variables (constants and views included) and on its propagators, as described by
+     * their {@link Propagator#toString()} (which usually shows their parameters), the nogood store excepted.
+     * It does not depend on the data that propagators do not show, like the tuples of a table,
+     * hence the data version required to restore nogoods.
+     * It must be computed before the search starts, the domains being modified by the search.
+     * The strict fingerprint does not depend on the declaration order.
+     *
+     * @param solver a model
+     * @return the strict fingerprint of the model
+     */
+    public static long strictFingerprint(Solver solver) {
+        List<String> vdescs = new ArrayList<>();
+        StringBuilder st = new StringBuilder();
+        for (int i = 0; i < solver.getNbVars(); i++) {
+            Variable var = solver.getVar(i);
+            st.setLength(0);
+            st.append(var.getName()).append(':').append(var.getTypeAndKind()).append(':');
+            if (var instanceof IntVar) {
+                IntVar ivar = (IntVar) var;
+                if (ivar.hasEnumeratedDomain()) {
+                    int ub = ivar.getUB();
+                    for (int v = ivar.getLB(); v <= ub; v = ivar.nextValue(v)) {
+                        st.append(v).append(',');
+                    }
+                } else {
+                    st.append(ivar.getLB()).append("..").append(ivar.getUB());
+                }
+            } else {
+                st.append(var.toString());
+            }
+            vdescs.add(st.toString());
+        }
+        List<String> pdescs = new ArrayList<>();
+        for (Constraint c : solver.getCstrs()) {
+            if (!(c instanceof NogoodConstraint)) {
+                for (Propagator p : c.getPropagators()) {
+                    pdescs.add(c.getName() + ':' + p.getClass().getName() + ':' + p.toString());
+                }
+            }
+        }
+        Collections.sort(vdescs);
+        Collections.sort(pdescs);
+        long h = 1125899906842597L;
+        h = hash(h, vdescs);
+        h = 31 * h + '|';
+        return hash(h, pdescs);
+    }
+
+    private static long hash(long h, List<String> words) {
+        for (String w : words) {
+            for (int i = 0; i < w.length(); i++) {
+                h = 31 * h + w.charAt(i);
+            }
+            h = 31 * h + '\n';
+        }
+        return h;
+    }
+
+    /**
+     * @return the fingerprint of the model this cache was recorded from
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @param solver a model
+     * @return <tt>true</tt> if this cache can be restored into <i>solver</i>
+     */
+    public boolean matches(Solver solver) {
+        return fingerprint == fingerprint(solver);
+    }
+
+    /**
+     * @return the strict fingerprint of the model this cache was recorded from
+     */
+    public long getStrictFingerprint() {
+        return strictFingerprint;
+    }
+
+    /**
+     * @param solver a model, before the search starts
+     * @return <tt>true</tt> if the nogoods of this cache can be restored into <i>solver</i>
+     */
+    public boolean matchesStrictly(Solver solver) {
+        return strictFingerprint == strictFingerprint(solver);
+    }
+
+    private void check(Solver solver) {
+        if (!matches(solver)) {
+            throw new SolverException("The cache has been recorded from another model than " + solver.getName());
+        }
+    }
+
+    /**
+     * @return the version of the data the nogoods of this cache were extracted with
+     */
+    public long getDataVersion() {
+        return dataVersion;
+    }
+
+    /**
+     * Attach this cache to <i>ngr</i>, which then keeps the nogoods it extracts so that they can be recorded
+     * with {@link #record(NogoodFromRestarts)}. Should be called before the search starts.
+     *
+     * @param ngr         a nogood recorder
+     * @param dataVersion identifies the data the model is declared with, the nogoods will only be restored
+     *                    into a model declared with the same data version
+     * @throws SolverException if the cache has been created for another model
+     */
+    public void attach(NogoodFromRestarts ngr, long dataVersion) {
+        check(ngr.getNogoodStore().getSolver());
+        this.dataVersion = dataVersion;
+        ngr.keepNogoods();
+    }
+
+    //***********************************************************************************
+    // RECORD
+    //***********************************************************************************
+
+    /**
+     * Record the nogoods extracted (or added) by <i>ngr</i> since {@link #attach(NogoodFromRestarts, long)} was called.
+     *
+     * @param ngr a nogood recorder
+     * @throws SolverException if this cache has not been attached to <i>ngr</i>, or if a solution of an
+     *                         optimization problem has been found: the nogoods then depend on the objective bound
+     */
+    public void record(NogoodFromRestarts ngr) {
+        PropNogoods png = ngr.getNogoodStore();
+        Solver solver = png.getSolver();
+        check(solver);
+        if (!ngr.keepsNogoods()) {
+            throw new SolverException("The nogood recorder does not keep its nogoods, the cache should be attached to it first");
+        }
+        if (solver.getObjectiveManager().isOptimization() && solver.getMeasures().getSolutionCount() > 0) {
+            throw new SolverException("The nogoods extracted once the objective is bounded by a solution cannot be recorded");
+        }
+        for (int[] nogood : ngr.getNogoods()) {
+            Literal[] lits = new Literal[nogood.length];
+            for (int i = 0; i < nogood.length; i++) {
+                int lit = nogood[i];
+                byte op = png.isEquality(lit) ? EQ : LEQ;
+                if (!PropNogoods.isPositive(lit)) {
+                    op++;
+                }
+                lits[i] = new Literal(png.getVariable(lit).getName(), op, png.getValue(lit));
+            }
+            nogoods.add(lits);
+        }
+    }
+
+    /**
+     * Record the failure counts of the propagators, as counted so far by <i>dwd</i>.
+     *
+     * @param dwd a dom/wdeg strategy
+     */
+    public void record(DomOverWDeg dwd) {
+        Solver solver = dwd.getVariables()[0].getSolver();
+        check(solver);
+        for (Map.Entry<String, Propagator> e : propagators(solver).entrySet()) {
+            int f = dwd.getFails(e.getValue());
+            if (f > 0) {
+                fails.put(e.getKey(), f);
+            }
+        }
+    }
+
+    /**
+     * Record the activities of the variables, and of their values, as estimated so far by <i>abs</i>.
+     *
+     * @param abs an activity-based strategy
+     */
+    public void record(ActivityBased abs) {
+        check(abs.getVariables()[0].getSolver());
+        TIntArrayList values = new TIntArrayList();
+        TDoubleArrayList acts = new TDoubleArrayList();
+        for (IntVar var : abs.getVariables()) {
+            values.resetQuick();
+            acts.resetQuick();
+            double activity = abs.getActivities(var, values, acts);
+            activities.put(var.getName(), new Activity(activity, values.toArray(), acts.toArray()));
+        }
+    }
+
+    /**
+     * Record the variables related to the last conflicts met by <i>lc</i>.
+     *
+     * @param lc a last conflict strategy
+     */
+    public void record(LastConflict lc) {
+        Variable[] vars = lc.getConflictingVariables();
+        if (vars.length > 0) {
+            check(vars[0].getSolver());
+        }
+        conflicts = new String[vars.length];
+        for (int i = 0; i < vars.length; i++) {
+            conflicts[i] = vars[i].getName();
+        }
+    }
+
+    //***********************************************************************************
+    // RESTORE
+    //***********************************************************************************
+
+    /**
+     * Add the nogoods of this cache to the store of <i>ngr</i>, must be called before the search starts.
+     * A nogood which refers to an unknown variable is ignored.
+     *
+     * @param ngr         a nogood recorder of the target model
+     * @param dataVersion identifies the data the target model is declared with
+     * @return the number of nogoods added
+     * @throws SolverException if the cache has been recorded from another model, strictly speaking
+     *                         (see {@link #strictFingerprint(Solver)}), or from other data
+     */
+    public int restore(NogoodFromRestarts ngr, long dataVersion) {
+        PropNogoods png = ngr.getNogoodStore();
+        Solver solver = png.getSolver();
+        if (!matchesStrictly(solver) || dataVersion != this.dataVersion) {
+            throw new SolverException("The nogoods of the cache have been recorded from another model, " +
+                    "or other data, than " + solver.getName());
+        }
+        Map<String, Variable> vars = variables(solver);
+        int n = 0;
+        for (Literal[] nogood : nogoods) {
+            int[] lits = new int[nogood.length];
+            int i = 0;
+            while (i < nogood.length && vars.get(nogood[i].name) instanceof IntVar) {
+                Literal l = nogood[i];
+                lits[i] = png.Literal((IntVar) vars.get(l.name), l.value, l.op < LEQ);
+                if (l.op == NEQ || l.op == GT) {
+                    lits[i] = SatSolver.negated(lits[i]);
+                }
+                i++;
+            }
+            if (i == nogood.length) {
+                ngr.addNogood(lits);
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Set the failure counts of the propagators of the target model, should be called before the search starts.
+     *
+     * @param dwd a dom/wdeg strategy of the target model
+     * @return the number of propagators updated
+     * @throws SolverException if the cache has been recorded from another model
+     */
+    public int restore(DomOverWDeg dwd) {
+        Solver solver = dwd.getVariables()[0].getSolver();
+        check(solver);
+        int n = 0;
+        for (Map.Entry<String, Propagator> e : propagators(solver).entrySet()) {
+            Integer f = fails.get(e.getKey());
+            if (f != null) {
+                dwd.setFails(e.getValue(), f);
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Set the activities of the variables of <i>abs</i>, should be called before the search starts.
+     * The sampling phase of <i>abs</i> is then skipped.
+     *
+     * @param abs an activity-based strategy of the target model
+     * @return the number of variables updated
+     * @throws SolverException if the cache has been recorded from another model
+     */
+    public int restore(ActivityBased abs) {
+        check(abs.getVariables()[0].getSolver());
+        int n = 0;
+        for (IntVar var : abs.getVariables()) {
+            Activity a = activities.get(var.getName());
+            if (a != null) {
+                abs.setActivities(var, a.activity, a.values, a.activities);
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Set the variables related to the last conflicts of <i>lc</i>, should be called before the search starts.
+     *
+     * @param lc a last conflict strategy of the target model
+     * @return the number of variables set
+     * @throws SolverException if the cache has been recorded from another model
+     */
+    public int restore(LastConflict lc) {
+        Solver solver = lc.getVariables()[0].getSolver();
+        check(solver);
+        Map<String, Variable> vars = variables(solver);
+        List<Variable> found = new ArrayList<>();
+        for (String name : conflicts) {
+            Variable var = vars.get(name);
+            if (var != null) {
+                found.add(var);
+            }
+        }
+        lc.setConflictingVariables(found.toArray(new Variable[found.size()]));
+        return lc.getConflictingVariables().length;
+    }
+
+    /**
+     * @return the variables of <i>solver</i> keyed by name, those whose name is not unique excepted
+     */
+    private static Map<String, Variable> variables(Solver solver) {
+        Map<String, Variable> vars = new HashMap<>();
+        Set<String> duplicates = new HashSet<>();
+        for (int i = 0; i < solver.getNbVars(); i++) {
+            Variable var = solver.getVar(i);
+            if (vars.put(var.getName(), var) != null) {
+                duplicates.add(var.getName());
+            }
+        }
+        vars.keySet().removeAll(duplicates);
+        return vars;
+    }
+
+    /**
+     * @return the propagators of <i>solver</i> keyed by their class and the names of their variables,
+     * suffixed by an occurrence number when several propagators share the same key
+     */
+    private static Map<String, Propagator> propagators(Solver solver) {
+        Map<String, Propagator> props = new LinkedHashMap<>();
+        Map<String, Integer> occurrences = new HashMap<>();
+        StringBuilder st = new StringBuilder();
+        for (Constraint c : solver.getCstrs()) {
+            if (c instanceof NogoodConstraint) {
+                continue;
+            }
+            for (Propagator p : c.getPropagators()) {
+                st.setLength(0);
+                st.append(p.getClass().getSimpleName()).append('(');
+                for (int v = 0; v < p.getNbVars(); v++) {
+                    if (v > 0) {
+                        st.append(',');
+                    }
+                    st.append(p.getVar(v).getName());
+                }
+                st.append(')');
+                String key = st.toString();
+                int k = occurrences.merge(key, 1, Integer::sum);
+                props.put(k == 1 ? key : key + '#' + k, p);
+            }
+        }
+        return props;
+    }
+
+    //***********************************************************************************
+    // BINARY FORMAT
+    //***********************************************************************************
+
+    /**
+     * Write this cache in a compact binary format, which can be read back with {@link #read(DataInput)}.
+     *
+     * @param out the output to write in
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(fingerprint);
+        out.writeLong(strictFingerprint);
+        out.writeLong(dataVersion);
+        // the names of the variables of the nogoods are written once
+        Map<String, Integer> ids = new LinkedHashMap<>();
+        for (Literal[] nogood : nogoods) {
+            for (Literal l : nogood) {
+                ids.putIfAbsent(l.name, ids.size());
+            }
+        }
+        out.writeInt(ids.size());
+        for (String name : ids.keySet()) {
+            writeString(out, name);
+        }
+        out.writeInt(nogoods.size());
+        for (Literal[] nogood : nogoods) {
+            out.writeInt(nogood.length);
+            for (Literal l : nogood) {
+                out.writeInt(ids.get(l.name));
+                out.writeByte(l.op);
+                out.writeInt(l.value);
+            }
+        }
+        out.writeInt(fails.size());
+        for (Map.Entry<String, Integer> e : fails.entrySet()) {
+            writeString(out, e.getKey());
+            out.writeInt(e.getValue());
+        }
+        out.writeInt(activities.size());
+        for (Map.Entry<String, Activity> e : activities.entrySet()) {
+            Activity a = e.getValue();
+            writeString(out, e.getKey());
+            out.writeDouble(a.activity);
+            out.writeInt(a.values.length);
+            for (int i = 0; i < a.values.length; i++) {
+                out.writeInt(a.values[i]);
+                out.writeDouble(a.activities[i]);
+            }
+        }
+        out.writeInt(conflicts.length);
+        for (String name : conflicts) {
+            writeString(out, name);
+        }
+    }
+
+    /**
+     * Read a cache written with {@link #write(DataOutput)}.
+     *
+     * @param in the input to read from
+     * @return the cache read
+     * @throws IOException if an I/O error occurs, or if the input is not a cache
+     */
+    public static LearningCache read(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a learning cache");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported version of learning cache: " + version);
+        }
+        LearningCache cache = new LearningCache(in.readLong(), in.readLong());
+        cache.dataVersion = in.readLong();
+        String[] names = new String[in.readInt()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = readString(in);
+        }
+        int n = in.readInt();
+        for (int i = 0; i < n; i++) {
+            Literal[] nogood = new Literal[in.readInt()];
+            for (int j = 0; j < nogood.length; j++) {
+                String name = names[in.readInt()];
+                byte op = in.readByte();
+                if (op < EQ || op > GT) {
+                    throw new IOException("Unknown operator: " + op);
+                }
+                nogood[j] = new Literal(name, op, in.readInt());
+            }
+            cache.nogoods.add(nogood);
+        }
+        n = in.readInt();
+        for (int i = 0; i < n; i++) {
+            cache.fails.put(readString(in), in.readInt());
+        }
+        n = in.readInt();
+        for (int i = 0; i < n; i++) {
+            String name = readString(in);
+            double activity = in.readDouble();
+            int[] values = new int[in.readInt()];
+            double[] acts = new double[values.length];
+            for (int j = 0; j < values.length; j++) {
+                values[j] = in.readInt();
+                acts[j] = in.readDouble();
+            }
+            cache.activities.put(name, new Activity(activity, values, acts));
+        }
+        cache.conflicts = new String[in.readInt()];
+        for (int i = 0; i < cache.conflicts.length; i++) {
+            cache.conflicts[i] = readString(in);
+        }
+        return cache;
+    }
+
+    /**
+     * Unlike {@link DataOutput#writeUTF(String)}, not limited to 65535 bytes: a propagator key holds the names
+     * of all its variables.
+     */
+    private static void writeString(DataOutput out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Negative string length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write this cache in <i>file</i>, see {@link #write(DataOutput)}.
+     *
+     * @param file the file to write in, replaced if it exists
+     * @throws IOException if an I/O error occurs
+     */
+    public void save(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            write(out);
+        }
+    }
+
+    /**
+     * Read a cache from <i>file</i>, see {@link #read(DataInput)}.
+     *
+     * @param file the file to read from
+     * @return the cache read
+     * @throws IOException if an I/O error occurs, or if the file is not a cache
+     */
+    public static LearningCache load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            return read(in);
+        }
+    }
+
+    //***********************************************************************************
+    // ENTRIES
+    //***********************************************************************************
+
+    private static final class Literal {
+
+        final String name;
+        final byte op;
+        final int value;
+
+        Literal(String name, byte op, int value) {
+            this.name = name;
+            this.op = op;
+            this.value = value;
+        }
+    }
+
+    private static final class Activity {
+
+        final double activity;
+        final int[] values;
+        final double[] activities;
+
+        Activity(double activity, int[] values, double[] activities) {
+            this.activity = activity;
+            this.values = values;
+            this.activities = activities;
+        }
+    }
+}
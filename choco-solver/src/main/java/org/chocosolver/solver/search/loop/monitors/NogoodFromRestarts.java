@@ -39,7 +39,10 @@ import org.chocosolver.solver.search.strategy.decision.RootDecision;
 import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.util.objects.queues.CircularQueue;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * A constraint for the specific Nogood store designed to store ONLY positive decisions.
@@ -66,6 +69,12 @@ public class NogoodFromRestarts implements IMonitorRestart {
      */
     final PropNogoods png;
 
+    /**
+     * The nogoods extracted so far, or added with {@link #addNogood(int...)},
+     * only kept once {@link #keepNogoods()} has been called (<tt>null</tt> otherwise)
+     */
+    List<int[]> nogoods;
+
     /**
      * A constraint for the specific Nogood store designed to store ONLY positive decisions.
      * Beware :
@@ -81,6 +90,50 @@ public class NogoodFromRestarts implements IMonitorRestart {
         decisions = new CircularQueue<>(16);
     }
 
+    /**
+     * @return the nogood store, which defines the literals of the nogoods
+     */
+    public PropNogoods getNogoodStore() {
+        return png;
+    }
+
+    /**
+     * Keep, from now on, the nogoods extracted or added, for instance to record them in a {@link LearningCache}.
+     * By default, they are only added to the store.
+     */
+    public void keepNogoods() {
+        if (nogoods == null) {
+            nogoods = new ArrayList<>();
+        }
+    }
+
+    /**
+     * @return <tt>true</tt> if the nogoods are kept, see {@link #keepNogoods()}
+     */
+    public boolean keepsNogoods() {
+        return nogoods != null;
+    }
+
+    /**
+     * @return the nogoods extracted, or added with {@link #addNogood(int...)}, since {@link #keepNogoods()}
+     * has been called, as arrays of literals
+     */
+    public List<int[]> getNogoods() {
+        return nogoods == null ? Collections.emptyList() : Collections.unmodifiableList(nogoods);
+    }
+
+    /**
+     * Add a nogood to the store, for instance a nogood extracted during a previous resolution of the same model.
+     *
+     * @param lits the literals of the nogood, see {@link PropNogoods#Literal(IntVar, int, boolean)}
+     */
+    public void addNogood(int... lits) {
+        if (nogoods != null) {
+            nogoods.add(lits);
+        }
+        png.addLearnt(lits);
+    }
+
     @Override
     public void beforeRestart() {
         extractNogoodFromPath();
@@ -106,10 +159,10 @@ public class NogoodFromRestarts implements IMonitorRestart {
                     } else {
                         if (i == 0) {
                             // value can be removed permanently from var!
-                            png.addLearnt(SatSolver.negated(png.Literal(id.getDecisionVariables(), id.getDecisionValue(), true)));
+                            addNogood(SatSolver.negated(png.Literal(id.getDecisionVariables(), id.getDecisionValue(), true)));
                         } else {
                             lits[i] = SatSolver.negated(png.Literal(id.getDecisionVariables(), id.getDecisionValue(), true));
-                            png.addLearnt(Arrays.copyOf(lits, i + 1));
+                            addNogood(Arrays.copyOf(lits, i + 1));
                         }
                     }
                 } else if (id.getDecOp() == DecisionOperator.int_neq) {
@@ -118,10 +171,10 @@ public class NogoodFromRestarts implements IMonitorRestart {
                     } else {
                         if (i == 0) {
                             // value can be removed permanently from var!
-                            png.addLearnt(png.Literal(id.getDecisionVariables(), id.getDecisionValue(), true));
+                            addNogood(png.Literal(id.getDecisionVariables(), id.getDecisionValue(), true));
                         } else {
                             lits[i] = png.Literal(id.getDecisionVariables(), id.getDecisionValue(), true);
-                            png.addLearnt(Arrays.copyOf(lits, i + 1));
+                            addNogood(Arrays.copyOf(lits, i + 1));
                         }
                     }
                 } else {
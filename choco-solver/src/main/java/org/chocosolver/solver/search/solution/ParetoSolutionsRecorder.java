@@ -30,77 +30,52 @@
 package org.chocosolver.solver.search.solution;
 
 import org.chocosolver.solver.ResolutionPolicy;
-import org.chocosolver.solver.constraints.ICF;
-import org.chocosolver.solver.constraints.Operator;
-import org.chocosolver.solver.constraints.nary.cnf.PropSat;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.constraints.nary.PropParetoFront;
 import org.chocosolver.solver.search.loop.monitors.IMonitorSolution;
-import org.chocosolver.solver.variables.BoolVar;
 import org.chocosolver.solver.variables.IntVar;
-import org.chocosolver.solver.variables.VF;
+
+import java.util.List;
 
 /**
  * Class to store the pareto front (multi-objective optimization).
  * Worse solutions are dynamically removed from the solution set.
+ * <p>
+ * The front is maintained by a {@link PropParetoFront}, posted on creation, which also prevents the solver
+ * from finding dominated solutions: the model does not grow with the number of solutions.
  *
  * @author Jean-Guillaume Fages
  */
 public class ParetoSolutionsRecorder extends AllSolutionsRecorder {
 
-    ResolutionPolicy policy;
-    IntVar[] objectives;
-    int n;
-    int[] vals, lits;
-    PropSat psat;
-    BoolVar[] bvars;
+    PropParetoFront pfront;
 
     public ParetoSolutionsRecorder(final ResolutionPolicy policy, final IntVar[] objectives) {
         super(objectives[0].getSolver());
-        this.objectives = objectives;
-        this.n = objectives.length;
-        this.policy = policy;
-        this.psat = solver.getMinisat().getPropSat();
-        vals = new int[n];
-        lits = new int[n];
-        bvars = new BoolVar[n];
+        this.pfront = new PropParetoFront(objectives, policy);
+        solver.post(new Constraint("ParetoFront", pfront));
     }
 
     @Override
     protected IMonitorSolution createRecMonitor() {
         return () -> {
-            for (int i = 0; i < n; i++) {
-                vals[i] = objectives[i].getValue();
-            }
-            // update solution set
-            for (int i = solutions.size() - 1; i >= 0; i--) {
-                if (dominatedSolution(solutions.get(i), vals)) {
-                    solutions.remove(i);
-                }
-            }
-            // store current solution
+            // store current solution, and remove the ones it dominates
             Solution solution = new Solution();
             solution.record(solver);
-            solutions.add(solution);
-            // aim at better solutions
-            Operator symbol = Operator.GT;
-            if (policy == ResolutionPolicy.MINIMIZE) {
-                symbol = Operator.LT;
-            }
-            for (int i = 0; i < n; i++) {
-                bvars[i] = VF.bool("(" + objectives[i].getName() + symbol.toString() + "" + vals[i] + ")", solver);
-                ICF.arithm(objectives[i], symbol.toString(), vals[i]).reifyWith(bvars[i]);
-                lits[i] = psat.Literal(bvars[i]);
-            }
-            psat.addLearnt(lits);
+            pfront.addCurrentSolution(solution);
         };
     }
 
-    private boolean dominatedSolution(Solution solution, int[] vals) {
-        for (int i = 0; i < n; i++) {
-            int delta = solution.getIntVal(objectives[i]) - vals[i];
-            if ((delta > 0 && policy == ResolutionPolicy.MAXIMIZE) || (delta < 0 && policy == ResolutionPolicy.MINIMIZE)) {
-                return false;
-            }
-        }
-        return true;
+    @Override
+    public Solution getLastSolution() {
+        return pfront.getFront().getLast();
+    }
+
+    /**
+     * @return the solutions of the Pareto front, in no particular order
+     */
+    @Override
+    public List<Solution> getSolutions() {
+        return pfront.getFront().getElements();
     }
 }
@@ -29,9 +29,6 @@
  */
 package org.chocosolver.solver.search.solution;
 
-import gnu.trove.map.hash.TIntIntHashMap;
-import gnu.trove.map.hash.TIntObjectHashMap;
-import gnu.trove.set.hash.TIntHashSet;
 import org.chocosolver.solver.Cause;
 import org.chocosolver.solver.ICause;
 import org.chocosolver.solver.Solver;
@@ -43,12 +40,20 @@ import org.chocosolver.solver.variables.RealVar;
 import org.chocosolver.solver.variables.SetVar;
 import org.chocosolver.solver.variables.Variable;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.Arrays;
+import java.util.BitSet;
 
 /**
  * Class which stores the value of each variable in a solution
  * <br/>
+ * Values are stored in dense arrays indexed by the variable ids, so recording a new solution into
+ * an existing instance does not allocate (except when a set value outgrows its bitset).
+ * When delta tracking is on, the ids of the variables whose value changed since the previous
+ * recording are maintained, and can be written with {@link #writeDelta(DataOutput)}.
  *
  * @author Jean-Guillaume Fages
  * @author Charles Prud'homme
@@ -56,20 +61,67 @@ import java.util.Arrays;
  */
 public class Solution implements Serializable, ICause {
 
-    private static final int NO_ENTRY = Integer.MAX_VALUE;
+    /**
+     * Kind of entry, used in the binary format: the variable is not recorded
+     */
+    private static final byte NONE = 0;
+    private static final byte INT = 1;
+    private static final byte REAL = 2;
+    private static final byte SET = 3;
 
-    TIntIntHashMap intmap;
-    TIntObjectHashMap<double[]> realmap;
-    TIntObjectHashMap<int[]> setmap;
-    TIntHashSet dvars;
+    /**
+     * Kind of value recorded for each variable id (NONE if not recorded)
+     */
+    byte[] kinds;
+    /**
+     * Values of integer (and boolean) variables
+     */
+    int[] ivals;
+    /**
+     * Bounds of real variables
+     */
+    double[] rlbs, rubs;
+    /**
+     * Values of set variables, each element <i>e</i> being stored at <i>e - soffsets[id]</i>
+     */
+    BitSet[] svals;
+    int[] soffsets;
+    /**
+     * Ids of the decision variables
+     */
+    BitSet dvars;
     boolean empty;
+    /**
+     * Set to true to maintain the ids of the variables modified by the last recording
+     */
+    final boolean trackDelta;
+    int[] delta;
+    int deltaSize;
+    /**
+     * Buffer used to record a set value before comparing it to the previous one
+     */
+    private transient BitSet sbuffer;
 
-    @SuppressWarnings("unchecked")
     public Solution() {
-        intmap = new TIntIntHashMap(16, .5f, NO_ENTRY, NO_ENTRY);
-        realmap = new TIntObjectHashMap(16, 05f, NO_ENTRY);
-        setmap = new TIntObjectHashMap(16, 05f, NO_ENTRY);
-        dvars = new TIntHashSet(16, .5f, -1);
+        this(false);
+    }
+
+    /**
+     * Create an empty solution
+     *
+     * @param trackDelta set to true to maintain the variables modified from one recording to the next one,
+     *                   see {@link #writeDelta(DataOutput)}
+     */
+    public Solution(boolean trackDelta) {
+        this.trackDelta = trackDelta;
+        kinds = new byte[0];
+        ivals = new int[0];
+        rlbs = new double[0];
+        rubs = new double[0];
+        svals = new BitSet[0];
+        soffsets = new int[0];
+        delta = new int[0];
+        dvars = new BitSet();
         empty = true;
     }
 
@@ -80,41 +132,50 @@ public class Solution implements Serializable, ICause {
      * @param solver a solver
      */
     public void record(Solver solver) {
+        Variable[] vars = solver.getVars();
         if (empty) {
             Variable[] _dvars = solver.getStrategy().getVariables();
             for (int i = 0; i < _dvars.length; i++) {
-                dvars.add(_dvars[i].getId());
+                dvars.set(_dvars[i].getId());
+            }
+            int max = -1;
+            for (int i = 0; i < vars.length; i++) {
+                max = Math.max(max, vars[i].getId());
             }
+            ensureCapacity(max + 1);
             empty = false;
         }
         boolean warn = false;
-        intmap.clear();
-        realmap.clear();
-        setmap.clear();
-        Variable[] vars = solver.getVars();
+        deltaSize = 0;
         for (int i = 0; i < vars.length; i++) {
             if ((vars[i].getTypeAndKind() & Variable.TYPE) != Variable.CSTE) {
-                int kind = vars[i].getTypeAndKind() & Variable.KIND;
+                int id = vars[i].getId();
+                if (id >= kinds.length) {
+                    // variables added after the first recording
+                    ensureCapacity(id + 1);
+                }
                 if (!vars[i].isInstantiated()) {
-                    if (dvars.contains(vars[i].getId())) {
+                    if (dvars.get(id)) {
                         throw new SolverException(vars[i] + " is not instantiated when recording a solution.");
                     } else {
                         warn = true;
+                        if (kinds[id] != NONE) {
+                            kinds[id] = NONE;
+                            changed(id);
+                        }
                     }
                 } else {
-                    switch (kind) {
+                    switch (vars[i].getTypeAndKind() & Variable.KIND) {
                         case Variable.INT:
                         case Variable.BOOL:
-                            IntVar v = (IntVar) vars[i];
-                            intmap.put(v.getId(), v.getValue());
+                            recordInt(id, ((IntVar) vars[i]).getValue());
                             break;
                         case Variable.REAL:
                             RealVar r = (RealVar) vars[i];
-                            realmap.put(r.getId(), new double[]{r.getLB(), r.getUB()});
+                            recordReal(id, r.getLB(), r.getUB());
                             break;
                         case Variable.SET:
-                            SetVar s = (SetVar) vars[i];
-                            setmap.put(s.getId(), s.getValues());
+                            recordSet(id, (SetVar) vars[i]);
                             break;
                     }
                 }
@@ -125,6 +186,70 @@ public class Solution implements Serializable, ICause {
         }
     }
 
+    private void ensureCapacity(int minSize) {
+        if (minSize > kinds.length) {
+            int size = Math.max(minSize, kinds.length * 3 / 2 + 1);
+            kinds = Arrays.copyOf(kinds, size);
+            ivals = Arrays.copyOf(ivals, size);
+            rlbs = Arrays.copyOf(rlbs, size);
+            rubs = Arrays.copyOf(rubs, size);
+            svals = Arrays.copyOf(svals, size);
+            soffsets = Arrays.copyOf(soffsets, size);
+            if (trackDelta) {
+                delta = Arrays.copyOf(delta, size);
+            }
+        }
+    }
+
+    private void changed(int id) {
+        if (trackDelta) {
+            delta[deltaSize++] = id;
+        }
+    }
+
+    private void recordInt(int id, int value) {
+        if (kinds[id] != INT || ivals[id] != value) {
+            kinds[id] = INT;
+            ivals[id] = value;
+            changed(id);
+        }
+    }
+
+    private void recordReal(int id, double lb, double ub) {
+        if (kinds[id] != REAL || rlbs[id] != lb || rubs[id] != ub) {
+            kinds[id] = REAL;
+            rlbs[id] = lb;
+            rubs[id] = ub;
+            changed(id);
+        }
+    }
+
+    private void recordSet(int id, SetVar s) {
+        int offset = 0;
+        if (s.getKernelSize() > 0) {
+            offset = Integer.MAX_VALUE;
+            for (int e = s.getKernelFirst(); e != SetVar.END; e = s.getKernelNext()) {
+                offset = Math.min(offset, e);
+            }
+        }
+        if (sbuffer == null) {
+            sbuffer = new BitSet();
+        }
+        sbuffer.clear();
+        for (int e = s.getKernelFirst(); e != SetVar.END; e = s.getKernelNext()) {
+            sbuffer.set(e - offset);
+        }
+        if (kinds[id] != SET || soffsets[id] != offset || !sbuffer.equals(svals[id])) {
+            kinds[id] = SET;
+            soffsets[id] = offset;
+            // the former value becomes the next buffer
+            BitSet tmp = svals[id];
+            svals[id] = sbuffer;
+            sbuffer = tmp;
+            changed(id);
+        }
+    }
+
     /**
      * Set all variables to their respective value in the solution
      * Throws an exception is this empties a domain (i.e. this domain does not contain
@@ -139,30 +264,21 @@ public class Solution implements Serializable, ICause {
         Variable[] vars = solver.getVars();
         for (int i = 0; i < vars.length; i++) {
             if ((vars[i].getTypeAndKind() & Variable.TYPE) != Variable.CSTE) {
-                int kind = vars[i].getTypeAndKind() & Variable.KIND;
-                switch (kind) {
-                    case Variable.INT:
-                    case Variable.BOOL:
-                        IntVar v = (IntVar) vars[i];
-                        int value = intmap.get(v.getId());
-                        if(value != NO_ENTRY){
-                            v.instantiateTo(value, this);
-                        } // otherwise, this is not a decision variable
+                int id = vars[i].getId();
+                if (id >= kinds.length) {
+                    continue; // not a decision variable
+                }
+                switch (kinds[id]) {
+                    case INT:
+                        ((IntVar) vars[i]).instantiateTo(ivals[id], this);
                         break;
-                    case Variable.REAL:
-                        RealVar r = (RealVar) vars[i];
-                        double[] bounds = realmap.get(r.getId());
-                        if(bounds != null){
-                            r.updateBounds(bounds[0], bounds[1], this);
-                        }  // otherwise, this is not a decision variable
+                    case REAL:
+                        ((RealVar) vars[i]).updateBounds(rlbs[id], rubs[id], this);
                         break;
-                    case Variable.SET:
-                        SetVar s = (SetVar) vars[i];
-                        int[]values = setmap.get(s.getId());
-                        if(values != null){
-                            s.instantiateTo(values, Cause.Null);
-                        } // otherwise, this is not a decision variable
+                    case SET:
+                        ((SetVar) vars[i]).instantiateTo(setValue(id), Cause.Null);
                         break;
+                    // otherwise, this is not a decision variable
                 }
             }
         }
@@ -173,21 +289,16 @@ public class Solution implements Serializable, ICause {
         StringBuilder st = new StringBuilder("Solution: ");
         for (int i = 0; i < vars.length; i++) {
             if ((vars[i].getTypeAndKind() & Variable.TYPE) != Variable.CSTE) {
-                int kind = vars[i].getTypeAndKind() & Variable.KIND;
-                switch (kind) {
-                    case Variable.INT:
-                    case Variable.BOOL:
-                        IntVar v = (IntVar) vars[i];
-                        st.append(v.getName()).append("=").append(intmap.get(v.getId())).append(", ");
+                int id = vars[i].getId();
+                switch (id < kinds.length ? kinds[id] : NONE) {
+                    case INT:
+                        st.append(vars[i].getName()).append("=").append(ivals[id]).append(", ");
                         break;
-                    case Variable.REAL:
-                        RealVar r = (RealVar) vars[i];
-                        double[] bounds = realmap.get(r.getId());
-                        st.append(r.getName()).append("=[").append(bounds[0]).append(",").append(bounds[1]).append("], ");
+                    case REAL:
+                        st.append(vars[i].getName()).append("=[").append(rlbs[id]).append(",").append(rubs[id]).append("], ");
                         break;
-                    case Variable.SET:
-                        SetVar s = (SetVar) vars[i];
-                        st.append(s.getName()).append("=").append(Arrays.toString(setmap.get(s.getId()))).append(", ");
+                    case SET:
+                        st.append(vars[i].getName()).append("=").append(Arrays.toString(setValue(id))).append(", ");
                         break;
                 }
             }
@@ -195,6 +306,19 @@ public class Solution implements Serializable, ICause {
         return st.toString();
     }
 
+    private int[] setValue(int id) {
+        BitSet bs = svals[id];
+        int[] values = new int[bs.cardinality()];
+        for (int i = bs.nextSetBit(0), k = 0; i >= 0; i = bs.nextSetBit(i + 1)) {
+            values[k++] = i + soffsets[id];
+        }
+        return values;
+    }
+
+    private boolean recorded(Variable v, byte kind) {
+        return v.getId() < kinds.length && kinds[v.getId()] == kind;
+    }
+
     /**
      * Get the value of variable v in this solution
      *
@@ -205,8 +329,8 @@ public class Solution implements Serializable, ICause {
         if (empty) {
             throw new UnsupportedOperationException("Empty solution. No solution found");
         }
-        if (intmap.containsKey(v.getId())) {
-            return intmap.get(v.getId());
+        if (recorded(v, INT)) {
+            return ivals[v.getId()];
         } else {
             if ((v.getTypeAndKind() & Variable.TYPE) == Variable.CSTE) {
                 return v.getValue();
@@ -226,8 +350,8 @@ public class Solution implements Serializable, ICause {
         if (empty) {
             throw new UnsupportedOperationException("Empty solution. No solution found");
         }
-        if (setmap.containsKey(s.getId())) {
-            return setmap.get(s.getId());
+        if (recorded(s, SET)) {
+            return setValue(s.getId());
         } else if ((s.getTypeAndKind() & Variable.TYPE) == Variable.CSTE) {
             return s.getValues();
         } else {
@@ -245,8 +369,8 @@ public class Solution implements Serializable, ICause {
         if (empty) {
             throw new UnsupportedOperationException("Empty solution. No solution found");
         }
-        if (realmap.containsKey(r.getId())) {
-            return realmap.get(r.getId());
+        if (recorded(r, REAL)) {
+            return new double[]{rlbs[r.getId()], rubs[r.getId()]};
         } else {
             if ((r.getTypeAndKind() & Variable.TYPE) == Variable.CSTE) {
                 return new double[]{r.getLB(), r.getUB()};
@@ -263,4 +387,142 @@ public class Solution implements Serializable, ICause {
     public boolean hasBeenFound() {
         return !empty;
     }
+
+    /**
+     * @return the number of variables whose value changed during the last call to {@link #record(Solver)},
+     * or 0 if delta tracking is off
+     */
+    public int getDeltaSize() {
+        return deltaSize;
+    }
+
+    //***********************************************************************************
+    // BINARY FORMAT
+    //***********************************************************************************
+
+    /**
+     * Write this solution in a compact binary format, which can be read back with {@link #read(DataInput)}.
+     *
+     * @param out the output to write in
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeBoolean(empty);
+        int n = 0;
+        for (int id = 0; id < kinds.length; id++) {
+            if (kinds[id] != NONE) {
+                n++;
+            }
+        }
+        out.writeInt(n);
+        for (int id = 0; id < kinds.length; id++) {
+            if (kinds[id] != NONE) {
+                writeEntry(out, id);
+            }
+        }
+    }
+
+    /**
+     * Write the variables whose value changed during the last call to {@link #record(Solver)},
+     * in the binary format expected by {@link #readDelta(DataInput)}.
+     * Applying, in order, the deltas of each recording to an empty solution rebuilds the last recorded one.
+     *
+     * @param out the output to write in
+     * @throws IOException if an I/O error occurs
+     * @throws UnsupportedOperationException if delta tracking is off
+     */
+    public void writeDelta(DataOutput out) throws IOException {
+        if (!trackDelta) {
+            throw new UnsupportedOperationException("Delta tracking is off, see Solution(boolean)");
+        }
+        out.writeInt(deltaSize);
+        for (int i = 0; i < deltaSize; i++) {
+            writeEntry(out, delta[i]);
+        }
+    }
+
+    /**
+     * Read a solution written with {@link #write(DataOutput)}.
+     *
+     * @param in the input to read from
+     * @return the solution read
+     * @throws IOException if an I/O error occurs
+     */
+    public static Solution read(DataInput in) throws IOException {
+        Solution solution = new Solution();
+        solution.empty = in.readBoolean();
+        int n = in.readInt();
+        for (int i = 0; i < n; i++) {
+            solution.readEntry(in);
+        }
+        return solution;
+    }
+
+    /**
+     * Apply to this solution a delta written with {@link #writeDelta(DataOutput)}.
+     *
+     * @param in the input to read from
+     * @throws IOException if an I/O error occurs
+     */
+    public void readDelta(DataInput in) throws IOException {
+        int n = in.readInt();
+        deltaSize = 0;
+        for (int i = 0; i < n; i++) {
+            readEntry(in);
+        }
+        empty = false;
+    }
+
+    private void writeEntry(DataOutput out, int id) throws IOException {
+        out.writeInt(id);
+        out.writeByte(kinds[id]);
+        switch (kinds[id]) {
+            case INT:
+                out.writeInt(ivals[id]);
+                break;
+            case REAL:
+                out.writeDouble(rlbs[id]);
+                out.writeDouble(rubs[id]);
+                break;
+            case SET:
+                BitSet bs = svals[id];
+                out.writeInt(soffsets[id]);
+                out.writeInt(bs.cardinality());
+                for (int e = bs.nextSetBit(0); e >= 0; e = bs.nextSetBit(e + 1)) {
+                    out.writeInt(e);
+                }
+                break;
+        }
+    }
+
+    private void readEntry(DataInput in) throws IOException {
+        int id = in.readInt();
+        byte kind = in.readByte();
+        ensureCapacity(id + 1);
+        kinds[id] = kind;
+        switch (kind) {
+            case NONE:
+                break;
+            case INT:
+                ivals[id] = in.readInt();
+                break;
+            case REAL:
+                rlbs[id] = in.readDouble();
+                rubs[id] = in.readDouble();
+                break;
+            case SET:
+                soffsets[id] = in.readInt();
+                if (svals[id] == null) {
+                    svals[id] = new BitSet();
+                }
+                svals[id].clear();
+                int n = in.readInt();
+                for (int i = 0; i < n; i++) {
+                    svals[id].set(in.readInt());
+                }
+                break;
+            default:
+                throw new IOException("Unknown kind of entry: " + kind);
+        }
+    }
 }
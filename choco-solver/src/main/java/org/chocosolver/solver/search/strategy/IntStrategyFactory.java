@@ -556,6 +556,63 @@ public class IntStrategyFactory {
         return domOverWDeg(VARS, SEED, min_value_selector());
     }
 
+    /**
+     * Assignment strategy which selects a variable according to <code>DomOverWDeg</code>, where weights decay:
+     * the more recent the conflicts, the larger their weight (see {@link DomOverWDegDecay}),
+     * and assigns it to its lower bound.
+     *
+     * @param VARS  list of variables
+     * @param DECAY decay factor, in ]0,1], 0.95 is a common value
+     * @param SEED  random seed
+     * @return assignment strategy
+     */
+    public static AbstractStrategy<IntVar> domOverWDegDecay(IntVar[] VARS, double DECAY, long SEED) {
+        return new DomOverWDegDecay(VARS, DECAY, SEED, min_value_selector());
+    }
+
+    /**
+     * Assignment strategy which selects a variable according to dom/wdeg<sup>ca.cd</sup>[1]
+     * and assigns it to its lower bound.
+     * <p>
+     * [1]: H. Wattez, C. Lecoutre, A. Paparrizou and S. Tabary, Refining Constraint Weighting, ICTAI-19.
+     *
+     * @param VARS list of variables
+     * @param SEED random seed
+     * @return assignment strategy
+     */
+    public static AbstractStrategy<IntVar> domOverWDegCACD(IntVar[] VARS, long SEED) {
+        return new DomOverWDegCACD(VARS, SEED, min_value_selector());
+    }
+
+    /**
+     * Assignment strategy which selects a variable according to the Conflict History-Based heuristic[1]
+     * and assigns it to its lower bound.
+     * <p>
+     * [1]: J. H. Liang, V. Ganesh, P. Poupart and K. Czarnecki, Exponential Recency Weighted Average Branching Heuristic
+     * for SAT Solvers, AAAI-16.
+     *
+     * @param VARS list of variables
+     * @param SEED random seed
+     * @return assignment strategy
+     */
+    public static AbstractStrategy<IntVar> chb(IntVar[] VARS, long SEED) {
+        return new CHB(VARS, SEED, min_value_selector());
+    }
+
+    /**
+     * Assignment strategy which selects, among the boolean variables declared in the SAT constraint of <code>SOLVER</code>,
+     * the uninstantiated one with the highest activity (VSIDS), and assigns it to its last value.
+     * <p>
+     * Activities are updated on conflict analysis, which requires clause learning to be enabled
+     * (see {@link org.chocosolver.solver.Settings#enableClauseLearningInSat()}).
+     *
+     * @param SOLVER the solver declaring the SAT constraint
+     * @return a VSIDS search strategy
+     */
+    public static AbstractStrategy<IntVar> vsids(Solver SOLVER) {
+        return new VSIDS(SOLVER.getMinisat().getPropSat());
+    }
+
 
     /**
      * Create an Activity based search strategy.
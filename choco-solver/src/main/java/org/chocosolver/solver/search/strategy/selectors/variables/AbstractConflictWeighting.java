@@ -0,0 +1,240 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+package org.chocosolver.solver.search.strategy.selectors.variables;
+
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.search.loop.monitors.IMonitorContradiction;
+import org.chocosolver.solver.search.strategy.assignments.DecisionOperator;
+import org.chocosolver.solver.search.strategy.decision.Decision;
+import org.chocosolver.solver.search.strategy.decision.IntDecision;
+import org.chocosolver.solver.search.strategy.selectors.IntValueSelector;
+import org.chocosolver.solver.search.strategy.strategy.AbstractStrategy;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.Variable;
+import org.chocosolver.util.PoolManager;
+
+/**
+ * Base class of the heuristics which weight variables on conflicts and select the uninstantiated variable
+ * with the largest score over domain size.
+ * <p>
+ * On each failure of a propagator, {@link #onConflict(Propagator)} updates the scores of its variables,
+ * which are stored in an array indexed by variable id.
+ * The decision variables are kept in a heap ({@link HeapVariableSelector}) where only the variables whose score
+ * or domain has changed are re-evaluated.
+ * Thus, sub-classes must only modify the score of the variables of the failing propagator:
+ * any global modification (like rescaling) must preserve the relative order of the scores.
+ * Ties are broken randomly.
+ * <p>
+ * When replaced by another strategy, the conflicts and the domain modifications are not monitored anymore,
+ * until this is used again: scores are kept meanwhile.
+ * <br/>
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public abstract class AbstractConflictWeighting extends AbstractStrategy<IntVar> implements IMonitorContradiction {
+
+    /**
+     * Scores of the variables, indexed by variable id
+     */
+    protected final double[] scores;
+
+    /**
+     * Number of conflicts attributed to a propagator since the beginning of the resolution
+     */
+    protected long conflicts;
+
+    /**
+     * Set to <tt>false</tt> when this has been removed from the search loop, and is not notified of conflicts anymore
+     */
+    private boolean plugged;
+
+    /**
+     * Variables ordered by score over domain size
+     */
+    private final ScoreHeap heap;
+
+    /**
+     * Temporary. Stores index of variables with the same (best) score
+     */
+    private final TIntList bests;
+
+    /**
+     * Randomness to break ties
+     */
+    private final java.util.Random random;
+
+    /**
+     * Decisions pool, to limit memory footprint
+     */
+    private final PoolManager<IntDecision> decisionPool;
+
+    /**
+     * The way value is selected for a given variable
+     */
+    private final IntValueSelector valueSelector;
+
+    /**
+     * @param variables     decision variables
+     * @param seed          seed for breaking ties randomly
+     * @param valueSelector a value selector
+     */
+    protected AbstractConflictWeighting(IntVar[] variables, long seed, IntValueSelector valueSelector) {
+        super(variables);
+        Solver solver = variables[0].getSolver();
+        int max = 0;
+        for (int i = 0; i < variables.length; i++) {
+            max = Math.max(max, variables[i].getId());
+        }
+        scores = new double[max + 1];
+        heap = new ScoreHeap();
+        bests = new TIntArrayList();
+        this.valueSelector = valueSelector;
+        decisionPool = new PoolManager<>();
+        random = new java.util.Random(seed);
+        solver.plugMonitor(this);
+        plugged = true;
+    }
+
+    /**
+     * Update the scores of the variables of <i>prop</i>, which has just failed.
+     * Only the variables whose id is less than the length of {@link #scores} are decision variables.
+     *
+     * @param prop the failing propagator
+     */
+    protected abstract void onConflict(Propagator prop);
+
+    @Override
+    public boolean init() {
+        if (!plugged) {
+            // removed before: notified of conflicts again, including in the running search
+            Solver solver = vars[0].getSolver();
+            solver.plugMonitor(this);
+            solver.getSearchLoop().plugSearchMonitor(this);
+            plugged = true;
+        }
+        heap.init(vars);
+        return true;
+    }
+
+    @Override
+    public void remove() {
+        if (plugged) {
+            Solver solver = vars[0].getSolver();
+            solver.unplugMonitor(this);
+            solver.getSearchLoop().unplugSearchMonitor(this);
+            plugged = false;
+        }
+        heap.remove();
+    }
+
+    @Override
+    public final void onContradiction(ContradictionException cex) {
+        if (cex.c != null && cex.c instanceof Propagator) {
+            Propagator prop = (Propagator) cex.c;
+            conflicts++;
+            onConflict(prop);
+            if (heap.vars != null) {
+                for (int v = 0; v < prop.getNbVars(); v++) {
+                    heap.invalidate(prop.getVar(v));
+                }
+            }
+        }
+    }
+
+    /**
+     * Multiply all the scores by <i>factor</i>, to prevent overflows.
+     * This preserves their relative order.
+     *
+     * @param factor a positive number
+     */
+    protected final void rescale(double factor) {
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] *= factor;
+        }
+    }
+
+    /**
+     * @param var a variable
+     * @return true if <i>var</i> may be a decision variable, that is, if it has a score
+     */
+    protected final boolean scored(Variable var) {
+        return var.getId() < scores.length;
+    }
+
+    @Override
+    public Decision<IntVar> computeDecision(IntVar variable) {
+        if (variable == null || variable.isInstantiated()) {
+            return null;
+        }
+        int currentVal = valueSelector.selectValue(variable);
+        IntDecision current = decisionPool.getE();
+        if (current == null) {
+            current = new IntDecision(decisionPool);
+        }
+        current.set(variable, currentVal, DecisionOperator.int_eq);
+        return current;
+    }
+
+    @Override
+    public Decision<IntVar> getDecision() {
+        if (heap.vars == null) {
+            init();
+        }
+        IntVar best = null;
+        bests.clear();
+        if (heap.best() > -1) {
+            heap.ties(bests);
+            best = vars[bests.get(random.nextInt(bests.size()))];
+        }
+        return computeDecision(best);
+    }
+
+    /**
+     * Heap of the decision variables, ordered by score over domain size.
+     */
+    private final class ScoreHeap extends HeapVariableSelector {
+
+        @Override
+        protected long key(IntVar var) {
+            return var.getDomainSize();
+        }
+
+        @Override
+        protected int compare(int i, int j) {
+            // largest score over domain size first, then smallest domain
+            int c = Double.compare(keys[i] * scores[vars[j].getId()], keys[j] * scores[vars[i].getId()]);
+            return c != 0 ? c : Long.compare(keys[i], keys[j]);
+        }
+    }
+}
@@ -30,10 +30,14 @@
 package org.chocosolver.solver.search.strategy.selectors.variables;
 
 
+import gnu.trove.list.TDoubleList;
 import gnu.trove.list.TIntList;
 import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.hash.TIntDoubleHashMap;
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.solver.Cause;
 import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.exception.ContradictionException;
 import org.chocosolver.solver.search.limits.FailCounter;
 import org.chocosolver.solver.search.loop.Move;
 import org.chocosolver.solver.search.loop.MoveRestart;
@@ -53,8 +57,14 @@ import org.chocosolver.util.PoolManager;
 import org.chocosolver.util.iterators.DisposableValueIterator;
 import org.chocosolver.util.objects.IntMap;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Implementation of the search described in:
@@ -70,6 +80,10 @@ public class ActivityBased extends AbstractStrategy<IntVar> implements IMonitorD
 
     static final double ONE = 1.0f;
 
+    static final int PROBES_PER_ROUND = 8; // number of probes run by each thread between two merges
+
+    static final int MAX_ROUNDS = 32; // maximum number of rounds of probes run on initialisation
+
     static final double[] distribution = new double[]{// two-sided 95%
             999.99d,
             12.706f, 4.303f, 3.182f, 2.776f, 2.571f, // 1...5
@@ -148,6 +162,10 @@ public class ActivityBased extends AbstractStrategy<IntVar> implements IMonitorD
 
     Move rfMove;
 
+    int nbWorkers = 1; // number of threads used by the sampling phase on initialisation
+
+    boolean warmStart; // are activities set before the search starts, see setActivities
+
     public ActivityBased(final Solver solver, IntVar[] vars, double g, double d, int a, int samplingIterationForced, long seed) {
         super(vars);
         this.solver = solver;
@@ -191,17 +209,180 @@ public class ActivityBased extends AbstractStrategy<IntVar> implements IMonitorD
     @Override
     public boolean init() {
         for (int i = 0; i < vars.length; i++) {
-            //TODO handle large domain size
-            int ampl = vars[i].getUB() - vars[i].getLB() + 1;
-            if (ampl > 512) {
-                vAct[i] = new MapVal(vars[i].getLB());
-            } else {
-                vAct[i] = new ArrayVal(ampl, vars[i].getLB());
+            if (!warmStart || vAct[i] == null) {
+                vAct[i] = newVal(vars[i]);
             }
         }
+        if (warmStart) {
+            // the activities are already estimated
+            warmStart = false;
+            endSampling();
+        } else if (sampling && nbWorkers > 1) {
+            sampleInParallel();
+        }
         return true;
     }
 
+    private static IVal newVal(IntVar var) {
+        //TODO handle large domain size
+        int ampl = var.getUB() - var.getLB() + 1;
+        if (ampl > 512) {
+            return new MapVal(var.getLB());
+        } else {
+            return new ArrayVal(ampl, var.getLB());
+        }
+    }
+
+    /**
+     * Get the activity of <i>var</i> and of its values, as estimated so far.
+     * During the sampling phase, the mean activities over the probes are returned.
+     *
+     * @param var        a variable of this strategy
+     * @param values     filled with the values of <i>var</i> whose activity is not null
+     * @param activities filled with the activity of each value of <i>values</i>
+     * @return the activity of <i>var</i>, 0 if it is not a variable of this strategy or if the search has not started
+     */
+    public double getActivities(IntVar var, TIntList values, TDoubleList activities) {
+        int i = v2i.get(var.getId());
+        if (i < 0 || vAct[i] == null) {
+            return 0.0d;
+        }
+        vAct[i].export(values, activities, sampling);
+        return sampling ? mA[i] : A[i];
+    }
+
+    /**
+     * Set the activity of <i>var</i> and of its values, for instance to start from the activities
+     * learnt during a previous resolution of a similar model.
+     * Once an activity is set, the sampling phase is skipped.
+     * Should be called before the search starts.
+     *
+     * @param var        a variable of this strategy
+     * @param activity   the activity of <i>var</i>
+     * @param values     some values of <i>var</i>, the ones out of its domain are ignored
+     * @param activities the activity of each value of <i>values</i>
+     */
+    public void setActivities(IntVar var, double activity, int[] values, double[] activities) {
+        int i = v2i.get(var.getId());
+        if (i < 0) {
+            return;
+        }
+        if (vAct[i] == null) {
+            vAct[i] = newVal(var);
+        }
+        A[i] = activity;
+        for (int k = 0; k < values.length; k++) {
+            if (var.contains(values[k])) {
+                vAct[i].setactivity(values[k], activities[k]);
+            }
+        }
+        sampling = false;
+        warmStart = true;
+    }
+
+    /**
+     * Set the number of threads used to run the sampling phase on initialisation.
+     * When greater than 1, probes are run on copies of the solver, each of them with its own environment,
+     * and the activities they measure are merged back before the search starts.
+     * The sampling phase goes on during search if the activities are not yet estimated precisely enough,
+     * or if the model cannot be duplicated.
+     *
+     * @param nbWorkers number of threads, 1 by default
+     */
+    public void setNbWorkers(int nbWorkers) {
+        if (nbWorkers > 0) {
+            this.nbWorkers = nbWorkers;
+        }
+    }
+
+    /**
+     * Run rounds of probes on copies of the solver, until the activities are estimated precisely enough,
+     * a probe reaches a solution or {@link #MAX_ROUNDS} rounds have been run.
+     * The probes are merged in a deterministic order, as if they were run sequentially.
+     */
+    private void sampleInParallel() {
+        List<ActivityBased> copies = ParallelSampling.duplicate(this, nbWorkers);
+        if (copies.isEmpty()) {
+            return;
+        }
+        List<Callable<List<Probe>>> tasks = new ArrayList<>(nbWorkers);
+        for (ActivityBased copy : copies) {
+            copy.random.setSeed(random.nextLong());
+            tasks.add(() -> {
+                List<Probe> probes = new ArrayList<>(PROBES_PER_ROUND);
+                for (int p = 0; p < PROBES_PER_ROUND; p++) {
+                    probes.add(copy.probe());
+                }
+                return probes;
+            });
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(nbWorkers);
+        try {
+            boolean solution = false;
+            for (int r = 0; r < MAX_ROUNDS && sampling && !solution; r++) {
+                for (List<Probe> probes : ParallelSampling.run(pool, tasks)) {
+                    for (int p = 0; p < probes.size() && sampling; p++) {
+                        merge(probes.get(p));
+                        solution |= probes.get(p).solution;
+                    }
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Run a probe from the current node: variables are selected w.r.t. their activity
+     * and assigned to a random value, until a failure occurs or all of them are instantiated.
+     * The state of the solver is restored on exit.
+     *
+     * @return the activities measured during the probe
+     */
+    private Probe probe() {
+        IEnvironment environment = solver.getEnvironment();
+        Probe probe = new Probe();
+        Arrays.fill(A, 0);
+        environment.worldPush();
+        boolean failed = false;
+        Decision<IntVar> decision;
+        while (!failed && (decision = getDecision()) != null) {
+            decision.free();
+            affected.clear();
+            try {
+                vars[currentVar].instantiateTo(currentVal, Cause.Null);
+                solver.getEngine().propagate();
+            } catch (ContradictionException e) {
+                solver.getEngine().flush();
+                failed = true;
+            }
+            for (int i = affected.nextSetBit(0); i > -1; i = affected.nextSetBit(i + 1)) {
+                A[i] += 1;
+            }
+            probe.decisions.add(new int[]{currentVar, currentVal, affected.cardinality()});
+            currentVar = -1;
+        }
+        environment.worldPop();
+        probe.activities = A.clone();
+        probe.solution = !failed;
+        return probe;
+    }
+
+    /**
+     * Merge the activities measured during <i>probe</i>, as if it was run by this.
+     *
+     * @param probe a probe run on a copy of the solver
+     */
+    private void merge(Probe probe) {
+        for (int k = 0; k < probe.decisions.size(); k += 3) {
+            int var = probe.decisions.getQuick(k);
+            int val = probe.decisions.getQuick(k + 1);
+            vAct[var].setactivity(val, vAct[var].activity(val) + probe.decisions.getQuick(k + 2));
+        }
+        System.arraycopy(probe.activities, 0, A, 0, A.length);
+        afterRestart();
+    }
+
     @Override
     public Decision<IntVar> computeDecision(IntVar variable) {
         if (variable == null || variable.isInstantiated()) {
@@ -374,22 +555,7 @@ public class ActivityBased extends AbstractStrategy<IntVar> implements IMonitorD
             }
             //BEWARE: when it fails very soon (after 1 node), it is worth forcing sampling
             if (nb_probes > samplingIterationForced && idx == vars.length) {
-                sampling = false;
-                if(restartAfterEachFail){
-                    SearchLoop sl = solver.getSearchLoop();
-                    Move m = sl.getMove();
-                    if(m == rfMove){
-                        sl.setMove(rfMove.getChildMoves().get(0));
-                    }else{
-                        while(m.getChildMoves()!= null && m.getChildMoves()!= rfMove){
-                            m = m.getChildMoves().get(0);
-                        }
-                        if(m.getChildMoves()!= rfMove){
-                            m.setChildMoves(rfMove.getChildMoves());
-                        }
-                    }
-                }
-                restartAfterEachFail = false;
+                endSampling();
 
                 // then copy values estimated
                 System.arraycopy(mA, 0, A, 0, mA.length);
@@ -400,6 +566,28 @@ public class ActivityBased extends AbstractStrategy<IntVar> implements IMonitorD
         }
     }
 
+    /**
+     * End the sampling phase: the search does not restart after each failure anymore.
+     */
+    private void endSampling() {
+        sampling = false;
+        if(restartAfterEachFail){
+            SearchLoop sl = solver.getSearchLoop();
+            Move m = sl.getMove();
+            if(m == rfMove){
+                sl.setMove(rfMove.getChildMoves().get(0));
+            }else{
+                while(m.getChildMoves()!= null && m.getChildMoves()!= rfMove){
+                    m = m.getChildMoves().get(0);
+                }
+                if(m.getChildMoves()!= rfMove){
+                    m.setChildMoves(rfMove.getChildMoves());
+                }
+            }
+        }
+        restartAfterEachFail = false;
+    }
+
     /**
      * Return true if the interval is small enough
      *
@@ -418,6 +606,13 @@ public class ActivityBased extends AbstractStrategy<IntVar> implements IMonitorD
 
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
+    private static final class Probe {
+
+        final TIntArrayList decisions = new TIntArrayList(); // triplets (variable index, value, number of affected variables)
+        double[] activities; // activity of all variables at the end of the probe
+        boolean solution; // does the probe reach a solution
+    }
+
     private interface IVal {
 
         double activity(int value);
@@ -427,6 +622,8 @@ public class ActivityBased extends AbstractStrategy<IntVar> implements IMonitorD
         void update(int nb_probes);
 
         void transfer();
+
+        void export(TIntList values, TDoubleList activities, boolean mean);
     }
 
     private static final class ArrayVal implements IVal {
@@ -469,6 +666,17 @@ public class ActivityBased extends AbstractStrategy<IntVar> implements IMonitorD
         public void transfer() {
             System.arraycopy(mAv, 0, Av, 0, size);
         }
+
+        @Override
+        public void export(TIntList values, TDoubleList activities, boolean mean) {
+            double[] act = mean ? mAv : Av;
+            for (int j = 0; j < size; j++) {
+                if (act[j] != 0) {
+                    values.add(j + os);
+                    activities.add(act[j]);
+                }
+            }
+        }
     }
 
     private static final class MapVal implements IVal {
@@ -511,6 +719,15 @@ public class ActivityBased extends AbstractStrategy<IntVar> implements IMonitorD
             Av.clear();
             Av.putAll(mAv);
         }
+
+        @Override
+        public void export(TIntList values, TDoubleList activities, boolean mean) {
+            TIntDoubleHashMap act = mean ? mAv : Av;
+            for (int k : act.keys()) {
+                values.add(k + os);
+                activities.add(act.get(k));
+            }
+        }
     }
 
 }
@@ -31,28 +31,44 @@ package org.chocosolver.solver.search.strategy.selectors.variables;
 
 import gnu.trove.list.TIntList;
 import gnu.trove.list.array.TIntArrayList;
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.memory.structure.Operation;
 import org.chocosolver.solver.Solver;
 import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.exception.ContradictionException;
 import org.chocosolver.solver.search.loop.monitors.FailPerPropagator;
+import org.chocosolver.solver.search.loop.monitors.IMonitorContradiction;
 import org.chocosolver.solver.search.strategy.assignments.DecisionOperator;
 import org.chocosolver.solver.search.strategy.decision.Decision;
 import org.chocosolver.solver.search.strategy.decision.IntDecision;
 import org.chocosolver.solver.search.strategy.selectors.IntValueSelector;
 import org.chocosolver.solver.search.strategy.strategy.AbstractStrategy;
+import org.chocosolver.solver.variables.IVariableMonitor;
 import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.events.IEventType;
+import org.chocosolver.solver.variables.events.IntEventType;
 import org.chocosolver.util.PoolManager;
 import org.chocosolver.util.objects.IntMap;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Implementation of DowOverWDeg[1].
  *
  * [1]: F. Boussemart, F. Hemery, C. Lecoutre, and L. Sais, Boosting Systematic Search by Weighting Constraints, ECAI-04.
  * <br/>
+ * The variables are kept in a heap ordered by domain size over weight.
+ * A variable is re-evaluated when its domain is modified, when one of its propagators fails
+ * and when it becomes the last uninstantiated variable of one of its propagators (or not anymore, on backtrack).
+ * To that end, the number of uninstantiated variables of each propagator is maintained from instantiation events.
+ * <br/>
  *
  * @author Charles Prud'homme
  * @since 12/07/12
  */
-public class DomOverWDeg extends AbstractStrategy<IntVar>{
+public class DomOverWDeg extends AbstractStrategy<IntVar> implements IMonitorContradiction, IVariableMonitor<IntVar> {
 
     /**
      * List of decision variables
@@ -65,9 +81,43 @@ public class DomOverWDeg extends AbstractStrategy<IntVar>{
     FailPerPropagator counter;
 
     /**
-     * Kind of duplicate of pid2ari to limit calls of backtrackable objects
+     * Set to <tt>false</tt> when this has been removed from the search loop, its search monitors being unplugged
+     */
+    boolean plugged;
+
+    /**
+     * Propagator id to index in <code>futVars</code>, only for propagators over integer variables
+     */
+    IntMap pid2idx;
+
+    /**
+     * The propagators indexed in <code>pid2idx</code>, whose variables are monitored
+     */
+    Propagator[] tracked;
+
+    /**
+     * Number of uninstantiated variables of the propagators, and number of variables on initialisation
+     */
+    int[] futVars, scopes;
+
+    /**
+     * Decision variables whose weight depends on propagators which are not tracked,
+     * because they were posted after the initialisation or their scope changed: always re-evaluated
+     */
+    TIntList untracked;
+    boolean[] isUntracked;
+
+    /**
+     * Variables instantiated since the root, world by world, to restore <code>futVars</code> on backtrack
+     */
+    IntVar[] instantiated;
+    int top, lastStamp, generation;
+    PoolManager<Restore> restorePool;
+
+    /**
+     * Variables ordered by domain size over weight
      */
-    IntMap pid2arity;
+    WeightHeap heap;
 
     /**
      * Temporary. Stores index of variables with the same (best) score
@@ -101,13 +151,92 @@ public class DomOverWDeg extends AbstractStrategy<IntVar>{
         this.variables = variables.clone();
         Solver solver = variables[0].getSolver();
         counter = new FailPerPropagator(solver.getCstrs(), solver);
-        pid2arity = new IntMap(solver.getCstrs().length * 3 / 2 + 1, -1);
+        solver.plugMonitor(this);
+        plugged = true;
+        heap = new WeightHeap();
+        restorePool = new PoolManager<>();
         bests = new TIntArrayList();
         this.valueSelector = valueSelector;
         decisionPool = new PoolManager<>();
         random = new java.util.Random(seed);
     }
 
+    @Override
+    public boolean init() {
+        if (!plugged) {
+            // removed before, the search monitors are plugged in again, including in the running search
+            Solver solver = variables[0].getSolver();
+            solver.plugMonitor(counter);
+            solver.plugMonitor(this);
+            solver.getSearchLoop().plugSearchMonitor(counter);
+            solver.getSearchLoop().plugSearchMonitor(this);
+            plugged = true;
+        }
+        List<Propagator> propagators = new ArrayList<>();
+        pid2idx = new IntMap(variables[0].getSolver().getCstrs().length * 3 / 2 + 1, -1);
+        for (int i = 0; i < variables.length; i++) {
+            Propagator[] props = variables[i].getPropagators();
+            for (int p = 0; p < props.length; p++) {
+                if (!pid2idx.containsKey(props[p].getId()) && onIntVars(props[p])) {
+                    pid2idx.put(props[p].getId(), propagators.size());
+                    propagators.add(props[p]);
+                }
+            }
+        }
+        tracked = propagators.toArray(new Propagator[propagators.size()]);
+        futVars = new int[propagators.size()];
+        scopes = new int[propagators.size()];
+        for (int k = 0; k < futVars.length; k++) {
+            Propagator prop = propagators.get(k);
+            futVars[k] = prop.arity();
+            scopes[k] = prop.getNbVars();
+            for (int v = 0; v < prop.getNbVars(); v++) {
+                // does nothing if the variable is already monitored
+                prop.getVar(v).addMonitor(this);
+            }
+        }
+        untracked = new TIntArrayList();
+        isUntracked = new boolean[variables.length];
+        instantiated = new IntVar[16];
+        top = 0;
+        lastStamp = -1;
+        generation++;
+        heap.init(variables);
+        return true;
+    }
+
+    @Override
+    public void remove() {
+        if (plugged) {
+            Solver solver = variables[0].getSolver();
+            solver.unplugMonitor(counter);
+            solver.unplugMonitor(this);
+            solver.getSearchLoop().unplugSearchMonitor(counter);
+            solver.getSearchLoop().unplugSearchMonitor(this);
+            plugged = false;
+        }
+        if (pid2idx != null) {
+            for (int k = 0; k < tracked.length; k++) {
+                for (int v = 0; v < tracked[k].getNbVars(); v++) {
+                    tracked[k].getVar(v).removeMonitor(this);
+                }
+            }
+            heap.remove();
+            // everything is built again, on the next call to init() or getDecision()
+            pid2idx = null;
+            tracked = null;
+            generation++;
+        }
+    }
+
+    private static boolean onIntVars(Propagator prop) {
+        for (int v = 0; v < prop.getNbVars(); v++) {
+            if (!(prop.getVar(v) instanceof IntVar)) {
+                return false;
+            }
+        }
+        return true;
+    }
 
     @Override
     public Decision<IntVar> computeDecision(IntVar variable) {
@@ -125,53 +254,177 @@ public class DomOverWDeg extends AbstractStrategy<IntVar>{
 
     @Override
     public Decision<IntVar> getDecision() {
+        if (pid2idx == null) {
+            init();
+        }
         IntVar best = null;
         bests.clear();
-        pid2arity.clear();
-        long _d1 = Integer.MAX_VALUE;
-        long _d2 = 0;
-        for (int idx = 0; idx < vars.length; idx++) {
-            int dsize = variables[idx].getDomainSize();
-            if (dsize > 1) {
-                int weight = weight(variables[idx]);
-                long c1 = dsize * _d2;
-                long c2 = _d1 * weight;
-                if (c1 < c2) {
-                    bests.clear();
-                    bests.add(idx);
-                    _d1 = dsize;
-                    _d2 = weight;
-                } else if (c1 == c2) {
-                    bests.add(idx);
-                }
-            }
+        for (int k = 0; k < untracked.size(); k++) {
+            heap.invalidate(untracked.get(k));
         }
-        if (bests.size() > 0) {
+        if (heap.best() > -1) {
+            // the variables of smallest ratio, in increasing index order, as the former linear scan
+            heap.ties(bests);
             int currentVar = bests.get(random.nextInt(bests.size()));
             best = vars[currentVar];
         }
         return computeDecision(best);
     }
 
-    private int weight(IntVar v) {
+    private int weight(int i) {
         int w = 1;
-        Propagator[] propagators = v.getPropagators();
-        for (int p = 0; p < propagators.length; p++) {
-            Propagator prop = propagators[p];
-            int pid = prop.getId();
-            // if the propagator has been already evaluated
-            if (pid2arity.get(pid) > -1) {
-                w += counter.getFails(prop);
+        IntVar v = variables[i];
+        for (int p = 0; p < v.getNbProps(); p++) {
+            Propagator prop = v.getPropagator(p);
+            int idx = pid2idx.get(prop.getId());
+            int fut;
+            if (idx > -1 && scopes[idx] == prop.getNbVars()) {
+                fut = futVars[idx];
             } else {
-                // the arity of this propagator is not yet known
-                int futVars = prop.arity();
-                assert futVars > -1;
-                pid2arity.put(pid, futVars);
-                if (futVars > 1) {
-                    w += counter.getFails(prop);
+                fut = prop.arity();
+                if (!isUntracked[i]) {
+                    isUntracked[i] = true;
+                    untracked.add(i);
                 }
             }
+            if (fut > 1) {
+                w += counter.getFails(prop);
+            }
         }
         return w;
     }
+
+    /**
+     * @param prop a propagator
+     * @return the number of times <code>prop</code> has failed, as counted by this
+     */
+    public int getFails(Propagator prop) {
+        return counter.getFails(prop);
+    }
+
+    /**
+     * Sets the number of times <code>prop</code> has failed, for instance to start from the weights
+     * learnt during a previous resolution of a similar model.
+     *
+     * @param prop  a propagator
+     * @param fails the number of times <code>prop</code> has failed
+     */
+    public void setFails(Propagator prop, int fails) {
+        counter.setFails(prop, fails);
+        if (pid2idx != null) {
+            for (int v = 0; v < prop.getNbVars(); v++) {
+                heap.invalidate(prop.getVar(v));
+            }
+        }
+    }
+
+    @Override
+    public void onUpdate(IntVar var, IEventType evt) {
+        if (!IntEventType.isInstantiate(evt.getMask())) {
+            return;
+        }
+        IEnvironment environment = var.getSolver().getEnvironment();
+        int stamp = environment.getTimeStamp();
+        if (lastStamp != stamp) {
+            lastStamp = stamp;
+            Restore restore = restorePool.getE();
+            if (restore == null) {
+                restore = new Restore();
+            }
+            restore.set(top, generation);
+            environment.save(restore);
+        }
+        if (top == instantiated.length) {
+            instantiated = Arrays.copyOf(instantiated, top * 3 / 2 + 1);
+        }
+        instantiated[top++] = var;
+        for (int p = 0; p < var.getNbProps(); p++) {
+            Propagator prop = var.getPropagator(p);
+            int idx = pid2idx.get(prop.getId());
+            if (idx > -1 && --futVars[idx] == 1) {
+                // the last uninstantiated variable of the propagator does not count its failures anymore
+                for (int v = 0; v < prop.getNbVars(); v++) {
+                    heap.touch(prop.getVar(v));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onContradiction(ContradictionException cex) {
+        if (pid2idx != null && cex.c != null && cex.c instanceof Propagator) {
+            // the counter has been updated already, weights do not depend on the current world
+            Propagator prop = (Propagator) cex.c;
+            for (int v = 0; v < prop.getNbVars(); v++) {
+                heap.invalidate(prop.getVar(v));
+            }
+        }
+    }
+
+    /**
+     * Restore the number of uninstantiated variables of the propagators on backtrack.
+     */
+    private final class Restore extends Operation {
+
+        int start, gen;
+
+        void set(int start, int gen) {
+            this.start = start;
+            this.gen = gen;
+        }
+
+        @Override
+        public void undo() {
+            if (gen == generation) {
+                for (int k = top - 1; k >= start; k--) {
+                    IntVar var = instantiated[k];
+                    for (int p = 0; p < var.getNbProps(); p++) {
+                        Propagator prop = var.getPropagator(p);
+                        int idx = pid2idx.get(prop.getId());
+                        if (idx > -1 && futVars[idx]++ == 1) {
+                            for (int v = 0; v < prop.getNbVars(); v++) {
+                                heap.invalidate(prop.getVar(v));
+                            }
+                        }
+                    }
+                    instantiated[k] = null;
+                }
+                top = start;
+                lastStamp = -1;
+            }
+            restorePool.returnE(this);
+        }
+    }
+
+    /**
+     * Heap of the decision variables, ordered by domain size over weight.
+     */
+    private final class WeightHeap extends HeapVariableSelector {
+
+        int[] weights;
+
+        @Override
+        public void init(IntVar[] variables) {
+            weights = new int[variables.length];
+            super.init(variables);
+        }
+
+        @Override
+        protected long key(IntVar var) {
+            return var.getDomainSize();
+        }
+
+        @Override
+        protected void refresh(int i) {
+            super.refresh(i);
+            if (vars[i].getDomainSize() > 1) {
+                weights[i] = weight(i);
+            }
+        }
+
+        @Override
+        protected int compare(int i, int j) {
+            return Long.compare(keys[i] * weights[j], keys[j] * weights[i]);
+        }
+    }
 }
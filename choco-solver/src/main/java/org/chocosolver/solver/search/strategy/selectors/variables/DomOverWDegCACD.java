@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+package org.chocosolver.solver.search.strategy.selectors.variables;
+
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.search.strategy.selectors.IntValueSelector;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.Variable;
+
+/**
+ * Implementation of dom/wdeg<sup>ca.cd</sup>[1].
+ * <p>
+ * On each failure of a propagator, each of its uninstantiated variables is weighted by the inverse of
+ * the current arity of the propagator times its current domain size:
+ * the less free variables and the smaller their domains, the more a variable is responsible for the failure.
+ * <p>
+ * [1]: H. Wattez, C. Lecoutre, A. Paparrizou and S. Tabary, Refining Constraint Weighting, ICTAI-19.
+ * <br/>
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public class DomOverWDegCACD extends AbstractConflictWeighting {
+
+    /**
+     * Creates a dom/wdeg<sup>ca.cd</sup> variable selector
+     *
+     * @param variables     decision variables
+     * @param seed          seed for breaking ties randomly
+     * @param valueSelector a value selector
+     */
+    public DomOverWDegCACD(IntVar[] variables, long seed, IntValueSelector valueSelector) {
+        super(variables, seed, valueSelector);
+    }
+
+    @Override
+    protected void onConflict(Propagator prop) {
+        int fut = prop.arity();
+        for (int v = 0; v < prop.getNbVars(); v++) {
+            Variable var = prop.getVar(v);
+            // when all variables are instantiated, they are all equally responsible
+            if (scored(var) && (fut == 0 || !var.isInstantiated())) {
+                int size = var instanceof IntVar ? ((IntVar) var).getDomainSize() : 1;
+                scores[var.getId()] += 1d / ((fut == 0 ? prop.getNbVars() : fut) * size);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+package org.chocosolver.solver.search.strategy.selectors.variables;
+
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.search.strategy.selectors.IntValueSelector;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.Variable;
+
+/**
+ * DomOverWDeg with decaying weights.
+ * On each failure of a propagator, the weights of its variables are bumped by an increment
+ * which grows by a factor 1/<i>decay</i> after each conflict, so that recent conflicts prevail over old ones,
+ * as in VSIDS.
+ * The weights are attached to the variables rather than to the propagators.
+ * <br/>
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public class DomOverWDegDecay extends AbstractConflictWeighting {
+
+    /**
+     * Weights are rescaled when the increment reaches this limit
+     */
+    private static final double LIMIT = 1e100;
+
+    /**
+     * Decay factor, in ]0,1]
+     */
+    private final double decay;
+
+    /**
+     * Current increment
+     */
+    private double increment = 1d;
+
+    /**
+     * Creates a DomOverWDeg variable selector with decaying weights
+     *
+     * @param variables     decision variables
+     * @param decay         decay factor, in ]0,1], 1 means no decay
+     * @param seed          seed for breaking ties randomly
+     * @param valueSelector a value selector
+     */
+    public DomOverWDegDecay(IntVar[] variables, double decay, long seed, IntValueSelector valueSelector) {
+        super(variables, seed, valueSelector);
+        if (decay <= 0d || decay > 1d) {
+            throw new IllegalArgumentException("decay should be in ]0,1]");
+        }
+        this.decay = decay;
+    }
+
+    @Override
+    protected void onConflict(Propagator prop) {
+        for (int v = 0; v < prop.getNbVars(); v++) {
+            Variable var = prop.getVar(v);
+            if (scored(var)) {
+                scores[var.getId()] += increment;
+            }
+        }
+        increment /= decay;
+        if (increment > LIMIT) {
+            rescale(1d / LIMIT);
+            increment /= LIMIT;
+        }
+    }
+}
@@ -30,32 +30,23 @@
 package org.chocosolver.solver.search.strategy.selectors.variables;
 
 import org.chocosolver.solver.search.strategy.selectors.VariableEvaluator;
-import org.chocosolver.solver.search.strategy.selectors.VariableSelector;
 import org.chocosolver.solver.variables.IntVar;
 
 /**
  * <b>First fail</b> variable selector.
  * It chooses the variable with the smallest domain (instantiated variables are ignored).
+ * The variables are kept in a heap, updated on domain modifications.
  * <br/>
  *
  * @author Charles Prud'homme
  * @since 2 juil. 2010
  */
-public class FirstFail implements VariableSelector<IntVar>, VariableEvaluator<IntVar> {
+public class FirstFail extends HeapVariableSelector implements VariableEvaluator<IntVar> {
 
 
     @Override
-    public IntVar getVariable(IntVar[] variables) {
-        int small_idx = -1;
-        int small_dsize = Integer.MAX_VALUE;
-        for (int idx = 0; idx < variables.length; idx++) {
-            int dsize = variables[idx].getDomainSize();
-            if (dsize > 1 && dsize < small_dsize) {
-                small_dsize = dsize;
-                small_idx = idx;
-            }
-        }
-        return small_idx > -1 ? variables[small_idx] : null;
+    protected long key(IntVar var) {
+        return var.getDomainSize();
     }
 
     @Override
@@ -0,0 +1,398 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+package org.chocosolver.solver.search.strategy.selectors.variables;
+
+import gnu.trove.list.TIntList;
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.memory.structure.Operation;
+import org.chocosolver.solver.search.strategy.selectors.VariableSelector;
+import org.chocosolver.solver.variables.IVariableMonitor;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.Variable;
+import org.chocosolver.solver.variables.events.IEventType;
+import org.chocosolver.util.PoolManager;
+import org.chocosolver.util.objects.IntMap;
+
+import java.util.Arrays;
+
+/**
+ * Variable selector backed by an indexed binary heap, which is updated incrementally instead of scanning
+ * all the variables at each node.
+ * <p>
+ * A variable is only re-evaluated when its domain has been modified (it is notified as a monitor of the variable)
+ * or when it is explicitly marked with {@link #invalidate(int)}.
+ * The variables modified in a world are recorded, and marked again when the world is backtracked,
+ * through an {@link Operation} saved in the environment, so that the heap always reflects the current state.
+ * Updates are delayed until the next selection, a variable being sifted at most once per node.
+ * <p>
+ * Instantiated variables are kept in the heap, after any uninstantiated one.
+ * Ties are broken by the index of the variables, which is the order of a linear scan.
+ * <br/>
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public abstract class HeapVariableSelector implements VariableSelector<IntVar>, IVariableMonitor<IntVar> {
+
+    /**
+     * Variables the heap is built on
+     */
+    protected IntVar[] vars;
+
+    /**
+     * Keys of the variables, as computed by {@link #key(IntVar)}
+     */
+    protected long[] keys;
+
+    /**
+     * Whether a variable was instantiated when last evaluated
+     */
+    private boolean[] fixed;
+
+    /**
+     * heap[k] is the index of the variable at position k, position[i] is the position of variable i
+     */
+    private int[] heap, position;
+
+    /**
+     * Variable id to index, and next index of a variable occurring more than once
+     */
+    private IntMap v2i;
+    private int[] twin;
+
+    /**
+     * Variables to re-evaluate before the next selection
+     */
+    private int[] dirty, buffer;
+    private int nbDirty;
+    private boolean[] isDirty;
+
+    /**
+     * Variables modified since the root, world by world, with the time stamp at which they were recorded
+     */
+    private int[] trail;
+    private int top;
+    private int[] stamps;
+    private int lastStamp;
+    private int generation;
+
+    private IEnvironment environment;
+    private PoolManager<Undo> undoPool = new PoolManager<>();
+
+    /**
+     * Build the heap on <i>variables</i>, in their current state, and start monitoring them.
+     *
+     * @param variables the variables to select from
+     */
+    public void init(IntVar[] variables) {
+        int n = variables.length;
+        vars = variables;
+        keys = new long[n];
+        fixed = new boolean[n];
+        heap = new int[n];
+        position = new int[n];
+        twin = new int[n];
+        dirty = new int[n];
+        buffer = new int[n];
+        isDirty = new boolean[n];
+        trail = new int[16];
+        stamps = new int[n];
+        nbDirty = 0;
+        top = 0;
+        lastStamp = -1;
+        generation++;
+        Arrays.fill(stamps, -1);
+        Arrays.fill(twin, -1);
+        v2i = new IntMap(n * 3 / 2 + 1, -1);
+        for (int i = n - 1; i >= 0; i--) {
+            int id = variables[i].getId();
+            twin[i] = v2i.get(id);
+            v2i.put(id, i);
+        }
+        for (int i = 0; i < n; i++) {
+            heap[i] = i;
+            position[i] = i;
+            refresh(i);
+            // does nothing if the variable is already monitored
+            variables[i].addMonitor(this);
+        }
+        for (int k = n / 2 - 1; k >= 0; k--) {
+            siftDown(k);
+        }
+        environment = n > 0 ? variables[0].getSolver().getEnvironment() : null;
+    }
+
+    /**
+     * Stop monitoring the variables. The heap is built again on the next call to {@link #init(IntVar[])}
+     * or {@link #getVariable(IntVar[])}.
+     */
+    public void remove() {
+        if (vars != null) {
+            for (int i = 0; i < vars.length; i++) {
+                vars[i].removeMonitor(this);
+            }
+            vars = null;
+            // the operations saved in the environment are now outdated
+            generation++;
+        }
+    }
+
+    /**
+     * @param var a variable
+     * @return the key of <i>var</i>, the variable with the smallest key being selected
+     */
+    protected abstract long key(IntVar var);
+
+    /**
+     * Re-compute the key of the variable at index <i>i</i>.
+     * Sub-classes caching more data should override it.
+     *
+     * @param i index of a variable
+     */
+    protected void refresh(int i) {
+        fixed[i] = vars[i].getDomainSize() <= 1;
+        if (!fixed[i]) {
+            keys[i] = key(vars[i]);
+        }
+    }
+
+    /**
+     * Compare two uninstantiated variables, ties being broken by index.
+     *
+     * @param i index of a variable
+     * @param j index of a variable
+     * @return a negative integer, zero, or a positive integer as <i>i</i> is better than, as good as,
+     * or worse than <i>j</i>
+     */
+    protected int compare(int i, int j) {
+        return Long.compare(keys[i], keys[j]);
+    }
+
+    private boolean before(int i, int j) {
+        if (fixed[i] != fixed[j]) {
+            return fixed[j];
+        }
+        if (!fixed[i]) {
+            int c = compare(i, j);
+            if (c != 0) {
+                return c < 0;
+            }
+        }
+        return i < j;
+    }
+
+    private void siftUp(int k) {
+        int i = heap[k];
+        while (k > 0) {
+            int p = (k - 1) >> 1;
+            if (!before(i, heap[p])) {
+                break;
+            }
+            heap[k] = heap[p];
+            position[heap[k]] = k;
+            k = p;
+        }
+        heap[k] = i;
+        position[i] = k;
+    }
+
+    private void siftDown(int k) {
+        int n = heap.length;
+        int i = heap[k];
+        while (true) {
+            int c = 2 * k + 1;
+            if (c >= n) {
+                break;
+            }
+            if (c + 1 < n && before(heap[c + 1], heap[c])) {
+                c++;
+            }
+            if (!before(heap[c], i)) {
+                break;
+            }
+            heap[k] = heap[c];
+            position[heap[k]] = k;
+            k = c;
+        }
+        heap[k] = i;
+        position[i] = k;
+    }
+
+    /**
+     * Mark the variable at index <i>i</i> to be re-evaluated before the next selection.
+     * Its new key is assumed not to depend on the current world, otherwise see {@link #touch(int)}.
+     *
+     * @param i index of a variable
+     */
+    protected final void invalidate(int i) {
+        if (!isDirty[i]) {
+            isDirty[i] = true;
+            dirty[nbDirty++] = i;
+        }
+    }
+
+    /**
+     * Mark the variable at index <i>i</i> to be re-evaluated before the next selection,
+     * and once again when the current world is backtracked.
+     *
+     * @param i index of a variable
+     */
+    protected final void touch(int i) {
+        int stamp = environment.getTimeStamp();
+        if (stamps[i] != stamp) {
+            stamps[i] = stamp;
+            if (lastStamp != stamp) {
+                lastStamp = stamp;
+                Undo undo = undoPool.getE();
+                if (undo == null) {
+                    undo = new Undo();
+                }
+                undo.set(top, generation);
+                environment.save(undo);
+            }
+            if (top == trail.length) {
+                trail = Arrays.copyOf(trail, top * 3 / 2 + 1);
+            }
+            trail[top++] = i;
+        }
+        invalidate(i);
+    }
+
+    /**
+     * Call {@link #touch(int)} on each occurrence of <i>var</i>, if any.
+     *
+     * @param var a variable
+     */
+    protected final void touch(Variable var) {
+        for (int i = v2i.get(var.getId()); i > -1; i = twin[i]) {
+            touch(i);
+        }
+    }
+
+    /**
+     * Call {@link #invalidate(int)} on each occurrence of <i>var</i>, if any.
+     *
+     * @param var a variable
+     */
+    protected final void invalidate(Variable var) {
+        for (int i = v2i.get(var.getId()); i > -1; i = twin[i]) {
+            invalidate(i);
+        }
+    }
+
+    /**
+     * Re-evaluate the variables modified since the last selection.
+     */
+    protected final void sync() {
+        for (int k = 0; k < nbDirty; k++) {
+            int i = dirty[k];
+            isDirty[i] = false;
+            refresh(i);
+            siftUp(position[i]);
+            siftDown(position[i]);
+        }
+        nbDirty = 0;
+    }
+
+    /**
+     * @return the index of the best uninstantiated variable, -1 if all variables are instantiated
+     */
+    protected final int best() {
+        sync();
+        return heap.length > 0 && !fixed[heap[0]] ? heap[0] : -1;
+    }
+
+    /**
+     * Add to <i>bests</i>, in increasing order, the indices of the uninstantiated variables
+     * as good as the best one (ignoring the index tie-break).
+     * Must be called right after {@link #best()}.
+     *
+     * @param bests list of indices to fill
+     */
+    protected final void ties(TIntList bests) {
+        if (heap.length == 0 || fixed[heap[0]]) {
+            return;
+        }
+        int first = heap[0];
+        // all ancestors of a tie are ties too, so it is enough to explore the children of ties
+        int size = 0;
+        buffer[size++] = 0;
+        for (int b = 0; b < size; b++) {
+            int k = buffer[b];
+            for (int c = 2 * k + 1; c <= 2 * k + 2 && c < heap.length; c++) {
+                if (!fixed[heap[c]] && compare(heap[c], first) == 0) {
+                    buffer[size++] = c;
+                }
+            }
+            buffer[b] = heap[k];
+        }
+        Arrays.sort(buffer, 0, size);
+        bests.add(buffer, 0, size);
+    }
+
+    @Override
+    public IntVar getVariable(IntVar[] variables) {
+        if (variables != vars) {
+            init(variables);
+        }
+        int i = best();
+        return i > -1 ? vars[i] : null;
+    }
+
+    @Override
+    public void onUpdate(IntVar var, IEventType evt) {
+        // the variable may be monitored from a previous call to init, and then be ignored
+        touch(var);
+    }
+
+    /**
+     * Mark again the variables recorded in the backtracked world.
+     */
+    private final class Undo extends Operation {
+
+        int start, gen;
+
+        void set(int start, int gen) {
+            this.start = start;
+            this.gen = gen;
+        }
+
+        @Override
+        public void undo() {
+            if (gen == generation) {
+                for (int k = start; k < top; k++) {
+                    invalidate(trail[k]);
+                }
+                top = start;
+                lastStamp = -1;
+            }
+            undoPool.returnE(this);
+        }
+    }
+}
@@ -29,6 +29,7 @@
  */
 package org.chocosolver.solver.search.strategy.selectors.variables;
 
+import gnu.trove.list.array.TIntArrayList;
 import org.chocosolver.memory.IStateDouble;
 import org.chocosolver.solver.ICause;
 import org.chocosolver.solver.Solver;
@@ -46,7 +47,13 @@ import org.chocosolver.util.PoolManager;
 import org.chocosolver.util.iterators.DisposableValueIterator;
 import org.chocosolver.util.objects.IntList;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Implementation of the search described in:
@@ -88,6 +95,8 @@ public class ImpactBased extends AbstractStrategy<IntVar> implements IMonitorDow
 
     protected long timeLimit = Integer.MAX_VALUE; // a time limit for init()
 
+    protected int nbWorkers = 1; // number of threads used by init()
+
     /**
      * Create an Impact-based search strategy with Node Impact strategy.
      * <p/>
@@ -193,17 +202,28 @@ public class ImpactBased extends AbstractStrategy<IntVar> implements IMonitorDow
         }
     }
 
+    /**
+     * Set the number of threads used to estimate the impacts on initialisation.
+     * When greater than 1, the assignments to probe are shared out among copies of the solver,
+     * each of them with its own environment, and the resulting impacts are merged back before the search starts.
+     * If the model cannot be duplicated, the impacts are estimated sequentially.
+     *
+     * @param nbWorkers number of threads, 1 by default
+     */
+    public void setNbWorkers(int nbWorkers) {
+        if (nbWorkers > 0) {
+            this.nbWorkers = nbWorkers;
+        }
+    }
+
     @Override
     public boolean init(){
         long tl = System.currentTimeMillis() + this.timeLimit;
         // 0. Data structure construction
         Ilabel = new double[vars.length][];
         offsets = new int[vars.length];
-        // 1. Estimation of assignment and variable impacts
-        double before = searchSpaceSize();
-        searchSpaceSize.set(before);
-        learnsAndFails = false;
-        loop:
+        // 1. Selection of the assignments to probe, as pairs (variable index, value)
+        TIntArrayList probes = new TIntArrayList();
         for (int i = 0; i < vars.length; i++) {
             IntVar v = vars[i];
             int offset = v.getLB();
@@ -214,46 +234,52 @@ public class ImpactBased extends AbstractStrategy<IntVar> implements IMonitorDow
                 offsets[i] = offset;
 
                 if (v.hasEnumeratedDomain()) {
-                    if (v.getDomainSize() < split) { // try each value
-                        DisposableValueIterator it = v.getValueIterator(true);
-                        while (it.hasNext()) {
-                            if (System.currentTimeMillis() > tl) {
-                                break loop;
-                            }
-                            int a = it.next();
-                            double im = computeImpact(v, a, before);
-                            Ilabel[i][a - offset] = im;
+                    // try each value, or estimate per subdomains
+                    int size = v.getDomainSize() < split ? 1 : dsz / split;
+                    int step = 0;
+                    DisposableValueIterator it = v.getValueIterator(true);
+                    while (it.hasNext()) {
+                        int a = it.next();
+                        if (step % size == 0) {
+                            probes.add(i);
+                            probes.add(a);
                         }
-                        it.dispose();
-                    } else { // estimate per subdomains
-                        int step = 0;
-                        int size = dsz / split;
-                        DisposableValueIterator it = v.getValueIterator(true);
-                        while (it.hasNext()) {
-                            if (System.currentTimeMillis() > tl) {
-                                break loop;
-                            }
-                            int a = it.next();
-                            double im;
-                            if (step % size == 0) {
-                                im = computeImpact(v, a, before);
-                            } else {
-                                im = Ilabel[i][a - 1 - offset];
-                            }
-                            Ilabel[i][a - offset] = im;
-                            step++;
-                        }
-                        it.dispose();
+                        step++;
                     }
+                    it.dispose();
                 } else {
-                    if (System.currentTimeMillis() > tl) {
-                        break;
+                    // choose 3 values in the domain to have an estimation of the impact
+                    probes.add(new int[]{i, v.getLB(), i, v.getUB(), i, (v.getLB() + v.getUB()) / 2});
+                }
+            }
+        }
+        // 2. Estimation of assignment impacts
+        double before = searchSpaceSize();
+        searchSpaceSize.set(before);
+        learnsAndFails = false;
+        double[] impacts = new double[probes.size() / 2];
+        boolean complete = nbWorkers > 1 ?
+                probeInParallel(probes, impacts, before, tl) :
+                probe(probes, 0, 1, impacts, before, tl);
+        // 3. Estimation of variable impacts
+        for (int i = 0, k = 0; i < vars.length; i++) {
+            IntVar v = vars[i];
+            if (Ilabel[i] != null) {
+                if (v.hasEnumeratedDomain()) {
+                    int offset = offsets[i];
+                    DisposableValueIterator it = v.getValueIterator(true);
+                    while (it.hasNext()) {
+                        int a = it.next();
+                        if (k < impacts.length && probes.getQuick(2 * k) == i && probes.getQuick(2 * k + 1) == a) {
+                            Ilabel[i][a - offset] = impacts[k++];
+                        } else { // same impact as the previous value of the subdomain
+                            Ilabel[i][a - offset] = Ilabel[i][a - 1 - offset];
+                        }
                     }
-                    // A. choose 3 values in the domain to have an estimation of the impact
-                    double i1 = computeImpact(v, v.getLB(), before);
-                    double i2 = computeImpact(v, v.getUB(), before);
-                    double i3 = computeImpact(v, (v.getLB() + v.getUB()) / 2, before);
-                    Ilabel[i][0] = (i1 + i2 + i3) / 3d;
+                    it.dispose();
+                } else {
+                    Ilabel[i][0] = (impacts[k] + impacts[k + 1] + impacts[k + 2]) / 3d;
+                    k += 3;
                 }
             }
         }
@@ -262,22 +288,70 @@ public class ImpactBased extends AbstractStrategy<IntVar> implements IMonitorDow
             learnsAndFails = false;
 //            solver.getEngine().fails(this, lAfVar, "Impact::init:: detect failures");
             return false;
-        } else if (System.currentTimeMillis() > tl) {
+        } else if (!complete) {
             if(solver.getSettings().warnUser()) Chatterbox.err.printf("impact Search stops its init phase -- reach time limit!");
-            for (int i = 0; i < vars.length; i++) {  // create arrays to avoid null pointer errors
-                IntVar v = vars[i];
-                int offset = v.getLB();
-                int UB = v.getUB();
-                int dsz = UB - offset + 1;//v.getDomainSize();
-                if (!v.isInstantiated() && Ilabel[i] == null) {
-                    Ilabel[i] = new double[v.hasEnumeratedDomain() ? dsz : 1];
-                    offsets[i] = offset;
-                }
+        }
+        return true;
+    }
+
+    /**
+     * Estimate the impacts of the assignments <i>from</i>, <i>from</i> + <i>step</i>, <i>from</i> + 2 * <i>step</i>, ...
+     * of <i>probes</i>, within the time limit <i>tl</i>.
+     * The impacts of the assignments not estimated because of the time limit are left to 0.
+     *
+     * @param probes  the assignments, as pairs (variable index, value)
+     * @param from    index of the first assignment to estimate
+     * @param step    gap between two assignments to estimate
+     * @param impacts the impacts of the assignments, to fill
+     * @param before  search space size before the assignments
+     * @param tl      the time limit
+     * @return true if all the impacts have been estimated, false if the time limit has been reached
+     */
+    private boolean probe(TIntArrayList probes, int from, int step, double[] impacts, double before, long tl) {
+        for (int k = from; k < impacts.length; k += step) {
+            if (System.currentTimeMillis() > tl) {
+                return false;
             }
+            impacts[k] = computeImpact(vars[probes.getQuick(2 * k)], probes.getQuick(2 * k + 1), before);
         }
         return true;
     }
 
+    /**
+     * Estimate the impacts of the assignments of <i>probes</i> with <i>nbWorkers</i> threads,
+     * each of them working on its own copy of the solver.
+     *
+     * @return true if all the impacts have been estimated, false if the time limit has been reached
+     */
+    private boolean probeInParallel(TIntArrayList probes, double[] impacts, double before, long tl) {
+        List<ImpactBased> copies = ParallelSampling.duplicate(this, nbWorkers);
+        if (copies.isEmpty()) {
+            return probe(probes, 0, 1, impacts, before, tl);
+        }
+        List<Callable<Boolean>> tasks = new ArrayList<>(nbWorkers);
+        for (int w = 0; w < nbWorkers; w++) {
+            final int from = w;
+            final ImpactBased copy = copies.get(w);
+            tasks.add(() -> copy.probe(probes, from, nbWorkers, impacts, before, tl));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(nbWorkers);
+        boolean complete = true;
+        try {
+            for (Boolean c : ParallelSampling.run(pool, tasks)) {
+                complete &= c;
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        for (ImpactBased copy : copies) {
+            if (copy.learnsAndFails) {
+                learnsAndFails = true;
+                lAfVar = vars[Arrays.asList(copy.vars).indexOf(copy.lAfVar)];
+            }
+        }
+        return complete;
+    }
+
 
     @Override
     public void onContradiction(ContradictionException cex) {
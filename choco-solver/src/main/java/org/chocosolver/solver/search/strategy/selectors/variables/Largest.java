@@ -30,33 +30,23 @@
 package org.chocosolver.solver.search.strategy.selectors.variables;
 
 import org.chocosolver.solver.search.strategy.selectors.VariableEvaluator;
-import org.chocosolver.solver.search.strategy.selectors.VariableSelector;
 import org.chocosolver.solver.variables.IntVar;
 
 /**
  * <b>Largest</b> variable selector.
  * It chooses the variable with the largest value in its domain (instantiated variables are ignored).
+ * The variables are kept in a heap, updated on domain modifications.
  * <br/>
  *
  * @author Charles Prud'homme
  * @since 2 juil. 2010
  */
-public class Largest implements VariableSelector<IntVar>,VariableEvaluator<IntVar>{
+public class Largest extends HeapVariableSelector implements VariableEvaluator<IntVar> {
 
 
     @Override
-    public IntVar getVariable(IntVar[] variables) {
-        int large_idx = -1;
-        int large_value = Integer.MIN_VALUE;
-        for (int idx = 0; idx < variables.length; idx++) {
-            int dsize = variables[idx].getDomainSize();
-            int upper = variables[idx].getUB();
-            if (dsize > 1 && upper > large_value) {
-                large_value = upper;
-                large_idx = idx;
-            }
-        }
-        return large_idx > -1 ? variables[large_idx] : null;
+    protected long key(IntVar var) {
+        return -(long) var.getUB();
     }
 
     @Override
@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.search.strategy.selectors.variables;
+
+import org.chocosolver.solver.ParallelPortfolio;
+import org.chocosolver.solver.exception.SolverException;
+import org.chocosolver.solver.search.strategy.strategy.AbstractStrategy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Utility methods to run the initialisation phase of a learning strategy over copies of the solver.
+ * <br/>
+ * A copy is obtained by serializing the strategy itself, which brings along its own solver and environment,
+ * and whose variables are declared in the same order as the ones of the original strategy.
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+final class ParallelSampling {
+
+    private ParallelSampling() {
+    }
+
+    /**
+     * Duplicate <i>strategy</i>, and the solver it refers to, <i>n</i> times.
+     *
+     * @param strategy the strategy to duplicate
+     * @param n        number of copies
+     * @param <S>      the type of the strategy
+     * @return a list of <i>n</i> copies of <i>strategy</i>, empty if the model cannot be duplicated
+     */
+    static <S extends AbstractStrategy<?>> List<S> duplicate(S strategy, int n) {
+        byte[] flat;
+        try {
+            flat = ParallelPortfolio.flatten(strategy);
+        } catch (SolverException e) {
+            return Collections.emptyList();
+        }
+        List<S> copies = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            copies.add(ParallelPortfolio.restore(flat));
+        }
+        return copies;
+    }
+
+    /**
+     * Execute <i>tasks</i> in <i>pool</i> and wait for all of them to terminate.
+     *
+     * @param pool  the pool of threads
+     * @param tasks the tasks to execute, each of them should work on its own copy of the solver
+     * @param <R>   the type of the results
+     * @return the results of <i>tasks</i>, in the same order
+     */
+    static <R> List<R> run(ExecutorService pool, List<Callable<R>> tasks) {
+        try {
+            List<R> results = new ArrayList<>(tasks.size());
+            for (Future<R> f : pool.invokeAll(tasks)) {
+                results.add(f.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SolverException("The sampling phase has been interrupted");
+        } catch (ExecutionException e) {
+            throw new SolverException("A worker of the sampling phase ended unexpectedly: " + e.getCause());
+        }
+    }
+}
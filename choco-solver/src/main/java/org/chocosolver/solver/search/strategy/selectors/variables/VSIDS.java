@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.search.strategy.selectors.variables;
+
+import org.chocosolver.solver.constraints.nary.cnf.PropSat;
+import org.chocosolver.solver.constraints.nary.cnf.SatSolver;
+import org.chocosolver.solver.search.strategy.assignments.DecisionOperator;
+import org.chocosolver.solver.search.strategy.decision.Decision;
+import org.chocosolver.solver.search.strategy.decision.IntDecision;
+import org.chocosolver.solver.search.strategy.strategy.AbstractStrategy;
+import org.chocosolver.solver.variables.BoolVar;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.util.PoolManager;
+
+/**
+ * Implementation of VSIDS[1], driven by the SAT solver behind a {@link PropSat}.
+ * <p>
+ * The uninstantiated boolean variable with the highest activity is selected, and assigned to its last value (phase saving).
+ * Activities are maintained by the SAT solver on conflict analysis, so clause learning should be enabled
+ * (see {@link org.chocosolver.solver.Settings#enableClauseLearningInSat()}), otherwise variables are selected in input order.
+ * <p>
+ * [1]: M. W. Moskewicz, C. F. Madigan, Y. Zhao, L. Zhang and S. Malik, Chaff: Engineering an Efficient SAT Solver, DAC-01.
+ * <br/>
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public class VSIDS extends AbstractStrategy<IntVar> {
+
+    /**
+     * The propagator embedding the SAT solver
+     */
+    PropSat sat;
+
+    /**
+     * Decisions pool, to limit memory footprint
+     */
+    PoolManager<IntDecision> decisionPool;
+
+    /**
+     * Creates a VSIDS strategy over the variables declared in <i>sat</i>.
+     * Variables declared afterwards in <i>sat</i> are considered too.
+     *
+     * @param sat the propagator embedding the SAT solver
+     */
+    public VSIDS(PropSat sat) {
+        super(sat.getVars());
+        this.sat = sat;
+        this.decisionPool = new PoolManager<>();
+    }
+
+    @Override
+    public Decision<IntVar> computeDecision(IntVar variable) {
+        if (variable == null || variable.isInstantiated()) {
+            return null;
+        }
+        int idx = sat.indexOf((BoolVar) variable);
+        IntDecision current = decisionPool.getE();
+        if (current == null) {
+            current = new IntDecision(decisionPool);
+        }
+        current.set(variable, idx > -1 && sat.getSatSolver().polarity(idx) ? 1 : 0, DecisionOperator.int_eq);
+        return current;
+    }
+
+    @Override
+    public Decision<IntVar> getDecision() {
+        BoolVar[] variables = sat.getVars();
+        SatSolver solver = sat.getSatSolver();
+        int best = -1;
+        double activity = -1d;
+        for (int idx = 0; idx < variables.length; idx++) {
+            if (!variables[idx].isInstantiated() && solver.activity(idx) > activity) {
+                best = idx;
+                activity = solver.activity(idx);
+            }
+        }
+        return best > -1 ? computeDecision(variables[best]) : null;
+    }
+}
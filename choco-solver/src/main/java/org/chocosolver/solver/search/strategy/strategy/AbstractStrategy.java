@@ -55,6 +55,21 @@ public abstract class AbstractStrategy<V extends Variable> implements Serializab
      */
     public boolean init(){return true;}
 
+    /**
+     * Called when <code>this</code> is not used by the search loop anymore, for instance when another strategy is
+     * declared instead. The monitors plugged by {@link #init()} should be unplugged here,
+     * {@link #init()} plugging them again if <code>this</code> is used later on.
+     */
+    public void remove(){}
+
+    /**
+     * @param strategy a search strategy
+     * @return <tt>true</tt> if <code>strategy</code> is <code>this</code> or one of the strategies it relies on
+     */
+    public boolean uses(AbstractStrategy strategy){
+        return strategy == this;
+    }
+
     /**
      * Provides access to the current decision in the strategy.
      * If there are no more decision to provide, it returns <code>null</code>.
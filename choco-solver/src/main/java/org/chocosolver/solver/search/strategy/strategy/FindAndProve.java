@@ -76,6 +76,17 @@ public class FindAndProve<V extends Variable> extends AbstractStrategy<V>{
 		return find.init() & prove.init();
 	}
 
+	@Override
+	public void remove() {
+		find.remove();
+		prove.remove();
+	}
+
+	@Override
+	public boolean uses(AbstractStrategy strategy) {
+		return super.uses(strategy) || find.uses(strategy) || prove.uses(strategy);
+	}
+
 	@Override
 	public Decision getDecision() {
 		if (solver.getMeasures().getSolutionCount() == 0) {
@@ -34,6 +34,7 @@ import org.chocosolver.solver.search.strategy.decision.Decision;
 import org.chocosolver.solver.search.strategy.decision.IntDecision;
 import org.chocosolver.solver.search.strategy.selectors.IntValueSelector;
 import org.chocosolver.solver.search.strategy.selectors.VariableSelector;
+import org.chocosolver.solver.search.strategy.selectors.variables.HeapVariableSelector;
 import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.util.PoolManager;
 
@@ -95,9 +96,20 @@ public class IntStrategy extends AbstractStrategy<IntVar> {
 
     @Override
     public boolean init() {
+        if (variableSelector instanceof HeapVariableSelector) {
+            // rebuild the heap from the state after the initial propagation
+            ((HeapVariableSelector) variableSelector).init(vars);
+        }
         return true;
     }
 
+    @Override
+    public void remove() {
+        if (variableSelector instanceof HeapVariableSelector) {
+            ((HeapVariableSelector) variableSelector).remove();
+        }
+    }
+
     @Override
     public Decision<IntVar> computeDecision(IntVar variable) {
         if (variable == null || variable.isInstantiated()) {
@@ -37,6 +37,8 @@ import org.chocosolver.solver.search.loop.monitors.IMonitorSolution;
 import org.chocosolver.solver.search.strategy.decision.Decision;
 import org.chocosolver.solver.variables.Variable;
 
+import java.util.Arrays;
+
 /**
  * Last Conflict heuristic
  * Composite heuristic which hacks a mainStrategy by forcing the
@@ -105,6 +107,16 @@ public class LastConflict extends AbstractStrategy<Variable> implements IMonitor
         return mainStrategy.init();
     }
 
+    @Override
+    public void remove() {
+        mainStrategy.remove();
+    }
+
+    @Override
+    public boolean uses(AbstractStrategy strategy) {
+        return super.uses(strategy) || mainStrategy.uses(strategy);
+    }
+
     @Override
     public Decision<Variable> getDecision() {
         if (active) {
@@ -120,6 +132,35 @@ public class LastConflict extends AbstractStrategy<Variable> implements IMonitor
         return mainStrategy.getDecision();
     }
 
+    /**
+     * @return the variables related to the last conflicts, from the oldest to the most recent one
+     */
+    public Variable[] getConflictingVariables() {
+        return Arrays.copyOf(conflictingVariables, nbCV);
+    }
+
+    /**
+     * Sets the variables related to the last conflicts, for instance to start from the conflicts
+     * of a previous resolution of a similar model.
+     * Variables which are not in the scope of the main strategy are ignored,
+     * and only the most recent ones are kept when there are too many of them.
+     *
+     * @param variables variables related to conflicts, from the oldest to the most recent one
+     */
+    public void setConflictingVariables(Variable... variables) {
+        nbCV = 0;
+        for (int i = 0; i < variables.length; i++) {
+            if (inScope(variables[i])) {
+                if (nbCV == conflictingVariables.length) {
+                    System.arraycopy(conflictingVariables, 1, conflictingVariables, 0, nbCV - 1);
+                    nbCV--;
+                }
+                conflictingVariables[nbCV++] = variables[i];
+            }
+        }
+        Arrays.fill(conflictingVariables, nbCV, conflictingVariables.length, null);
+    }
+
     //***********************************************************************************
     // Monitor
     //***********************************************************************************
@@ -83,6 +83,22 @@ public class StrategiesSequencer extends AbstractStrategy<Variable> {
         return ok;
     }
 
+    @Override
+    public void remove() {
+        for (int i = 0; i < strategies.length; i++) {
+            strategies[i].remove();
+        }
+    }
+
+    @Override
+    public boolean uses(AbstractStrategy strategy) {
+        boolean uses = super.uses(strategy);
+        for (int i = 0; i < strategies.length && !uses; i++) {
+            uses = strategies[i].uses(strategy);
+        }
+        return uses;
+    }
+
     @Override
     public Decision<Variable> computeDecision(Variable variable) {
         if (variable == null || variable.isInstantiated()) {
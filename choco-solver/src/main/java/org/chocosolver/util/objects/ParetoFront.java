@@ -0,0 +1,341 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.util.objects;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A set of mutually non-dominated points (to minimize), each one with an attached element, indexed by a k-d tree.
+ * <p>
+ * A point <i>q</i> weakly dominates a point <i>p</i> when <i>q<sub>i</sub></i> &le; <i>p<sub>i</sub></i> for all <i>i</i>.
+ * Each node of the tree stores the bounding box of its subtree, so that dominance checks and bound queries only
+ * visit the subtrees which may hold a relevant point.
+ * Removed points are only marked as such, and the tree is rebuilt, balanced, when too many points are marked
+ * or when it becomes too deep.
+ *
+ * @param <E> type of the elements attached to the points
+ * @author agent
+ * @since 18/10/26
+ */
+public class ParetoFront<E> {
+
+    private final int dim;
+    /**
+     * Per node: the point, the element, the children (-1 if none), whether it is still in the front,
+     * and the lower and upper corners of the bounding box of its subtree
+     */
+    private int[][] points;
+    private Object[] elements;
+    private int[] left, right;
+    private boolean[] alive;
+    private int[][] lo, hi;
+    private int nbNodes;
+    private int root = -1;
+    private int size;
+    private int[] stack;
+    private int top;
+    private E last;
+
+    /**
+     * Create an empty front.
+     *
+     * @param dim number of dimensions of the points
+     */
+    public ParetoFront(int dim) {
+        this.dim = dim;
+        allocate(16);
+        this.stack = new int[16];
+    }
+
+    private void allocate(int capacity) {
+        points = new int[capacity][];
+        elements = new Object[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        alive = new boolean[capacity];
+        lo = new int[capacity][];
+        hi = new int[capacity][];
+    }
+
+    private void ensureCapacity() {
+        if (nbNodes == points.length) {
+            int capacity = nbNodes * 3 / 2 + 1;
+            points = Arrays.copyOf(points, capacity);
+            elements = Arrays.copyOf(elements, capacity);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            alive = Arrays.copyOf(alive, capacity);
+            lo = Arrays.copyOf(lo, capacity);
+            hi = Arrays.copyOf(hi, capacity);
+        }
+    }
+
+    /**
+     * @return the number of points in the front
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the element attached to the last point added, null if none
+     */
+    public E getLast() {
+        return last;
+    }
+
+    /**
+     * @return the elements attached to the points of the front, in no particular order
+     */
+    @SuppressWarnings("unchecked")
+    public List<E> getElements() {
+        List<E> list = new ArrayList<>(size);
+        for (int n = 0; n < nbNodes; n++) {
+            if (alive[n]) {
+                list.add((E) elements[n]);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Add <i>point</i> to the front, unless it is weakly dominated, and remove the points it dominates.
+     *
+     * @param point   a point, copied
+     * @param element the element attached to it
+     * @return true if the point has been added
+     */
+    public boolean add(int[] point, E element) {
+        if (isDominated(point)) {
+            return false;
+        }
+        removeDominatedBy(point);
+        int depth = insert(point.clone(), element);
+        size++;
+        last = element;
+        if (depth > 2 * (32 - Integer.numberOfLeadingZeros(nbNodes)) + 8) {
+            rebuild();
+        }
+        return true;
+    }
+
+    private int insert(int[] point, Object element) {
+        ensureCapacity();
+        int n = nbNodes++;
+        points[n] = point;
+        elements[n] = element;
+        left[n] = right[n] = -1;
+        alive[n] = true;
+        lo[n] = point.clone();
+        hi[n] = point.clone();
+        if (root == -1) {
+            root = n;
+            return 0;
+        }
+        int depth = 0;
+        int cur = root;
+        while (true) {
+            for (int i = 0; i < dim; i++) {
+                lo[cur][i] = Math.min(lo[cur][i], point[i]);
+                hi[cur][i] = Math.max(hi[cur][i], point[i]);
+            }
+            int d = depth % dim;
+            depth++;
+            if (point[d] < points[cur][d]) {
+                if (left[cur] == -1) {
+                    left[cur] = n;
+                    return depth;
+                }
+                cur = left[cur];
+            } else {
+                if (right[cur] == -1) {
+                    right[cur] = n;
+                    return depth;
+                }
+                cur = right[cur];
+            }
+        }
+    }
+
+    private void push(int n) {
+        if (n != -1) {
+            if (top == stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            stack[top++] = n;
+        }
+    }
+
+    /**
+     * @param point a point
+     * @return true if a point of the front weakly dominates <i>point</i>
+     */
+    public boolean isDominated(int[] point) {
+        top = 0;
+        push(root);
+        while (top > 0) {
+            int n = stack[--top];
+            if (!below(lo[n], point, -1)) {
+                continue;
+            }
+            if (alive[n] && below(points[n], point, -1)) {
+                return true;
+            }
+            push(left[n]);
+            push(right[n]);
+        }
+        return false;
+    }
+
+    /**
+     * Return the minimum value, in dimension <i>d</i>, of the points which are below <i>bounds</i>
+     * in all the other dimensions.
+     * Thus, a point that is not dominated and whose other coordinates are at least <i>bounds</i>
+     * must be strictly less than this value in dimension <i>d</i>.
+     *
+     * @param d      a dimension
+     * @param bounds a point
+     * @return the minimum value, {@link Integer#MAX_VALUE} if there is no such point
+     */
+    public int minOver(int d, int[] bounds) {
+        int best = Integer.MAX_VALUE;
+        top = 0;
+        push(root);
+        while (top > 0) {
+            int n = stack[--top];
+            if (lo[n][d] >= best || !below(lo[n], bounds, d)) {
+                continue;
+            }
+            if (alive[n] && points[n][d] < best && below(points[n], bounds, d)) {
+                best = points[n][d];
+            }
+            push(left[n]);
+            push(right[n]);
+        }
+        return best;
+    }
+
+    /**
+     * Remove the points of the front which are weakly dominated by <i>point</i>.
+     *
+     * @param point a point
+     * @return the number of points removed
+     */
+    public int removeDominatedBy(int[] point) {
+        int removed = 0;
+        top = 0;
+        push(root);
+        while (top > 0) {
+            int n = stack[--top];
+            if (!below(point, hi[n], -1)) {
+                continue;
+            }
+            if (alive[n] && below(point, points[n], -1)) {
+                alive[n] = false;
+                elements[n] = null;
+                removed++;
+            }
+            push(left[n]);
+            push(right[n]);
+        }
+        size -= removed;
+        if (nbNodes - size > size + 16) {
+            rebuild();
+        }
+        return removed;
+    }
+
+    /**
+     * @return true if a<sub>i</sub> &le; b<sub>i</sub> for all i but <i>except</i>
+     */
+    private boolean below(int[] a, int[] b, int except) {
+        for (int i = 0; i < dim; i++) {
+            if (i != except && a[i] > b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Build a balanced tree from the points still in the front
+     */
+    private void rebuild() {
+        int[][] _points = new int[size][];
+        Object[] _elements = new Object[size];
+        Integer[] order = new Integer[size];
+        int k = 0;
+        for (int n = 0; n < nbNodes; n++) {
+            if (alive[n]) {
+                _points[k] = points[n];
+                _elements[k] = elements[n];
+                order[k] = k;
+                k++;
+            }
+        }
+        allocate(Math.max(16, size * 3 / 2));
+        nbNodes = 0;
+        root = build(_points, _elements, order, 0, size, 0);
+    }
+
+    private int build(int[][] _points, Object[] _elements, Integer[] order, int from, int to, int depth) {
+        if (from >= to) {
+            return -1;
+        }
+        int d = depth % dim;
+        Arrays.sort(order, from, to, Comparator.comparingInt(o -> _points[o][d]));
+        int mid = (from + to) >>> 1;
+        // points equal to the median in dimension d go right
+        while (mid > from && _points[order[mid - 1]][d] == _points[order[mid]][d]) {
+            mid--;
+        }
+        int n = nbNodes++;
+        int p = order[mid];
+        points[n] = _points[p];
+        elements[n] = _elements[p];
+        alive[n] = true;
+        left[n] = build(_points, _elements, order, from, mid, depth + 1);
+        right[n] = build(_points, _elements, order, mid + 1, to, depth + 1);
+        lo[n] = points[n].clone();
+        hi[n] = points[n].clone();
+        for (int c : new int[]{left[n], right[n]}) {
+            if (c != -1) {
+                for (int i = 0; i < dim; i++) {
+                    lo[n][i] = Math.min(lo[n][i], lo[c][i]);
+                    hi[n][i] = Math.max(hi[n][i], hi[c][i]);
+                }
+            }
+        }
+        return n;
+    }
+}
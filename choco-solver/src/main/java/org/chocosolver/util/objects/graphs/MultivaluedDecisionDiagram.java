@@ -31,12 +31,17 @@ package org.chocosolver.util.objects.graphs;
 
 import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.hash.TIntIntHashMap;
+import org.chocosolver.solver.constraints.extension.CompactTuples;
 import org.chocosolver.solver.constraints.extension.Tuples;
 import org.chocosolver.solver.variables.IntVar;
 
 import java.io.Serializable;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  * A Multi-valued Decision Diagram (MDD for short) to store
@@ -55,6 +60,11 @@ public class MultivaluedDecisionDiagram implements Serializable {
      */
     public static final int EMPTY = 0;
 
+    /**
+     * Canonical reduced MDDs, weakly referenced, see {@link #reduced(int[][], Tuples)}
+     */
+    private static final Map<Signature, WeakReference<MultivaluedDecisionDiagram>> CACHE = new WeakHashMap<>();
+
     /**
      * Store the number of variables
      */
@@ -81,6 +91,11 @@ public class MultivaluedDecisionDiagram implements Serializable {
     private final boolean compactOnce;
     private final boolean sortTuples;
 
+    /**
+     * Key of a canonical MDD in the cache, null otherwise. Hold here to keep the cache entry alive.
+     */
+    private transient Signature signature;
+
     // TEMPORARY DATA STRUCTURE, PREFIX WITH "_", CLEARED AFTER USAGE
     private TIntIntHashMap _nodesToRemove; // store the nodes to remove and the size of each node
     private ArrayList<int[]>[][] _identicalNodes; // store child nodes of a node
@@ -182,6 +197,157 @@ public class MultivaluedDecisionDiagram implements Serializable {
         this._pos = MDD._pos.clone();
     }
 
+    /**
+     * Create a reduced MDD, built at once from lexicographically sorted tuples.
+     *
+     * @param SIGNATURE the tuples and the initial domains
+     */
+    @SuppressWarnings("unchecked")
+    private MultivaluedDecisionDiagram(Signature SIGNATURE) {
+        this.nbLayers = SIGNATURE.offsets.length;
+        this.offsets = SIGNATURE.offsets;
+        this.sizes = SIGNATURE.sizes;
+        this.compactOnce = true;
+        this.sortTuples = false;
+        this.signature = SIGNATURE;
+        this._pos = new int[nbLayers];
+        this._nodesToRemove = new TIntIntHashMap(16, .5f, -1, -1);
+        this._identicalNodes = new ArrayList[nbLayers][];
+        this._nodeId = new TIntArrayList[nbLayers][];
+        this.mdd = new int[nbLayers == 0 ? 0 : sizes[0]];
+        this.nextFreeCell = mdd.length;
+        if (nbLayers > 0) {
+            build(SIGNATURE.tuples);
+        }
+    }
+
+    /**
+     * Return the reduced MDD of a set of tuples over an array of flatten domains.
+     * <p>
+     * The tuples are sorted and inserted in a single pass, and a node is merged with an identical one
+     * as soon as no more tuple can reach it, so the diagram never holds more than one branch before reduction.
+     * Moreover, reduced MDDs are hash-consed: calling this method twice with the same tuples and domains
+     * returns the same instance, which can thus be shared among constraints.
+     * As a consequence, the returned MDD is read-only: adding tuples to it throws an
+     * {@link UnsupportedOperationException}. An MDD to complete must be created with a constructor instead:
+     * its nodes are not shared until it is compacted.
+     *
+     * @param FLATDOM array of flatten domains
+     * @param TUPLES  set of (allowed) tuples
+     * @return the canonical reduced MDD
+     */
+    public static MultivaluedDecisionDiagram reduced(int[][] FLATDOM, Tuples TUPLES) {
+        int[] offsets = new int[FLATDOM.length];
+        int[] sizes = new int[FLATDOM.length];
+        for (int i = 0; i < FLATDOM.length; i++) {
+            offsets[i] = FLATDOM[i][0];
+            sizes[i] = FLATDOM[i][FLATDOM[i].length - 1] - FLATDOM[i][0] + 1;
+        }
+        Signature key = new Signature(TUPLES.compact(), offsets, sizes);
+        synchronized (CACHE) {
+            WeakReference<MultivaluedDecisionDiagram> ref = CACHE.get(key);
+            MultivaluedDecisionDiagram mdd = ref == null ? null : ref.get();
+            if (mdd == null) {
+                mdd = new MultivaluedDecisionDiagram(key);
+                CACHE.put(key, new WeakReference<>(mdd));
+            }
+            return mdd;
+        }
+    }
+
+    /**
+     * Return the reduced MDD of a set of tuples over the initial domains of some variables.
+     *
+     * @param VARIABLES array of variables
+     * @param TUPLES    set of (allowed) tuples
+     * @return the canonical reduced MDD
+     * @see #reduced(int[][], Tuples)
+     */
+    public static MultivaluedDecisionDiagram reduced(IntVar[] VARIABLES, Tuples TUPLES) {
+        return reduced(flattenDomain(VARIABLES), TUPLES);
+    }
+
+    /**
+     * Build the reduced MDD in one pass over the sorted tuples.
+     * The nodes of the current branch are kept apart, one per layer, and registered once the next tuple diverges from it.
+     * The root node is written last, in the first cells.
+     *
+     * @param TUPLES tuples to add
+     */
+    private void build(CompactTuples TUPLES) {
+        int[][] sorted = new int[TUPLES.nbTuples()][];
+        int n = 0;
+        for (int t = 0; t < sorted.length; t++) {
+            int[] tuple = TUPLES.get(t);
+            boolean valid = true;
+            for (int i = 0; i < nbLayers && valid; i++) {
+                valid = tuple[i] >= offsets[i] && tuple[i] - offsets[i] < sizes[i];
+            }
+            if (valid) {
+                sorted[n++] = tuple;
+            }
+        }
+        Arrays.sort(sorted, 0, n, (t1, t2) -> {
+            for (int i = 0; i < nbLayers; i++) {
+                if (t1[i] != t2[i]) {
+                    return Integer.compare(t1[i], t2[i]);
+                }
+            }
+            return 0;
+        });
+        int[][] branch = new int[nbLayers][];
+        for (int i = 0; i < nbLayers; i++) {
+            branch[i] = new int[sizes[i]];
+        }
+        Map<Node, Integer> registry = new HashMap<>();
+        int[] previous = null;
+        for (int t = 0; t < n; t++) {
+            int[] tuple = sorted[t];
+            int k = 0;
+            if (previous != null) {
+                while (k < nbLayers && previous[k] == tuple[k]) {
+                    k++;
+                }
+                if (k == nbLayers) { // duplicate tuple
+                    continue;
+                }
+                register(branch, previous, k, registry);
+            }
+            branch[nbLayers - 1][tuple[nbLayers - 1] - offsets[nbLayers - 1]] = TERMINAL;
+            previous = tuple;
+        }
+        if (previous != null) {
+            register(branch, previous, 0, registry);
+        }
+        System.arraycopy(branch[0], 0, mdd, 0, sizes[0]);
+        mdd = Arrays.copyOf(mdd, nextFreeCell);
+    }
+
+    /**
+     * Register the nodes of the current branch below <i>layer</i>, from the deepest one,
+     * and make their parents point to their canonical copy.
+     *
+     * @param branch   nodes of the current branch
+     * @param path     tuple leading to the current branch
+     * @param layer    the nodes strictly below it are registered
+     * @param registry canonical nodes, with their position in the diagram
+     */
+    private void register(int[][] branch, int[] path, int layer, Map<Node, Integer> registry) {
+        for (int i = nbLayers - 1; i > layer; i--) {
+            Node node = new Node(i, branch[i].clone());
+            Integer id = registry.get(node);
+            if (id == null) {
+                id = nextFreeCell;
+                ensureCapacity(nextFreeCell + sizes[i]);
+                System.arraycopy(node.edges, 0, mdd, nextFreeCell, sizes[i]);
+                nextFreeCell += sizes[i];
+                registry.put(node, id);
+            }
+            branch[i - 1][path[i - 1] - offsets[i - 1]] = id;
+            Arrays.fill(branch[i], EMPTY);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     private void init(Tuples TUPLES) {
         nextFreeCell = sizes[0];
@@ -204,8 +370,10 @@ public class MultivaluedDecisionDiagram implements Serializable {
      * Add all tuples within the MDD
      *
      * @param TUPLES tuples to add
+     * @throws UnsupportedOperationException if this MDD has been returned by {@link #reduced(int[][], Tuples)}
      */
     public void addTuples(Tuples TUPLES) {
+        checkModifiable();
         if (sortTuples) TUPLES.sort();
         for (int t = 0; t < TUPLES.nbTuples(); t++) {
             addTuple(TUPLES.get(t));
@@ -216,8 +384,10 @@ public class MultivaluedDecisionDiagram implements Serializable {
      * Add a tuple to the MDD
      *
      * @param TUPLE tuple to add
+     * @throws UnsupportedOperationException if this MDD has been returned by {@link #reduced(int[][], Tuples)}
      */
     public void addTuple(int[] TUPLE) {
+        checkModifiable();
         for (int i = 0; i < nbLayers; i++) {
             // get the position of the value relatively to the offset of each variable
             _pos[i] = TUPLE[i] - offsets[i];
@@ -242,6 +412,15 @@ public class MultivaluedDecisionDiagram implements Serializable {
         }
     }
 
+    /**
+     * A canonical MDD may be shared among constraints, and solvers: it cannot be modified.
+     */
+    private void checkModifiable() {
+        if (signature != null) {
+            throw new UnsupportedOperationException("A reduced MDD is shared and cannot be modified");
+        }
+    }
+
     /**
      * Ensure all data structure are correctly sized.
      *
@@ -387,7 +566,7 @@ public class MultivaluedDecisionDiagram implements Serializable {
     }
 
     /**
-     * Return the diagram (not a copy) of the MDD
+     * Return the diagram (not a copy) of the MDD, which must not be modified
      */
     public int[] getDiagram() {
         return mdd;
@@ -454,4 +633,63 @@ public class MultivaluedDecisionDiagram implements Serializable {
         return new MultivaluedDecisionDiagram(this);
     }
 
+    /**
+     * A node of a reduced MDD under construction, identified by its layer and its outgoing edges
+     */
+    private static final class Node {
+        final int layer;
+        final int[] edges;
+        final int hash;
+
+        Node(int layer, int[] edges) {
+            this.layer = layer;
+            this.edges = edges;
+            this.hash = 31 * layer + Arrays.hashCode(edges);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Node)) return false;
+            Node that = (Node) o;
+            return layer == that.layer && hash == that.hash && Arrays.equals(edges, that.edges);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Identify a reduced MDD by its tuples and its initial domains
+     */
+    private static final class Signature {
+        final CompactTuples tuples;
+        final int[] offsets;
+        final int[] sizes;
+        final int hash;
+
+        Signature(CompactTuples tuples, int[] offsets, int[] sizes) {
+            this.tuples = tuples;
+            this.offsets = offsets;
+            this.sizes = sizes;
+            this.hash = 31 * (31 * tuples.hashCode() + Arrays.hashCode(offsets)) + Arrays.hashCode(sizes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Signature)) return false;
+            Signature that = (Signature) o;
+            return hash == that.hash && Arrays.equals(offsets, that.offsets)
+                    && Arrays.equals(sizes, that.sizes) && tuples.equals(that.tuples);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
 }
@@ -51,7 +51,7 @@ public class CPUPlayer extends UCB1Player{
     @Override
     public void update(int arm, double CPUtime){ 
 		MAX=Math.max(MAX, CPUtime);
-		super.update(arm, 1.0-(CPUtime/MAX));
+		super.update(arm, MAX > 0 ? 1.0-(CPUtime/MAX) : 1.0);
     }
 
   
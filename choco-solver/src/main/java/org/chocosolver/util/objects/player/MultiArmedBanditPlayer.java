@@ -76,6 +76,13 @@ public abstract class MultiArmedBanditPlayer {
      */
     public abstract void update(int arm, double reward);
 
+    /**
+     * @return the number of arms of this player
+     */
+    public int getNbArms() {
+        return nbArms;
+    }
+
     protected static void shuffle(int[] array, long seed) {
         Random rand = new Random(seed);
         int swapIndex;
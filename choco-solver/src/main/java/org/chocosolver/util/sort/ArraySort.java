@@ -36,9 +36,10 @@
 
 package org.chocosolver.util.sort;
 
+import java.io.Serializable;
 import java.util.Comparator;
 
-public class ArraySort<T> {
+public class ArraySort<T> implements Serializable {
 
 	//***********************************************************************************
 	// VARIABLES
@@ -0,0 +1,304 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.util.tools;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An in-process inference engine for decision trees and random forests.
+ * <br/>
+ * The trees are compiled into flat primitive arrays, so that scoring a vector of features does not allocate
+ * and only costs a few array accesses per tree level.
+ * A forest is loaded from the textual description output by Spark MLlib (<code>toDebugString()</code>)
+ * of a <code>DecisionTreeModel</code> or of a <code>RandomForestModel</code>, with continuous splits only,
+ * which thus only has to be saved once by the training pipeline:
+ * <pre>
+ * TreeEnsembleModel classifier with 2 trees
+ *   Tree 0:
+ *     If (feature 0 &lt;= 0.5)
+ *      Predict: 0.0
+ *     Else (feature 0 &gt; 0.5)
+ *      Predict: 1.0
+ *   Tree 1:
+ *     Predict: 1.0
+ * </pre>
+ * A classifier predicts the label with the most votes (the smallest one on ties), a regressor the mean of the predictions.
+ * <p>
+ * Instances are not thread-safe.
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public class DecisionForest implements Serializable {
+
+    /**
+     * Index of the feature tested by each node, -1 for leaves
+     */
+    private final int[] feature;
+    /**
+     * Threshold of each internal node: the left child is chosen when the feature is less than or equal to it
+     */
+    private final double[] threshold;
+    /**
+     * Children of each internal node
+     */
+    private final int[] left, right;
+    /**
+     * Prediction of each leaf
+     */
+    private final double[] value;
+    /**
+     * Index of the root of each tree
+     */
+    private final int[] roots;
+    private final boolean classifier;
+    /**
+     * Number of votes per label, reused from one prediction to the other
+     */
+    private final int[] votes;
+
+    /**
+     * Build a forest from its flat representation.
+     *
+     * @param feature    index of the feature tested by each node, -1 for leaves
+     * @param threshold  threshold of each internal node
+     * @param left       left child of each internal node
+     * @param right      right child of each internal node
+     * @param value      prediction of each leaf (a label, that is, a non-negative integer, for classifiers)
+     * @param roots      index of the root of each tree
+     * @param classifier true for a classifier, false for a regressor
+     */
+    public DecisionForest(int[] feature, double[] threshold, int[] left, int[] right, double[] value, int[] roots, boolean classifier) {
+        this.feature = feature;
+        this.threshold = threshold;
+        this.left = left;
+        this.right = right;
+        this.value = value;
+        this.roots = roots;
+        this.classifier = classifier;
+        int nbLabels = 0;
+        if (classifier) {
+            for (int i = 0; i < feature.length; i++) {
+                if (feature[i] == -1) {
+                    nbLabels = Math.max(nbLabels, (int) value[i] + 1);
+                }
+            }
+        }
+        this.votes = new int[nbLabels];
+    }
+
+    /**
+     * Predict the label (or the value, for a regressor) of a vector of features.
+     *
+     * @param features a vector of features
+     * @return the prediction of the forest
+     */
+    public double predict(double[] features) {
+        if (classifier) {
+            Arrays.fill(votes, 0);
+            for (int t = 0; t < roots.length; t++) {
+                votes[(int) value[leaf(roots[t], features)]]++;
+            }
+            int best = 0;
+            for (int l = 1; l < votes.length; l++) {
+                if (votes[l] > votes[best]) {
+                    best = l;
+                }
+            }
+            return best;
+        } else {
+            double sum = 0.;
+            for (int t = 0; t < roots.length; t++) {
+                sum += value[leaf(roots[t], features)];
+            }
+            return sum / roots.length;
+        }
+    }
+
+    private int leaf(int node, double[] features) {
+        while (feature[node] >= 0) {
+            node = features[feature[node]] <= threshold[node] ? left[node] : right[node];
+        }
+        return node;
+    }
+
+    /**
+     * @return the number of trees in this forest
+     */
+    public int getNbTrees() {
+        return roots.length;
+    }
+
+    /**
+     * @return true if this forest is a classifier, false if it is a regressor
+     */
+    public boolean isClassifier() {
+        return classifier;
+    }
+
+    //***********************************************************************************
+    // LOADING
+    //***********************************************************************************
+
+    /**
+     * Load a forest from a local file containing the debug string of a Spark MLlib tree model.
+     *
+     * @param path path of the file
+     * @return the forest described in the file
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static DecisionForest load(Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            List<String> lines = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty()) {
+                    lines.add(line);
+                }
+            }
+            return parse(lines);
+        }
+    }
+
+    /**
+     * Parse the debug string of a Spark MLlib tree model.
+     *
+     * @param debugString the debug string of a DecisionTreeModel or of a tree ensemble model
+     * @return the forest described by the debug string
+     * @throws IOException if the debug string is malformed
+     */
+    public static DecisionForest parse(String debugString) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (String line : debugString.split("\n")) {
+            line = line.trim();
+            if (!line.isEmpty()) {
+                lines.add(line);
+            }
+        }
+        return parse(lines);
+    }
+
+    private static DecisionForest parse(List<String> lines) throws IOException {
+        if (lines.isEmpty()) {
+            throw new IOException("Empty model");
+        }
+        Parser parser = new Parser(lines);
+        boolean classifier = !lines.get(0).contains("regressor");
+        List<Integer> roots = new ArrayList<>();
+        parser.pos = lines.get(0).startsWith("Predict") || lines.get(0).startsWith("If") ? 0 : 1;
+        while (parser.pos < lines.size()) {
+            if (lines.get(parser.pos).startsWith("Tree ")) {
+                parser.pos++;
+            }
+            roots.add(parser.node());
+        }
+        if (roots.isEmpty()) {
+            throw new IOException("No tree found");
+        }
+        int n = parser.feature.size();
+        int[] feature = new int[n], left = new int[n], right = new int[n];
+        double[] threshold = new double[n], value = new double[n];
+        for (int i = 0; i < n; i++) {
+            feature[i] = parser.feature.get(i);
+            left[i] = parser.left.get(i);
+            right[i] = parser.right.get(i);
+            threshold[i] = parser.threshold.get(i);
+            value[i] = parser.value.get(i);
+        }
+        int[] r = new int[roots.size()];
+        for (int i = 0; i < r.length; i++) {
+            r[i] = roots.get(i);
+        }
+        return new DecisionForest(feature, threshold, left, right, value, r, classifier);
+    }
+
+    /**
+     * Recursive descent parser of the nodes of a tree, in pre-order.
+     */
+    private static class Parser {
+        final List<String> lines;
+        final List<Integer> feature = new ArrayList<>(), left = new ArrayList<>(), right = new ArrayList<>();
+        final List<Double> threshold = new ArrayList<>(), value = new ArrayList<>();
+        int pos;
+
+        Parser(List<String> lines) {
+            this.lines = lines;
+        }
+
+        int node() throws IOException {
+            if (pos >= lines.size()) {
+                throw new IOException("Unexpected end of model");
+            }
+            String line = lines.get(pos++);
+            int id = feature.size();
+            feature.add(-1);
+            left.add(-1);
+            right.add(-1);
+            threshold.add(0.);
+            value.add(0.);
+            if (line.startsWith("Predict:")) {
+                value.set(id, number(line.substring("Predict:".length())));
+            } else if (line.startsWith("If (feature ")) {
+                if (!line.contains("<=")) {
+                    throw new IOException("Only continuous splits are supported: " + line);
+                }
+                String[] split = line.substring("If (feature ".length(), line.lastIndexOf(')')).split("<=");
+                feature.set(id, (int) number(split[0]));
+                threshold.set(id, number(split[1]));
+                left.set(id, node());
+                if (pos >= lines.size() || !lines.get(pos).startsWith("Else")) {
+                    throw new IOException("Missing else branch for: " + line);
+                }
+                pos++;
+                right.set(id, node());
+            } else {
+                throw new IOException("Unexpected line: " + line);
+            }
+            return id;
+        }
+
+        private static double number(String s) throws IOException {
+            try {
+                return Double.parseDouble(s.trim());
+            } catch (NumberFormatException e) {
+                throw new IOException("Not a number: " + s, e);
+            }
+        }
+    }
+}
@@ -145,7 +145,7 @@ public class Featurizer {
     private int countNumberOfTupleContainingIntVarValue(int varIndex, int value, Tuples tuples){
     	int count = 0;
     	for(int tupleIndex = 0; tupleIndex < tuples.nbTuples(); tupleIndex++){
-    		if(tuples.get(tupleIndex)[varIndex] == value){
+    		if(tuples.get(tupleIndex, varIndex) == value){
     			count++;
     		}
     	}
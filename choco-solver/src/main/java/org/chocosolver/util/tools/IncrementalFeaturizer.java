@@ -0,0 +1,429 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.util.tools;
+
+import org.chocosolver.memory.IStateInt;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.constraints.extension.Tuples;
+import org.chocosolver.solver.constraints.extension.nary.PropLargePredictive;
+import org.chocosolver.solver.variables.IVariableMonitor;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.events.IEventType;
+import org.chocosolver.util.objects.IntMap;
+
+import java.util.Arrays;
+
+/**
+ * An incremental version of {@link Featurizer}, which computes the same features, in the same order,
+ * but which is meant to be called on each propagation.
+ * <br/>
+ * It is built lazily, on the first call to {@link #getFeaturesArray(int)}, and then:
+ * <ul>
+ * <li>the number of tuples containing each (variable, value) pair of the predictive tables is counted once,</li>
+ * <li>the number of constraints per variable is only computed again when constraints are added,</li>
+ * <li>the domain sizes and holes of the variables are maintained through variable monitors, changes being undone
+ * on backtrack thanks to a stack whose top is backtrackable; they are counted in two Fenwick trees, which give
+ * the quartiles in logarithmic time, unless domains are too large (they are then sorted on each call).</li>
+ * </ul>
+ * The features of the predictive tables remain linear in the size of the domains of their variables.
+ * The array returned by {@link #getFeaturesArray(int)} is reused from one call to the other,
+ * and by all the callers of a featurizer shared through {@link #of(Solver)}.
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public class IncrementalFeaturizer implements IVariableMonitor<IntVar> {
+
+    // indices of the features, sorted as the keys of Featurizer#getFeatures() (and the "mask" key)
+    /**
+     * Maximum size of a Fenwick tree, beyond which quartiles are computed by sorting
+     */
+    private static final int MAX_TREE = 1 << 16;
+
+    /**
+     * Number of features, mask included
+     */
+    public static final int NB_FEATURES = 13;
+
+    private static final int CURRENT_DEPTH = 0, F_QUART_DOMAIN = 1, F_QUART_HOLES = 2, L_QUART_DOMAIN = 3,
+            L_QUART_HOLES = 4, M_QUART_DOMAIN = 5, M_QUART_HOLES = 6, MASK = 7, MEAN_DOMAIN = 8, MEAN_HOLES = 9,
+            MEAN_VAR_CONSTRAINTS = 10, PHASE_TRANSITION_INDICATOR = 11, TUP_PER_VVP_NORM = 12;
+
+    /**
+     * Name of the hook, in a solver, of the featurizer shared by its propagators
+     */
+    private static final String HOOK = "incremental-featurizer";
+
+    private final Solver solver;
+    private final double[] features = new double[NB_FEATURES];
+
+    private IntVar[] vars;
+    private IntMap id2i; // variable id to index in vars
+    private int[] sizes, holes; // known domain size and number of holes of each variable
+    private long sumSizes, sumHoles;
+    private double sumLogSizes;
+    private int[] treeSizes, treeHoles; // Fenwick trees counting the variables per domain size (resp. holes), if not too large
+    private int[] sorted; // buffer used to sort sizes (resp. holes) when there is no Fenwick tree
+    private boolean invalid; // set to true when the structures must be built again
+    private int nbBuilds; // number of times the structures have been built
+    private final IStateInt epoch; // value of nbBuilds in the current world, differs from it after backtracking above the last build
+    private int nbVars;
+    private int nbCstrs;
+    private double meanVarConstraints;
+
+    // undo stack: variable index, former size, former holes
+    private int[] stack;
+    private int top;
+    private final IStateInt stateTop;
+
+    // predictive tables: propagators, and number of tuples containing each value, per variable
+    private PropLargePredictive[] tables;
+    private int[][][] counts;
+    private int[][] offsets;
+
+    /**
+     * Create a featurizer of the current state of <i>solver</i>.
+     * It should be created before the search starts, for instance in the constructor of a propagator.
+     *
+     * @param solver the solver to observe
+     */
+    public IncrementalFeaturizer(Solver solver) {
+        this.solver = solver;
+        this.invalid = true;
+        this.epoch = solver.getEnvironment().makeInt(0);
+        this.stateTop = solver.getEnvironment().makeInt(0);
+    }
+
+    /**
+     * Return the featurizer shared by the propagators of <i>solver</i>, creating it if needed.
+     * The features do not depend on the propagator asking for them: sharing the featurizer avoids
+     * monitoring each variable, and counting the tuples of the predictive tables, once per propagator.
+     *
+     * @param solver a solver
+     * @return the featurizer of <i>solver</i>
+     */
+    public static IncrementalFeaturizer of(Solver solver) {
+        IncrementalFeaturizer featurizer = (IncrementalFeaturizer) solver.getHook(HOOK);
+        if (featurizer == null) {
+            featurizer = new IncrementalFeaturizer(solver);
+            solver.addHook(HOOK, featurizer);
+        }
+        return featurizer;
+    }
+
+    /**
+     * Return the features of the current state of the solver, then the mask, as {@link Featurizer#getFeaturesArray(int)}.
+     *
+     * @param mask event mask
+     * @return an array of features, reused from one call to the other
+     */
+    public double[] getFeaturesArray(int mask) {
+        if (invalid || epoch.get() != nbBuilds || nbVars != solver.getNbVars()) {
+            initialize();
+        } else {
+            undoBacktracked();
+        }
+        if (nbCstrs != solver.getNbCstrs()) {
+            initializeConstraints();
+        }
+        int n = vars.length;
+        features[CURRENT_DEPTH] = solver.getMeasures().getCurrentDepth();
+        features[MASK] = mask;
+        features[MEAN_DOMAIN] = mean(sumSizes, n);
+        int[] values = sort(treeSizes, sizes);
+        features[F_QUART_DOMAIN] = percentile(treeSizes, values, n, 25, sumSizes);
+        features[M_QUART_DOMAIN] = percentile(treeSizes, values, n, 50, sumSizes);
+        features[L_QUART_DOMAIN] = percentile(treeSizes, values, n, 75, sumSizes);
+        features[MEAN_HOLES] = mean(sumHoles, n);
+        values = sort(treeHoles, holes);
+        features[F_QUART_HOLES] = percentile(treeHoles, values, n, 25, sumHoles);
+        features[M_QUART_HOLES] = percentile(treeHoles, values, n, 50, sumHoles);
+        features[L_QUART_HOLES] = percentile(treeHoles, values, n, 75, sumHoles);
+        features[MEAN_VAR_CONSTRAINTS] = meanVarConstraints;
+        computeTableFeatures();
+        return features;
+    }
+
+    @Override
+    public void onUpdate(IntVar var, IEventType evt) {
+        if (invalid || epoch.get() != nbBuilds) {
+            invalid = true;
+            return;
+        }
+        undoBacktracked();
+        int i = id2i.get(var.getId());
+        int size = var.getDomainSize();
+        int hole = var.getRange() - size;
+        if (size != sizes[i] || hole != holes[i]) {
+            if (top + 3 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 3 / 2 + 3);
+            }
+            stack[top++] = i;
+            stack[top++] = sizes[i];
+            stack[top++] = holes[i];
+            stateTop.set(top);
+            update(i, size, hole);
+        }
+    }
+
+    /**
+     * Restore the domain sizes and holes of the variables modified in the worlds which have been backtracked.
+     */
+    private void undoBacktracked() {
+        int t = stateTop.get();
+        while (top > t) {
+            int hole = stack[--top];
+            int size = stack[--top];
+            int i = stack[--top];
+            update(i, size, hole);
+        }
+    }
+
+    private void update(int i, int size, int hole) {
+        add(treeSizes, sizes[i], -1);
+        add(treeSizes, size, 1);
+        add(treeHoles, holes[i], -1);
+        add(treeHoles, hole, 1);
+        sumSizes += size - sizes[i];
+        sumHoles += hole - holes[i];
+        sumLogSizes += Math.log(size) - Math.log(sizes[i]);
+        sizes[i] = size;
+        holes[i] = hole;
+    }
+
+    //***********************************************************************************
+    // INITIALIZATION
+    //***********************************************************************************
+
+    private void initialize() {
+        // variables are retrieved in order of creation, and monitors are never removed
+        IntVar[] _vars = solver.retrieveIntVars();
+        for (int i = vars == null ? 0 : vars.length; i < _vars.length; i++) {
+            _vars[i].addMonitor(this);
+        }
+        if (vars == null || vars.length != _vars.length) {
+            vars = _vars;
+            id2i = new IntMap(vars.length);
+            for (int i = 0; i < vars.length; i++) {
+                id2i.put(vars[i].getId(), i);
+            }
+        }
+        nbVars = solver.getNbVars();
+        int n = vars.length;
+        sizes = new int[n];
+        holes = new int[n];
+        int maxSize = 1, maxRange = 1;
+        sumSizes = sumHoles = 0;
+        sumLogSizes = 0.;
+        for (int i = 0; i < n; i++) {
+            sizes[i] = vars[i].getDomainSize();
+            holes[i] = vars[i].getRange() - sizes[i];
+            maxSize = Math.max(maxSize, sizes[i]);
+            maxRange = Math.max(maxRange, vars[i].getRange());
+            sumSizes += sizes[i];
+            sumHoles += holes[i];
+            sumLogSizes += Math.log(sizes[i]);
+        }
+        // below this world, a domain size cannot grow, and its number of holes is less than its range
+        treeSizes = maxSize + 2 <= MAX_TREE ? new int[maxSize + 2] : null;
+        treeHoles = maxRange + 1 <= MAX_TREE ? new int[maxRange + 1] : null;
+        for (int i = 0; i < n; i++) {
+            add(treeSizes, sizes[i], 1);
+            add(treeHoles, holes[i], 1);
+        }
+        sorted = treeSizes == null || treeHoles == null ? new int[n] : null;
+        stack = new int[3 * 16];
+        top = 0;
+        stateTop.set(0);
+        epoch.set(++nbBuilds);
+        invalid = false;
+    }
+
+    private void initializeConstraints() {
+        Constraint[] cstrs = solver.getCstrs();
+        nbCstrs = cstrs.length;
+        // number of (variable, constraint) pairs, each constraint being described by its first propagator
+        int[] stamps = new int[vars.length];
+        long total = 0;
+        int nbTables = 0;
+        for (int c = 0; c < cstrs.length; c++) {
+            Propagator prop = cstrs[c].getPropagator(0);
+            for (int j = 0; j < prop.getNbVars(); j++) {
+                int i = id2i.get(prop.getVar(j).getId());
+                if (i > -1 && stamps[i] != c + 1) {
+                    stamps[i] = c + 1;
+                    total++;
+                }
+            }
+            if (prop instanceof PropLargePredictive) {
+                nbTables++;
+            }
+        }
+        meanVarConstraints = (double) total / ((double) cstrs.length * vars.length);
+        // count the tuples containing each value
+        tables = new PropLargePredictive[nbTables];
+        counts = new int[nbTables][][];
+        offsets = new int[nbTables][];
+        for (int c = 0, k = 0; c < cstrs.length; c++) {
+            if (cstrs[c].getPropagator(0) instanceof PropLargePredictive) {
+                PropLargePredictive prop = (PropLargePredictive) cstrs[c].getPropagator(0);
+                Tuples tuples = prop.getPropagatorTuple();
+                int arity = prop.getNbVars();
+                tables[k] = prop;
+                counts[k] = new int[arity][];
+                offsets[k] = new int[arity];
+                for (int j = 0; j < arity; j++) {
+                    int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+                    for (int t = 0; t < tuples.nbTuples(); t++) {
+                        min = Math.min(min, tuples.get(t, j));
+                        max = Math.max(max, tuples.get(t, j));
+                    }
+                    offsets[k][j] = min;
+                    counts[k][j] = new int[max < min ? 0 : max - min + 1];
+                    for (int t = 0; t < tuples.nbTuples(); t++) {
+                        counts[k][j][tuples.get(t, j) - min]++;
+                    }
+                }
+                k++;
+            }
+        }
+    }
+
+    //***********************************************************************************
+    // FEATURES
+    //***********************************************************************************
+
+    private void computeTableFeatures() {
+        double phaseTransitionIndicator = 0.;
+        double tupPerVvpNorm = 0.;
+        int count = 0; // not reset from one table to the other, as in Featurizer
+        for (int k = 0; k < tables.length; k++) {
+            int maxValue = 0;
+            for (int j = 0; j < counts[k].length; j++) {
+                IntVar var = tables[k].getVar(j);
+                int[] cnt = counts[k][j];
+                int offset = offsets[k][j];
+                int ub = var.getUB();
+                for (int v = var.getLB(); v <= ub; v = var.nextValue(v)) {
+                    int c = v - offset >= 0 && v - offset < cnt.length ? cnt[v - offset] : 0;
+                    if (maxValue < c) {
+                        maxValue = c;
+                    }
+                    count += c;
+                }
+            }
+            int nbTuples = tables[k].getPropagatorTuple().nbTuples();
+            phaseTransitionIndicator += Math.log(1 - (double) maxValue / (double) nbTuples) / Math.log(2);
+            tupPerVvpNorm += (double) count / (double) nbTuples;
+        }
+        features[PHASE_TRANSITION_INDICATOR] = -1 * phaseTransitionIndicator / sumLogSizes;
+        features[TUP_PER_VVP_NORM] = tupPerVvpNorm;
+    }
+
+    /**
+     * Mean of the values normalized by their sum, as StatUtils.mean
+     */
+    private static double mean(long sum, int n) {
+        if (n == 0) {
+            return Double.NaN;
+        }
+        return sum > 0 ? 1. / n : 0.;
+    }
+
+    /**
+     * @return null if there is a Fenwick tree, the values sorted in a buffer otherwise
+     */
+    private int[] sort(int[] tree, int[] values) {
+        if (tree != null) {
+            return null;
+        }
+        System.arraycopy(values, 0, sorted, 0, values.length);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Percentile of the values normalized by their sum, estimated as StatUtils.percentile
+     */
+    private static double percentile(int[] tree, int[] sorted, int n, double p, long sum) {
+        if (n == 0) {
+            return Double.NaN;
+        }
+        double div = sum > 0 ? sum : 1.;
+        if (n == 1) {
+            return kth(tree, sorted, 1) / div;
+        }
+        double pos = p * (n + 1) / 100;
+        double fpos = Math.floor(pos);
+        int intPos = (int) fpos;
+        double dif = pos - fpos;
+        if (pos < 1) {
+            return kth(tree, sorted, 1) / div;
+        }
+        if (pos >= n) {
+            return kth(tree, sorted, n) / div;
+        }
+        double lower = kth(tree, sorted, intPos);
+        double upper = kth(tree, sorted, intPos + 1);
+        return (lower + dif * (upper - lower)) / div;
+    }
+
+    //***********************************************************************************
+    // FENWICK TREES, over values from 0 to tree.length - 2
+    //***********************************************************************************
+
+    private static void add(int[] tree, int value, int delta) {
+        if (tree == null) {
+            return;
+        }
+        for (int i = value + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * @return the k-th smallest value (k starting at 1)
+     */
+    private static int kth(int[] tree, int[] sorted, int k) {
+        if (tree == null) {
+            return sorted[k - 1];
+        }
+        int pos = 0;
+        for (int step = Integer.highestOneBit(tree.length); step > 0; step >>= 1) {
+            if (pos + step < tree.length && tree[pos + step] < k) {
+                pos += step;
+                k -= tree[pos];
+            }
+        }
+        return pos; // pos + 1 is the index of the value, which is stored shifted by one
+    }
+}
@@ -0,0 +1,358 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.util.tools;
+
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.exception.SolverException;
+import org.chocosolver.solver.search.loop.monitors.IMonitorClose;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An asynchronous logger of training data, written in binary files by a background thread.
+ * <br/>
+ * Records are put in a lock-free ring buffer by the (single) thread of the solver, which never waits:
+ * when the buffer is full, or once the logger is closed, the record is dropped (see {@link #getDropped()}).
+ * A daemon thread moves them to memory-mapped files of bounded size (segments), named <i>prefix</i>-00000.bin,
+ * <i>prefix</i>-00001.bin, etc.
+ * <p>
+ * Numbers are written in little-endian order. Each segment starts with a header of 4 ints: {@link #MAGIC},
+ * {@link #VERSION}, the number of features and the size of a record, in bytes.
+ * Then each record is made of:
+ * <ul>
+ * <li>an int: the label, that is the index of the propagator run,</li>
+ * <li>an int: the index of the modified variable, -1 for a coarse-grained call,</li>
+ * <li>a long: the CPU time of the call, in nanoseconds,</li>
+ * <li>a long: the number of values removed by the call (all the values on failure),</li>
+ * <li>the features, as doubles.</li>
+ * </ul>
+ * Segments are truncated to their content when closed.
+ * <p>
+ * The propagators of a solver share a single logger, given by {@link #of(Solver, int)}, which is closed when
+ * the search ends.
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public class TrainingDataLogger implements Closeable {
+
+    public static final int MAGIC = 0x43504454; // CPDT
+    public static final int VERSION = 1;
+    private static final int HEADER = 16;
+    /**
+     * Time the writer waits when there is nothing to write, in nanoseconds
+     */
+    private static final long PARK = 200_000L;
+    /**
+     * Set in the head once the logger is closed, no record can be published then
+     */
+    private static final long CLOSED = Long.MIN_VALUE;
+    /**
+     * Name of the hook, in a solver, of the logger shared by its propagators
+     */
+    private static final String HOOK = "training-data-logger";
+    /**
+     * Distinguishes the prefixes of the loggers created in the same millisecond
+     */
+    private static final AtomicInteger COUNT = new AtomicInteger();
+
+    private final int nbFeatures;
+    private final int recordLongs;
+    private final int recordBytes;
+
+    /**
+     * Ring buffer of records, each one made of <code>recordLongs</code> longs
+     */
+    private final long[] ring;
+    private final int capacity;
+    /**
+     * Number of records produced, resp. consumed, since the creation.
+     * The {@link #CLOSED} bit of the head is set on close: a record is published by a CAS on the head,
+     * so either it is published before the logger is closed, and written, or it is dropped.
+     */
+    private final AtomicLong head = new AtomicLong(), tail = new AtomicLong();
+    private long dropped;
+
+    private final String prefix;
+    private final long segmentSize;
+    private int segment;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private volatile long written;
+
+    private final Thread writer;
+    private final Thread hook;
+    private volatile IOException failure;
+
+    /**
+     * Create a logger with a buffer of 2^16 records and segments of 64MB.
+     *
+     * @param prefix     prefix of the segment files, may contain directories
+     * @param nbFeatures number of features of a record
+     */
+    public TrainingDataLogger(String prefix, int nbFeatures) {
+        this(prefix, nbFeatures, 1 << 16, 64L << 20);
+    }
+
+    /**
+     * @param prefix      prefix of the segment files, may contain directories
+     * @param nbFeatures  number of features of a record
+     * @param capacity    number of records the ring buffer can hold, rounded up to a power of 2
+     * @param segmentSize maximum size of a segment, in bytes
+     */
+    public TrainingDataLogger(String prefix, int nbFeatures, int capacity, long segmentSize) {
+        this.prefix = prefix;
+        this.nbFeatures = nbFeatures;
+        this.recordLongs = 3 + nbFeatures;
+        this.recordBytes = 8 * recordLongs;
+        if (segmentSize < HEADER + recordBytes) {
+            throw new IllegalArgumentException("A segment must hold at least one record");
+        }
+        this.segmentSize = segmentSize;
+        this.capacity = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.ring = new long[this.capacity * recordLongs];
+        this.writer = new Thread(this::drain, "training-data-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        this.hook = new Thread(this::closeQuietly);
+        Runtime.getRuntime().addShutdownHook(hook);
+    }
+
+    /**
+     * Return the logger shared by the propagators of <i>solver</i>, creating it if needed.
+     * Data is written in files prefixed by "score" and the creation time.
+     * The logger is closed when the search of <i>solver</i> ends; the next call then creates a new one.
+     *
+     * @param solver     a solver
+     * @param nbFeatures number of features of a record
+     * @return the logger of <i>solver</i>, not closed
+     */
+    public static TrainingDataLogger of(Solver solver, int nbFeatures) {
+        TrainingDataLogger logger = (TrainingDataLogger) solver.getHook(HOOK);
+        if (logger == null) {
+            // declared once per solver, for the running search (if any) and the next ones
+            IMonitorClose closer = new IMonitorClose() {
+                @Override
+                public void afterClose() {
+                    TrainingDataLogger current = (TrainingDataLogger) solver.getHook(HOOK);
+                    if (current != null) {
+                        current.closeQuietly();
+                    }
+                }
+            };
+            solver.plugMonitor(closer);
+            solver.getSearchLoop().transferSearchMonitors(Collections.singletonList(closer));
+        }
+        if (logger == null || logger.isClosed()) {
+            logger = new TrainingDataLogger("score" + System.currentTimeMillis() + "-" + COUNT.getAndIncrement(), nbFeatures);
+            solver.addHook(HOOK, logger);
+        } else if (logger.nbFeatures != nbFeatures) {
+            throw new SolverException("The training data logger of the solver has "
+                    + logger.nbFeatures + " features, not " + nbFeatures);
+        }
+        return logger;
+    }
+
+    /**
+     * Log a record, without waiting. Must always be called by the same thread.
+     *
+     * @param label    index of the propagator run
+     * @param varIdx   index of the modified variable, -1 for a coarse-grained call
+     * @param time     CPU time of the call, in nanoseconds
+     * @param removed  number of values removed by the call
+     * @param features features of the state before the call, only the <i>nbFeatures</i> first ones are logged
+     * @return false if the record was dropped, because the buffer is full or the logger is closed
+     */
+    public boolean log(int label, int varIdx, long time, long removed, double[] features) {
+        long h = head.get();
+        if (h < 0 || h - tail.get() == capacity) {
+            dropped++;
+            return false;
+        }
+        int base = (int) (h & (capacity - 1)) * recordLongs;
+        ring[base] = ((long) label << 32) | (varIdx & 0xFFFFFFFFL);
+        ring[base + 1] = time;
+        ring[base + 2] = removed;
+        for (int i = 0; i < nbFeatures; i++) {
+            ring[base + 3 + i] = Double.doubleToRawLongBits(features[i]);
+        }
+        if (!head.compareAndSet(h, h + 1)) {
+            // closed in the meantime, the record will not be consumed
+            dropped++;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return true if this logger is closed, either explicitly or because a segment could not be written
+     */
+    public boolean isClosed() {
+        return head.get() < 0;
+    }
+
+    /**
+     * @return the number of records dropped so far
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * @return the number of records written so far
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                long t = tail.get();
+                long h = head.get();
+                // once closed, the head cannot move anymore
+                long end = h & ~CLOSED;
+                if (t == end) {
+                    if (h < 0) {
+                        break;
+                    }
+                    LockSupport.parkNanos(PARK);
+                    continue;
+                }
+                for (; t < end; t++) {
+                    write((int) (t & (capacity - 1)) * recordLongs);
+                    tail.lazySet(t + 1);
+                }
+            }
+            finish();
+        } catch (IOException e) {
+            failure = e;
+            markClosed();
+        }
+    }
+
+    private void write(int base) throws IOException {
+        if (buffer == null || buffer.remaining() < recordBytes) {
+            roll();
+        }
+        buffer.putInt((int) (ring[base] >>> 32));
+        buffer.putInt((int) ring[base]);
+        buffer.putLong(ring[base + 1]);
+        buffer.putLong(ring[base + 2]);
+        for (int i = 0; i < nbFeatures; i++) {
+            buffer.putDouble(Double.longBitsToDouble(ring[base + 3 + i]));
+        }
+        written++;
+    }
+
+    /**
+     * Close the current segment, if any, and open the next one
+     */
+    private void roll() throws IOException {
+        finish();
+        Path path = Paths.get(String.format("%s-%05d.bin", prefix, segment++));
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            parent.toFile().mkdirs();
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(nbFeatures);
+        buffer.putInt(recordBytes);
+    }
+
+    private void finish() throws IOException {
+        if (channel != null) {
+            int size = buffer.position();
+            buffer.force();
+            buffer = null;
+            channel.truncate(size);
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Write the pending records, and close the current segment.
+     *
+     * @throws IOException if a segment could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        markClosed();
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(hook);
+        } catch (IllegalStateException e) {
+            // the JVM is shutting down
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            // the writer has already stopped on this failure, nothing more can be done
+        }
+    }
+
+    /**
+     * Set the {@link #CLOSED} bit of the head, so that no record can be published anymore
+     */
+    private void markClosed() {
+        long h;
+        do {
+            h = head.get();
+        } while (h >= 0 && !head.compareAndSet(h, h | CLOSED));
+    }
+}
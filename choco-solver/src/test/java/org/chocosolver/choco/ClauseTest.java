@@ -31,16 +31,19 @@ package org.chocosolver.choco;
 
 import org.chocosolver.memory.IEnvironment;
 import org.chocosolver.solver.Cause;
+import org.chocosolver.solver.Settings;
 import org.chocosolver.solver.Solver;
 import org.chocosolver.solver.constraints.IntConstraintFactory;
 import org.chocosolver.solver.constraints.SatFactory;
 import org.chocosolver.solver.constraints.nary.cnf.LogOp;
 import org.chocosolver.solver.constraints.nary.cnf.PropSat;
 import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.search.strategy.ISF;
 import org.chocosolver.solver.search.strategy.IntStrategyFactory;
 import org.chocosolver.solver.variables.BoolVar;
 import org.chocosolver.solver.variables.VF;
 import org.chocosolver.solver.variables.VariableFactory;
+import org.chocosolver.util.ESat;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -313,4 +316,84 @@ public class ClauseTest {
         }
     }
 
+    private static Solver cnf(boolean learning, int nvars, int nclauses, long seed) {
+        Solver s = new Solver();
+        if (learning) {
+            s.set(new Settings() {
+                @Override
+                public boolean enableClauseLearningInSat() {
+                    return true;
+                }
+            });
+        }
+        Random rand = new Random(seed);
+        BoolVar[] bs = VF.boolArray("b", nvars, s);
+        for (int c = 0; c < nclauses; c++) {
+            BoolVar[] lits = new BoolVar[3];
+            for (int i = 0; i < 3; i++) {
+                lits[i] = rand.nextBoolean() ? bs[rand.nextInt(nvars)] : bs[rand.nextInt(nvars)].not();
+            }
+            SatFactory.addClauses(LogOp.or(lits), s);
+        }
+        s.addHook("bs", bs);
+        return s;
+    }
+
+    @Test(groups = "1s")
+    public void testLearningAllSolutions() {
+        for (int seed = 0; seed < 50; seed++) {
+            Solver s1 = cnf(false, 12, 40, seed);
+            s1.set(ISF.lexico_LB((BoolVar[]) s1.getHook("bs")));
+            s1.findAllSolutions();
+            Solver s2 = cnf(true, 12, 40, seed);
+            s2.set(ISF.lexico_LB((BoolVar[]) s2.getHook("bs")));
+            s2.findAllSolutions();
+            Assert.assertEquals(s2.getMeasures().getSolutionCount(), s1.getMeasures().getSolutionCount(), "seed: " + seed);
+            Solver s3 = cnf(true, 12, 40, seed);
+            s3.set(ISF.vsids(s3), ISF.lexico_LB((BoolVar[]) s3.getHook("bs")));
+            s3.findAllSolutions();
+            Assert.assertEquals(s3.getMeasures().getSolutionCount(), s1.getMeasures().getSolutionCount(), "seed: " + seed);
+        }
+    }
+
+    @Test(groups = "1s")
+    public void testLearningFindSolution() {
+        for (int seed = 0; seed < 20; seed++) {
+            Solver s1 = cnf(false, 40, 170, seed);
+            s1.set(ISF.lexico_LB((BoolVar[]) s1.getHook("bs")));
+            boolean sat = s1.findSolution();
+            Solver s2 = cnf(true, 40, 170, seed);
+            s2.set(ISF.vsids(s2), ISF.lexico_LB((BoolVar[]) s2.getHook("bs")));
+            Assert.assertEquals(s2.findSolution(), sat, "seed: " + seed);
+            if (sat) {
+                Assert.assertEquals(s2.isSatisfied(), ESat.TRUE);
+            }
+        }
+    }
+
+    @Test(groups = "1s")
+    public void testLearningPigeonHole() {
+        int n = 7;
+        Solver s = new Solver();
+        s.set(new Settings() {
+            @Override
+            public boolean enableClauseLearningInSat() {
+                return true;
+            }
+        });
+        BoolVar[][] p = VF.boolMatrix("p", n, n - 1, s);
+        for (int i = 0; i < n; i++) {
+            SatFactory.addBoolOrArrayEqualTrue(p[i]);
+        }
+        for (int h = 0; h < n - 1; h++) {
+            for (int i = 0; i < n; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    SatFactory.addClauses(LogOp.or(p[i][h].not(), p[j][h].not()), s);
+                }
+            }
+        }
+        s.set(ISF.vsids(s));
+        Assert.assertFalse(s.findSolution());
+        Assert.assertTrue(s.getMinisat().getSatSolver().numconflicts() > 0);
+    }
 }
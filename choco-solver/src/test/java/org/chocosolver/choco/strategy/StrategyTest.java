@@ -33,7 +33,13 @@ import org.chocosolver.memory.IEnvironment;
 import org.chocosolver.solver.Solver;
 import org.chocosolver.solver.constraints.ICF;
 import org.chocosolver.solver.constraints.set.SetConstraintsFactory;
+import org.chocosolver.solver.constraints.Propagator;
 import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.search.limits.BacktrackCounter;
+import org.chocosolver.solver.search.loop.SLF;
+import org.chocosolver.solver.search.loop.monitors.FailPerPropagator;
+import org.chocosolver.solver.search.loop.monitors.SMF;
+import org.chocosolver.solver.search.restart.MonotonicRestartStrategy;
 import org.chocosolver.solver.search.strategy.ISF;
 import org.chocosolver.solver.search.strategy.IntStrategyFactory;
 import org.chocosolver.solver.search.strategy.assignments.DecisionOperator;
@@ -52,6 +58,7 @@ import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.solver.variables.SetVar;
 import org.chocosolver.solver.variables.VF;
 import org.chocosolver.solver.variables.VariableFactory;
+import org.chocosolver.solver.variables.events.IEventType;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -406,4 +413,258 @@ public class StrategyTest {
         solver.findAllSolutions();
         Assert.assertEquals(solver.getMeasures().getSolutionCount(), 9);
     }
+
+    private static IntVar[] queens(Solver solver, int n) {
+        IntVar[] q = VF.enumeratedArray("q", n, 1, n, solver);
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                solver.post(ICF.arithm(q[i], "!=", q[j]));
+                solver.post(ICF.arithm(q[i], "!=", q[j], "+", j - i));
+                solver.post(ICF.arithm(q[i], "!=", q[j], "-", j - i));
+            }
+        }
+        // restarts and no-goods: domains are also modified and restored at the root node
+        SMF.nogoodRecordingFromRestarts(solver);
+        SLF.restart(solver, new BacktrackCounter(solver, 0), new MonotonicRestartStrategy(10), 20);
+        return q;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test(groups = "1s")
+    public void testHeapSelectors() {
+        HeapVariableSelector[] selectors = {new FirstFail(), new Smallest(), new Largest()};
+        for (HeapVariableSelector selector : selectors) {
+            Solver solver = new Solver();
+            IntVar[] q = queens(solver, 8);
+            VariableEvaluator<IntVar> evaluator = (VariableEvaluator<IntVar>) selector;
+            AbstractStrategy<IntVar> strategy = ISF.custom(selector, ISF.min_value_selector(), q);
+            solver.set(new AbstractStrategy<IntVar>(q) {
+                @Override
+                public boolean init() {
+                    return strategy.init();
+                }
+
+                @Override
+                public Decision<IntVar> getDecision() {
+                    // the former linear scan
+                    IntVar expected = null;
+                    double best = Double.POSITIVE_INFINITY;
+                    for (IntVar v : q) {
+                        if (v.getDomainSize() > 1 && evaluator.evaluate(v) < best) {
+                            best = evaluator.evaluate(v);
+                            expected = v;
+                        }
+                    }
+                    Decision<IntVar> d = strategy.getDecision();
+                    Assert.assertEquals(d == null ? null : d.getDecisionVariables(), expected);
+                    return d;
+                }
+            });
+            solver.findAllSolutions();
+            Assert.assertEquals(solver.getMeasures().getSolutionCount(), 92);
+        }
+    }
+
+    @Test(groups = "1s")
+    public void testDomOverWDegHeap() {
+        Solver solver = new Solver();
+        IntVar[] q = queens(solver, 10);
+        AbstractStrategy<IntVar> strategy = ISF.domOverWDeg(q, 0);
+        FailPerPropagator counter = new FailPerPropagator(solver.getCstrs(), solver);
+        solver.set(new AbstractStrategy<IntVar>(q) {
+            @Override
+            public boolean init() {
+                return strategy.init();
+            }
+
+            private long[] ratio(IntVar v) {
+                long w = 1;
+                for (Propagator p : v.getPropagators()) {
+                    if (p.arity() > 1) {
+                        w += counter.getFails(p);
+                    }
+                }
+                return new long[]{v.getDomainSize(), w};
+            }
+
+            @Override
+            public Decision<IntVar> getDecision() {
+                long[] best = null;
+                for (IntVar v : q) {
+                    if (v.getDomainSize() > 1) {
+                        long[] r = ratio(v);
+                        if (best == null || r[0] * best[1] < best[0] * r[1]) {
+                            best = r;
+                        }
+                    }
+                }
+                Decision<IntVar> d = strategy.getDecision();
+                if (best == null) {
+                    Assert.assertNull(d);
+                } else {
+                    long[] r = ratio(d.getDecisionVariables());
+                    Assert.assertEquals(r[0] * best[1], best[0] * r[1]);
+                }
+                return d;
+            }
+        });
+        solver.findAllSolutions();
+        Assert.assertEquals(solver.getMeasures().getSolutionCount(), 724);
+        Assert.assertTrue(solver.getMeasures().getFailCount() > 0);
+    }
+
+    @Test(groups = "1s")
+    public void testConflictWeighting() {
+        for (int k = 0; k < 3; k++) {
+            Solver solver = new Solver();
+            IntVar[] q = queens(solver, 10);
+            AbstractStrategy<IntVar> strategy = k == 0 ? ISF.domOverWDegDecay(q, .95, 0)
+                    : k == 1 ? ISF.domOverWDegCACD(q, 0) : ISF.chb(q, 0);
+            solver.set(strategy);
+            solver.findAllSolutions();
+            Assert.assertEquals(solver.getMeasures().getSolutionCount(), 724);
+        }
+    }
+
+    @Test(groups = "1s")
+    public void testCHBHeap() {
+        Solver solver = new Solver();
+        IntVar[] q = queens(solver, 10);
+        solver.set(new CHB(q, 0, ISF.min_value_selector()) {
+            @Override
+            public Decision<IntVar> getDecision() {
+                // the best ratio, as a linear scan would compute it
+                double best = -1;
+                for (IntVar v : q) {
+                    if (v.getDomainSize() > 1) {
+                        double r = scores[v.getId()] / v.getDomainSize();
+                        best = Math.max(best, r);
+                    }
+                }
+                Decision<IntVar> d = super.getDecision();
+                if (d == null) {
+                    Assert.assertEquals(best, -1d);
+                } else {
+                    IntVar v = d.getDecisionVariables();
+                    Assert.assertEquals(scores[v.getId()] / v.getDomainSize(), best, 1e-12);
+                }
+                return d;
+            }
+        });
+        solver.findAllSolutions();
+        Assert.assertEquals(solver.getMeasures().getSolutionCount(), 724);
+    }
+
+    @Test(groups = "1s")
+    public void testReplacedStrategiesUnplugged() {
+        Solver solver = new Solver();
+        IntVar[] q = VF.enumeratedArray("q", 8, 1, 8, solver);
+        for (int i = 0; i < 8; i++) {
+            for (int j = i + 1; j < 8; j++) {
+                solver.post(ICF.arithm(q[i], "!=", q[j]));
+                solver.post(ICF.arithm(q[i], "!=", q[j], "+", j - i));
+                solver.post(ICF.arithm(q[i], "!=", q[j], "-", j - i));
+            }
+        }
+        int[] updates = new int[2];
+        FirstFail selector = new FirstFail() {
+            @Override
+            public void onUpdate(IntVar var, IEventType evt) {
+                updates[0]++;
+                super.onUpdate(var, evt);
+            }
+        };
+        AbstractStrategy<IntVar> ff = ISF.custom(selector, ISF.min_value_selector(), q);
+        solver.set(ff);
+        solver.findAllSolutions();
+        Assert.assertEquals(solver.getMeasures().getSolutionCount(), 92);
+        DomOverWDeg dwd = new DomOverWDeg(q, 0, ISF.min_value_selector()) {
+            @Override
+            public void onContradiction(ContradictionException cex) {
+                updates[1]++;
+                super.onContradiction(cex);
+            }
+        };
+        solver.set(dwd);
+        int ffUpdates = updates[0];
+        solver.getSearchLoop().reset();
+        solver.findAllSolutions();
+        Assert.assertEquals(solver.getMeasures().getSolutionCount(), 92);
+        Assert.assertEquals(updates[0], ffUpdates);
+        Assert.assertTrue(updates[1] > 0);
+        solver.set(ISF.lexico_LB(q));
+        int dwdUpdates = updates[1];
+        solver.getSearchLoop().reset();
+        solver.findAllSolutions();
+        Assert.assertEquals(solver.getMeasures().getSolutionCount(), 92);
+        Assert.assertEquals(updates[1], dwdUpdates);
+        // plugged again when used again
+        solver.set(dwd);
+        solver.getSearchLoop().reset();
+        solver.findAllSolutions();
+        Assert.assertEquals(solver.getMeasures().getSolutionCount(), 92);
+        Assert.assertTrue(updates[1] > dwdUpdates);
+    }
+
+    @Test(groups = "1s")
+    public void testReplacedConflictWeightingUnplugged() {
+        for (int k = 0; k < 3; k++) {
+            Solver solver = new Solver();
+            IntVar[] q = VF.enumeratedArray("q", 8, 1, 8, solver);
+            for (int i = 0; i < 8; i++) {
+                for (int j = i + 1; j < 8; j++) {
+                    solver.post(ICF.arithm(q[i], "!=", q[j]));
+                    solver.post(ICF.arithm(q[i], "!=", q[j], "+", j - i));
+                    solver.post(ICF.arithm(q[i], "!=", q[j], "-", j - i));
+                }
+            }
+            int[] conflicts = new int[1];
+            AbstractStrategy<IntVar> strategy;
+            switch (k) {
+                case 0:
+                    strategy = new DomOverWDegDecay(q, .95, 0, ISF.min_value_selector()) {
+                        @Override
+                        protected void onConflict(Propagator prop) {
+                            conflicts[0]++;
+                            super.onConflict(prop);
+                        }
+                    };
+                    break;
+                case 1:
+                    strategy = new DomOverWDegCACD(q, 0, ISF.min_value_selector()) {
+                        @Override
+                        protected void onConflict(Propagator prop) {
+                            conflicts[0]++;
+                            super.onConflict(prop);
+                        }
+                    };
+                    break;
+                default:
+                    strategy = new CHB(q, 0, ISF.min_value_selector()) {
+                        @Override
+                        protected void onConflict(Propagator prop) {
+                            conflicts[0]++;
+                            super.onConflict(prop);
+                        }
+                    };
+                    break;
+            }
+            solver.set(strategy);
+            solver.findAllSolutions();
+            Assert.assertEquals(solver.getMeasures().getSolutionCount(), 92);
+            Assert.assertTrue(conflicts[0] > 0);
+            solver.set(ISF.lexico_LB(q));
+            int before = conflicts[0];
+            solver.getSearchLoop().reset();
+            solver.findAllSolutions();
+            Assert.assertEquals(solver.getMeasures().getSolutionCount(), 92);
+            Assert.assertEquals(conflicts[0], before);
+            // plugged again when used again
+            solver.set(strategy);
+            solver.getSearchLoop().reset();
+            solver.findAllSolutions();
+            Assert.assertEquals(solver.getMeasures().getSolutionCount(), 92);
+            Assert.assertTrue(conflicts[0] > before);
+        }
+    }
 }
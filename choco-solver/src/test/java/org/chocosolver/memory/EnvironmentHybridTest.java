@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.memory;
+
+import org.chocosolver.memory.hybrid.EnvironmentHybrid;
+import org.chocosolver.memory.trailing.EnvironmentTrailing;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+/**
+ * <br/>
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public class EnvironmentHybridTest {
+
+    @DataProvider(name = "intervals")
+    public Object[][] intervals() {
+        return new Object[][]{{0}, {1}, {2}, {3}, {7}};
+    }
+
+    @Test(groups = "1s", dataProvider = "intervals")
+    public void testPushPop(int interval) {
+        EnvironmentHybrid environment = new EnvironmentHybrid(interval);
+        IStateInt a = environment.makeInt(0);
+        IStateBool b = environment.makeBool(false);
+        for (int w = 1; w <= 10; w++) {
+            environment.worldPush();
+            a.set(w);
+            b.set(w % 2 == 1);
+        }
+        for (int w = 9; w >= 0; w--) {
+            environment.worldPop();
+            Assert.assertEquals(a.get(), w);
+            Assert.assertEquals(b.get(), w % 2 == 1);
+        }
+    }
+
+    @Test(groups = "1s", dataProvider = "intervals")
+    public void testFakeHistory(int interval) {
+        IEnvironment environment = new EnvironmentHybrid(interval);
+        environment.buildFakeHistoryOn(new Except_0());
+        IStateInt a = environment.makeInt(10);
+        environment.worldPush();
+        IStateInt b = environment.makeInt(21);
+        a.set(12);
+        b.set(22);
+        environment.worldPush();
+        IStateInt c = environment.makeInt(32);
+        a.set(13);
+        b.set(23);
+        c.set(33);
+        environment.worldPush();
+        a.set(14);
+        b.set(24);
+        c.set(34);
+
+        environment.worldPop();
+        Assert.assertEquals(a.get(), 13);
+        Assert.assertEquals(b.get(), 23);
+        Assert.assertEquals(c.get(), 33);
+        environment.worldPopUntil(0);
+        Assert.assertEquals(a.get(), 10);
+        Assert.assertEquals(b.get(), 21);
+        Assert.assertEquals(c.get(), 32);
+    }
+
+    @Test(groups = "1s", dataProvider = "intervals")
+    public void testAgainstTrailing(int interval) {
+        Random rnd = new Random(interval);
+        IEnvironment trail = new EnvironmentTrailing();
+        IEnvironment hybrid = new EnvironmentHybrid(interval);
+        trail.buildFakeHistoryOn(new Except_0());
+        hybrid.buildFakeHistoryOn(new Except_0());
+        int n = 200;
+        IStateInt[] ti = new IStateInt[n], hi = new IStateInt[n];
+        IStateLong[] tl = new IStateLong[n], hl = new IStateLong[n];
+        IStateDouble[] td = new IStateDouble[n], hd = new IStateDouble[n];
+        IStateIntVector tv = trail.makeIntVector(n, 0), hv = hybrid.makeIntVector(n, 0);
+        int k = 0;
+        for (int it = 0; it < 20000; it++) {
+            int op = rnd.nextInt(100);
+            if (op < 10 && trail.getWorldIndex() < 200) {
+                trail.worldPush();
+                hybrid.worldPush();
+            } else if (op < 17 && trail.getWorldIndex() > 0) {
+                trail.worldPop();
+                hybrid.worldPop();
+            } else if (op < 18 && trail.getWorldIndex() > 0) {
+                int w = rnd.nextInt(trail.getWorldIndex());
+                trail.worldPopUntil(w);
+                hybrid.worldPopUntil(w);
+            } else if (op < 20 && k < n) {
+                int v = rnd.nextInt(50);
+                ti[k] = trail.makeInt(v);
+                hi[k] = hybrid.makeInt(v);
+                tl[k] = trail.makeLong(v);
+                hl[k] = hybrid.makeLong(v);
+                td[k] = trail.makeFloat(v);
+                hd[k] = hybrid.makeFloat(v);
+                k++;
+            } else if (k > 0) {
+                int i = rnd.nextInt(k);
+                int v = rnd.nextInt(50);
+                ti[i].set(v);
+                hi[i].set(v);
+                tl[i].set(v * 3L);
+                hl[i].set(v * 3L);
+                td[i].set(v / 2.);
+                hd[i].set(v / 2.);
+                tv.quickSet(i, v);
+                hv.quickSet(i, v);
+            }
+            Assert.assertEquals(hybrid.getWorldIndex(), trail.getWorldIndex());
+            for (int i = 0; i < k; i++) {
+                Assert.assertEquals(hi[i].get(), ti[i].get());
+                Assert.assertEquals(hl[i].get(), tl[i].get());
+                Assert.assertEquals(hd[i].get(), td[i].get());
+            }
+            Assert.assertEquals(hv.deepCopy(), tv.deepCopy());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.memory;
+
+import org.chocosolver.memory.trailing.EnvironmentTrailing;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.ICF;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.VF;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+/**
+ * <br/>
+ *
+ * @author agent
+ * @since 18/10/26
+ */
+public class OffHeapTrailTest {
+
+    @Test(groups = "1s")
+    public void testAgainstFlat() {
+        Random rnd = new Random(0);
+        IEnvironment flat = new EnvironmentTrailing();
+        IEnvironment offheap = Environments.TRAIL_OFF_HEAP.make();
+        flat.buildFakeHistoryOn(new Except_0());
+        offheap.buildFakeHistoryOn(new Except_0());
+        int n = 2000;
+        IStateInt[] fi = new IStateInt[n], oi = new IStateInt[n];
+        IStateBool[] fb = new IStateBool[n], ob = new IStateBool[n];
+        IStateLong[] fl = new IStateLong[n], ol = new IStateLong[n];
+        IStateDouble[] fd = new IStateDouble[n], od = new IStateDouble[n];
+        int k = 0;
+        for (int it = 0; it < 200000; it++) {
+            int op = rnd.nextInt(1000);
+            if (op < 10 && flat.getWorldIndex() < 300) {
+                flat.worldPush();
+                offheap.worldPush();
+            } else if (op < 16 && flat.getWorldIndex() > 0) {
+                flat.worldPop();
+                offheap.worldPop();
+            } else if (op < 17 && flat.getWorldIndex() > 0) {
+                int w = rnd.nextInt(flat.getWorldIndex());
+                flat.worldPopUntil(w);
+                offheap.worldPopUntil(w);
+            } else if (op < 30 && k < n) {
+                int v = rnd.nextInt(100);
+                fi[k] = flat.makeInt(v);
+                oi[k] = offheap.makeInt(v);
+                fb[k] = flat.makeBool(v % 2 == 0);
+                ob[k] = offheap.makeBool(v % 2 == 0);
+                fl[k] = flat.makeLong(v);
+                ol[k] = offheap.makeLong(v);
+                fd[k] = flat.makeFloat(v);
+                od[k] = offheap.makeFloat(v);
+                k++;
+            } else if (k > 0) {
+                int i = rnd.nextInt(k);
+                int v = rnd.nextInt(100);
+                fi[i].set(v);
+                oi[i].set(v);
+                fb[i].set(v % 3 == 0);
+                ob[i].set(v % 3 == 0);
+                fl[i].set(-v);
+                ol[i].set(-v);
+                fd[i].set(v / 4.);
+                od[i].set(v / 4.);
+            }
+            if (op < 17) {
+                for (int i = 0; i < k; i++) {
+                    Assert.assertEquals(oi[i].get(), fi[i].get());
+                    Assert.assertEquals(ob[i].get(), fb[i].get());
+                    Assert.assertEquals(ol[i].get(), fl[i].get());
+                    Assert.assertEquals(od[i].get(), fd[i].get());
+                }
+            }
+        }
+        offheap.release();
+    }
+
+    @Test(groups = "1s")
+    public void testSolver() {
+        Solver solver = new Solver(Environments.TRAIL_OFF_HEAP.make(), "Test");
+        IntVar[] vars = VF.enumeratedArray("x", 8, 1, 8, solver);
+        solver.post(ICF.alldifferent(vars, "BC"));
+        solver.findAllSolutions();
+        Assert.assertEquals(solver.getMeasures().getSolutionCount(), 40320);
+        solver.release();
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver;
+
+import org.chocosolver.solver.constraints.ICF;
+import org.chocosolver.solver.exception.SolverException;
+import org.chocosolver.solver.search.strategy.ISF;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.VF;
+import org.chocosolver.util.ESat;
+import org.chocosolver.util.ProblemMaker;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Created by agent on 18/10/26.
+ * Project: choco.
+ */
+public class EmbarrassinglyParallelSearchTest {
+
+    @Test(groups = "1s")
+    public void testFindAllSolutions() {
+        Solver model = ProblemMaker.makeNQueenWithBinaryConstraints(8);
+        EmbarrassinglyParallelSearch eps = new EmbarrassinglyParallelSearch(model, 4);
+        Assert.assertEquals(eps.findAllSolutions(), 92);
+        Assert.assertEquals(eps.getMeasures().getSolutionCount(), 92);
+        Assert.assertTrue(eps.getNbSubproblems() > 4);
+        Assert.assertTrue(eps.getMeasures().getNodeCount() >= 92);
+        Assert.assertFalse(eps.hasReachedLimit());
+        // the declaring model is left untouched
+        Assert.assertEquals(model.getMeasures().getSolutionCount(), 0);
+    }
+
+    @Test(groups = "1s")
+    public void testFindAllSolutionsSequential() {
+        for (int depth = 0; depth < 6; depth++) {
+            Solver model = ProblemMaker.makeNQueenWithBinaryConstraints(6);
+            model.set(ISF.lexico_Split((IntVar[]) model.getHook("vars")));
+            EmbarrassinglyParallelSearch eps = new EmbarrassinglyParallelSearch(model, 1, depth);
+            Assert.assertEquals(eps.findAllSolutions(), 4, "depth " + depth);
+        }
+    }
+
+    @Test(groups = "1s")
+    public void testFindSolution() {
+        Solver model = ProblemMaker.makeCostasArrays(10);
+        EmbarrassinglyParallelSearch eps = new EmbarrassinglyParallelSearch(model, 4);
+        Assert.assertTrue(eps.findSolution());
+        Assert.assertEquals(eps.getBestSolver().isSatisfied(), ESat.TRUE);
+        Assert.assertFalse(eps.hasReachedLimit());
+    }
+
+    @Test(groups = "1s")
+    public void testNoSolution() {
+        Solver model = ProblemMaker.makeNQueenWithBinaryConstraints(3);
+        EmbarrassinglyParallelSearch eps = new EmbarrassinglyParallelSearch(model, 2);
+        Assert.assertFalse(eps.findSolution());
+        Assert.assertNull(eps.getBestSolver());
+        Assert.assertEquals(eps.findAllSolutions(), 0);
+    }
+
+    @Test(groups = "10s")
+    public void testGolombMinimize() {
+        Solver model = ProblemMaker.makeGolombRuler(8);
+        IntVar[] ticks = (IntVar[]) model.getHook("ticks");
+        EmbarrassinglyParallelSearch eps = new EmbarrassinglyParallelSearch(model, 4);
+        eps.findOptimalSolution(ResolutionPolicy.MINIMIZE, ticks[ticks.length - 1]);
+        Solver best = eps.getBestSolver();
+        Assert.assertNotNull(best);
+        IntVar[] bticks = (IntVar[]) best.getHook("ticks");
+        Assert.assertEquals(bticks[bticks.length - 1].getValue(), 34);
+        Assert.assertTrue(eps.getMeasures().isObjectiveOptimal());
+    }
+
+    @Test(groups = "1s")
+    public void testMaximize() {
+        Solver model = new Solver();
+        IntVar[] xs = VF.enumeratedArray("x", 5, 0, 9, model);
+        IntVar sum = VF.bounded("s", 0, 45, model);
+        model.post(ICF.sum(xs, sum));
+        model.post(ICF.alldifferent(xs, "AC"));
+        model.set(ISF.lexico_LB(xs));
+        EmbarrassinglyParallelSearch eps = new EmbarrassinglyParallelSearch(model, 3, 3);
+        eps.findOptimalSolution(ResolutionPolicy.MAXIMIZE, sum);
+        Assert.assertEquals(((IntVar) eps.getBestSolver().getVar(ParallelPortfolio.indexOf(model, sum))).getValue(), 35);
+    }
+
+    @Test(groups = "1s")
+    public void testReplicasReused() {
+        Solver model = new Solver();
+        IntVar[] xs = VF.enumeratedArray("x", 5, 0, 9, model);
+        IntVar sum = VF.bounded("s", 0, 45, model);
+        model.post(ICF.sum(xs, sum));
+        model.post(ICF.alldifferent(xs, "AC"));
+        model.set(ISF.lexico_LB(xs));
+        // a single worker solves all the subproblems, one after the other, with the same replica
+        EmbarrassinglyParallelSearch eps = new EmbarrassinglyParallelSearch(model, 1, 3);
+        int idx = ParallelPortfolio.indexOf(model, sum);
+        for (int k = 0; k < 2; k++) {
+            eps.findOptimalSolution(ResolutionPolicy.MAXIMIZE, sum);
+            Solver best = eps.getBestSolver();
+            Assert.assertEquals(((IntVar) best.getVar(idx)).getValue(), 35);
+            Assert.assertEquals(best.isSatisfied(), ESat.TRUE);
+            Assert.assertTrue(eps.getMeasures().isObjectiveOptimal());
+            Assert.assertTrue(eps.getNbSubproblems() > 1);
+        }
+        for (int k = 0; k < 2; k++) {
+            Assert.assertTrue(eps.findSolution());
+            Assert.assertEquals(eps.getBestSolver().isSatisfied(), ESat.TRUE);
+            // the first solution stops the worker, the remaining subproblems are skipped
+            Assert.assertEquals(eps.getMeasures().getSolutionCount(), 1);
+        }
+    }
+
+    @Test(groups = "1s", expectedExceptions = SolverException.class)
+    public void testNoWorker() {
+        new EmbarrassinglyParallelSearch(ProblemMaker.makeNQueenWithBinaryConstraints(4), 0);
+    }
+}
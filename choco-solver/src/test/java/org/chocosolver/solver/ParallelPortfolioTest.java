@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver;
+
+import org.chocosolver.solver.constraints.ICF;
+import org.chocosolver.solver.exception.SolverException;
+import org.chocosolver.solver.search.strategy.ISF;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.VF;
+import org.chocosolver.util.ESat;
+import org.chocosolver.util.ProblemMaker;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Created by agent on 18/10/26.
+ * Project: choco.
+ */
+public class ParallelPortfolioTest {
+
+    @Test(groups = "1s")
+    public void testFindSolution() {
+        Solver model = ProblemMaker.makeNQueenWithBinaryConstraints(12);
+        ParallelPortfolio pf = new ParallelPortfolio(model, 4);
+        Assert.assertTrue(pf.findSolution());
+        Solver best = pf.getBestSolver();
+        Assert.assertNotNull(best);
+        Assert.assertEquals(best.isFeasible(), ESat.TRUE);
+        // the declaring model is left untouched
+        Assert.assertEquals(model.getMeasures().getSolutionCount(), 0);
+    }
+
+    @Test(groups = "1s")
+    public void testNoSolution() {
+        Solver model = ProblemMaker.makeNQueenWithBinaryConstraints(3);
+        ParallelPortfolio pf = new ParallelPortfolio(model, 3);
+        Assert.assertFalse(pf.findSolution());
+        Assert.assertNull(pf.getBestSolver());
+    }
+
+    @Test(groups = "10s")
+    public void testGolombMinimize() {
+        Solver model = ProblemMaker.makeGolombRuler(8);
+        IntVar[] ticks = (IntVar[]) model.getHook("ticks");
+        ParallelPortfolio pf = new ParallelPortfolio(model, 5);
+        pf.findOptimalSolution(ResolutionPolicy.MINIMIZE, ticks[ticks.length - 1]);
+        Solver best = pf.getBestSolver();
+        Assert.assertNotNull(best);
+        Assert.assertEquals(best.getObjectiveManager().getBestSolutionValue().intValue(), 34);
+        int nbProofs = 0;
+        for (Solver w : pf.getWorkers()) {
+            if (!w.hasReachedLimit()) {
+                nbProofs++;
+            }
+        }
+        Assert.assertTrue(nbProofs > 0);
+    }
+
+    @Test(groups = "1s")
+    public void testMaximize() {
+        Solver model = new Solver();
+        IntVar[] xs = VF.enumeratedArray("x", 5, 0, 9, model);
+        IntVar sum = VF.bounded("s", 0, 45, model);
+        model.post(ICF.sum(xs, sum));
+        model.post(ICF.alldifferent(xs, "AC"));
+        model.set(ISF.lexico_LB(xs));
+        ParallelPortfolio pf = new ParallelPortfolio(model, 2);
+        pf.findOptimalSolution(ResolutionPolicy.MAXIMIZE, sum);
+        Assert.assertEquals(pf.getBestSolver().getObjectiveManager().getBestSolutionValue().intValue(), 35);
+    }
+
+    @Test(groups = "1s")
+    public void testPrebuiltWorkers() {
+        Solver[] workers = new Solver[3];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = ProblemMaker.makeCostasArrays(8);
+        }
+        ParallelPortfolio pf = new ParallelPortfolio(workers, ParallelPortfolio.defaultConfigurations(3));
+        Assert.assertTrue(pf.findSolution());
+        Assert.assertEquals(pf.getBestSolver().isSatisfied(), ESat.TRUE);
+    }
+
+    @Test(groups = "1s")
+    public void testWorkersReleased() {
+        Solver model = ProblemMaker.makeNQueenWithBinaryConstraints(6);
+        ParallelPortfolio pf = new ParallelPortfolio(model,
+                s -> s.set(ISF.lexico_LB((IntVar[]) s.getHook("vars"))),
+                s -> s.set(ISF.lexico_UB((IntVar[]) s.getHook("vars"))));
+        Assert.assertTrue(pf.findSolution());
+        // once the portfolio is done, the workers are no longer stopped nor monitored by it
+        for (Solver w : pf.getWorkers()) {
+            w.getSearchLoop().reset();
+            Assert.assertEquals(w.findAllSolutions(), 4);
+        }
+    }
+
+    @Test(groups = "1s", expectedExceptions = SolverException.class)
+    public void testUnknownObjective() {
+        Solver model = ProblemMaker.makeNQueenWithBinaryConstraints(4);
+        IntVar other = VF.enumerated("o", 0, 3, new Solver());
+        new ParallelPortfolio(model, 2).findOptimalSolution(ResolutionPolicy.MINIMIZE, other);
+    }
+}
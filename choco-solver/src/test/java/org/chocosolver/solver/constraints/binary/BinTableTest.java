@@ -40,6 +40,8 @@ import org.chocosolver.solver.variables.VF;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.Random;
+
 import static org.testng.Assert.assertEquals;
 
 /**
@@ -51,7 +53,7 @@ import static org.testng.Assert.assertEquals;
 public class BinTableTest {
 
 
-    private static String[] ALGOS = {"FC", "AC2001", "AC3", "AC3rm", "AC3bit+rm"};
+    private static String[] ALGOS = {"FC", "AC2001", "AC3", "AC3rm", "AC3bit+rm", "AC3bit+wr"};
 
     private Solver s;
     private IntVar v1, v2;
@@ -241,5 +243,40 @@ public class BinTableTest {
         }
     }
 
-
+    @Test(groups = "10s")
+    public void testDenseRandom() {
+        // domains spanning several words, chains of binary tables
+        for (long seed = 0; seed < 5; seed++) {
+            Random rnd = new Random(seed);
+            Tuples[] relations = new Tuples[4];
+            for (int r = 0; r < relations.length; r++) {
+                relations[r] = new Tuples(rnd.nextBoolean());
+                for (int i = 0; i < 140; i++) {
+                    for (int j = 0; j < 140; j++) {
+                        if (rnd.nextInt(10) < 7) relations[r].add(i - 3, j + 2);
+                    }
+                }
+            }
+            long nbs = -1, nbn = -1;
+            for (String a : new String[]{"AC3bit+rm", "AC3bit+wr"}) {
+                Solver solver = new Solver();
+                IntVar[] vars = VF.enumeratedArray("X", 5, -5, 140, solver);
+                for (int r = 0; r < relations.length; r++) {
+                    solver.post(ICF.table(vars[r], vars[r + 1], relations[r], a));
+                }
+                solver.post(ICF.arithm(vars[0], "=", vars[4]));
+                solver.set(ISF.random_value(vars, seed));
+                solver.findSolution();
+                long n = solver.getMeasures().getNodeCount();
+                long s = solver.getMeasures().getSolutionCount();
+                if (nbs == -1) {
+                    nbs = s;
+                    nbn = n;
+                } else {
+                    Assert.assertEquals(s, nbs);
+                    Assert.assertEquals(n, nbn);
+                }
+            }
+        }
+    }
 }
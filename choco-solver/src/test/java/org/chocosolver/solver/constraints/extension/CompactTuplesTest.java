@@ -0,0 +1,68 @@
+package org.chocosolver.solver.constraints.extension;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by agent on 18/10/26.
+ */
+public class CompactTuplesTest {
+
+    @Test
+    public void test_round_trip() {
+        Random random = new Random(0);
+        Tuples tuples = new Tuples(true);
+        int[][] expected = new int[1000][];
+        for (int i = 0; i < expected.length; i++) {
+            // columns of 1, 2, 37 and many distinct values, the last ones not aligned on words
+            expected[i] = new int[]{3, i % 2 - 1, random.nextInt(37) * 5, random.nextInt()};
+            tuples.add(expected[i]);
+        }
+        CompactTuples compact = tuples.compact();
+        assertEquals(expected.length, compact.nbTuples());
+        assertEquals(4, compact.arity());
+        assertEquals(expected.length, tuples.nbTuples());
+        for (int i = 0; i < expected.length; i++) {
+            assertArrayEquals(expected[i], compact.get(i));
+            assertArrayEquals(expected[i], tuples.get(i));
+            for (int j = 0; j < 4; j++) {
+                assertEquals(expected[i][j], compact.getDictionary(j)[compact.getCode(i, j)]);
+            }
+        }
+        assertArrayEquals(new int[]{-1, 0}, compact.getDictionary(1));
+        assertEquals(3, compact.min(0));
+        assertEquals(3, compact.max(0));
+    }
+
+    @Test
+    public void test_identical_relations_are_shared() {
+        Tuples t1 = new Tuples(true);
+        Tuples t2 = new Tuples(true);
+        Tuples t3 = new Tuples(false);
+        for (int i = 0; i < 10; i++) {
+            t1.add(i, 2 * i, 3 * i);
+            t2.add(i, 2 * i, 3 * i);
+            t3.add(i, 2 * i, 3 * i);
+        }
+        assertSame(t1.compact(), t1.compact());
+        assertSame(t1.compact(), t2.compact());
+        assertNotSame(t1.compact(), t3.compact());
+    }
+
+    @Test
+    public void test_add_after_compact() {
+        Tuples tuples = new Tuples(true);
+        tuples.add(1, 2);
+        CompactTuples compact = tuples.compact();
+        tuples.add(3, 4);
+        assertEquals(1, compact.nbTuples());
+        assertEquals(2, tuples.nbTuples());
+        assertArrayEquals(new int[]{1, 2}, tuples.get(0));
+        assertArrayEquals(new int[]{3, 4}, tuples.get(1));
+        assertEquals(4, tuples.max(1));
+        assertEquals(2, tuples.compact().nbTuples());
+    }
+}
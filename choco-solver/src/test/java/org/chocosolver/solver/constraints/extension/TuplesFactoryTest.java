@@ -0,0 +1,88 @@
+package org.chocosolver.solver.constraints.extension;
+
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.VF;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by agent on 18/10/26.
+ */
+public class TuplesFactoryTest {
+
+    @Test
+    public void test_parallel_tuples_are_ordered() {
+        // large enough to be split, domains of different sizes
+        int[][] doms = {{0, 1, 2, 3, 4, 5, 6}, {-2, 0, 2}, {1, 2, 3, 4, 5, 6, 7, 8, 9}, {0, 10, 20, 30}, {5, 6, 7, 8, 9, 10, 11, 12}, {3, 4, 5, 6, 7}};
+        TupleValidator filter = values -> (values[0] + values[1] + values[2] + values[3] + values[4] + values[5]) % 3 == 0;
+        Tuples sequential = TuplesFactory.generateTuples(filter, false, doms);
+        Tuples parallel = TuplesFactory.parallelTuples(filter, false, doms);
+        assertFalse(parallel.isFeasible());
+        assertEquals(sequential.nbTuples(), parallel.nbTuples());
+        for (int t = 0; t < sequential.nbTuples(); t++) {
+            assertArrayEquals(sequential.get(t), parallel.get(t));
+        }
+        for (int i = 0; i < doms.length; i++) {
+            assertEquals(sequential.min(i), parallel.min(i));
+            assertEquals(sequential.max(i), parallel.max(i));
+        }
+    }
+
+    @Test
+    public void test_generated_relations_are_cached() {
+        Solver solver = new Solver();
+        IntVar[] x = VF.enumeratedArray("X", 5, 0, 6, solver);
+        IntVar[] y = VF.enumeratedArray("Y", 5, 0, 6, solver);
+        Tuples tx = TuplesFactory.allDifferent(x);
+        Tuples ty = TuplesFactory.allDifferent(y);
+        assertEquals(7 * 6 * 5 * 4 * 3, tx.nbTuples());
+        assertSame(tx.compact(), ty.compact());
+        // modifying a generated relation does not alter the cached one
+        ty.add(0, 0, 0, 0, 0);
+        assertEquals(tx.nbTuples() + 1, ty.nbTuples());
+        assertEquals(tx.nbTuples(), TuplesFactory.allDifferent(y).nbTuples());
+        assertNotSame(tx.compact(), TuplesFactory.lex_chain_less(x).compact());
+    }
+
+    @Test
+    public void test_cache_cleared() {
+        Solver solver = new Solver();
+        IntVar[] x = VF.enumeratedArray("X", 4, 0, 5, solver);
+        Tuples before = TuplesFactory.allDifferent(x);
+        TuplesFactory.clearCache();
+        Tuples after = TuplesFactory.allDifferent(x);
+        assertEquals(before.nbTuples(), after.nbTuples());
+        // generated again, but still shared with the relation in use
+        assertSame(before.compact(), after.compact());
+    }
+
+    @Test
+    public void test_scalar() {
+        Solver solver = new Solver();
+        IntVar[] x = VF.enumeratedArray("X", 3, -2, 3, solver);
+        IntVar s = VF.enumerated("S", -4, 4, solver);
+        int[] coeffs = {1, -2, 3};
+        Tuples tuples = TuplesFactory.scalar(x, coeffs, s, 2);
+        Tuples expected = TuplesFactory.generateTuples(values -> {
+            int sum = values[0] - 2 * values[1] + 3 * values[2];
+            return sum == 2 * values[3];
+        }, true, x[0], x[1], x[2], s);
+        // the order differs: the values of S are computed, not enumerated
+        int[][] m1 = expected.toMatrix();
+        int[][] m2 = tuples.toMatrix();
+        Comparator<int[]> lex = (t1, t2) -> {
+            for (int i = 0; i < t1.length; i++) {
+                if (t1[i] != t2[i]) return Integer.compare(t1[i], t2[i]);
+            }
+            return 0;
+        };
+        Arrays.sort(m1, lex);
+        Arrays.sort(m2, lex);
+        assertArrayEquals(m1, m2);
+    }
+}
@@ -0,0 +1,85 @@
+package org.chocosolver.solver.constraints.extension;
+
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.ICF;
+import org.chocosolver.solver.exception.SolverException;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.VF;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by agent on 18/10/26.
+ */
+public class TuplesFileTest {
+
+    @Test
+    public void test_round_trip() throws IOException {
+        Random random = new Random(0);
+        Tuples tuples = new Tuples(false);
+        for (int i = 0; i < 1000; i++) {
+            tuples.add(i, random.nextInt(10) - 5, random.nextInt());
+        }
+        Path file = Files.createTempFile("tuples", ".bin");
+        // several blocks, the last one partial
+        try (TuplesFile.Writer writer = new TuplesFile.Writer(file, false, 3, 300)) {
+            for (int t = 0; t < tuples.nbTuples(); t++) {
+                writer.add(tuples.get(t));
+            }
+        }
+        Tuples read = TuplesFile.read(file);
+        assertFalse(read.isFeasible());
+        assertEquals(3, read.arity());
+        assertEquals(tuples.nbTuples(), read.nbTuples());
+        for (int t = 0; t < tuples.nbTuples(); t++) {
+            assertArrayEquals(tuples.get(t), read.get(t));
+        }
+        for (int i = 0; i < 3; i++) {
+            assertEquals(tuples.min(i), read.min(i));
+            assertEquals(tuples.max(i), read.max(i));
+        }
+        assertSame(tuples.compact(), read.compact());
+    }
+
+    @Test
+    public void test_generated_tuples() throws IOException {
+        Solver solver = new Solver();
+        IntVar[] vars = VF.enumeratedArray("X", 4, 0, 5, solver);
+        Path file = Files.createTempFile("tuples", ".bin");
+        TupleValidator filter = values -> values[0] + values[1] == values[2] + values[3];
+        long n = TuplesFactory.generateTuples(filter, true, file, vars);
+        Tuples tuples = TuplesFactory.generateTuples(filter, true, vars);
+        assertEquals(tuples.nbTuples(), n);
+        Tuples read = TuplesFile.read(file);
+        assertSame(tuples.compact(), read.compact());
+
+        solver.post(ICF.table(vars, read, "CT"));
+        assertEquals(n, solver.findAllSolutions());
+    }
+
+    @Test(expected = SolverException.class)
+    public void test_out_of_range() throws IOException {
+        Path file = Files.createTempFile("tuples", ".bin");
+        Tuples tuples = new Tuples(true);
+        tuples.add(1, 2);
+        tuples.add(3, 4);
+        TuplesFile.write(file, tuples);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer value = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            value.putInt(0, 5);
+            // first value of the second column, after the header of 28 + 8 * 2 bytes and the first column
+            channel.write(value, 28 + 16 + 8);
+        }
+        TuplesFile.read(file);
+    }
+}
@@ -0,0 +1,66 @@
+package org.chocosolver.solver.constraints.extension.nary;
+
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.ICF;
+import org.chocosolver.solver.constraints.extension.Tuples;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.VF;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Created by agent on 18/10/26.
+ */
+public class PropCompactTableTest {
+
+    private static long count(Tuples tuples, String algo, Random random) {
+        Solver solver = new Solver();
+        IntVar[] vars = VF.enumeratedArray("X", 4, 0, 4, solver);
+        solver.post(ICF.table(vars, tuples, algo));
+        if (random != null) {
+            // a second constraint, so that the table is also propagated on domains it did not reduce itself
+            solver.post(ICF.arithm(vars[random.nextInt(2)], "!=", vars[2 + random.nextInt(2)]));
+        }
+        solver.findAllSolutions();
+        return solver.getMeasures().getSolutionCount();
+    }
+
+    private static Tuples random(boolean feasible, int nb, int seed) {
+        Random random = new Random(seed);
+        Tuples tuples = new Tuples(feasible);
+        for (int i = 0; i < nb; i++) {
+            tuples.add(random.nextInt(6) - 1, random.nextInt(5), random.nextInt(5), random.nextInt(5));
+        }
+        return tuples;
+    }
+
+    @Test
+    public void test_allowed_tuples() {
+        for (int seed = 0; seed < 20; seed++) {
+            Tuples tuples = random(true, 100, seed);
+            assertEquals(count(tuples, "GAC3rm", new Random(seed)), count(tuples, "CT", new Random(seed)));
+        }
+    }
+
+    @Test
+    public void test_forbidden_tuples() {
+        for (int seed = 0; seed < 20; seed++) {
+            Tuples tuples = random(false, 400, seed);
+            assertEquals(count(tuples, "GAC3rm", new Random(seed)), count(tuples, "CT", new Random(seed)));
+        }
+    }
+
+    @Test
+    public void test_short_tuples() {
+        Tuples tuples = new Tuples(true);
+        tuples.setUniversalValue(-1);
+        tuples.add(0, -1, -1, 1);
+        tuples.add(-1, 2, 3, -1);
+        tuples.add(4, 4, 4, 4);
+        // 25 + 25 - 1 (0,2,3,1) + 1
+        assertEquals(50, count(tuples, "CT", null));
+    }
+}
@@ -1,20 +1,22 @@
 package org.chocosolver.solver.constraints.extension.nary;
 
-import org.apache.spark.api.java.JavaSparkContext;
 import org.chocosolver.memory.IEnvironment;
 import org.chocosolver.memory.IStateBitSet;
+import org.chocosolver.memory.trailing.EnvironmentTrailing;
 import org.chocosolver.solver.Settings;
 import org.chocosolver.solver.Solver;
 import org.chocosolver.solver.constraints.extension.Tuples;
 import org.chocosolver.solver.exception.ContradictionException;
 import org.chocosolver.solver.search.measure.IMeasures;
 import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.util.objects.player.MultiArmedBanditPlayer;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.*;
 
 /**
@@ -27,6 +29,7 @@ public class PropLargePredictiveTest {
     private static int DUMB_INT = 1;
     private static long DUMB_DEPTH = 10;
     private Solver solver;
+    private IEnvironment trail;
     private IMeasures measures;
 
     @Before
@@ -39,7 +42,7 @@ public class PropLargePredictiveTest {
         PropLargeFactory factory = mockFactory();
         IntVar[] vars = mockIntVars(solver);
         Tuples tuples = mock(Tuples.class);
-        this.propPredictive = new PropLargePredictive(vars, tuples, factory, mock(JavaSparkContext.class));
+        this.propPredictive = new PropLargePredictive(vars, tuples, factory, null);
     }
 
     @Test
@@ -91,6 +94,82 @@ public class PropLargePredictiveTest {
         }
     }
 
+    @Test
+    public void when_player_is_set_call_the_chosen_propagator_and_update_the_player() throws ContradictionException {
+        PredictivePropagator str2 = mock(PredictivePropagator.class);
+        PredictivePropagator fc = mock(PredictivePropagator.class);
+        this.propPredictive.setStr2Propagator(str2);
+        this.propPredictive.setFCPropagator(fc);
+        FixedPlayer player = new FixedPlayer(2);
+        this.propPredictive.setPlayer(player, "STR2+", "FC");
+        player.arm = 1;
+        this.propPredictive.propagate(DUMB_INT, DUMB_INT);
+        verify(fc, times(1)).propagate(anyInt(), anyInt());
+        verify(str2, never()).propagate(anyInt(), anyInt());
+        assertEquals(1, player.updates);
+    }
+
+    @Test
+    public void when_the_propagator_changes_it_is_called_coarse_grained() throws ContradictionException {
+        PredictivePropagator str2 = mock(PredictivePropagator.class);
+        PredictivePropagator fc = mock(PredictivePropagator.class);
+        this.propPredictive.setStr2Propagator(str2);
+        this.propPredictive.setFCPropagator(fc);
+        FixedPlayer player = new FixedPlayer(2);
+        this.propPredictive.setPlayer(player, "STR2+", "FC");
+        player.arm = 0;
+        this.propPredictive.propagate(DUMB_INT, DUMB_INT);
+        player.arm = 1;
+        this.propPredictive.propagate(DUMB_INT, DUMB_INT);
+        verify(str2, times(1)).propagate(anyInt(), anyInt());
+        verify(fc, never()).propagate(anyInt(), anyInt());
+        verify(fc, times(1)).propagate(anyInt());
+        assertEquals(2, player.updates);
+    }
+
+    @Test
+    public void when_backtracking_the_previous_propagator_is_restored() throws ContradictionException {
+        PredictivePropagator str2 = mock(PredictivePropagator.class);
+        PredictivePropagator fc = mock(PredictivePropagator.class);
+        this.propPredictive.setStr2Propagator(str2);
+        this.propPredictive.setFCPropagator(fc);
+        FixedPlayer player = new FixedPlayer(2);
+        this.propPredictive.setPlayer(player, "STR2+", "FC");
+        player.arm = 0;
+        this.propPredictive.propagate(DUMB_INT, DUMB_INT);
+        trail.worldPush();
+        player.arm = 1;
+        this.propPredictive.propagate(DUMB_INT, DUMB_INT);
+        trail.worldPush();
+        player.arm = 0;
+        this.propPredictive.propagate(DUMB_INT, DUMB_INT);
+        trail.worldPop();
+        // back where FC ran last: STR2+ has not seen the events handled by FC, it has to catch up
+        this.propPredictive.propagate(DUMB_INT, DUMB_INT);
+        verify(str2, times(1)).propagate(anyInt(), anyInt());
+        verify(str2, times(2)).propagate(anyInt());
+        verify(fc, never()).propagate(anyInt(), anyInt());
+        verify(fc, times(1)).propagate(anyInt());
+    }
+
+    private static class FixedPlayer extends MultiArmedBanditPlayer {
+        int arm;
+        int updates;
+
+        FixedPlayer(int nbArms) {
+            super(nbArms, 0);
+        }
+
+        @Override
+        public int chooseArm() {
+            return arm;
+        }
+
+        @Override
+        public void update(int arm, double reward) {
+            updates++;
+        }
+    }
 
     private IntVar[] mockIntVars(Solver solver) {
         IntVar[] vars = new IntVar[1];
@@ -118,6 +197,9 @@ public class PropLargePredictiveTest {
     private IEnvironment mockEnvironment(IStateBitSet stateBitSet) {
         IEnvironment environment = mock(IEnvironment.class);
         when(environment.makeBitSet(anyInt())).thenReturn(stateBitSet);
+        // backtrackable integers are real ones, so that worlds can be pushed and popped
+        trail = new EnvironmentTrailing();
+        when(environment.makeInt(anyInt())).thenAnswer(invocation -> trail.makeInt((Integer) invocation.getArguments()[0]));
         return environment;
     }
 
@@ -309,4 +309,29 @@ public class PropNogoodsTest {
             Assert.fail();
         }
     }
-}
\ No newline at end of file
+
+    @Test(groups="1s")
+    public void testForgetLearnts(){
+        SatSolver sat = PNG.sat_;
+        PNG.addLearnt(lits[0], lits[2], lits[4]);
+        // a deletable clause cannot replace a non-deletable one, even if it dominates it
+        PNG.addLearnt(true, lits[0], lits[2]);
+        Assert.assertEquals(sat.nLearnt(), 2);
+        int n = SatSolver.kFirstReduceDB + 1;
+        for (int i = 0; i < n; i++) {
+            PNG.addLearnt(true, SatSolver.negated(lits[i % 2]), lits[2 + i % 3], SatSolver.negated(lits[5]));
+        }
+        Assert.assertTrue(sat.nLearnt() < n + 2);
+        int deletable = 0;
+        boolean kept = false;
+        for (SatSolver.Clause cl : sat.learnts) {
+            if (cl.lbd > 0) {
+                deletable++;
+            } else {
+                kept = true;
+            }
+        }
+        Assert.assertTrue(kept);
+        Assert.assertEquals(sat.num_deletable_, deletable);
+    }
+}
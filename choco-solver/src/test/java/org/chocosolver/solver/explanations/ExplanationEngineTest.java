@@ -29,6 +29,7 @@
  */
 package org.chocosolver.solver.explanations;
 
+import org.chocosolver.solver.ICause;
 import org.chocosolver.solver.ResolutionPolicy;
 import org.chocosolver.solver.Solver;
 import org.chocosolver.solver.constraints.Constraint;
@@ -926,6 +927,88 @@ public class ExplanationEngineTest {
         ee.explain(c);
     }
 
+    private long countLS(int m, int conf, int strat) {
+        Solver solver = new Solver();
+        IntVar[] vars = VariableFactory.enumeratedArray("c", m * m, 0, m - 1, solver);
+        for (int i = 0; i < m; i++) {
+            IntVar[] row = new IntVar[m];
+            IntVar[] col = new IntVar[m];
+            for (int x = 0; x < m; x++) {
+                row[x] = vars[i * m + x];
+                col[x] = vars[x * m + i];
+            }
+            solver.post(IntConstraintFactory.alldifferent(col, "FC"));
+            solver.post(IntConstraintFactory.alldifferent(row, "FC"));
+        }
+        switch (strat) {
+            case 0:
+                solver.set(ISF.dichotomic(ISF.lexico_var_selector(), true, vars));
+                break;
+            case 1:
+                solver.set(ISF.dichotomic(ISF.lexico_var_selector(), false, vars));
+                break;
+            case 2:
+                solver.set(ISF.custom(ISF.lexico_var_selector(), ISF.max_value_selector(), ISF.remove(), vars));
+                break;
+            case 3:
+                solver.set(ISF.custom(ISF.lexico_var_selector(), ISF.min_value_selector(), CUSTOM_EQ, vars));
+                break;
+        }
+        configure(solver, conf);
+        solver.findAllSolutions();
+        System.out.printf("%s\n", solver.getMeasures().toOneShortLineString());
+        return solver.getMeasures().getSolutionCount();
+    }
+
+    @Test(groups = "1s")
+    public void testNogoodsFromNonAssignments() {
+        // nogoods extracted from split and removal decisions are expressed with order literals
+        for (int strat = 0; strat < 3; strat++) {
+            for (int conf = 0; conf < 5; conf++) {
+                Assert.assertEquals(countLS(4, conf, strat), 576);
+            }
+        }
+    }
+
+    /**
+     * An assignment operator unknown to the nogood store
+     */
+    private static final DecisionOperator<IntVar> CUSTOM_EQ = new DecisionOperator<IntVar>() {
+
+        @Override
+        public void apply(IntVar var, int value, ICause cause) throws ContradictionException {
+            var.instantiateTo(value, cause);
+        }
+
+        @Override
+        public void unapply(IntVar var, int value, ICause cause) throws ContradictionException {
+            var.removeValue(value, cause);
+        }
+
+        @Override
+        public String toString() {
+            return " =c ";
+        }
+
+        @Override
+        public boolean isValid(IntVar var, int value) {
+            return var.contains(value);
+        }
+
+        @Override
+        public DecisionOperator opposite() {
+            return DecisionOperator.int_neq;
+        }
+    };
+
+    @Test(groups = "1s")
+    public void testNogoodsFromCustomOperator() {
+        // conflicts which depend on a custom decision are not turned into nogoods, but the search still backjumps
+        for (int conf = 0; conf < 5; conf++) {
+            Assert.assertEquals(countLS(4, conf, 3), 576);
+        }
+    }
+
     @Test(groups="1s")
     public void test111() throws ContradictionException {
         Solver solver = new Solver();
@@ -102,6 +102,53 @@ public class PropEngineTest {
         Assert.assertFalse(vars[0].isInstantiatedTo(0));
     }
 
+    @Test(groups = "1s")
+    public void testProfiler() {
+        for (boolean twoBuckets : new boolean[]{false, true}) {
+            Solver solver = ProblemMaker.makeNQueenWithBinaryConstraints(8);
+            solver.set(new Settings() {
+                @Override
+                public boolean profilePropagation() {
+                    return true;
+                }
+            });
+            solver.set(twoBuckets ? new TwoBucketPropagationEngine(solver) : new SevenQueuesPropagatorEngine(solver));
+            solver.findAllSolutions();
+            Assert.assertEquals(solver.getMeasures().getSolutionCount(), 92);
+            PropagationProfiler profiler = solver.getEngine().getProfiler();
+            Assert.assertNotNull(profiler);
+            long calls = 0, fails = 0;
+            for (Propagator p : profiler.getPropagators()) {
+                calls += profiler.getFineCalls(p) + profiler.getCoarseCalls(p);
+                fails += profiler.getFails(p);
+                Assert.assertTrue(profiler.getNoOpCalls(p) <= profiler.getFineCalls(p) + profiler.getCoarseCalls(p));
+            }
+            Assert.assertTrue(calls > 0);
+            Assert.assertTrue(fails > 0 && fails <= solver.getMeasures().getFailCount());
+            Assert.assertTrue(profiler.toJSON(true).startsWith("["));
+        }
+        Assert.assertNull(ProblemMaker.makeNQueenWithBinaryConstraints(4).getEngine().getProfiler());
+    }
+
+    @Test(groups = "1s")
+    public void testAdaptive() {
+        Solver solver = ProblemMaker.makeNQueenWithBinaryConstraints(8);
+        solver.set(PropagationEngineFactory.ADAPTIVE.make(solver));
+        solver.findAllSolutions();
+        Assert.assertEquals(solver.getMeasures().getSolutionCount(), 92);
+    }
+
+    @Test(groups = "10s")
+    public void testAdaptiveOptimization() {
+        for (PropagationEngineFactory pef : new PropagationEngineFactory[]{PropagationEngineFactory.DEFAULT, PropagationEngineFactory.ADAPTIVE}) {
+            Solver solver = ProblemMaker.makeGolombRuler(8);
+            IntVar[] ticks = (IntVar[]) solver.getHook("ticks");
+            solver.set(pef.make(solver));
+            solver.findOptimalSolution(ResolutionPolicy.MINIMIZE, ticks[ticks.length - 1]);
+            Assert.assertEquals(solver.getObjectiveManager().getBestSolutionValue().intValue(), 34);
+        }
+    }
+
     public static void main(String[] args) {
         for(int i =1; i < 15; i++) {
             System.out.printf("%d -> %d \n", i, Integer.lowestOneBit(i));
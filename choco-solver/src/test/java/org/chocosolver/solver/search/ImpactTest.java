@@ -30,13 +30,19 @@
 package org.chocosolver.solver.search;
 
 import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.ICF;
 import org.chocosolver.solver.search.loop.monitors.SMF;
 import org.chocosolver.solver.search.strategy.ISF;
+import org.chocosolver.solver.search.strategy.selectors.variables.ActivityBased;
+import org.chocosolver.solver.search.strategy.selectors.variables.ImpactBased;
 import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.VF;
 import org.chocosolver.util.ProblemMaker;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
+
 /**
  * @author Jean-Guillaume Fages
  * @since 22/04/15
@@ -58,6 +64,55 @@ public class ImpactTest {
 		Assert.assertEquals(s1.getMeasures().getSolutionCount(), s2.getMeasures().getSolutionCount());
 	}
 
+	@Test(groups = "1s")
+	public void testParallelImpacts() {
+		Solver s1 = ProblemMaker.makeCostasArrays(7);
+		Solver s2 = ProblemMaker.makeCostasArrays(7);
+		Impacts i1 = new Impacts((IntVar[]) s1.getHook("vectors"));
+		Impacts i2 = new Impacts((IntVar[]) s2.getHook("vectors"));
+		i2.setNbWorkers(4);
+		s1.set(i1);
+		s2.set(i2);
+		s1.findAllSolutions();
+		s2.findAllSolutions();
+		// impacts do not depend on the number of threads, so does the search
+		Assert.assertTrue(Arrays.deepEquals(i1.impacts(), i2.impacts()));
+		Assert.assertEquals(s1.getMeasures().getSolutionCount(), s2.getMeasures().getSolutionCount());
+		Assert.assertEquals(s1.getMeasures().getNodeCount(), s2.getMeasures().getNodeCount());
+	}
+
+	@Test(groups = "1s")
+	public void testParallelActivities() {
+		Solver solver = new Solver();
+		int n = 8;
+		IntVar[] vars = VF.enumeratedArray("Q", n, 1, n, solver);
+		for (int i = 0; i < n - 1; i++) {
+			for (int j = i + 1; j < n; j++) {
+				int k = j - i;
+				solver.post(ICF.arithm(vars[i], "!=", vars[j]));
+				solver.post(ICF.arithm(vars[i], "!=", vars[j], "+", -k));
+				solver.post(ICF.arithm(vars[i], "!=", vars[j], "+", k));
+			}
+		}
+		SMF.nogoodRecordingOnSolution(vars);
+		ActivityBased activity = new ActivityBased(solver, vars, 0.999d, 0.2d, 8, 1, 0);
+		activity.setNbWorkers(4);
+		solver.set(activity);
+		solver.findAllSolutions();
+		Assert.assertEquals(solver.getMeasures().getSolutionCount(), 92);
+	}
+
+	private static class Impacts extends ImpactBased {
+
+		Impacts(IntVar[] vars) {
+			super(vars, 2, 3, 10, 0, true);
+		}
+
+		double[][] impacts() {
+			return Ilabel;
+		}
+	}
+
 	private Solver costasArray(int n, boolean impact){
 		Solver solver = ProblemMaker.makeCostasArrays(n);
 		IntVar[] vectors = (IntVar[]) solver.getHook("vectors");
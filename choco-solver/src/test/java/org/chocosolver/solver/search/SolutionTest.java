@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.search;
+
+import org.chocosolver.solver.ResolutionPolicy;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.ICF;
+import org.chocosolver.solver.constraints.set.SCF;
+import org.chocosolver.solver.search.loop.monitors.IMonitorSolution;
+import org.chocosolver.solver.search.solution.Solution;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.SetVar;
+import org.chocosolver.solver.variables.VF;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.*;
+import java.util.Arrays;
+
+/**
+ * Created by agent on 18/10/26.
+ * Project: choco.
+ */
+public class SolutionTest {
+
+    @Test(groups = "1s")
+    public void testRecord() {
+        Solver solver = new Solver();
+        IntVar[] x = VF.enumeratedArray("x", 4, 0, 5, solver);
+        solver.post(ICF.alldifferent(x));
+        solver.post(ICF.arithm(x[0], ">", x[3]));
+        Solution solution = new Solution();
+        Assert.assertTrue(solver.findSolution());
+        solution.record(solver);
+        for (int i = 0; i < x.length; i++) {
+            Assert.assertEquals(solution.getIntVal(x[i]).intValue(), x[i].getValue());
+        }
+        Assert.assertTrue(solution.getIntVal(x[0]) > solution.getIntVal(x[3]));
+    }
+
+    @Test(groups = "1s")
+    public void testSetVal() {
+        Solver solver = new Solver();
+        SetVar s = VF.set("s", new int[]{-3, 0, 2, 7}, new int[]{-3}, solver);
+        IntVar c = VF.enumerated("c", 3, 3, solver);
+        solver.post(SCF.cardinality(s, c));
+        Solution solution = new Solution();
+        Assert.assertTrue(solver.findSolution());
+        solution.record(solver);
+        int[] expected = s.getValues();
+        int[] actual = solution.getSetVal(s);
+        Arrays.sort(expected);
+        Arrays.sort(actual);
+        Assert.assertEquals(actual, expected);
+        Assert.assertEquals(actual[0], -3);
+    }
+
+    @Test(groups = "1s")
+    public void testBinaryFormat() throws IOException {
+        Solver solver = new Solver();
+        IntVar[] x = VF.enumeratedArray("x", 6, 0, 9, solver);
+        solver.post(ICF.alldifferent(x));
+        Solution solution = new Solution();
+        Assert.assertTrue(solver.findSolution());
+        solution.record(solver);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        solution.write(new DataOutputStream(bos));
+        Solution copy = Solution.read(new DataInputStream(new ByteArrayInputStream(bos.toByteArray())));
+        Assert.assertTrue(copy.hasBeenFound());
+        Assert.assertEquals(copy.toString(solver), solution.toString(solver));
+        for (int i = 0; i < x.length; i++) {
+            Assert.assertEquals(copy.getIntVal(x[i]), solution.getIntVal(x[i]));
+        }
+    }
+
+    @Test(groups = "1s")
+    public void testDelta() throws IOException {
+        Solver solver = new Solver();
+        IntVar[] x = VF.enumeratedArray("x", 5, 0, 6, solver);
+        IntVar obj = VF.bounded("obj", 0, 30, solver);
+        solver.post(ICF.alldifferent(x));
+        solver.post(ICF.sum(x, obj));
+        Solution solution = new Solution(true);
+        Solution replay = new Solution();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(bos);
+        solver.plugMonitor((IMonitorSolution) () -> {
+            solution.record(solver);
+            Assert.assertTrue(solution.getDeltaSize() <= solver.getNbVars());
+            try {
+                solution.writeDelta(dos);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        solver.findOptimalSolution(ResolutionPolicy.MAXIMIZE, obj);
+        DataInputStream dis = new DataInputStream(new ByteArrayInputStream(bos.toByteArray()));
+        long n = solver.getMeasures().getSolutionCount();
+        for (int i = 0; i < n; i++) {
+            replay.readDelta(dis);
+        }
+        Assert.assertEquals(replay.getIntVal(obj).intValue(), 20);
+        for (int i = 0; i < x.length; i++) {
+            Assert.assertEquals(replay.getIntVal(x[i]), solution.getIntVal(x[i]));
+        }
+    }
+}
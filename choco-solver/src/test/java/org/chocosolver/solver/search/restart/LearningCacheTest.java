@@ -0,0 +1,344 @@
+/**
+ * Copyright (c) 2015, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.search.restart;
+
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import org.chocosolver.solver.ResolutionPolicy;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.ICF;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.constraints.extension.Tuples;
+import org.chocosolver.solver.exception.SolverException;
+import org.chocosolver.solver.search.limits.BacktrackCounter;
+import org.chocosolver.solver.search.loop.SLF;
+import org.chocosolver.solver.search.loop.monitors.LearningCache;
+import org.chocosolver.solver.search.loop.monitors.NogoodFromRestarts;
+import org.chocosolver.solver.search.strategy.ISF;
+import org.chocosolver.solver.search.strategy.selectors.variables.ActivityBased;
+import org.chocosolver.solver.search.strategy.selectors.variables.DomOverWDeg;
+import org.chocosolver.solver.search.strategy.strategy.LastConflict;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.VF;
+import org.chocosolver.solver.variables.Variable;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Created by agent on 18/10/26.
+ */
+public class LearningCacheTest {
+
+    private static IntVar[] pigeons(Solver solver, int n) {
+        return pigeons(solver, n, n - 1);
+    }
+
+    private static IntVar[] pigeons(Solver solver, int n, int holes) {
+        IntVar[] vars = VF.enumeratedArray("p", n, 1, holes, solver);
+        for (int i = 0; i < n - 1; i++) {
+            for (int j = i + 1; j < n; j++) {
+                solver.post(ICF.arithm(vars[i], "!=", vars[j]));
+            }
+        }
+        return vars;
+    }
+
+    private static IntVar[] queens(Solver solver, int n) {
+        IntVar[] vars = VF.enumeratedArray("q", n, 1, n, solver);
+        for (int i = 0; i < n - 1; i++) {
+            for (int j = i + 1; j < n; j++) {
+                int k = j - i;
+                solver.post(ICF.arithm(vars[i], "!=", vars[j]));
+                solver.post(ICF.arithm(vars[i], "!=", vars[j], "+", -k));
+                solver.post(ICF.arithm(vars[i], "!=", vars[j], "+", k));
+            }
+        }
+        return vars;
+    }
+
+    private static LearningCache copy(LearningCache cache) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        cache.write(new DataOutputStream(bos));
+        return LearningCache.read(new DataInputStream(new ByteArrayInputStream(bos.toByteArray())));
+    }
+
+    @Test(groups = "1s")
+    public void testNogoodsAndWeights() throws IOException {
+        Solver[] solvers = new Solver[2];
+        NogoodFromRestarts[] ngrs = new NogoodFromRestarts[2];
+        DomOverWDeg[] dwds = new DomOverWDeg[2];
+        LastConflict[] lcs = new LastConflict[2];
+        for (int s = 0; s < 2; s++) {
+            solvers[s] = new Solver();
+            IntVar[] vars = pigeons(solvers[s], 7);
+            dwds[s] = (DomOverWDeg) ISF.domOverWDeg(vars, 0);
+            lcs[s] = (LastConflict) ISF.lastKConflicts(solvers[s], 2, dwds[s]);
+            solvers[s].set(lcs[s]);
+            ngrs[s] = new NogoodFromRestarts(solvers[s]);
+            solvers[s].plugMonitor(ngrs[s]);
+            SLF.restart(solvers[s], new BacktrackCounter(solvers[s], 0), new MonotonicRestartStrategy(2), 20);
+        }
+        LearningCache cache = new LearningCache(solvers[0]);
+        cache.attach(ngrs[0], 1L);
+        Assert.assertFalse(solvers[0].findSolution());
+        Assert.assertTrue(ngrs[0].getNogoods().size() > 0);
+
+        cache.record(ngrs[0]);
+        cache.record(dwds[0]);
+        cache.record(lcs[0]);
+        cache = copy(cache);
+
+        Assert.assertTrue(cache.matches(solvers[1]));
+        Assert.assertTrue(cache.matchesStrictly(solvers[1]));
+        Assert.assertEquals(cache.restore(ngrs[1], 1L), ngrs[0].getNogoods().size());
+        Assert.assertTrue(cache.restore(dwds[1]) > 0);
+        Assert.assertEquals(cache.restore(lcs[1]), lcs[0].getConflictingVariables().length);
+        for (int c = 0; c < solvers[0].getCstrs().length; c++) {
+            Propagator[] p0 = solvers[0].getCstrs()[c].getPropagators();
+            Propagator[] p1 = solvers[1].getCstrs()[c].getPropagators();
+            for (int p = 0; p < p0.length; p++) {
+                Assert.assertEquals(dwds[1].getFails(p1[p]), dwds[0].getFails(p0[p]));
+            }
+        }
+        Variable[] c0 = lcs[0].getConflictingVariables();
+        Variable[] c1 = lcs[1].getConflictingVariables();
+        for (int i = 0; i < c0.length; i++) {
+            Assert.assertEquals(c1[i].getName(), c0[i].getName());
+            Assert.assertEquals(c1[i].getSolver(), solvers[1]);
+        }
+        // the problem has no solution, the nogoods cannot say otherwise
+        Assert.assertFalse(solvers[1].findSolution());
+    }
+
+    @Test(groups = "1s")
+    public void testActivities() throws IOException {
+        Solver[] solvers = new Solver[2];
+        ActivityBased[] abs = new ActivityBased[2];
+        IntVar[][] vars = new IntVar[2][];
+        for (int s = 0; s < 2; s++) {
+            solvers[s] = new Solver();
+            vars[s] = queens(solvers[s], 8);
+            abs[s] = new ActivityBased(solvers[s], vars[s], 0.999d, 0.2d, 8, 1, 0);
+            solvers[s].set(abs[s]);
+        }
+        Assert.assertTrue(solvers[0].findSolution());
+
+        LearningCache cache = new LearningCache(solvers[0]);
+        cache.record(abs[0]);
+        Assert.assertEquals(copy(cache).restore(abs[1]), 8);
+        for (int i = 0; i < 8; i++) {
+            TIntArrayList v0 = new TIntArrayList(), v1 = new TIntArrayList();
+            TDoubleArrayList a0 = new TDoubleArrayList(), a1 = new TDoubleArrayList();
+            Assert.assertEquals(abs[1].getActivities(vars[1][i], v1, a1), abs[0].getActivities(vars[0][i], v0, a0));
+            Assert.assertEquals(v1, v0);
+            Assert.assertEquals(a1, a0);
+        }
+        // the sampling phase is skipped: no restart after each failure
+        Assert.assertTrue(solvers[1].findSolution());
+        Assert.assertFalse(abs[1].sampling);
+        Assert.assertEquals(solvers[1].getMeasures().getRestartCount(), 0);
+    }
+
+    @Test(groups = "1s")
+    public void testFingerprint() {
+        Solver s1 = new Solver();
+        pigeons(s1, 5);
+        LearningCache cache = new LearningCache(s1);
+        Assert.assertEquals(cache.getFingerprint(), LearningCache.fingerprint(s1));
+        Solver s0 = new Solver();
+        pigeons(s0, 5);
+        Assert.assertTrue(cache.matchesStrictly(s0));
+        // domains do not matter, except for the strict fingerprint
+        Solver s2 = new Solver();
+        pigeons(s2, 5, 9);
+        Assert.assertTrue(cache.matches(s2));
+        Assert.assertFalse(cache.matchesStrictly(s2));
+        // neither do the parameters of the constraints
+        Solver s5 = new Solver();
+        IntVar[] q1 = queens(s5, 5);
+        Solver s6 = new Solver();
+        IntVar[] q2 = queens(s6, 5);
+        s5.post(ICF.arithm(q1[0], "!=", q1[1], "+", 2));
+        s6.post(ICF.arithm(q2[0], "!=", q2[1], "+", 3));
+        Assert.assertEquals(LearningCache.fingerprint(s6), LearningCache.fingerprint(s5));
+        Assert.assertNotEquals(LearningCache.strictFingerprint(s6), LearningCache.strictFingerprint(s5));
+        // constraints do
+        Solver s3 = new Solver();
+        IntVar[] vars = pigeons(s3, 5);
+        s3.post(ICF.arithm(vars[0], "!=", VF.fixed(1, s3)));
+        Assert.assertFalse(cache.matches(s3));
+        // variables too
+        Solver s4 = new Solver();
+        queens(s4, 5);
+        Assert.assertFalse(cache.matches(s4));
+    }
+
+    @Test(groups = "1s", expectedExceptions = SolverException.class)
+    public void testOtherModel() {
+        Solver s1 = new Solver();
+        pigeons(s1, 5);
+        Solver s2 = new Solver();
+        IntVar[] vars = queens(s2, 5);
+        new LearningCache(s1).restore((DomOverWDeg) ISF.domOverWDeg(vars, 0));
+    }
+
+    @Test(groups = "1s")
+    public void testNogoodsNotRestoredFromOtherData() throws IOException {
+        Solver s1 = new Solver();
+        IntVar[] vars = pigeons(s1, 7);
+        DomOverWDeg dwd = (DomOverWDeg) ISF.domOverWDeg(vars, 0);
+        s1.set(dwd);
+        NogoodFromRestarts ngr = new NogoodFromRestarts(s1);
+        s1.plugMonitor(ngr);
+        SLF.restart(s1, new BacktrackCounter(s1, 0), new MonotonicRestartStrategy(2), 20);
+        LearningCache cache = new LearningCache(s1);
+        cache.attach(ngr, 1L);
+        Assert.assertFalse(s1.findSolution());
+        cache.record(ngr);
+        cache.record(dwd);
+        cache = copy(cache);
+        // one more hole: the nogoods are not valid anymore, the weights still guide the search
+        Solver s2 = new Solver();
+        IntVar[] others = pigeons(s2, 7, 7);
+        Assert.assertTrue(cache.matches(s2));
+        Assert.assertFalse(cache.matchesStrictly(s2));
+        Assert.assertTrue(cache.restore((DomOverWDeg) ISF.domOverWDeg(others, 0)) > 0);
+        try {
+            cache.restore(new NogoodFromRestarts(s2), 1L);
+            Assert.fail();
+        } catch (SolverException e) {
+            // expected
+        }
+        Assert.assertTrue(s2.findSolution());
+    }
+
+    @Test(groups = "1s")
+    public void testNogoodsKeptOnlyWhenAttached() {
+        Solver solver = new Solver();
+        IntVar[] vars = pigeons(solver, 6);
+        solver.set(ISF.domOverWDeg(vars, 0));
+        NogoodFromRestarts ngr = new NogoodFromRestarts(solver);
+        solver.plugMonitor(ngr);
+        SLF.restart(solver, new BacktrackCounter(solver, 0), new MonotonicRestartStrategy(2), 20);
+        Assert.assertFalse(solver.findSolution());
+        Assert.assertFalse(ngr.keepsNogoods());
+        Assert.assertTrue(ngr.getNogoods().isEmpty());
+        try {
+            new LearningCache(solver).record(ngr);
+            Assert.fail();
+        } catch (SolverException e) {
+            // expected
+        }
+    }
+
+    private static Solver table(int[][] tuples) {
+        Solver solver = new Solver();
+        IntVar[] vars = pigeons(solver, 5, 5);
+        Tuples relation = new Tuples(true);
+        relation.add(tuples);
+        solver.post(ICF.table(new IntVar[]{vars[0], vars[1], vars[2]}, relation, "CT"));
+        return solver;
+    }
+
+    @Test(groups = "1s")
+    public void testNogoodsNotRestoredFromOtherTuples() {
+        Solver s1 = table(new int[][]{{1, 2, 3}, {2, 3, 4}});
+        NogoodFromRestarts ngr = new NogoodFromRestarts(s1);
+        s1.plugMonitor(ngr);
+        SLF.restart(s1, new BacktrackCounter(s1, 0), new MonotonicRestartStrategy(2), 20);
+        LearningCache cache = new LearningCache(s1);
+        cache.attach(ngr, 1L);
+        Assert.assertTrue(s1.findSolution());
+        cache.record(ngr);
+        // same number of tuples: the propagators are described the same way
+        Solver s2 = table(new int[][]{{3, 2, 1}, {4, 3, 2}});
+        Assert.assertTrue(cache.matchesStrictly(s2));
+        try {
+            cache.restore(new NogoodFromRestarts(s2), 2L);
+            Assert.fail();
+        } catch (SolverException e) {
+            // expected
+        }
+        Assert.assertTrue(s2.findSolution());
+        // the same data
+        Solver s3 = table(new int[][]{{1, 2, 3}, {2, 3, 4}});
+        Assert.assertEquals(cache.restore(new NogoodFromRestarts(s3), 1L), ngr.getNogoods().size());
+        Assert.assertTrue(s3.findSolution());
+    }
+
+    @Test(groups = "1s", expectedExceptions = SolverException.class)
+    public void testNoNogoodsFromOptimization() {
+        Solver solver = new Solver();
+        IntVar[] vars = pigeons(solver, 6, 6);
+        NogoodFromRestarts ngr = new NogoodFromRestarts(solver);
+        solver.plugMonitor(ngr);
+        SLF.restart(solver, new BacktrackCounter(solver, 0), new MonotonicRestartStrategy(2), 20);
+        LearningCache cache = new LearningCache(solver);
+        cache.attach(ngr, 1L);
+        solver.findOptimalSolution(ResolutionPolicy.MAXIMIZE, vars[0]);
+        Assert.assertTrue(solver.getMeasures().getSolutionCount() > 0);
+        // the nogoods depend on the objective bound
+        cache.record(ngr);
+    }
+
+    @Test(groups = "1s")
+    public void testLargeKeys() throws IOException {
+        // the key of the sum holds 3000 names: more than 65535 bytes
+        Solver[] solvers = new Solver[2];
+        DomOverWDeg[] dwds = new DomOverWDeg[2];
+        for (int s = 0; s < 2; s++) {
+            solvers[s] = new Solver();
+            IntVar[] vars = VF.boundedArray("a_variable_with_a_rather_long_name", 3000, 0, 1, solvers[s]);
+            solvers[s].post(ICF.sum(vars, "<=", VF.bounded("sum", 0, 10, solvers[s])));
+            dwds[s] = (DomOverWDeg) ISF.domOverWDeg(vars, 0);
+        }
+        int n = 0;
+        for (int c = 0; c < solvers[0].getCstrs().length; c++) {
+            for (Propagator p : solvers[0].getCstrs()[c].getPropagators()) {
+                dwds[0].setFails(p, 3);
+                n++;
+            }
+        }
+        LearningCache cache = new LearningCache(solvers[0]);
+        cache.record(dwds[0]);
+        Assert.assertEquals(copy(cache).restore(dwds[1]), n);
+        for (int c = 0; c < solvers[1].getCstrs().length; c++) {
+            for (Propagator p : solvers[1].getCstrs()[c].getPropagators()) {
+                Assert.assertEquals(dwds[1].getFails(p), 3);
+            }
+        }
+    }
+}
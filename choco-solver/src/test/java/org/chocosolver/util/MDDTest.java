@@ -30,7 +30,12 @@
 package org.chocosolver.util;
 
 import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.constraints.ICF;
 import org.chocosolver.solver.constraints.extension.Tuples;
+import org.chocosolver.solver.constraints.extension.TuplesFactory;
+import org.chocosolver.solver.constraints.extension.nary.PropLargeMDDC;
+import org.chocosolver.solver.search.strategy.ISF;
 import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.solver.variables.VF;
 import org.chocosolver.util.objects.graphs.MultivaluedDecisionDiagram;
@@ -38,6 +43,7 @@ import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.util.Arrays;
+import java.util.Random;
 
 /**
  * Created by cprudhom on 04/11/14.
@@ -183,4 +189,102 @@ public class MDDTest {
         }
     }
 
+    @Test(groups = "1s")
+    public void testReduced1() {
+        Solver solver = new Solver();
+        IntVar[] vars = VF.enumeratedArray("V", 3, -1, 1, solver);
+        Tuples tuples = new Tuples();
+        tuples.add(0, -1, -1);
+        tuples.add(-1, 0, -1);
+        tuples.add(1, -1, 0);
+        tuples.add(0, 0, 0);
+        tuples.add(-1, 1, 0);
+        tuples.add(1, 0, 1);
+        tuples.add(0, 1, 1);
+        tuples.add(0, 1, 1);
+        tuples.add(2, 1, 1);
+
+        MultivaluedDecisionDiagram mdd = MultivaluedDecisionDiagram.reduced(vars, tuples);
+        Assert.assertEquals(mdd.getDiagram().length, 21);
+        for (int t = 0; t < tuples.nbTuples() - 1; t++) {
+            Assert.assertTrue(mdd.exists(tuples.get(t)));
+        }
+        Assert.assertFalse(mdd.exists(2, 1, 1));
+        Assert.assertFalse(mdd.exists(1, 1, 1));
+        Assert.assertFalse(mdd.exists(-1, -1, -1));
+
+        Tuples same = new Tuples();
+        for (int t = 0; t < tuples.nbTuples(); t++) {
+            same.add(tuples.get(t));
+        }
+        Assert.assertSame(MultivaluedDecisionDiagram.reduced(vars, same), mdd);
+        Assert.assertNotSame(MultivaluedDecisionDiagram.reduced(VF.enumeratedArray("W", 3, -1, 2, solver), tuples), mdd);
+    }
+
+    @Test(groups = "1s")
+    public void testReducedReadOnly() {
+        Solver solver = new Solver();
+        IntVar[] vars = VF.enumeratedArray("V", 3, 0, 2, solver);
+        Tuples tuples = new Tuples();
+        tuples.add(0, 1, 2);
+        tuples.add(2, 1, 0);
+        MultivaluedDecisionDiagram mdd = MultivaluedDecisionDiagram.reduced(vars, tuples);
+        int[] diagram = mdd.getDiagram().clone();
+        try {
+            mdd.addTuple(new int[]{1, 1, 1});
+            Assert.fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        Tuples others = new Tuples();
+        others.add(1, 1, 1);
+        try {
+            mdd.addTuples(others);
+            Assert.fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        Assert.assertEquals(mdd.getDiagram(), diagram);
+        Assert.assertFalse(mdd.exists(1, 1, 1));
+        Assert.assertSame(MultivaluedDecisionDiagram.reduced(vars, tuples), mdd);
+    }
+
+    @Test(groups = "1s")
+    public void testReduced2() {
+        Solver solver = new Solver();
+        IntVar[] vars = VF.enumeratedArray("V", 4, 0, 2, solver);
+        MultivaluedDecisionDiagram mdd = MultivaluedDecisionDiagram.reduced(vars, new Tuples());
+        Assert.assertEquals(mdd.getDiagram(), new int[]{0, 0, 0});
+        solver.post(ICF.mddc(vars, mdd));
+        Assert.assertFalse(solver.findSolution());
+    }
+
+    @Test(groups = "10s")
+    public void testReduced3() {
+        int[][] params = {{3, 1, 3}, {5, 2, 9}, {5, -2, 3}, {7, 2, 4}};
+        Random rnd = new Random();
+        for (int p = 0; p < params.length; p++) {
+            for (long seed = 0; seed < 5; seed++) {
+                rnd.setSeed(seed);
+                Solver solver = new Solver();
+                IntVar[] vars = VF.enumeratedArray("v", params[p][0], params[p][1], params[p][2], solver);
+                Tuples tuples = TuplesFactory.generateTuples(values -> rnd.nextBoolean(), true, vars);
+                MultivaluedDecisionDiagram mdd = new MultivaluedDecisionDiagram(vars, tuples);
+                solver.post(new Constraint("mddc", new PropLargeMDDC(mdd, vars)));
+                solver.set(ISF.random_value(vars, seed));
+                long nbs = solver.findAllSolutions();
+                long nbn = solver.getMeasures().getNodeCount();
+
+                Solver rsolver = new Solver();
+                IntVar[] rvars = VF.enumeratedArray("v", params[p][0], params[p][1], params[p][2], rsolver);
+                MultivaluedDecisionDiagram reduced = MultivaluedDecisionDiagram.reduced(rvars, tuples);
+                Assert.assertTrue(reduced.getDiagram().length <= mdd.getDiagram().length);
+                rsolver.post(ICF.mddc(rvars, reduced));
+                rsolver.set(ISF.random_value(rvars, seed));
+                Assert.assertEquals(rsolver.findAllSolutions(), nbs);
+                Assert.assertEquals(rsolver.getMeasures().getNodeCount(), nbn);
+            }
+        }
+    }
+
 }
@@ -0,0 +1,151 @@
+package org.chocosolver.util.objects;
+
+import org.chocosolver.solver.ResolutionPolicy;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.IntConstraintFactory;
+import org.chocosolver.solver.search.solution.Solution;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.VariableFactory;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by agent on 18/10/26.
+ */
+public class ParetoFrontTest {
+
+    private static boolean dominates(int[] a, int[] b) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] > b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Set<String> bruteForce(List<int[]> points) {
+        Set<String> front = new HashSet<>();
+        for (int i = 0; i < points.size(); i++) {
+            boolean dominated = false;
+            for (int j = 0; j < points.size() && !dominated; j++) {
+                // among equal points, only the first one is kept
+                dominated = j != i && dominates(points.get(j), points.get(i))
+                        && (j < i || !dominates(points.get(i), points.get(j)));
+            }
+            if (!dominated) {
+                front.add(Arrays.toString(points.get(i)));
+            }
+        }
+        return front;
+    }
+
+    @Test
+    public void test_random_points() {
+        for (int dim = 2; dim <= 4; dim++) {
+            Random random = new Random(dim);
+            ParetoFront<int[]> front = new ParetoFront<>(dim);
+            List<int[]> points = new ArrayList<>();
+            for (int k = 0; k < 2000; k++) {
+                int[] point = new int[dim];
+                for (int i = 0; i < dim; i++) {
+                    point[i] = random.nextInt(100);
+                }
+                boolean dominated = false;
+                for (int[] p : points) {
+                    dominated |= dominates(p, point);
+                }
+                assertEquals(dominated, front.isDominated(point));
+                assertEquals(!dominated, front.add(point, point));
+                points.add(point);
+            }
+            Set<String> expected = bruteForce(points);
+            Set<String> actual = new HashSet<>();
+            for (int[] p : front.getElements()) {
+                actual.add(Arrays.toString(p));
+            }
+            assertEquals(expected.size(), front.size());
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void test_min_over() {
+        Random random = new Random(0);
+        ParetoFront<int[]> front = new ParetoFront<>(3);
+        List<int[]> points = new ArrayList<>();
+        for (int k = 0; k < 500; k++) {
+            int[] point = {random.nextInt(50), random.nextInt(50), random.nextInt(50)};
+            if (front.add(point, point)) {
+                points.add(point);
+            }
+        }
+        points.removeIf(p -> !front.getElements().contains(p));
+        for (int k = 0; k < 200; k++) {
+            int[] bounds = {random.nextInt(50), random.nextInt(50), random.nextInt(50)};
+            for (int d = 0; d < 3; d++) {
+                int expected = Integer.MAX_VALUE;
+                for (int[] p : points) {
+                    boolean below = true;
+                    for (int i = 0; i < 3; i++) {
+                        below &= i == d || p[i] <= bounds[i];
+                    }
+                    if (below) {
+                        expected = Math.min(expected, p[d]);
+                    }
+                }
+                assertEquals(expected, front.minOver(d, bounds));
+            }
+        }
+    }
+
+    @Test
+    public void test_solver_front() {
+        int n = 12;
+        // brute force: all (x, y, z) with x + y + z = n, objectives x * y and y * z + x, maximized
+        List<int[]> points = new ArrayList<>();
+        for (int x = 0; x <= n; x++) {
+            for (int y = 0; x + y <= n; y++) {
+                int z = n - x - y;
+                points.add(new int[]{-(x * y), -(y * z + x)});
+            }
+        }
+        Set<String> expected = new HashSet<>();
+        for (int[] p : points) {
+            boolean dominated = false;
+            for (int[] q : points) {
+                dominated |= dominates(q, p) && !dominates(p, q);
+            }
+            if (!dominated) {
+                expected.add(-p[0] + "," + -p[1]);
+            }
+        }
+
+        Solver solver = new Solver();
+        IntVar x = VariableFactory.bounded("x", 0, n, solver);
+        IntVar y = VariableFactory.bounded("y", 0, n, solver);
+        IntVar z = VariableFactory.bounded("z", 0, n, solver);
+        IntVar xy = VariableFactory.bounded("xy", 0, n * n, solver);
+        IntVar yz = VariableFactory.bounded("yz", 0, n * n, solver);
+        IntVar o1 = xy;
+        IntVar o2 = VariableFactory.bounded("o2", 0, n * n + n, solver);
+        solver.post(IntConstraintFactory.sum(new IntVar[]{x, y, z}, VariableFactory.fixed(n, solver)));
+        solver.post(IntConstraintFactory.times(x, y, xy));
+        solver.post(IntConstraintFactory.times(y, z, yz));
+        solver.post(IntConstraintFactory.sum(new IntVar[]{yz, x}, o2));
+        solver.findParetoFront(ResolutionPolicy.MAXIMIZE, o1, o2);
+
+        Set<String> actual = new HashSet<>();
+        for (Solution s : solver.getSolutionRecorder().getSolutions()) {
+            actual.add(s.getIntVal(o1) + "," + s.getIntVal(o2));
+        }
+        assertEquals(expected, actual);
+    }
+}
@@ -0,0 +1,67 @@
+package org.chocosolver.util.tools;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by agent on 18/10/26.
+ */
+public class DecisionForestTest {
+
+    private static final String FOREST = "TreeEnsembleModel classifier with 3 trees\n" +
+            "\n" +
+            "  Tree 0:\n" +
+            "    If (feature 0 <= 0.5)\n" +
+            "     If (feature 1 <= 1.5)\n" +
+            "      Predict: 0.0\n" +
+            "     Else (feature 1 > 1.5)\n" +
+            "      Predict: 1.0\n" +
+            "    Else (feature 0 > 0.5)\n" +
+            "     Predict: 2.0\n" +
+            "  Tree 1:\n" +
+            "    If (feature 1 <= 1.5)\n" +
+            "     Predict: 0.0\n" +
+            "    Else (feature 1 > 1.5)\n" +
+            "     Predict: 1.0\n" +
+            "  Tree 2:\n" +
+            "    Predict: 2.0\n";
+
+    @Test
+    public void test_parse_forest() throws IOException {
+        DecisionForest forest = DecisionForest.parse(FOREST);
+        assertEquals(3, forest.getNbTrees());
+        assertTrue(forest.isClassifier());
+    }
+
+    @Test
+    public void test_predict_majority_vote() throws IOException {
+        DecisionForest forest = DecisionForest.parse(FOREST);
+        assertEquals(0.0, forest.predict(new double[]{0., 1.}), 0.);
+        assertEquals(1.0, forest.predict(new double[]{0., 2.}), 0.);
+        assertEquals(2.0, forest.predict(new double[]{1., 2.}), 0.);
+    }
+
+    @Test
+    public void test_predict_single_tree_regressor() throws IOException {
+        DecisionForest tree = DecisionForest.parse("DecisionTreeModel regressor of depth 1 with 3 nodes\n" +
+                "  If (feature 2 <= -1.0)\n" +
+                "   Predict: 3.5\n" +
+                "  Else (feature 2 > -1.0)\n" +
+                "   Predict: 7.25\n");
+        assertFalse(tree.isClassifier());
+        assertEquals(3.5, tree.predict(new double[]{0., 0., -2.}), 0.);
+        assertEquals(7.25, tree.predict(new double[]{0., 0., 0.}), 0.);
+    }
+
+    @Test(expected = IOException.class)
+    public void test_categorical_splits_are_rejected() throws IOException {
+        DecisionForest.parse("DecisionTreeModel classifier of depth 1 with 3 nodes\n" +
+                "  If (feature 0 in {1.0,2.0})\n" +
+                "   Predict: 0.0\n" +
+                "  Else (feature 0 not in {1.0,2.0})\n" +
+                "   Predict: 1.0\n");
+    }
+}
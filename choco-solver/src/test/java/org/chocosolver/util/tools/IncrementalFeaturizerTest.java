@@ -0,0 +1,55 @@
+package org.chocosolver.util.tools;
+
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.ICF;
+import org.chocosolver.solver.search.loop.monitors.IMonitorDownBranch;
+import org.chocosolver.solver.search.strategy.ISF;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.VF;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created by agent on 18/10/26.
+ */
+public class IncrementalFeaturizerTest {
+
+    @Test
+    public void test_same_features_as_featurizer() {
+        Solver solver = new Solver();
+        IntVar[] vars = VF.enumeratedArray("X", 6, 0, 5, solver);
+        solver.post(ICF.alldifferent(vars, "AC"));
+        for (int i = 0; i < vars.length - 1; i++) {
+            solver.post(ICF.arithm(vars[i], "-", vars[i + 1], "!=", 1));
+        }
+        solver.set(ISF.random_value(vars, 0));
+
+        Featurizer featurizer = new Featurizer(solver);
+        IncrementalFeaturizer incremental = new IncrementalFeaturizer(solver);
+        int[] nodes = new int[1];
+        solver.plugMonitor(new IMonitorDownBranch() {
+            @Override
+            public void beforeDownBranch(boolean left) {
+                int mask = nodes[0]++ % 3;
+                assertArrayEquals(featurizer.getFeaturesArray(mask), incremental.getFeaturesArray(mask), 1e-9);
+            }
+        });
+        solver.findAllSolutions();
+        assertTrue(nodes[0] > 10);
+    }
+
+    @Test
+    public void test_one_featurizer_per_solver() {
+        Solver solver = new Solver();
+        VF.enumeratedArray("X", 3, 0, 2, solver);
+        IncrementalFeaturizer shared = IncrementalFeaturizer.of(solver);
+        assertSame(shared, IncrementalFeaturizer.of(solver));
+        Solver other = new Solver();
+        VF.enumeratedArray("X", 3, 0, 2, other);
+        assertNotSame(shared, IncrementalFeaturizer.of(other));
+    }
+}
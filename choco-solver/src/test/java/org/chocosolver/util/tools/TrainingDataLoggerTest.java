@@ -0,0 +1,101 @@
+package org.chocosolver.util.tools;
+
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.ICF;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.VF;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by agent on 18/10/26.
+ */
+public class TrainingDataLoggerTest {
+
+    @Test
+    public void test_records_are_written_in_rolling_segments() throws IOException {
+        Path dir = Files.createTempDirectory("training");
+        int recordBytes = 8 * 5;
+        // two records per segment
+        TrainingDataLogger logger = new TrainingDataLogger(dir.resolve("data").toString(), 2, 4, 16 + 2 * recordBytes);
+        int n = 0;
+        for (int i = 0; i < 5; i++) {
+            while (!logger.log(i, i - 1, 100L * i, i, new double[]{i, -i})) {
+                Thread.yield(); // the buffer is full
+            }
+        }
+        logger.close();
+        assertEquals(5, logger.getWritten());
+        for (int s = 0; s < 3; s++) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(dir.resolve(String.format("data-%05d.bin", s))));
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            assertEquals(TrainingDataLogger.MAGIC, buffer.getInt());
+            assertEquals(TrainingDataLogger.VERSION, buffer.getInt());
+            assertEquals(2, buffer.getInt());
+            assertEquals(recordBytes, buffer.getInt());
+            while (buffer.hasRemaining()) {
+                assertEquals(n, buffer.getInt());
+                assertEquals(n - 1, buffer.getInt());
+                assertEquals(100L * n, buffer.getLong());
+                assertEquals(n, buffer.getLong());
+                assertEquals(n, buffer.getDouble(), 0.);
+                assertEquals(-n, buffer.getDouble(), 0.);
+                n++;
+            }
+        }
+        assertEquals(5, n);
+        assertFalse(Files.exists(dir.resolve("data-00003.bin")));
+    }
+
+    @Test
+    public void test_records_are_dropped_once_closed() throws IOException {
+        Path dir = Files.createTempDirectory("training");
+        TrainingDataLogger logger = new TrainingDataLogger(dir.resolve("data").toString(), 1);
+        logger.close();
+        assertFalse(logger.log(0, -1, 0, 0, new double[]{0}));
+        assertEquals(1, logger.getDropped());
+    }
+
+    @Test
+    public void test_records_logged_while_closing_are_written_or_dropped() throws Exception {
+        Path dir = Files.createTempDirectory("training");
+        TrainingDataLogger logger = new TrainingDataLogger(dir.resolve("data").toString(), 1);
+        long[] accepted = new long[1];
+        Thread producer = new Thread(() -> {
+            while (!logger.isClosed()) {
+                if (logger.log(0, -1, 0, 0, new double[]{0})) {
+                    accepted[0]++;
+                }
+            }
+        });
+        producer.start();
+        Thread.sleep(20);
+        logger.close();
+        producer.join();
+        // a record accepted by the logger is never lost
+        assertEquals(accepted[0], logger.getWritten());
+    }
+
+    @Test
+    public void test_logger_is_shared_and_closed_with_the_search() {
+        Solver solver = new Solver();
+        IntVar[] xs = VF.enumeratedArray("x", 3, 0, 2, solver);
+        solver.post(ICF.alldifferent(xs));
+        TrainingDataLogger logger = TrainingDataLogger.of(solver, 2);
+        assertSame(logger, TrainingDataLogger.of(solver, 2));
+        assertTrue(solver.findSolution());
+        assertTrue(logger.isClosed());
+        TrainingDataLogger next = TrainingDataLogger.of(solver, 2);
+        assertNotSame(logger, next);
+        assertFalse(next.isClosed());
+        solver.findAllSolutions();
+        assertTrue(next.isClosed());
+    }
+}